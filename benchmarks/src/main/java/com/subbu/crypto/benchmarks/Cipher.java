@@ -0,0 +1,52 @@
+package com.subbu.crypto.benchmarks;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+
+/**
+ * The ciphers covered by the benchmarks.
+ */
+public enum Cipher {
+
+    CEASER {
+        public CryptoService getInstance() {
+            return CeaserCipher.getInstance();
+        }
+    },
+    ROT13 {
+        public CryptoService getInstance() {
+            return ROT13Cipher.getInstance();
+        }
+    },
+    ATBASH {
+        public CryptoService getInstance() {
+            return AtbashCipher.getInstance();
+        }
+    },
+    AFFINE {
+        public CryptoService getInstance() {
+            return AffineCipher.getInstance();
+        }
+    },
+    VIGENERE {
+        public CryptoService getInstance() {
+            return VigenereCipher.getInstance();
+        }
+    },
+    ONE_TIME_PAD {
+        public CryptoService getInstance() {
+            return OneTimePadCipher.getInstance();
+        }
+    };
+
+    /**
+     * This method returns the default instance of the cipher
+     * @return
+     */
+    public abstract CryptoService getInstance();
+}
@@ -0,0 +1,86 @@
+package com.subbu.crypto.benchmarks;
+
+import com.subbu.crypto.CryptoService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmark measures the String encryption and decryption of every cipher across payload sizes and
+ * logging levels.
+ *
+ * Besides the operations per second the benchmark reports the secondary result "bytes", the number of
+ * payload bytes processed per second, which divided by 1048576 is the throughput in MB/s. Run it with
+ * "-prof gc" for the allocation per operation (gc.alloc.rate.norm) and with "-t" for the thread count,
+ * or through CipherBenchmarkRunner which does both.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CipherBenchmark {
+
+    @Param({"CEASER", "ROT13", "ATBASH", "AFFINE", "VIGENERE", "ONE_TIME_PAD"})
+    public Cipher cipher;
+
+    @Param({"16", "1024", "65536", "1048576", "67108864"})
+    public int payloadSize;
+
+    @Param({"INFO", "DEBUG", "OFF"})
+    public String logLevel;
+
+    private CryptoService cryptoService;
+
+    private String plainText;
+
+    private String cipherText;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Logging.configure(logLevel);
+        cryptoService = cipher.getInstance();
+        plainText = Payloads.text(payloadSize);
+        cipherText = cryptoService.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String encrypt(Bytes bytes) {
+        bytes.bytes += payloadSize;
+        return cryptoService.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String decrypt(Bytes bytes) {
+        bytes.bytes += payloadSize;
+        return cryptoService.decrypt(cipherText);
+    }
+
+    /**
+     * The counter of the payload bytes processed, reported as a rate by JMH
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
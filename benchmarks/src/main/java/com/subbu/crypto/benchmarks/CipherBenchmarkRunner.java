@@ -0,0 +1,39 @@
+package com.subbu.crypto.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the CipherBenchmark with the GC profiler for 1, 2, 4 ... N threads and writes the
+ * results of every thread count to cipher-benchmark-{threads}.json.
+ *
+ * The maximum number of threads is the first argument and defaults to the number of processors.
+ */
+public class CipherBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for(int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .include(CipherBenchmark.class.getSimpleName())
+                    .addProfiler(GCProfiler.class)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("cipher-benchmark-" + threads + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * This method doubles the thread count, ending with exactly maxThreads
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if(threads == maxThreads) return maxThreads + 1;
+        return Math.min(threads * 2, maxThreads);
+    }
+}
@@ -0,0 +1,59 @@
+package com.subbu.crypto.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+
+/**
+ * This class reconfigures logback for a benchmark run.
+ *
+ * The root logger gets the level being benchmarked and an appender that formats and encodes every event
+ * with the pattern of logback.xml but discards the bytes, so the cost of logging is measured without the
+ * console swamping the benchmark output.
+ */
+public final class Logging {
+
+    private static final String PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} : [%line] - %msg%n";
+
+    private Logging() {
+    }
+
+    /**
+     * This method sets the root logger to the given level, one of INFO, DEBUG or OFF
+     * @param level
+     */
+    public static void configure(String level) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<ILoggingEvent>();
+        appender.setContext(context);
+        appender.setName("DISCARD");
+        appender.setEncoder(encoder);
+        appender.setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        appender.start();
+
+        root.addAppender(appender);
+        root.setLevel(Level.toLevel(level));
+    }
+}
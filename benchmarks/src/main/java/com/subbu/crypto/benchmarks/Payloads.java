@@ -0,0 +1,31 @@
+package com.subbu.crypto.benchmarks;
+
+import java.util.Random;
+
+/**
+ * This class generates the plaintexts used by the benchmarks.
+ */
+public final class Payloads {
+
+    /**
+     * The characters the payloads are made of, mostly letters with some spaces and punctuation
+     */
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz    .,";
+
+    private Payloads() {
+    }
+
+    /**
+     * This method returns a reproducible ASCII text of the given size
+     * @param size
+     * @return
+     */
+    public static String text(int size) {
+        Random random = new Random(size);
+        char[] text = new char[size];
+        for(int i=0;i<size;i++) {
+            text[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return String.valueOf(text);
+    }
+}
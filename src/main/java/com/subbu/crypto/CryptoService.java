@@ -1,6 +1,31 @@
 package com.subbu.crypto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
+ * The ciphers with an alphabet of letters beyond ASCII, e.g. Alphabet.LATIN_1, substitute letters of a different
+ * UTF-8 length, so their UTF-8 bytes can only be transformed once decoded. encryptBytes and decryptBytes and the
+ * streams decode them, while the methods writing the same number of bytes into a destination given by the
+ * caller, the ByteBuffer, channel, in place file and UTF-8 batch methods, throw an UnsupportedOperationException.
+ *
+ * Only encrypt(String) and decrypt(String) must be implemented, the other methods default to them, reading the
+ * whole text onto the heap. The ciphers of the library, see AbstractCryptoService, override all of them to
+ * transform the texts in bounded chunks without copying them.
+ *
  * Created by devsu04 on 20/02/17.
  */
 public interface CryptoService {
@@ -18,4 +43,289 @@ public interface CryptoService {
      * @return
      */
     public String decrypt(String cipherText);
+
+    /**
+     * This method returns the UTF-8 encrypted text given a UTF-8 plaintext, transforming the bytes directly
+     * without decoding them, or decoding them for the alphabets beyond ASCII. The result is the UTF-8 encoding
+     * of encrypt(String) for valid UTF-8 input. The default decodes the text and encrypts it as a String.
+     * @param plainText
+     * @return
+     */
+    public default byte[] encryptBytes(byte[] plainText) {
+        return encrypt(new String(plainText, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method returns the UTF-8 plaintext given a UTF-8 ciphertext, transforming the bytes directly
+     * without decoding them, or decoding them for the alphabets beyond ASCII. The result is the UTF-8 encoding
+     * of decrypt(String) for valid UTF-8 input. The default decodes the text and decrypts it as a String.
+     * @param cipherText
+     * @return
+     */
+    public default byte[] decryptBytes(byte[] cipherText) {
+        return decrypt(new String(cipherText, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method reads the plaintext from the reader and writes the encrypted text to the writer in
+     * bounded chunks. The reader and writer are not closed.
+     * The default reads the whole text and encrypts it as a String.
+     * @param plainText
+     * @param cipherText
+     * @throws IOException
+     */
+    public default void encrypt(Reader plainText, Writer cipherText) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        for(int read; (read = plainText.read(buffer)) != -1;) {
+            text.append(buffer, 0, read);
+        }
+        cipherText.write(encrypt(text.toString()));
+    }
+
+    /**
+     * This method reads the ciphertext from the reader and writes the plaintext to the writer in
+     * bounded chunks. The reader and writer are not closed.
+     * The default reads the whole text and decrypts it as a String.
+     * @param cipherText
+     * @param plainText
+     * @throws IOException
+     */
+    public default void decrypt(Reader cipherText, Writer plainText) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        for(int read; (read = cipherText.read(buffer)) != -1;) {
+            text.append(buffer, 0, read);
+        }
+        plainText.write(decrypt(text.toString()));
+    }
+
+    /**
+     * This method reads the UTF-8 plaintext from the input stream and writes the UTF-8 encrypted text to
+     * the output stream in bounded chunks. The streams are not closed.
+     * The default decodes the stream for encrypt(Reader, Writer).
+     * @param plainText
+     * @param cipherText
+     * @throws IOException
+     */
+    public default void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+        Writer writer = new OutputStreamWriter(cipherText, StandardCharsets.UTF_8);
+        encrypt(new InputStreamReader(plainText, StandardCharsets.UTF_8), writer);
+        writer.flush();
+    }
+
+    /**
+     * This method reads the UTF-8 ciphertext from the input stream and writes the UTF-8 plaintext to
+     * the output stream in bounded chunks. The streams are not closed.
+     * The default decodes the stream for decrypt(Reader, Writer).
+     * @param cipherText
+     * @param plainText
+     * @throws IOException
+     */
+    public default void decrypt(InputStream cipherText, OutputStream plainText) throws IOException {
+        Writer writer = new OutputStreamWriter(plainText, StandardCharsets.UTF_8);
+        decrypt(new InputStreamReader(cipherText, StandardCharsets.UTF_8), writer);
+        writer.flush();
+    }
+
+    /**
+     * This method reads the UTF-8 plaintext from the channel and writes the UTF-8 encrypted text to the
+     * other channel block by block through a pooled direct buffer, so the text is never copied onto the
+     * heap. The channels are not closed. The default encrypts the channels as streams.
+     * @param plainText
+     * @param cipherText
+     * @throws IOException
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void encrypt(ReadableByteChannel plainText, WritableByteChannel cipherText) throws IOException {
+        encrypt(Channels.newInputStream(plainText), Channels.newOutputStream(cipherText));
+    }
+
+    /**
+     * This method reads the UTF-8 ciphertext from the channel and writes the UTF-8 plaintext to the
+     * other channel block by block through a pooled direct buffer, so the text is never copied onto the
+     * heap. The channels are not closed. The default decrypts the channels as streams.
+     * @param cipherText
+     * @param plainText
+     * @throws IOException
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void decrypt(ReadableByteChannel cipherText, WritableByteChannel plainText) throws IOException {
+        decrypt(Channels.newInputStream(cipherText), Channels.newOutputStream(plainText));
+    }
+
+    /**
+     * This method encrypts the UTF-8 text file in place by memory mapping it window by window, the
+     * contents of the file are never copied onto the heap.
+     * The default reads the whole file and encrypts it with encryptBytes.
+     * @param file
+     * @throws IOException
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void encryptInPlace(Path file) throws IOException {
+        Files.write(file, encryptBytes(Files.readAllBytes(file)));
+    }
+
+    /**
+     * This method decrypts the UTF-8 text file in place by memory mapping it window by window, the
+     * contents of the file are never copied onto the heap.
+     * The default reads the whole file and decrypts it with decryptBytes.
+     * @param file
+     * @throws IOException
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void decryptInPlace(Path file) throws IOException {
+        Files.write(file, decryptBytes(Files.readAllBytes(file)));
+    }
+
+    /**
+     * This method encrypts len chars of src starting at srcOff into dst starting at dstOff without allocating.
+     * src and dst may be the same array to encrypt in place. The default encrypts the chars as a String.
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public default void encrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        encrypt(new String(src, srcOff, len)).getChars(0, len, dst, dstOff);
+    }
+
+    /**
+     * This method decrypts len chars of src starting at srcOff into dst starting at dstOff without allocating.
+     * src and dst may be the same array to decrypt in place. The default decrypts the chars as a String.
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public default void decrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        decrypt(new String(src, srcOff, len)).getChars(0, len, dst, dstOff);
+    }
+
+    /**
+     * This method encrypts the remaining chars of src into dst without allocating, advancing the position
+     * of both buffers. src and dst may be the same buffer to encrypt in place.
+     * The default encrypts the chars as a String.
+     * @param src
+     * @param dst
+     */
+    public default void encrypt(CharBuffer src, CharBuffer dst) {
+        String cipherText = encrypt(src.toString());
+        dst.put(cipherText);
+        src.position(src.limit());
+    }
+
+    /**
+     * This method decrypts the remaining chars of src into dst without allocating, advancing the position
+     * of both buffers. src and dst may be the same buffer to decrypt in place.
+     * The default decrypts the chars as a String.
+     * @param src
+     * @param dst
+     */
+    public default void decrypt(CharBuffer src, CharBuffer dst) {
+        String plainText = decrypt(src.toString());
+        dst.put(plainText);
+        src.position(src.limit());
+    }
+
+    /**
+     * This method encrypts the remaining UTF-8 bytes of src into dst without allocating, advancing the
+     * position of both buffers. src and dst may be the same buffer to encrypt in place.
+     * The default encrypts a copy of the bytes with encryptBytes.
+     * @param src
+     * @param dst
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void encrypt(ByteBuffer src, ByteBuffer dst) {
+        byte[] plainText = new byte[src.remaining()];
+        src.duplicate().get(plainText);
+        byte[] cipherText = encryptBytes(plainText);
+        if(cipherText.length != plainText.length) {
+            throw new UnsupportedOperationException("The cipher changes the UTF-8 length of the text and cannot be applied to the same bytes");
+        }
+        dst.put(cipherText);
+        src.position(src.limit());
+    }
+
+    /**
+     * This method decrypts the remaining UTF-8 bytes of src into dst without allocating, advancing the
+     * position of both buffers. src and dst may be the same buffer to decrypt in place.
+     * The default decrypts a copy of the bytes with decryptBytes.
+     * @param src
+     * @param dst
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void decrypt(ByteBuffer src, ByteBuffer dst) {
+        byte[] cipherText = new byte[src.remaining()];
+        src.duplicate().get(cipherText);
+        byte[] plainText = decryptBytes(cipherText);
+        if(plainText.length != cipherText.length) {
+            throw new UnsupportedOperationException("The cipher changes the UTF-8 length of the text and cannot be applied to the same bytes");
+        }
+        dst.put(plainText);
+        src.position(src.limit());
+    }
+
+    /**
+     * This method encrypts a batch of values packed one after the other into src, value i being the chars
+     * from offsets[i] to offsets[i + 1], into dst at the same offsets. The values are encrypted as if
+     * encrypt(String) were called for each of them, in a single pass over the batch.
+     * src and dst may be the same array to encrypt in place. The default encrypts the values one by one.
+     * @param src
+     * @param offsets
+     * @param dst
+     */
+    public default void encryptBatch(char[] src, int[] offsets, char[] dst) {
+        for(int i=1;i<offsets.length;i++) {
+            encrypt(src, offsets[i - 1], dst, offsets[i - 1], offsets[i] - offsets[i - 1]);
+        }
+    }
+
+    /**
+     * This method decrypts a batch of values packed one after the other into src, value i being the chars
+     * from offsets[i] to offsets[i + 1], into dst at the same offsets.
+     * src and dst may be the same array to decrypt in place. The default decrypts the values one by one.
+     * @param src
+     * @param offsets
+     * @param dst
+     */
+    public default void decryptBatch(char[] src, int[] offsets, char[] dst) {
+        for(int i=1;i<offsets.length;i++) {
+            decrypt(src, offsets[i - 1], dst, offsets[i - 1], offsets[i] - offsets[i - 1]);
+        }
+    }
+
+    /**
+     * This method encrypts a batch of UTF-8 values packed one after the other into src, value i being the
+     * bytes from offsets[i] to offsets[i + 1], into dst at the same offsets.
+     * src and dst may be the same array to encrypt in place. The default encrypts the values one by one.
+     * @param src
+     * @param offsets
+     * @param dst
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void encryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        for(int i=1;i<offsets.length;i++) {
+            int length = offsets[i] - offsets[i - 1];
+            encrypt(ByteBuffer.wrap(src, offsets[i - 1], length), ByteBuffer.wrap(dst, offsets[i - 1], length));
+        }
+    }
+
+    /**
+     * This method decrypts a batch of UTF-8 values packed one after the other into src, value i being the
+     * bytes from offsets[i] to offsets[i + 1], into dst at the same offsets.
+     * src and dst may be the same array to decrypt in place. The default decrypts the values one by one.
+     * @param src
+     * @param offsets
+     * @param dst
+     * @throws UnsupportedOperationException for the alphabets beyond ASCII
+     */
+    public default void decryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        for(int i=1;i<offsets.length;i++) {
+            int length = offsets[i] - offsets[i - 1];
+            decrypt(ByteBuffer.wrap(src, offsets[i - 1], length), ByteBuffer.wrap(dst, offsets[i - 1], length));
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package com.subbu.crypto.analysis;
+
+import com.subbu.crypto.impl.AffineCipher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class recovers the keys of the Ceaser and Affine ciphers from the letter frequencies of a ciphertext.
+ *
+ * The ciphertext is counted once into a LetterHistogram, in a single streaming pass for texts of any size,
+ * and every key is scored on the histogram alone. The count of the ciphertext letter a*p + b (mod 26) is the
+ * count the plaintext letter p would have with the key, which is compared against the count expected from
+ * the English letter frequencies with the chi-squared statistic. Scoring a key is 26 steps however long the
+ * text, and the 26 Ceaser shifts and the 312 Affine keys are scored in parallel.
+ */
+public final class FrequencyAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrequencyAnalyzer.class);
+
+    /**
+     * The frequencies of the letters of English texts, 'a' to 'z'
+     */
+    static final double[] ENGLISH_FREQUENCIES = {
+            0.08167, 0.01492, 0.02782, 0.04253, 0.12702, 0.02228, 0.02015, 0.06094, 0.06966, 0.00153,
+            0.00772, 0.04025, 0.02406, 0.06749, 0.07507, 0.01929, 0.00095, 0.05987, 0.06327, 0.09056,
+            0.02758, 0.00978, 0.02360, 0.00150, 0.01974, 0.00074
+    };
+
+    private static final int ALPHABET_SIZE = LetterHistogram.ALPHABET_SIZE;
+
+    private FrequencyAnalyzer() {
+    }
+
+    /**
+     * This method returns the top Ceaser keys of the ciphertext of the histogram, best first
+     * @param histogram
+     * @param top
+     * @return
+     */
+    public static List<KeyCandidate> rankCeaser(LetterHistogram histogram, int top) {
+        return rank(histogram, new int[]{1}, top);
+    }
+
+    /**
+     * This method returns the top Affine keys of the ciphertext of the histogram, best first
+     * @param histogram
+     * @param top
+     * @return
+     */
+    public static List<KeyCandidate> rankAffine(LetterHistogram histogram, int top) {
+        return rank(histogram, AffineCipher.getKeyAValues(), top);
+    }
+
+    /**
+     * This method returns the chi-squared score of the Affine key for the ciphertext of the histogram
+     * @param histogram
+     * @param keyA
+     * @param keyB
+     * @return
+     */
+    public static double chiSquared(LetterHistogram histogram, int keyA, int keyB) {
+        return chiSquared(histogram.getCounts(), 0, keyA, keyB);
+    }
+
+    /**
+     * This is a utility method that returns the chi-squared score of the Affine key for the 26 letter counts
+     * of the array starting at off
+     */
+    static double chiSquared(long[] counts, int off, int keyA, int keyB) {
+        double total = 0;
+        for(int i=0;i<ALPHABET_SIZE;i++) {
+            total += counts[off + i];
+        }
+        if(total == 0) return 0;
+        double chiSquared = 0;
+        for(int p=0;p<ALPHABET_SIZE;p++) {
+            double expected = total * ENGLISH_FREQUENCIES[p];
+            double difference = counts[off + (keyA * p + keyB) % ALPHABET_SIZE] - expected;
+            chiSquared += difference * difference / expected;
+        }
+        return chiSquared;
+    }
+
+    /**
+     * This is a utility method that scores every key with one of the multipliers in parallel
+     */
+    private static List<KeyCandidate> rank(LetterHistogram histogram, int[] keyAValues, int top) {
+        if(top < 1) throw new IllegalArgumentException("The number of candidates must be positive - " + top);
+        logger.debug("Scoring {} keys on {} letters", keyAValues.length * ALPHABET_SIZE, histogram.getTotal());
+        List<KeyCandidate> candidates = IntStream.range(0, keyAValues.length * ALPHABET_SIZE).parallel()
+                .mapToObj(key -> {
+                    int keyA = keyAValues[key / ALPHABET_SIZE];
+                    int keyB = key % ALPHABET_SIZE;
+                    return new KeyCandidate(keyA, keyB, chiSquared(histogram, keyA, keyB));
+                })
+                .sorted(Comparator.comparingDouble(KeyCandidate::getChiSquared))
+                .limit(top)
+                .collect(Collectors.toList());
+        return new ArrayList<KeyCandidate>(candidates);
+    }
+}
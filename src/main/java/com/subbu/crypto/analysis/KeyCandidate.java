@@ -0,0 +1,107 @@
+package com.subbu.crypto.analysis;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.utils.SubstitutionTable;
+
+/**
+ * This class holds a key recovered by the FrequencyAnalyzer for the Affine cipher, c = a*p + b (mod 26),
+ * together with its chi-squared score against the English letter frequencies, the lower the better.
+ *
+ * A Ceaser key is an Affine key with keyA 1 and keyB the shift size, so the plaintext of a Ceaser candidate
+ * is the one of CeaserCipher.getInstance(getShiftSize()).
+ */
+public final class KeyCandidate {
+
+    private final int keyA;
+
+    private final int keyB;
+
+    private final double chiSquared;
+
+    /**
+     * The substitution table of the key, built when it is first used
+     */
+    private SubstitutionTable table;
+
+    /**
+     * The constructor accepting the key and its score
+     * @param keyA
+     * @param keyB
+     * @param chiSquared
+     */
+    KeyCandidate(int keyA, int keyB, double chiSquared) {
+        this.keyA = keyA;
+        this.keyB = keyB;
+        this.chiSquared = chiSquared;
+    }
+
+    /**
+     * This method returns the multiplier of the key
+     * @return
+     */
+    public int getKeyA() {
+        return keyA;
+    }
+
+    /**
+     * This method returns the offset of the key
+     * @return
+     */
+    public int getKeyB() {
+        return keyB;
+    }
+
+    /**
+     * This method returns the shift size of a Ceaser key
+     * @return
+     */
+    public int getShiftSize() {
+        if(keyA != 1) throw new IllegalStateException("Not a Ceaser key - " + this);
+        return keyB;
+    }
+
+    /**
+     * This method returns the chi-squared score of the key
+     * @return
+     */
+    public double getChiSquared() {
+        return chiSquared;
+    }
+
+    /**
+     * This method returns the plaintext of a ciphertext with the key
+     * @param cipherText
+     * @return
+     */
+    public String decrypt(String cipherText) {
+        char[] _cipherText = cipherText.toCharArray();
+        getTable().decrypt(_cipherText, 0, _cipherText, 0, _cipherText.length);
+        return String.valueOf(_cipherText);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyCandidate{keyA=" + keyA + ", keyB=" + keyB + ", chiSquared=" + chiSquared + "}";
+    }
+
+    /**
+     * This is a utility method that returns the substitution table of the key
+     */
+    private SubstitutionTable getTable() {
+        SubstitutionTable _table = table;
+        if(_table == null) {
+            int inverse = AffineCipher.getInverseOfKeyA(keyA);
+            _table = SubstitutionTable.of(_char -> map(_char, keyA, keyB), _char -> map(_char, inverse, (LetterHistogram.ALPHABET_SIZE - keyB) * inverse));
+            table = _table;
+        }
+        return _table;
+    }
+
+    /**
+     * This is a utility method that maps a letter to a * letter + b within its case
+     */
+    private static char map(char _char, int a, int b) {
+        char base = _char >= 'a' ? 'a' : 'A';
+        return (char) (base + (a * (_char - base) + b) % LetterHistogram.ALPHABET_SIZE);
+    }
+}
@@ -0,0 +1,173 @@
+package com.subbu.crypto.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class counts the ASCII letters of a text, case folded, for the frequency analysis of the ciphertexts
+ * of the monoalphabetic ciphers, see FrequencyAnalyzer.
+ *
+ * Every other char is ignored, so a UTF-8 text can be counted straight from its bytes, and a text of any
+ * size is counted in a single streaming pass holding nothing but the 26 counts. The histogram is not
+ * thread safe, the histograms of the parts of a text counted concurrently can be merged.
+ */
+public final class LetterHistogram {
+
+    /**
+     * The number of bytes read at a time from the streams
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    public static final int ALPHABET_SIZE = 26;
+
+    private final long[] counts = new long[ALPHABET_SIZE];
+
+    private long total;
+
+    /**
+     * This method returns the histogram of a text
+     * @param text
+     * @return
+     */
+    public static LetterHistogram of(CharSequence text) {
+        LetterHistogram histogram = new LetterHistogram();
+        histogram.add(text);
+        return histogram;
+    }
+
+    /**
+     * This method returns the histogram of a UTF-8 (or any ASCII compatible) stream, reading it to the end
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static LetterHistogram of(InputStream in) throws IOException {
+        LetterHistogram histogram = new LetterHistogram();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while((count = in.read(buffer)) >= 0) {
+            histogram.add(buffer, 0, count);
+        }
+        return histogram;
+    }
+
+    /**
+     * This method returns the histogram of the chars of a reader, reading it to the end
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static LetterHistogram of(Reader in) throws IOException {
+        LetterHistogram histogram = new LetterHistogram();
+        char[] buffer = new char[BUFFER_SIZE / 2];
+        int count;
+        while((count = in.read(buffer)) >= 0) {
+            histogram.add(buffer, 0, count);
+        }
+        return histogram;
+    }
+
+    /**
+     * This method returns the histogram of a UTF-8 file
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static LetterHistogram of(Path file) throws IOException {
+        try(InputStream in = Files.newInputStream(file)) {
+            return of(in);
+        }
+    }
+
+    /**
+     * This method counts the letters of a text
+     * @param text
+     */
+    public void add(CharSequence text) {
+        for(int i=0;i<text.length();i++) {
+            add(text.charAt(i));
+        }
+    }
+
+    /**
+     * This method counts the letters of len chars of the array starting at off
+     * @param chars
+     * @param off
+     * @param len
+     */
+    public void add(char[] chars, int off, int len) {
+        for(int i=0;i<len;i++) {
+            add(chars[off + i]);
+        }
+    }
+
+    /**
+     * This method counts the letters of len UTF-8 bytes of the array starting at off, every byte value is
+     * counted first so that the loop has no branch
+     * @param bytes
+     * @param off
+     * @param len
+     */
+    public void add(byte[] bytes, int off, int len) {
+        int[] byteCounts = new int[256];
+        for(int i=0;i<len;i++) {
+            byteCounts[bytes[off + i] & 0xFF]++;
+        }
+        for(int i=0;i<ALPHABET_SIZE;i++) {
+            long count = byteCounts['a' + i] + byteCounts['A' + i];
+            counts[i] += count;
+            total += count;
+        }
+    }
+
+    /**
+     * This method adds the counts of another histogram, e.g. one of another part of the text
+     * @param histogram
+     */
+    public void merge(LetterHistogram histogram) {
+        for(int i=0;i<ALPHABET_SIZE;i++) {
+            counts[i] += histogram.counts[i];
+        }
+        total += histogram.total;
+    }
+
+    /**
+     * This method returns the number of times the letter at the given position of the alphabet was counted
+     * @param pos
+     * @return
+     */
+    public long getCount(int pos) {
+        return counts[pos];
+    }
+
+    /**
+     * This is a utility method that returns the counts without copying them
+     */
+    long[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * This method returns the number of letters counted
+     * @return
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * This is a utility method that counts a single char
+     */
+    private void add(char _char) {
+        if(_char >= 'a' && _char <= 'z') {
+            counts[_char - 'a']++;
+            total++;
+        } else if(_char >= 'A' && _char <= 'Z') {
+            counts[_char - 'A']++;
+            total++;
+        }
+    }
+}
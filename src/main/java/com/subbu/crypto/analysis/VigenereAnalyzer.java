@@ -0,0 +1,587 @@
+package com.subbu.crypto.analysis;
+
+import com.subbu.crypto.utils.CryptoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * This class recovers the keys of the Vigenere cipher from its ciphertexts.
+ *
+ * The key position of the Vigenere cipher advances once for every char, so the chars at the positions
+ * p, p + n, p + 2n, ... of a ciphertext encrypted with a key of n chars are all shifted by the same char of
+ * the key. For every period up to the maximum the letters are counted per column (position modulo the
+ * period), the columns of the right period and its multiples having the index of coincidence of English,
+ * the others the lower one of random letters. The distances between repeated trigrams (Kasiski examination)
+ * are counted as well, the right period dividing more of them than a random one.
+ * Once the period is known every column is a Ceaser cipher, solved with the FrequencyAnalyzer.
+ *
+ * The counts are held in flat arrays of primitives, see Counts, the letters can be added incrementally as the text is
+ * streamed, and of(InputStream, ...) counts the chunks of a stream concurrently on a ForkJoinPool, every
+ * chunk counted at its position 0 and its columns rotated to its actual position when it is merged. The
+ * recovered keys can be passed to VigenereCipher.getInstance(String). The analyzer is not thread safe.
+ */
+public final class VigenereAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(VigenereAnalyzer.class);
+
+    /**
+     * The default longest key looked for
+     */
+    public static final int DEFAULT_MAX_PERIOD = 32;
+
+    /**
+     * The default number of bytes of a stream counted by a task
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int ALPHABET_SIZE = LetterHistogram.ALPHABET_SIZE;
+
+    /**
+     * The distances between repeated trigrams counted by the Kasiski examination are below this
+     */
+    private static final int MAX_DISTANCE = 1 << 16;
+
+    private static final double ENGLISH_IC = 0.0667;
+
+    private static final double RANDOM_IC = 1.0 / ALPHABET_SIZE;
+
+    /**
+     * The fraction of the score of a period its divisor needs to be preferred, as the multiples of the
+     * period of the key score as high as the period itself
+     */
+    private static final double DIVISOR_PREFERENCE = 0.9;
+
+    private final int maxPeriod;
+
+    /**
+     * The letter counts of every column of every period, see Counts
+     */
+    private final long[] counts;
+
+    /**
+     * The number of repeated trigrams at every distance below MAX_DISTANCE
+     */
+    private final long[] distances = new long[MAX_DISTANCE];
+
+    /**
+     * The number of chars merged
+     */
+    private long position;
+
+    /**
+     * The counts of the chars added since the last merge
+     */
+    private Counts pending;
+
+    /**
+     * The constructor looking for keys of up to maxPeriod chars
+     * @param maxPeriod
+     */
+    public VigenereAnalyzer(int maxPeriod) {
+        if(maxPeriod < 1) throw new IllegalArgumentException("The maximum period must be positive - " + maxPeriod);
+        this.maxPeriod = maxPeriod;
+        this.counts = new long[Counts.offset(maxPeriod + 1)];
+        this.pending = new Counts(maxPeriod);
+    }
+
+    /**
+     * This method returns the analyzer of a UTF-8 stream read to the end, counted concurrently on the
+     * common pool
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static VigenereAnalyzer of(InputStream in) throws IOException {
+        return of(in, DEFAULT_MAX_PERIOD, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * This method returns the analyzer of a UTF-8 file
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static VigenereAnalyzer of(Path file) throws IOException {
+        try(InputStream in = Files.newInputStream(file)) {
+            return of(in);
+        }
+    }
+
+    /**
+     * This method returns the analyzer of a UTF-8 stream read to the end, the chunks of chunkSize bytes are
+     * counted concurrently on the pool while the next ones are read, twice as many as the parallelism of
+     * the pool at most
+     * @param in
+     * @param maxPeriod
+     * @param pool
+     * @param chunkSize
+     * @return
+     * @throws IOException
+     */
+    public static VigenereAnalyzer of(InputStream in, int maxPeriod, ForkJoinPool pool, int chunkSize) throws IOException {
+        if(chunkSize < 1) throw new IllegalArgumentException("The chunk size must be positive - " + chunkSize);
+        VigenereAnalyzer analyzer = new VigenereAnalyzer(maxPeriod);
+        Deque<ForkJoinTask<Counts>> tasks = new ArrayDeque<ForkJoinTask<Counts>>();
+        int window = Math.max(2, pool.getParallelism() * 2);
+        try {
+            while(true) {
+                byte[] chunk = new byte[chunkSize];
+                int length = readFully(in, chunk);
+                if(length == 0) break;
+                tasks.add(pool.submit(() -> {
+                    Counts _counts = new Counts(maxPeriod);
+                    _counts.add(chunk, 0, length);
+                    _counts.countBlock();
+                    return _counts;
+                }));
+                if(tasks.size() >= window) analyzer.merge(tasks.remove().join());
+                if(length < chunkSize) break;
+            }
+            while(!tasks.isEmpty()) {
+                analyzer.merge(tasks.remove().join());
+            }
+        } finally {
+            for(ForkJoinTask<Counts> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        logger.debug("Counted {} chars in chunks of {} bytes", analyzer.position, chunkSize);
+        return analyzer;
+    }
+
+    /**
+     * This method adds the chars of the text following the ones added before
+     * @param text
+     */
+    public void add(CharSequence text) {
+        for(int i=0;i<text.length();i++) {
+            pending.add(text.charAt(i));
+        }
+        flushIfLarge();
+    }
+
+    /**
+     * This method adds len chars of the array starting at off
+     * @param chars
+     * @param off
+     * @param len
+     */
+    public void add(char[] chars, int off, int len) {
+        for(int i=0;i<len;i++) {
+            pending.add(chars[off + i]);
+        }
+        flushIfLarge();
+    }
+
+    /**
+     * This method adds len UTF-8 bytes of the array starting at off, a char may be split across the calls
+     * @param bytes
+     * @param off
+     * @param len
+     */
+    public void add(byte[] bytes, int off, int len) {
+        pending.add(bytes, off, len);
+        flushIfLarge();
+    }
+
+    /**
+     * This method returns the number of chars added
+     * @return
+     */
+    public long getCharCount() {
+        return position + pending.chars + pending.codeCount;
+    }
+
+    /**
+     * This method returns the average index of coincidence of the columns of the period, about 0.067 for
+     * the period of the key and its multiples and about 0.038 for the others
+     * @param period
+     * @return
+     */
+    public double getIndexOfCoincidence(int period) {
+        checkPeriod(period);
+        flush();
+        double sum = 0;
+        for(int column=0;column<period;column++) {
+            int off = Counts.offset(period) + column * ALPHABET_SIZE;
+            long total = 0;
+            long pairs = 0;
+            for(int i=0;i<ALPHABET_SIZE;i++) {
+                total += counts[off + i];
+                pairs += counts[off + i] * (counts[off + i] - 1);
+            }
+            if(total > 1) sum += (double) pairs / (total * (total - 1));
+        }
+        return sum / period;
+    }
+
+    /**
+     * This method returns the share of the distances between repeated trigrams divisible by the period,
+     * relative to the share 1 / period expected of random distances
+     * @param period
+     * @return
+     */
+    public double getKasiskiRatio(int period) {
+        checkPeriod(period);
+        flush();
+        long total = 0;
+        long divisible = 0;
+        for(int distance=1;distance<MAX_DISTANCE;distance++) {
+            total += distances[distance];
+            if(distance % period == 0) divisible += distances[distance];
+        }
+        return total == 0 ? 0 : (double) divisible * period / total;
+    }
+
+    /**
+     * This method returns the most likely periods of the key, best first, the multiples of a period which
+     * score about as high as the period itself are left out
+     * @param top
+     * @return
+     */
+    public List<Integer> getPeriods(int top) {
+        if(top < 1) throw new IllegalArgumentException("The number of candidates must be positive - " + top);
+        double[] scores = new double[maxPeriod + 1];
+        Integer[] periods = new Integer[maxPeriod];
+        for(int period=1;period<=maxPeriod;period++) {
+            scores[period] = score(period);
+            periods[period - 1] = period;
+        }
+        Arrays.sort(periods, (a, b) -> Double.compare(scores[b], scores[a]));
+        List<Integer> candidates = new ArrayList<Integer>();
+        for(Integer period : periods) {
+            if(candidates.size() == top) break;
+            if(!hasBetterDivisor(period, scores)) candidates.add(period);
+        }
+        return candidates;
+    }
+
+    /**
+     * This method returns the key of the period, the char of every column being the shift of the Ceaser
+     * cipher with the best chi-squared score for the letters of the column
+     * @param period
+     * @return
+     */
+    public String recoverKey(int period) {
+        checkPeriod(period);
+        flush();
+        int off = Counts.offset(period);
+        char[] key = new char[period];
+        IntStream.range(0, period).parallel().forEach(column -> {
+            int best = 0;
+            double bestScore = Double.MAX_VALUE;
+            for(int shift=0;shift<ALPHABET_SIZE;shift++) {
+                double score = FrequencyAnalyzer.chiSquared(counts, off + column * ALPHABET_SIZE, 1, shift);
+                if(score < bestScore) {
+                    bestScore = score;
+                    best = shift;
+                }
+            }
+            key[column] = (char) ('a' + best);
+        });
+        return String.valueOf(key);
+    }
+
+    /**
+     * This method returns the keys of the most likely periods, best first
+     * @param top
+     * @return
+     */
+    public List<String> recoverKeys(int top) {
+        List<String> keys = new ArrayList<String>();
+        for(int period : getPeriods(top)) {
+            keys.add(recoverKey(period));
+        }
+        return keys;
+    }
+
+    /**
+     * This is a utility method that returns the score of a period, the index of coincidence scaled from
+     * random (0) to English (1), raised by up to 20% when the period divides more of the trigram distances
+     * than a random one would
+     */
+    private double score(int period) {
+        double ic = (getIndexOfCoincidence(period) - RANDOM_IC) / (ENGLISH_IC - RANDOM_IC);
+        double excess = Math.min(Math.max(getKasiskiRatio(period) - 1, 0), 2);
+        return ic * (1 + 0.1 * excess);
+    }
+
+    /**
+     * This is a utility method that returns whether a divisor of the period scores about as high
+     */
+    private static boolean hasBetterDivisor(int period, double[] scores) {
+        for(int divisor=1;divisor<period;divisor++) {
+            if(period % divisor == 0 && scores[divisor] >= DIVISOR_PREFERENCE * scores[period]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * This is a utility method that merges the counts of the chars following the ones merged, the columns
+     * of the counts are rotated by the position of their first char
+     */
+    private void merge(Counts _counts) {
+        _counts.addTo(counts, position);
+        for(int i=0;i<MAX_DISTANCE;i++) {
+            distances[i] += _counts.distances[i];
+        }
+        position += _counts.chars;
+    }
+
+    /**
+     * This is a utility method that merges the chars added since the last merge
+     */
+    private void flush() {
+        if(pending.chars == 0 && pending.codeCount == 0) return;
+        merge(pending);
+        pending = new Counts(maxPeriod);
+    }
+
+    /**
+     * This is a utility method that merges the chars added once they are many, so that the int counts of
+     * the pending chars cannot overflow
+     */
+    private void flushIfLarge() {
+        if(pending.chars > Integer.MAX_VALUE / 2) flush();
+    }
+
+    /**
+     * This is a utility method that validates a period
+     */
+    private void checkPeriod(int period) {
+        if(period < 1 || period > maxPeriod) {
+            throw new IllegalArgumentException("The period must be between 1 and " + maxPeriod + " - " + period);
+        }
+    }
+
+    /**
+     * This is a utility method that reads the stream until the array is full or the stream ends
+     */
+    private static int readFully(InputStream in, byte[] bytes) throws IOException {
+        int length = 0;
+        int count;
+        while(length < bytes.length && (count = in.read(bytes, length, bytes.length - length)) >= 0) {
+            length += count;
+        }
+        return length;
+    }
+
+    /**
+     * The counts of a run of chars starting at position 0.
+     *
+     * The letters are not counted for every period but for the positions modulo a few moduli, every period
+     * dividing one of them, e.g. the counts modulo 480 give the columns of the periods 1 to 6, 8, 10, 12, 15,
+     * 16, 20, 24, 30 and 32 once the residues of every column are added up. The letters are first turned into
+     * codes, 0 to 25 for the letters and 26 for the other chars, a block at a time, and the codes of a block
+     * are then counted in one tight loop per modulus, every residue having 27 counts so that the loop has no
+     * branch. The distances between the repeated trigrams are counted as they are, which periods divide
+     * them is only worked out when the counts are read.
+     */
+    private static final class Counts {
+
+        private static final int BLOCK_SIZE = 16 * 1024;
+
+        private static final int CODES = ALPHABET_SIZE + 1;
+
+        /**
+         * The largest modulus, so that the counts of the moduli stay in the cache
+         */
+        private static final int MAX_MODULUS = 512;
+
+        private final int maxPeriod;
+
+        private final int[] moduli;
+
+        /**
+         * The counts of the codes of the residues of every modulus, one after the other
+         */
+        private final int[] counts;
+
+        private final long[] distances = new long[MAX_DISTANCE];
+
+        /**
+         * The residue of the next block for every modulus
+         */
+        private final int[] residues;
+
+        private final byte[] codes = new byte[BLOCK_SIZE];
+
+        private int codeCount;
+
+        /**
+         * The position after the last occurrence of every trigram, 0 if it did not occur
+         */
+        private final long[] lastSeen = new long[ALPHABET_SIZE * ALPHABET_SIZE * ALPHABET_SIZE];
+
+        /**
+         * The last two letters and the number of letters in a row
+         */
+        private int previous;
+
+        private int beforePrevious;
+
+        private int run;
+
+        private long chars;
+
+        Counts(int maxPeriod) {
+            this.maxPeriod = maxPeriod;
+            this.moduli = moduli(maxPeriod);
+            int size = 0;
+            for(int modulus : moduli) {
+                size += CODES * modulus;
+            }
+            this.counts = new int[size];
+            this.residues = new int[moduli.length];
+        }
+
+        /**
+         * This method returns moduli which every period up to maxPeriod divides, picking the modulus up
+         * to MAX_MODULUS dividing most of the periods left, starting from the longest period left
+         */
+        static int[] moduli(int maxPeriod) {
+            boolean[] covered = new boolean[maxPeriod + 1];
+            List<Integer> moduli = new ArrayList<Integer>();
+            for(int period=maxPeriod;period>=1;period--) {
+                if(covered[period]) continue;
+                int best = period;
+                int bestCount = 0;
+                for(int modulus=period;modulus<=Math.max(period, MAX_MODULUS);modulus+=period) {
+                    int count = 0;
+                    for(int i=1;i<=period;i++) {
+                        if(!covered[i] && modulus % i == 0) count++;
+                    }
+                    if(count > bestCount) {
+                        best = modulus;
+                        bestCount = count;
+                    }
+                }
+                for(int i=1;i<=maxPeriod;i++) {
+                    if(best % i == 0) covered[i] = true;
+                }
+                moduli.add(best);
+            }
+            int[] _moduli = new int[moduli.size()];
+            for(int i=0;i<_moduli.length;i++) {
+                _moduli[i] = moduli.get(i);
+            }
+            return _moduli;
+        }
+
+        /**
+         * This method returns the offset of the counts of the period in the arrays of 26 counts per column
+         */
+        static int offset(int period) {
+            return ALPHABET_SIZE * (period * (period - 1) / 2);
+        }
+
+        void add(char _char) {
+            if(_char >= 'a' && _char <= 'z') {
+                letter(_char - 'a');
+            } else if(_char >= 'A' && _char <= 'Z') {
+                letter(_char - 'A');
+            } else {
+                other();
+            }
+        }
+
+        void add(byte[] bytes, int off, int len) {
+            for(int i=0;i<len;i++) {
+                byte _byte = bytes[off + i];
+                if(_byte >= 0) {
+                    add((char) _byte);
+                } else {
+                    for(int count=CryptoUtils.getUtf8CharCount(_byte);count>0;count--) {
+                        other();
+                    }
+                    run = 0;
+                }
+            }
+        }
+
+        /**
+         * This method adds the letter counts of the columns to the array of 26 counts per column, the
+         * columns rotated by the given position
+         */
+        void addTo(long[] _counts, long position) {
+            countBlock();
+            for(int period=1;period<=maxPeriod;period++) {
+                int from = 0;
+                int k = 0;
+                while(moduli[k] % period != 0) {
+                    from += CODES * moduli[k++];
+                }
+                int to = offset(period);
+                int rotation = (int) (position % period);
+                for(int residue=0;residue<moduli[k];residue++) {
+                    int target = to + ((residue + rotation) % period) * ALPHABET_SIZE;
+                    for(int i=0;i<ALPHABET_SIZE;i++) {
+                        _counts[target + i] += counts[from + residue * CODES + i];
+                    }
+                }
+            }
+        }
+
+        /**
+         * This is a utility method that records a letter and the distance to the last occurrence of the
+         * trigram it ends
+         */
+        private void letter(int letter) {
+            if(run >= 2) {
+                int trigram = (beforePrevious * ALPHABET_SIZE + previous) * ALPHABET_SIZE + letter;
+                long last = lastSeen[trigram];
+                long position = chars + codeCount + 1;
+                if(last > 0 && position - last < MAX_DISTANCE) distances[(int) (position - last)]++;
+                lastSeen[trigram] = position;
+            }
+            beforePrevious = previous;
+            previous = letter;
+            run++;
+            code(letter);
+        }
+
+        private void other() {
+            run = 0;
+            code(ALPHABET_SIZE);
+        }
+
+        private void code(int code) {
+            codes[codeCount++] = (byte) code;
+            if(codeCount == BLOCK_SIZE) countBlock();
+        }
+
+        /**
+         * This is a utility method that counts the codes of the block for every modulus
+         */
+        private void countBlock() {
+            int[] _counts = counts;
+            int base = 0;
+            for(int k=0;k<moduli.length;k++) {
+                int limit = CODES * moduli[k];
+                int residue = residues[k] * CODES;
+                for(int i=0;i<codeCount;i++) {
+                    _counts[base + residue + codes[i]]++;
+                    residue += CODES;
+                    if(residue == limit) residue = 0;
+                }
+                residues[k] = residue / CODES;
+                base += limit;
+            }
+            chars += codeCount;
+            codeCount = 0;
+        }
+    }
+}
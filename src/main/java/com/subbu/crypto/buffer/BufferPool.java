@@ -0,0 +1,504 @@
+package com.subbu.crypto.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a pool of direct ByteBuffers reused across the encryption of large texts, so that a sustained
+ * stream of large jobs neither allocates a payload sized array on the heap per call nor waits on the GC to
+ * free direct memory.
+ *
+ * The buffers come in size classes, the powers of 2 from MIN_BUFFER_SIZE to the maximum buffer size, and a
+ * request is served by the smallest class that fits. A released buffer goes to the cache of the releasing
+ * thread when its class is small, it was acquired by the same thread and the cache has room, and otherwise to
+ * the free list of its class shared by all the threads, a lock-free (Treiber) stack, so acquiring and releasing
+ * never block. The buffers handed from the threads acquiring them to other threads releasing them, e.g. from
+ * the readers to the writers of the DirectoryProcessor, go through the free lists. The buffers larger than the
+ * largest class are allocated for every request and dropped on their release.
+ *
+ * The limits are the maximum buffer size, the bytes kept idle in the free lists and the caches of the threads,
+ * past which the buffers released are dropped, and the direct memory of all the buffers of the pool in use or
+ * idle, past which acquire throws an IllegalStateException once the idle buffers have been dropped. The caches
+ * of the threads which have died are returned to the free lists every RECLAIM_INTERVAL thread caches created
+ * or overflowed, and when the memory runs out.
+ *
+ * The leak detection, enabled by default when the logger of the class is at DEBUG or with the system property
+ * LEAK_DETECTION_PROPERTY, records where every buffer was acquired and logs the buffers which were garbage
+ * collected without being released.
+ */
+public final class BufferPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferPool.class);
+
+    /**
+     * The system property enabling the leak detection of the default pool
+     */
+    public static final String LEAK_DETECTION_PROPERTY = "com.subbu.crypto.bufferLeakDetection";
+
+    /**
+     * The size of the smallest class
+     */
+    public static final int MIN_BUFFER_SIZE = 4096;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+
+    /**
+     * The largest class cached by the threads, the larger buffers go straight to the free lists
+     */
+    private static final int THREAD_CACHE_MAX_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * The number of thread caches created or overflowed between two reclamations of the caches of the dead threads
+     */
+    private static final int RECLAIM_INTERVAL = 64;
+
+    private static final BufferPool INSTANCE = builder().build();
+
+    private final int maxBufferSize;
+
+    private final long maxPooledBytes;
+
+    private final long maxAllocatedBytes;
+
+    private final int threadCacheSize;
+
+    private final boolean leakDetection;
+
+    private final FreeList[] freeLists;
+
+    /**
+     * The number of classes cached by the threads
+     */
+    private final int threadCachedClasses;
+
+    private final ThreadLocal<ThreadCache> threadCaches;
+
+    /**
+     * The caches of all the threads, to reclaim the buffers of the threads which have died
+     */
+    private final ConcurrentLinkedQueue<ThreadCache> caches = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger cacheEvents = new AtomicInteger();
+
+    /**
+     * The direct memory of the buffers of the pool in use or idle, and of the idle ones in the free lists and
+     * the caches of the threads
+     */
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    private final LongAdder allocations = new LongAdder();
+
+    private final LongAdder leaks = new LongAdder();
+
+    private final ReferenceQueue<PooledBuffer> leaked = new ReferenceQueue<>();
+
+    private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+
+    private BufferPool(Builder builder) {
+        this.maxBufferSize = builder.maxBufferSize;
+        this.maxPooledBytes = builder.maxPooledBytes;
+        this.maxAllocatedBytes = builder.maxAllocatedBytes;
+        this.threadCacheSize = builder.threadCacheSize;
+        this.leakDetection = builder.leakDetection;
+        this.freeLists = new FreeList[sizeClassOf(maxBufferSize) + 1];
+        for(int i=0;i<freeLists.length;i++) {
+            freeLists[i] = new FreeList();
+        }
+        this.threadCachedClasses = threadCacheSize == 0 ? 0 : Math.min(freeLists.length, sizeClassOf(THREAD_CACHE_MAX_BUFFER_SIZE) + 1);
+        this.threadCaches = ThreadLocal.withInitial(() -> {
+            ThreadCache cache = new ThreadCache(threadCachedClasses, threadCacheSize);
+            caches.add(cache);
+            onCacheEvent();
+            return cache;
+        });
+    }
+
+    /**
+     * This method returns the pool shared by the ciphers, with the default limits
+     * @return
+     */
+    public static BufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * This method returns a builder of a pool
+     * @return
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * This method lends a direct buffer of at least size bytes, limited to size
+     *
+     * @param size
+     * @return
+     * @throws IllegalStateException when the direct memory of the pool would exceed its limit
+     */
+    public PooledBuffer acquire(int size) {
+        if(size < 0) throw new IllegalArgumentException("The size must not be negative - " + size);
+        if(leakDetection) reportLeaks();
+        PooledBuffer pooled;
+        if(size > maxBufferSize) {
+            reserve(size);
+            pooled = new PooledBuffer(this, ByteBuffer.allocateDirect(size), -1);
+            allocations.increment();
+        } else {
+            int sizeClass = sizeClassOf(size);
+            ThreadCache cache = sizeClass < threadCachedClasses ? threadCaches.get() : null;
+            pooled = cache != null ? cache.poll(sizeClass) : null;
+            if(pooled == null) pooled = freeLists[sizeClass].pop();
+            if(pooled != null) {
+                pooledBytes.addAndGet(-pooled.capacity());
+            } else {
+                int capacity = MIN_BUFFER_SIZE << sizeClass;
+                reserve(capacity);
+                pooled = new PooledBuffer(this, ByteBuffer.allocateDirect(capacity), sizeClass);
+                allocations.increment();
+            }
+            pooled.cache = cache;
+        }
+        pooled.acquire(size);
+        if(leakDetection) {
+            pooled.tracker = new LeakTracker(pooled, leaked);
+            trackers.add(pooled.tracker);
+        }
+        return pooled;
+    }
+
+    /**
+     * This method drops all the idle buffers of the free lists and of the caches of the threads which have died
+     */
+    public void trim() {
+        reclaimThreadCaches();
+        for(FreeList freeList : freeLists) {
+            for(PooledBuffer pooled = freeList.pop(); pooled != null; pooled = freeList.pop()) {
+                pooledBytes.addAndGet(-pooled.capacity());
+                allocatedBytes.addAndGet(-pooled.capacity());
+            }
+        }
+    }
+
+    /**
+     * This method returns the direct memory of the buffers of the pool in use or idle
+     * @return
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * This method returns the direct memory of the idle buffers of the free lists and the caches of the threads
+     * @return
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * This method returns the number of buffers allocated, a pool serving a steady load stops allocating
+     * @return
+     */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    /**
+     * This method returns the number of buffers garbage collected without being released, only counted with
+     * the leak detection enabled
+     * @return
+     */
+    public long getLeakCount() {
+        if(leakDetection) reportLeaks();
+        return leaks.sum();
+    }
+
+    /**
+     * This method returns the size of the largest class
+     * @return
+     */
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    /**
+     * This method takes a released buffer back
+     */
+    void release(PooledBuffer pooled) {
+        LeakTracker tracker = pooled.tracker;
+        if(tracker != null) {
+            pooled.tracker = null;
+            trackers.remove(tracker);
+            tracker.clear();
+        }
+        int sizeClass = pooled.getSizeClass();
+        if(sizeClass < 0) {
+            allocatedBytes.addAndGet(-pooled.capacity());
+            return;
+        }
+        int capacity = pooled.capacity();
+        if(pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            allocatedBytes.addAndGet(-capacity);
+            return;
+        }
+        ThreadCache cache = pooled.cache;
+        pooled.cache = null;
+        if(cache != null && cache.owner.get() == Thread.currentThread()) {
+            if(cache.offer(pooled)) return;
+            onCacheEvent();
+        }
+        freeLists[sizeClass].push(pooled);
+    }
+
+    /**
+     * This method counts a thread cache created or overflowed, and reclaims the caches of the dead threads
+     * every RECLAIM_INTERVAL of them, so the caches of short lived threads do not pile up
+     */
+    private void onCacheEvent() {
+        if(cacheEvents.incrementAndGet() % RECLAIM_INTERVAL == 0) reclaimThreadCaches();
+    }
+
+    /**
+     * This method accounts for the direct memory of a new buffer, dropping the idle buffers when the limit
+     * would be exceeded
+     */
+    private void reserve(int capacity) {
+        boolean trimmed = false;
+        while(true) {
+            long allocated = allocatedBytes.get();
+            if(allocated + capacity <= maxAllocatedBytes) {
+                if(allocatedBytes.compareAndSet(allocated, allocated + capacity)) return;
+            } else if(!trimmed) {
+                trim();
+                trimmed = true;
+            } else {
+                throw new IllegalStateException("The buffer pool is exhausted, " + allocated + " bytes of " + maxAllocatedBytes
+                        + " are in use and " + capacity + " more were requested");
+            }
+        }
+    }
+
+    /**
+     * This method returns the buffers of the caches of the threads which have died to the free lists, they
+     * are already counted as pooled
+     */
+    private void reclaimThreadCaches() {
+        for(ThreadCache cache : caches) {
+            Thread owner = cache.owner.get();
+            // Only the thread removing the cache of a dead thread drains it
+            if(owner != null && owner.isAlive() || !caches.remove(cache)) continue;
+            for(int sizeClass=0;sizeClass<threadCachedClasses;sizeClass++) {
+                for(PooledBuffer pooled = cache.poll(sizeClass); pooled != null; pooled = cache.poll(sizeClass)) {
+                    freeLists[sizeClass].push(pooled);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method logs the buffers garbage collected without being released, their memory is freed with them
+     */
+    private void reportLeaks() {
+        for(LeakTracker tracker = (LeakTracker) leaked.poll(); tracker != null; tracker = (LeakTracker) leaked.poll()) {
+            if(!trackers.remove(tracker)) continue;
+            leaks.increment();
+            allocatedBytes.addAndGet(-tracker.capacity);
+            logger.error("A buffer of {} bytes was garbage collected without being released, it was acquired at", tracker.capacity, tracker.acquiredAt);
+        }
+    }
+
+    /**
+     * This is a utility method that returns the class of a size
+     */
+    private static int sizeClassOf(int size) {
+        if(size <= MIN_BUFFER_SIZE) return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * The record of the acquisition of a buffer, enqueued when the buffer is garbage collected while acquired
+     */
+    static final class LeakTracker extends PhantomReference<PooledBuffer> {
+
+        private final int capacity;
+
+        private final Throwable acquiredAt;
+
+        LeakTracker(PooledBuffer pooled, ReferenceQueue<PooledBuffer> queue) {
+            super(pooled, queue);
+            this.capacity = pooled.capacity();
+            this.acquiredAt = new Throwable("Acquired by " + Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * A lock-free stack of idle buffers, every push has a node of its own so a node is never reused while
+     * another thread may still compare against it
+     */
+    private static final class FreeList {
+
+        private final AtomicReference<Node> head = new AtomicReference<>();
+
+        void push(PooledBuffer pooled) {
+            Node node = new Node(pooled);
+            do {
+                node.next = head.get();
+            } while(!head.compareAndSet(node.next, node));
+        }
+
+        PooledBuffer pop() {
+            Node _head;
+            do {
+                _head = head.get();
+                if(_head == null) return null;
+            } while(!head.compareAndSet(_head, _head.next));
+            return _head.pooled;
+        }
+    }
+
+    private static final class Node {
+
+        private final PooledBuffer pooled;
+
+        private Node next;
+
+        Node(PooledBuffer pooled) {
+            this.pooled = pooled;
+        }
+    }
+
+    /**
+     * The buffers cached by a thread, a small stack for every class, only used by the thread until it dies
+     */
+    static final class ThreadCache {
+
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+
+        private final PooledBuffer[][] stacks;
+
+        private final int[] sizes;
+
+        ThreadCache(int classes, int size) {
+            this.stacks = new PooledBuffer[classes][size];
+            this.sizes = new int[classes];
+        }
+
+        PooledBuffer poll(int sizeClass) {
+            int size = sizes[sizeClass];
+            if(size == 0) return null;
+            sizes[sizeClass] = --size;
+            PooledBuffer pooled = stacks[sizeClass][size];
+            stacks[sizeClass][size] = null;
+            return pooled;
+        }
+
+        boolean offer(PooledBuffer pooled) {
+            int sizeClass = pooled.getSizeClass();
+            int size = sizes[sizeClass];
+            if(size == stacks[sizeClass].length) return false;
+            stacks[sizeClass][size] = pooled;
+            sizes[sizeClass] = size + 1;
+            return true;
+        }
+    }
+
+    /**
+     * The builder of a pool
+     */
+    public static final class Builder {
+
+        private int maxBufferSize = 16 * 1024 * 1024;
+
+        private long maxPooledBytes = 64L * 1024 * 1024;
+
+        private long maxAllocatedBytes = Long.MAX_VALUE;
+
+        private int threadCacheSize = 4;
+
+        private boolean leakDetection = Boolean.getBoolean(LEAK_DETECTION_PROPERTY) || logger.isDebugEnabled();
+
+        private Builder() {
+        }
+
+        /**
+         * This method sets the size of the largest class, rounded up to a power of 2, 16 MB by default
+         * @param maxBufferSize
+         * @return
+         */
+        public Builder maxBufferSize(int maxBufferSize) {
+            if(maxBufferSize < MIN_BUFFER_SIZE || maxBufferSize > 1 << 30) {
+                throw new IllegalArgumentException("The maximum buffer size must be between " + MIN_BUFFER_SIZE + " and 1 GB - " + maxBufferSize);
+            }
+            this.maxBufferSize = MIN_BUFFER_SIZE << sizeClassOf(maxBufferSize);
+            return this;
+        }
+
+        /**
+         * This method sets the bytes of the idle buffers kept in the free lists, 64 MB by default
+         * @param maxPooledBytes
+         * @return
+         */
+        public Builder maxPooledBytes(long maxPooledBytes) {
+            if(maxPooledBytes < 0) throw new IllegalArgumentException("The maximum pooled bytes must not be negative - " + maxPooledBytes);
+            this.maxPooledBytes = maxPooledBytes;
+            return this;
+        }
+
+        /**
+         * This method sets the direct memory of all the buffers of the pool, unlimited by default
+         * @param maxAllocatedBytes
+         * @return
+         */
+        public Builder maxAllocatedBytes(long maxAllocatedBytes) {
+            if(maxAllocatedBytes < 0) throw new IllegalArgumentException("The maximum allocated bytes must not be negative - " + maxAllocatedBytes);
+            this.maxAllocatedBytes = maxAllocatedBytes;
+            return this;
+        }
+
+        /**
+         * This method sets the number of buffers of every class up to 256 KB cached by a thread, 0 for none,
+         * 4 by default
+         * @param threadCacheSize
+         * @return
+         */
+        public Builder threadCacheSize(int threadCacheSize) {
+            if(threadCacheSize < 0) throw new IllegalArgumentException("The thread cache size must not be negative - " + threadCacheSize);
+            this.threadCacheSize = threadCacheSize;
+            return this;
+        }
+
+        /**
+         * This method enables the leak detection, by default when the logger of the pool is at DEBUG
+         * @param leakDetection
+         * @return
+         */
+        public Builder leakDetection(boolean leakDetection) {
+            this.leakDetection = leakDetection;
+            return this;
+        }
+
+        /**
+         * This method returns the pool
+         * @return
+         */
+        public BufferPool build() {
+            return new BufferPool(this);
+        }
+    }
+}
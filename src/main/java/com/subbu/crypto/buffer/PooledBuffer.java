@@ -0,0 +1,104 @@
+package com.subbu.crypto.buffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * This class is a direct ByteBuffer lent by a BufferPool, it must be released exactly once when it is no longer
+ * used, best with try-with-resources -
+ *
+ *     try(PooledBuffer pooled = BufferPool.getInstance().acquire(size)) {
+ *         ByteBuffer buffer = pooled.buffer();
+ *         ...
+ *     }
+ *
+ * The ByteBuffer is lent to the next acquirer once released, so neither it nor its duplicates must be used
+ * after the release.
+ */
+public final class PooledBuffer implements AutoCloseable {
+
+    private static final AtomicIntegerFieldUpdater<PooledBuffer> STATE = AtomicIntegerFieldUpdater.newUpdater(PooledBuffer.class, "state");
+
+    private static final int RELEASED = 0;
+
+    private static final int ACQUIRED = 1;
+
+    private final BufferPool pool;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * The size class of the buffer, or -1 for the buffers larger than the pool keeps
+     */
+    private final int sizeClass;
+
+    private volatile int state;
+
+    /**
+     * The tracker of the acquisition while the leak detection is enabled
+     */
+    BufferPool.LeakTracker tracker;
+
+    /**
+     * The cache of the thread which acquired the buffer, the buffer only goes back to it when released by the
+     * same thread
+     */
+    BufferPool.ThreadCache cache;
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, int sizeClass) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+    }
+
+    /**
+     * This method returns the buffer, positioned at 0 and limited to the size acquired when it was acquired
+     * @return
+     * @throws IllegalStateException when the buffer has been released
+     */
+    public ByteBuffer buffer() {
+        if(state != ACQUIRED) throw new IllegalStateException("The buffer has been released");
+        return buffer;
+    }
+
+    /**
+     * This method returns the capacity of the buffer, the size of its class which is at least the size acquired
+     * @return
+     */
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * This method returns the buffer to its pool
+     * @throws IllegalStateException when the buffer has already been released
+     */
+    public void release() {
+        if(!STATE.compareAndSet(this, ACQUIRED, RELEASED)) {
+            throw new IllegalStateException("The buffer has already been released");
+        }
+        pool.release(this);
+    }
+
+    /**
+     * This method releases the buffer
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    /**
+     * This method lends the buffer, limited to size
+     */
+    void acquire(int size) {
+        ((Buffer) buffer).clear();
+        ((Buffer) buffer).limit(size);
+        state = ACQUIRED;
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+}
@@ -0,0 +1,193 @@
+package com.subbu.crypto.cli;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.DirectoryProcessor;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class is the command line tool encrypting and decrypting files and whole directory trees, see
+ * DirectoryProcessor, e.g.
+ *
+ * java -jar SimpleCryptography.jar encrypt -c vigenere -k lemon -w 8 -b 4m plain/ encrypted/
+ *
+ * The throughput is printed once all the files have been processed. The exit status is 0 on success, 1 when
+ * a file could not be processed and 2 when the arguments are invalid.
+ */
+public final class CryptoTool {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: (encrypt|decrypt) -c <cipher> [options] <source> <target>",
+            "  -c, --cipher <name>       ceaser, rot13, atbash, affine, vigenere or onetimepad",
+            "  -s, --shift <size>        the shift size of the ceaser cipher, 7 by default",
+            "  -k, --key <key>           the key of the vigenere cipher, or keyA,keyB of the affine cipher, e.g. 5,8",
+            "  -w, --workers <count>     the number of threads transforming the blocks, the number of processors by default",
+            "  -f, --files <count>       the number of files processed at a time, the number of workers by default",
+            "  -b, --buffer-size <size>  the size of a block, e.g. 65536, 64k or 4m, 1m by default",
+            "The onetimepad cipher writes the key of every file next to it with the suffix " + DirectoryProcessor.PAD_SUFFIX + ".");
+
+    private CryptoTool() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * This method runs the tool with the arguments and returns its exit status
+     *
+     * @param args
+     * @param out
+     * @param err
+     * @return
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        CryptoService cryptoService;
+        try {
+            options = Options.parse(args);
+            cryptoService = options.getCipher();
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        try(DirectoryProcessor processor = new DirectoryProcessor(cryptoService, options.encrypting, options.workers, options.files, options.bufferSize)) {
+            DirectoryProcessor.Report report = processor.process(options.source, options.target);
+            out.println((options.encrypting ? "Encrypted " : "Decrypted ") + report);
+            if(cryptoService instanceof AffineCipher) {
+                AffineCipher affineCipher = (AffineCipher) cryptoService;
+                out.println("The Affine keys - a = " + affineCipher.getKeyA() + ", b = " + affineCipher.getKeyB());
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            err.println("Failed - " + e.getMessage());
+            for(Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                err.println("  caused by " + cause);
+            }
+            for(Throwable suppressed : e.getSuppressed()) {
+                err.println("  and " + suppressed);
+            }
+            return 1;
+        }
+    }
+
+    /**
+     * The arguments of the tool
+     */
+    private static final class Options {
+
+        private boolean encrypting;
+        private String cipher;
+        private int shift = 7;
+        private String key;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int files = -1;
+        private int bufferSize = DirectoryProcessor.DEFAULT_BUFFER_SIZE;
+        private Path source;
+        private Path target;
+
+        /**
+         * This method parses the arguments
+         */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            List<String> positional = new ArrayList<>();
+            for(int i=0;i<args.length;i++) {
+                String arg = args[i];
+                if(!arg.startsWith("-")) {
+                    positional.add(arg);
+                    continue;
+                }
+                if(i + 1 == args.length) throw new IllegalArgumentException("The option " + arg + " needs a value");
+                String value = args[++i];
+                switch (arg) {
+                    case "-c": case "--cipher": options.cipher = value.toLowerCase(Locale.ROOT); break;
+                    case "-s": case "--shift": options.shift = toInt(arg, value); break;
+                    case "-k": case "--key": options.key = value; break;
+                    case "-w": case "--workers": options.workers = toInt(arg, value); break;
+                    case "-f": case "--files": options.files = toInt(arg, value); break;
+                    case "-b": case "--buffer-size": options.bufferSize = toSize(arg, value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if(positional.size() != 3) throw new IllegalArgumentException("Expected the command, the source and the target");
+            if(!positional.get(0).equals("encrypt") && !positional.get(0).equals("decrypt")) {
+                throw new IllegalArgumentException("Unknown command " + positional.get(0));
+            }
+            if(options.cipher == null) throw new IllegalArgumentException("The cipher is required");
+            options.encrypting = positional.get(0).equals("encrypt");
+            options.source = Paths.get(positional.get(1));
+            options.target = Paths.get(positional.get(2));
+            if(!Files.exists(options.source)) throw new IllegalArgumentException("The source does not exist - " + options.source);
+            if(options.files < 0) options.files = options.workers;
+            if(options.workers < 1 || options.files < 1) throw new IllegalArgumentException("The number of workers and files must be positive");
+            return options;
+        }
+
+        /**
+         * This method returns the cipher named
+         */
+        CryptoService getCipher() {
+            switch (cipher) {
+                case "ceaser": return CeaserCipher.getInstance(shift);
+                case "rot13": return ROT13Cipher.getInstance();
+                case "atbash": return AtbashCipher.getInstance();
+                case "onetimepad": return OneTimePadCipher.getInstance();
+                case "vigenere":
+                    if(key == null) throw new IllegalArgumentException("The vigenere cipher needs a key");
+                    return VigenereCipher.getInstance(key);
+                case "affine":
+                    if(key != null) return toAffineCipher(key);
+                    if(!encrypting) throw new IllegalArgumentException("The affine cipher needs the keys it encrypted with, e.g. -k 5,8");
+                    return AffineCipher.getRandomInstance();
+                default: throw new IllegalArgumentException("Unknown cipher " + cipher);
+            }
+        }
+
+        /**
+         * This is a utility method that returns the affine cipher of the keys keyA,keyB
+         */
+        private static CryptoService toAffineCipher(String key) {
+            String[] keys = key.split(",");
+            if(keys.length != 2) throw new IllegalArgumentException("The affine key must be keyA,keyB - " + key);
+            return AffineCipher.getInstance(toInt("--key", keys[0].trim()), toInt("--key", keys[1].trim()));
+        }
+
+        /**
+         * This is a utility method that parses a number
+         */
+        private static int toInt(String option, String value) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The option " + option + " needs a number - " + value);
+            }
+        }
+
+        /**
+         * This is a utility method that parses a size with an optional k or m suffix
+         */
+        private static int toSize(String option, String value) {
+            String _value = value.toLowerCase(Locale.ROOT);
+            int multiplier = _value.endsWith("k") ? 1024 : _value.endsWith("m") ? 1024 * 1024 : 1;
+            if(multiplier > 1) _value = _value.substring(0, _value.length() - 1);
+            long size = (long) toInt(option, _value) * multiplier;
+            if(size < 16 || size > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The option " + option + " is out of range - " + value);
+            return (int) size;
+        }
+    }
+}
@@ -0,0 +1,757 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.buffer.BufferPool;
+import com.subbu.crypto.buffer.PooledBuffer;
+import com.subbu.crypto.utils.ShiftEngine;
+import com.subbu.crypto.utils.ShiftEngines;
+import com.subbu.crypto.utils.SubstitutionTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This is the base class of the ciphers which implements the streaming, file and buffer methods of the
+ * CryptoService on top of the chunk level Transform of each cipher.
+ *
+ * Every encryption or decryption of a text gets a Transform from the cipher which is applied to the text
+ * chunk by chunk. Every chunk is handed its position in the text so that the ciphers with a key position
+ * (Vigenere, OneTimePad) carry it across the chunk boundaries. The ciphers without any state per text hand
+ * out the same Transform every time, the OneTimePad cipher hands out a new one holding its pad.
+ *
+ * The streams are read in chunks of CHUNK_SIZE chars which are transformed in place and written out,
+ * so the memory used is constant irrespective of the size of the payload. The byte streams are transformed
+ * in blocks of CHANNEL_BLOCK_SIZE bytes like the channels, without decoding the UTF-8 text.
+ *
+ * The files are transformed in place by mapping them in windows of MAPPED_WINDOW_SIZE bytes and
+ * transforming the UTF-8 bytes directly, which works because only the ASCII letters are ever changed
+ * and no byte of a multi-byte UTF-8 sequence is an ASCII letter. Files larger than 2 GB are supported
+ * as every window is mapped separately.
+ *
+ * The array and buffer methods transform straight into the destination given by the caller. Buffers which
+ * are not backed by an array are transformed through a per-thread scratch array of CHUNK_SIZE chars, so
+ * none of them allocate once the thread is warm.
+ */
+public abstract class AbstractCryptoService implements CryptoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractCryptoService.class);
+
+    /**
+     * The number of chars read, transformed and written at a time by the streaming methods
+     */
+    public static final int CHUNK_SIZE = 8192;
+
+    /**
+     * The charset used to decode and encode the byte streams
+     */
+    public static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    /**
+     * The number of bytes of a file mapped at a time by the in place methods
+     */
+    public static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The number of bytes read, transformed and written at a time by the channel methods
+     */
+    public static final int CHANNEL_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * The scratch array of every thread for the char buffers not backed by an array
+     */
+    private static final ThreadLocal<char[]> SCRATCH = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[CHUNK_SIZE];
+        }
+    };
+
+    /**
+     * The encryption or decryption of a single text, applied chunk by chunk.
+     *
+     * The chunks may be transformed in any order and concurrently when the length of the text was given
+     * when the Transform was created.
+     */
+    protected abstract static class Transform {
+
+        /**
+         * This method transforms len chars of src starting at srcOff into dst starting at dstOff, where
+         * position is the index of src[srcOff] within the whole text. src and dst may be the same array.
+         *
+         * @param src
+         * @param srcOff
+         * @param dst
+         * @param dstOff
+         * @param len
+         * @param position
+         */
+        protected abstract void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position);
+
+        /**
+         * This method transforms len UTF-8 bytes of src starting at srcOff into dst starting at dstOff, where
+         * position is the index of the char starting at or after src[srcOff] within the whole text.
+         * src and dst may be the same buffer.
+         *
+         * @param src
+         * @param srcOff
+         * @param dst
+         * @param dstOff
+         * @param len
+         * @param position
+         * @return the position following the transformed bytes, ciphers which do not use the position may
+         * return it unchanged
+         */
+        protected abstract long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position);
+
+        /**
+         * This method transforms a batch of values packed from offsets[0] to offsets[offsets.length - 1].
+         * The batch is transformed as one text unless the position restarts at every value, which matches
+         * transforming the values one by one for the ciphers which do not use the position, the OneTimePad
+         * cipher uses a single key for the whole batch.
+         *
+         * @param src
+         * @param offsets
+         * @param dst
+         */
+        protected void chars(char[] src, int[] offsets, char[] dst) {
+            if(restartsBatchValues()) {
+                for(int i=1;i<offsets.length;i++) {
+                    chars(src, offsets[i - 1], dst, offsets[i - 1], offsets[i] - offsets[i - 1], 0);
+                }
+                return;
+            }
+            int start = offsets[0];
+            chars(src, start, dst, start, offsets[offsets.length - 1] - start, 0);
+        }
+
+        /**
+         * This method transforms a batch of UTF-8 values packed from offsets[0] to offsets[offsets.length - 1],
+         * as one text unless the position restarts at every value.
+         *
+         * @param src
+         * @param offsets
+         * @param dst
+         */
+        protected void bytes(ByteBuffer src, int[] offsets, ByteBuffer dst) {
+            if(restartsBatchValues()) {
+                for(int i=1;i<offsets.length;i++) {
+                    bytes(src, offsets[i - 1], dst, offsets[i - 1], offsets[i] - offsets[i - 1], 0);
+                }
+                return;
+            }
+            int start = offsets[0];
+            bytes(src, start, dst, start, offsets[offsets.length - 1] - start, 0);
+        }
+
+        /**
+         * This method returns whether the position restarts at every value of a batch, for the transforms
+         * using the position whose values must match the ones transformed one by one (Vigenere)
+         *
+         * @return
+         */
+        protected boolean restartsBatchValues() {
+            return false;
+        }
+
+        /**
+         * This method is called after the last chunk of the text has been transformed
+         */
+        protected void end() {
+        }
+
+        /**
+         * This method returns false for the transforms substituting letters beyond ASCII, whose UTF-8 bytes
+         * can only be transformed once decoded
+         *
+         * @return
+         */
+        protected boolean supportsBytes() {
+            return true;
+        }
+
+        /**
+         * This method returns the substitute of every ASCII char for the transforms substituting every char
+         * independently of its position, or null, see CipherPipeline
+         *
+         * @return
+         */
+        protected char[] getSubstitution() {
+            return null;
+        }
+
+        /**
+         * This method adds the number of places the letters at the len positions from position onwards are
+         * rolled forward by to shifts starting at off, modulo 26, for the transforms rolling every letter by
+         * an amount depending only on its position, see CipherPipeline
+         *
+         * @param shifts
+         * @param off
+         * @param len
+         * @param position
+         * @return false when the transform does not roll the letters by their position
+         */
+        protected boolean addShifts(byte[] shifts, int off, int len, long position) {
+            return false;
+        }
+    }
+
+    /**
+     * The Transform of the ciphers substituting every character through a SubstitutionTable, the position
+     * is not used so the same instance can be shared by all the texts.
+     */
+    protected static final class TableTransform extends Transform {
+
+        private final SubstitutionTable table;
+
+        private final boolean encrypting;
+
+        /**
+         * The constructor accepting the table and the direction
+         * @param table
+         * @param encrypting
+         */
+        protected TableTransform(SubstitutionTable table, boolean encrypting) {
+            this.table = table;
+            this.encrypting = encrypting;
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            if(encrypting) {
+                table.encrypt(src, srcOff, dst, dstOff, len);
+            } else {
+                table.decrypt(src, srcOff, dst, dstOff, len);
+            }
+        }
+
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            if(encrypting) {
+                table.encrypt(src, srcOff, dst, dstOff, len);
+            } else {
+                table.decrypt(src, srcOff, dst, dstOff, len);
+            }
+            return position;
+        }
+
+        /**
+         * The tables substituting letters beyond ASCII, or mapping an ASCII letter beyond ASCII, cannot be composed
+         * in the 128 chars of a pipeline
+         */
+        @Override
+        protected char[] getSubstitution() {
+            if(!table.supportsBytes()) return null;
+            char[] substitution = new char[128];
+            for(char _char=0;_char<substitution.length;_char++) {
+                substitution[_char] = _char;
+            }
+            chars(substitution, 0, substitution, 0, substitution.length, 0);
+            return substitution;
+        }
+
+        @Override
+        protected boolean supportsBytes() {
+            return table.supportsBytes();
+        }
+    }
+
+    /**
+     * The Transform of the ciphers rolling every letter by the same number of places, the UTF-8 bytes of
+     * arrays and of direct buffers alike are rolled by the ShiftEngine selected, see ShiftEngines, and
+     * everything else through the SubstitutionTable.
+     */
+    protected static final class ShiftTransform extends Transform {
+
+        private final TableTransform table;
+
+        /**
+         * The number of places every letter is rolled forward by, -1 when the ShiftEngine does not support it
+         */
+        private final int shift;
+
+        /**
+         * The constructor accepting the table, the shift size of the cipher and the direction
+         * @param table
+         * @param shiftSize
+         * @param encrypting
+         */
+        protected ShiftTransform(SubstitutionTable table, int shiftSize, boolean encrypting) {
+            this.table = new TableTransform(table, encrypting);
+            this.shift = shiftSize < 0 || shiftSize > 26 ? -1 : encrypting ? shiftSize : 26 - shiftSize;
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            table.chars(src, srcOff, dst, dstOff, len, position);
+        }
+
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            ShiftEngine engine = ShiftEngines.get();
+            if(engine != null && shift >= 0) {
+                engine.roll(src, srcOff, dst, dstOff, len, shift);
+                return position;
+            }
+            return table.bytes(src, srcOff, dst, dstOff, len, position);
+        }
+
+        @Override
+        protected char[] getSubstitution() {
+            return table.getSubstitution();
+        }
+
+        @Override
+        protected boolean supportsBytes() {
+            return table.supportsBytes();
+        }
+    }
+
+    /**
+     * This method returns the Transform for the encryption or decryption of a text
+     *
+     * @param encrypting
+     * @param length the number of chars of the text or -1 when it is not known upfront
+     * @return
+     */
+    protected abstract Transform newTransform(boolean encrypting, long length);
+
+    /**
+     * This method returns the UTF-8 encrypted text given a UTF-8 plaintext
+     *
+     * @param plainText
+     * @return
+     */
+    public byte[] encryptBytes(byte[] plainText) {
+        Transform transform = newTransform(true, -1);
+        if(!transform.supportsBytes()) return transformDecoded(transform, plainText);
+        byte[] cipherText = new byte[plainText.length];
+        transform(transform, plainText, cipherText);
+        return cipherText;
+    }
+
+    /**
+     * This method returns the UTF-8 plaintext given a UTF-8 ciphertext
+     *
+     * @param cipherText
+     * @return
+     */
+    public byte[] decryptBytes(byte[] cipherText) {
+        Transform transform = newTransform(false, -1);
+        if(!transform.supportsBytes()) return transformDecoded(transform, cipherText);
+        byte[] plainText = new byte[cipherText.length];
+        transform(transform, cipherText, plainText);
+        return plainText;
+    }
+
+    /**
+     * This method reads the plaintext from the reader and writes the ciphertext to the writer
+     *
+     * @param plainText
+     * @param cipherText
+     * @throws IOException
+     */
+    public void encrypt(Reader plainText, Writer cipherText) throws IOException {
+        logger.debug("=============================== *** STREAM ENCRYPTION *** ============================================");
+        transform(newTransform(true, -1), plainText, cipherText);
+    }
+
+    /**
+     * This method reads the ciphertext from the reader and writes the plaintext to the writer
+     *
+     * @param cipherText
+     * @param plainText
+     * @throws IOException
+     */
+    public void decrypt(Reader cipherText, Writer plainText) throws IOException {
+        logger.debug("=============================== *** STREAM DECRYPTION *** ============================================");
+        transform(newTransform(false, -1), cipherText, plainText);
+    }
+
+    /**
+     * This method reads the UTF-8 plaintext from the input stream and writes the UTF-8 ciphertext to the output
+     * stream, the bytes are transformed as they are read without being decoded unless the cipher substitutes
+     * letters beyond ASCII
+     *
+     * @param plainText
+     * @param cipherText
+     * @throws IOException
+     */
+    public void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+        logger.debug("=============================== *** STREAM ENCRYPTION *** ============================================");
+        transform(newTransform(true, -1), plainText, cipherText);
+    }
+
+    /**
+     * This method reads the UTF-8 ciphertext from the input stream and writes the UTF-8 plaintext to the output
+     * stream, the bytes are transformed as they are read without being decoded unless the cipher substitutes
+     * letters beyond ASCII
+     *
+     * @param cipherText
+     * @param plainText
+     * @throws IOException
+     */
+    public void decrypt(InputStream cipherText, OutputStream plainText) throws IOException {
+        logger.debug("=============================== *** STREAM DECRYPTION *** ============================================");
+        transform(newTransform(false, -1), cipherText, plainText);
+    }
+
+    /**
+     * This method reads the UTF-8 plaintext from the channel and writes the UTF-8 ciphertext to the other channel
+     *
+     * @param plainText
+     * @param cipherText
+     * @throws IOException
+     */
+    public void encrypt(ReadableByteChannel plainText, WritableByteChannel cipherText) throws IOException {
+        transform(newTransform(true, -1), plainText, cipherText);
+    }
+
+    /**
+     * This method reads the UTF-8 ciphertext from the channel and writes the UTF-8 plaintext to the other channel
+     *
+     * @param cipherText
+     * @param plainText
+     * @throws IOException
+     */
+    public void decrypt(ReadableByteChannel cipherText, WritableByteChannel plainText) throws IOException {
+        transform(newTransform(false, -1), cipherText, plainText);
+    }
+
+    /**
+     * This method encrypts the UTF-8 text file in place
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void encryptInPlace(Path file) throws IOException {
+        logger.debug("=============================== *** FILE ENCRYPTION *** ==============================================");
+        transformInPlace(newTransform(true, -1), file);
+    }
+
+    /**
+     * This method decrypts the UTF-8 text file in place
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void decryptInPlace(Path file) throws IOException {
+        logger.debug("=============================== *** FILE DECRYPTION *** ==============================================");
+        transformInPlace(newTransform(false, -1), file);
+    }
+
+    /**
+     * This method encrypts len chars of src starting at srcOff into dst starting at dstOff
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void encrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        transform(newTransform(true, len), src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method decrypts len chars of src starting at srcOff into dst starting at dstOff
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void decrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        transform(newTransform(false, len), src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method encrypts the remaining chars of src into dst
+     *
+     * @param src
+     * @param dst
+     */
+    public void encrypt(CharBuffer src, CharBuffer dst) {
+        transform(newTransform(true, src.remaining()), src, dst);
+    }
+
+    /**
+     * This method decrypts the remaining chars of src into dst
+     *
+     * @param src
+     * @param dst
+     */
+    public void decrypt(CharBuffer src, CharBuffer dst) {
+        transform(newTransform(false, src.remaining()), src, dst);
+    }
+
+    /**
+     * This method encrypts the remaining UTF-8 bytes of src into dst
+     *
+     * @param src
+     * @param dst
+     */
+    public void encrypt(ByteBuffer src, ByteBuffer dst) {
+        transform(newTransform(true, -1), src, dst);
+    }
+
+    /**
+     * This method decrypts the remaining UTF-8 bytes of src into dst
+     *
+     * @param src
+     * @param dst
+     */
+    public void decrypt(ByteBuffer src, ByteBuffer dst) {
+        transform(newTransform(false, -1), src, dst);
+    }
+
+    /**
+     * This method encrypts the batch of values of src delimited by offsets into dst at the same offsets
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     */
+    public void encryptBatch(char[] src, int[] offsets, char[] dst) {
+        transform(newTransform(true, checkBatch(offsets, src.length, dst.length)), src, offsets, dst);
+    }
+
+    /**
+     * This method decrypts the batch of values of src delimited by offsets into dst at the same offsets
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     */
+    public void decryptBatch(char[] src, int[] offsets, char[] dst) {
+        transform(newTransform(false, checkBatch(offsets, src.length, dst.length)), src, offsets, dst);
+    }
+
+    /**
+     * This method encrypts the batch of UTF-8 values of src delimited by offsets into dst at the same offsets
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     */
+    public void encryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        checkBatch(offsets, src.length, dst.length);
+        transform(newTransform(true, -1), src, offsets, dst);
+    }
+
+    /**
+     * This method decrypts the batch of UTF-8 values of src delimited by offsets into dst at the same offsets
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     */
+    public void decryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        checkBatch(offsets, src.length, dst.length);
+        transform(newTransform(false, -1), src, offsets, dst);
+    }
+
+    /**
+     * This is the fallback of the byte array methods for the alphabets beyond ASCII, the text is decoded,
+     * transformed as chars and encoded again, the same as the streams do
+     */
+    protected static byte[] transformDecoded(Transform transform, byte[] text) {
+        char[] chars = new String(text, CHARSET).toCharArray();
+        transform(transform, chars, 0, chars, 0, chars.length);
+        return new String(chars).getBytes(CHARSET);
+    }
+
+    /**
+     * This is the chunked read-transform-write loop shared by the streaming methods
+     */
+    protected static void transform(Transform transform, Reader in, Writer out) throws IOException {
+        char[] buffer = new char[CHUNK_SIZE];
+        long position = 0;
+        int read;
+        while((read = in.read(buffer)) != -1) {
+            transform.chars(buffer, 0, buffer, 0, read, position);
+            out.write(buffer, 0, read);
+            position += read;
+        }
+        out.flush();
+        transform.end();
+        logger.debug("Number of chars streamed - {}", position);
+    }
+
+    /**
+     * This is the byte stream transform shared by encryption and decryption, the streams are read and written
+     * through the channel loop when the transform supports bytes and decoded otherwise
+     */
+    protected static void transform(Transform transform, InputStream in, OutputStream out) throws IOException {
+        if(transform.supportsBytes()) {
+            transform(transform, Channels.newChannel(in), Channels.newChannel(out));
+        } else {
+            transform(transform, new InputStreamReader(in, CHARSET), new OutputStreamWriter(out, CHARSET));
+        }
+        out.flush();
+    }
+
+    /**
+     * This is the block read-transform-write loop shared by the channel methods, the blocks are transformed in
+     * a direct buffer of the BufferPool, which the channels read into and write from without a copy
+     */
+    protected static void transform(Transform transform, ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        try(PooledBuffer pooled = BufferPool.getInstance().acquire(CHANNEL_BLOCK_SIZE)) {
+            ByteBuffer buffer = pooled.buffer();
+            long position = 0;
+            long size = 0;
+            boolean eof = false;
+            while(!eof) {
+                while(buffer.hasRemaining() && !eof) {
+                    eof = in.read(buffer) < 0;
+                }
+                ((Buffer) buffer).flip();
+                position = transform.bytes(buffer, 0, buffer, 0, buffer.limit(), position);
+                size += buffer.limit();
+                while(buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                ((Buffer) buffer).clear();
+            }
+            transform.end();
+            logger.debug("Number of bytes transformed through the channels - {}", size);
+        }
+    }
+
+    /**
+     * This is the map-transform loop shared by the in place methods
+     */
+    protected static void transformInPlace(Transform transform, Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            for(long offset = 0; offset < size; offset += MAPPED_WINDOW_SIZE) {
+                int length = (int) Math.min(MAPPED_WINDOW_SIZE, size - offset);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, offset, length);
+                position = transform.bytes(window, 0, window, 0, length, position);
+            }
+            transform.end();
+            logger.debug("Number of bytes transformed in {} - {}", file, size);
+        }
+    }
+
+    /**
+     * This is the char array transform shared by encryption and decryption
+     */
+    protected static void transform(Transform transform, char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        checkBounds(src.length, srcOff, len);
+        checkBounds(dst.length, dstOff, len);
+        transform.chars(src, srcOff, dst, dstOff, len, 0);
+        transform.end();
+    }
+
+    /**
+     * This is the char buffer transform shared by encryption and decryption
+     */
+    protected static void transform(Transform transform, CharBuffer src, CharBuffer dst) {
+        int len = src.remaining();
+        if(dst.remaining() < len) throw new BufferOverflowException();
+        int srcPos = src.position();
+        int dstPos = dst.position();
+        if(src.hasArray() && dst.hasArray()) {
+            transform.chars(src.array(), src.arrayOffset() + srcPos, dst.array(), dst.arrayOffset() + dstPos, len, 0);
+        } else {
+            char[] scratch = SCRATCH.get();
+            for(int done = 0; done < len; done += scratch.length) {
+                int chunk = Math.min(scratch.length, len - done);
+                for(int i=0;i<chunk;i++) {
+                    scratch[i] = src.get(srcPos + done + i);
+                }
+                transform.chars(scratch, 0, scratch, 0, chunk, done);
+                for(int i=0;i<chunk;i++) {
+                    dst.put(dstPos + done + i, scratch[i]);
+                }
+            }
+        }
+        transform.end();
+        ((Buffer) src).position(srcPos + len);
+        ((Buffer) dst).position(dstPos + len);
+    }
+
+    /**
+     * This is the byte buffer transform shared by encryption and decryption
+     */
+    protected static void transform(Transform transform, ByteBuffer src, ByteBuffer dst) {
+        int len = src.remaining();
+        if(dst.remaining() < len) throw new BufferOverflowException();
+        int srcPos = src.position();
+        int dstPos = dst.position();
+        transform.bytes(src, srcPos, dst, dstPos, len, 0);
+        transform.end();
+        ((Buffer) src).position(srcPos + len);
+        ((Buffer) dst).position(dstPos + len);
+    }
+
+    /**
+     * This is the byte array transform shared by encryption and decryption
+     */
+    protected static void transform(Transform transform, byte[] src, byte[] dst) {
+        transform.bytes(ByteBuffer.wrap(src), 0, ByteBuffer.wrap(dst), 0, src.length, 0);
+        transform.end();
+    }
+
+    /**
+     * This is the char batch transform shared by encryption and decryption
+     */
+    protected static void transform(Transform transform, char[] src, int[] offsets, char[] dst) {
+        transform.chars(src, offsets, dst);
+        transform.end();
+    }
+
+    /**
+     * This is the byte batch transform shared by encryption and decryption
+     */
+    protected static void transform(Transform transform, byte[] src, int[] offsets, byte[] dst) {
+        transform.bytes(ByteBuffer.wrap(src), offsets, src == dst ? ByteBuffer.wrap(src) : ByteBuffer.wrap(dst));
+        transform.end();
+    }
+
+    /**
+     * This is a utility method that validates the offsets of a batch and returns the number of chars or bytes
+     * of the batch
+     */
+    protected static int checkBatch(int[] offsets, int srcLength, int dstLength) {
+        if(offsets.length == 0) {
+            throw new IllegalArgumentException("The offsets of a batch start with the offset of the first value");
+        }
+        for(int i=1;i<offsets.length;i++) {
+            if(offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException("The offsets of a batch must not decrease - " + offsets[i - 1] + ", " + offsets[i]);
+            }
+        }
+        int length = offsets[offsets.length - 1] - offsets[0];
+        checkBounds(srcLength, offsets[0], length);
+        checkBounds(dstLength, offsets[0], length);
+        return length;
+    }
+
+    /**
+     * This is a utility method that validates a range of an array before anything is written
+     */
+    protected static void checkBounds(int length, int off, int len) {
+        if(off < 0 || len < 0 || len > length - off) {
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + length);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.subbu.crypto.impl;
 
 import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.Alphabet;
+import com.subbu.crypto.utils.CipherCache;
 import com.subbu.crypto.utils.CryptoUtils;
-import org.apache.commons.lang3.CharUtils;
-import org.apache.commons.lang3.StringUtils;
+import com.subbu.crypto.utils.SubstitutionTable;
 import org.apache.commons.math3.util.ArithmeticUtils;
-import org.apache.commons.math3.util.MathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Created by devsu04 on 20/02/17.
  *
@@ -27,46 +31,116 @@ import org.slf4j.LoggerFactory;
  * The decryption function is
  *
  * p = (a pow -1)(c - b)(mod m)
+ *
+ * The letters are the English ones (m = 26) by default, any other Alphabet can be given to getInstance(Alphabet),
+ * m is then the size of the alphabet and a is chosen relatively prime to it.
+ *
+ * The English alphabet has 12 values of a with an inverse and 26 of b, the ciphers of all the 312 keys are
+ * built once with their substitution tables, so getInstance(keyA, keyB) and getRandomInstance(Random) are an
+ * array lookup and the key can be rotated for every message at no cost, e.g.
+ *
+ *     Random random = new Random(seed);
+ *     AffineCipher cipher = AffineCipher.getRandomInstance(random);
+ *     String cipherText = cipher.encrypt(plainText);
+ *     ... AffineCipher.getInstance(cipher.getKeyA(), cipher.getKeyB()).decrypt(cipherText)
+ *
+ * The factories of a key or an alphabet return the AffineCipher so that its keys can be read, getInstance()
+ * returns a CryptoService as it always has.
  */
-public class AffineCipher implements CryptoService{
+public class AffineCipher extends AbstractCryptoService {
 
     private static final Logger logger = LoggerFactory.getLogger(AffineCipher.class);
 
+    /**
+     * The number of letters of the English alphabet
+     */
+    private static final int M = 26;
+
+    /**
+     * The 12 values of keyA relatively prime to 26 and their inverses modulo 26, the keys of the English alphabet
+     * used by the cipher and the frequency analysis alike
+     */
+    private static final int[] KEY_A_VALUES = {1, 3, 5, 7, 9, 11, 15, 17, 19, 21, 23, 25};
+
+    private static final int[] INVERSES_OF_KEY_A = new int[KEY_A_VALUES.length];
+
+    /**
+     * The index of every keyA in KEY_A_VALUES, -1 for the values without an inverse
+     */
+    private static final int[] KEY_A_INDEXES = new int[M];
+
+    static {
+        Arrays.fill(KEY_A_INDEXES, -1);
+        for(int i=0;i<KEY_A_VALUES.length;i++) {
+            KEY_A_INDEXES[KEY_A_VALUES[i]] = i;
+            INVERSES_OF_KEY_A[i] = CryptoUtils.modInverse(KEY_A_VALUES[i], M);
+        }
+    }
+
+    /**
+     * The number of keys of the English alphabet, 12 * 26
+     */
+    public static final int KEY_COUNT = KEY_A_VALUES.length * M;
+
+    /**
+     * The number of keys drawn by getRandomInstance(), keyA is not 1 and keyB is not 0 so the letters are
+     * neither only shifted nor 'a' left in place
+     */
+    private static final int RANDOM_KEY_COUNT = (KEY_A_VALUES.length - 1) * (M - 1);
+
     /**
      * The key-A used for encryption.
      */
-    private int keyA;
+    private final int keyA;
 
     /**
      * The key-B used for encryption.
      */
-    private int keyB;
+    private final int keyB;
 
     /**
      * The inverse value of keyA
      */
-    private int inverseOfKeyA;
+    private final int inverseOfKeyA;
+
+    /**
+     * The alphabet of the letters substituted
+     */
+    private final Alphabet alphabet;
+
+    /**
+     * The substitution tables precomputed from keyA and keyB
+     */
+    private final SubstitutionTable table;
+
+    /**
+     * The transforms over the substitution tables
+     */
+    private final Transform encryption;
+
+    private final Transform decryption;
 
     /**
      * This variable holds the static instance of the AffineCipher
      */
-    private static AffineCipher _instance;
+    private static volatile AffineCipher _instance;
 
     /**
-     * The private constructor
+     * The private constructor accepting the keys and the alphabet of the letters substituted
+     * @param keyA
+     * @param inverseOfKeyA
+     * @param keyB
+     * @param alphabet
      */
-    private AffineCipher() {
-        int _keyA = generateKey();
-        int _keyB = generateKey();
-        while(_keyA == _keyB) {
-            _keyB = generateKey();
-        }
-        this.keyA = _keyA; // 5;
-        logger.debug("The keyA - {}", keyA);
-        inverseOfKeyA = calculateInverseOfInt(keyA); // 21;
-        logger.debug("Inverse of keyA - {}", inverseOfKeyA);
-        this.keyB = _keyB; // 9;
-        logger.debug("The keyB - {}", keyB);
+    private AffineCipher(int keyA, int inverseOfKeyA, int keyB, Alphabet alphabet) {
+        int m = alphabet.size();
+        this.alphabet = alphabet;
+        this.keyA = keyA; // 5;
+        this.inverseOfKeyA = inverseOfKeyA; // 21;
+        this.keyB = keyB; // 9;
+        this.table = SubstitutionTable.of(alphabet, pos -> (keyA * pos + keyB) % m);
+        this.encryption = new TableTransform(table, true);
+        this.decryption = new TableTransform(table, false);
     }
 
     /**
@@ -77,7 +151,7 @@ public class AffineCipher implements CryptoService{
         if(_instance == null) {
             synchronized (AffineCipher.class) {
                 if(_instance == null) {
-                    _instance = new AffineCipher();
+                    _instance = getRandomInstance();
                     logger.info("****** Yeah got an instance of AffineCipher ******");
                 }
             }
@@ -85,6 +159,107 @@ public class AffineCipher implements CryptoService{
         return _instance;
     }
 
+    /**
+     * Thread safe way of getting the shared instance of the AffineCipher object over the alphabet, one
+     * instance with its own random keys is built and cached for every alphabet
+     * @param alphabet
+     * @return
+     */
+    public static AffineCipher getInstance(Alphabet alphabet) {
+        if(Alphabet.ENGLISH.equals(alphabet)) return (AffineCipher) getInstance();
+        if(alphabet.size() < 3) throw new IllegalArgumentException("The Affine cipher needs an alphabet of at least 3 letters");
+        return CipherCache.getInstance().get(AffineCipher.class, () -> {
+            logger.info("****** Yeah got an instance of AffineCipher over {} ******", alphabet);
+            return newRandomInstance(alphabet, ThreadLocalRandom.current());
+        }, alphabet);
+    }
+
+    /**
+     * This method returns the cipher of a key drawn from the ThreadLocalRandom, keyA other than 1 and keyB
+     * other than 0, the ciphers of all the keys are shared so drawing a key allocates nothing
+     * @return
+     */
+    public static AffineCipher getRandomInstance() {
+        return getRandomInstance(ThreadLocalRandom.current());
+    }
+
+    /**
+     * This method returns the cipher of a key drawn from the random, keyA other than 1 and keyB other than 0,
+     * so a Random of a given seed draws the same sequence of keys
+     * @param random
+     * @return
+     */
+    public static AffineCipher getRandomInstance(Random random) {
+        int key = random.nextInt(RANDOM_KEY_COUNT);
+        return KeySpace.CIPHERS[(1 + key / (M - 1)) * M + 1 + key % (M - 1)];
+    }
+
+    /**
+     * Thread safe way of getting the shared instance of the AffineCipher object with the given keys, one
+     * instance is built and cached for every pair of keys
+     * @param keyA relatively prime to 26
+     * @param keyB between 0 and 25
+     * @return
+     * @throws IllegalArgumentException when the keys are not valid
+     */
+    public static AffineCipher getInstance(int keyA, int keyB) {
+        int index = keyA >= 0 && keyA < M ? KEY_A_INDEXES[keyA] : -1;
+        if(index < 0 || keyB < 0 || keyB >= M) {
+            throw new IllegalArgumentException("keyA must be one of " + Arrays.toString(KEY_A_VALUES) + " and keyB between 0 and 25 - " + keyA + ", " + keyB);
+        }
+        return KeySpace.CIPHERS[index * M + keyB];
+    }
+
+    /**
+     * This method returns the values of keyA of the English alphabet, the numbers relatively prime to 26
+     * @return
+     */
+    public static int[] getKeyAValues() {
+        return KEY_A_VALUES.clone();
+    }
+
+    /**
+     * This method returns the inverse modulo 26 of a keyA of the English alphabet
+     * @param keyA
+     * @return
+     * @throws IllegalArgumentException when keyA is not relatively prime to 26
+     */
+    public static int getInverseOfKeyA(int keyA) {
+        int index = keyA >= 0 && keyA < M ? KEY_A_INDEXES[keyA] : -1;
+        if(index < 0) throw new IllegalArgumentException("keyA must be one of " + Arrays.toString(KEY_A_VALUES) + " - " + keyA);
+        return INVERSES_OF_KEY_A[index];
+    }
+
+    /**
+     * Thread safe way of getting the shared instance of the AffineCipher object with the given keys over the
+     * alphabet, one instance is built and cached for every pair of keys and alphabet
+     * @param keyA relatively prime to the size of the alphabet
+     * @param keyB between 0 and the size of the alphabet - 1
+     * @param alphabet
+     * @return
+     * @throws IllegalArgumentException when the keys are not valid
+     */
+    public static AffineCipher getInstance(int keyA, int keyB, Alphabet alphabet) {
+        if(Alphabet.ENGLISH.equals(alphabet)) return getInstance(keyA, keyB);
+        int m = alphabet.size();
+        if(keyA < 1 || keyA >= m || keyB < 0 || keyB >= m) {
+            throw new IllegalArgumentException("The keys must be between 1 and " + (m - 1) + " and between 0 and " + (m - 1) + " - " + keyA + ", " + keyB);
+        }
+        int inverseOfKeyA = CryptoUtils.modInverse(keyA, m);
+        return CipherCache.getInstance().get(AffineCipher.class, () -> {
+            logger.info("****** Yeah got an instance of AffineCipher with keys {}, {} over {} ******", keyA, keyB, alphabet);
+            return new AffineCipher(keyA, inverseOfKeyA, keyB, alphabet);
+        }, keyA, keyB, alphabet);
+    }
+
+    /**
+     * This method returns the alphabet of the letters substituted, m is its size
+     * @return
+     */
+    public Alphabet getAlphabet() {
+        return this.alphabet;
+    }
+
     /**
      * This method returns the key-A generated during the process of encryption
      * @return
@@ -93,6 +268,14 @@ public class AffineCipher implements CryptoService{
         return this.keyA;
     }
 
+    /**
+     * This method returns the inverse of key-A modulo the size of the alphabet
+     * @return
+     */
+    public int getInverseOfKeyA() {
+        return this.inverseOfKeyA;
+    }
+
     /**
      * This method returns the key-B generated during the process of encryption
      * @return
@@ -112,15 +295,10 @@ public class AffineCipher implements CryptoService{
         logger.info("Plain text for encryption - {}", plainText);
         char[] _plainText = plainText.toCharArray();
         char[] _cipherText = new char[_plainText.length];
-        for(int i=0;i<_plainText.length;i++) {
-            if(CharUtils.isAsciiAlpha(_plainText[i])) {
-                _cipherText[i] = getEncryptedChar(_plainText[i]);
-            } else {
-                _cipherText[i] = _plainText[i];
-            }
-        }
-        logger.info("Cipher text after encryption - {}", String.valueOf(_cipherText));
-        return String.valueOf(_cipherText);
+        table.encrypt(_plainText, 0, _cipherText, 0, _plainText.length);
+        String cipherText = String.valueOf(_cipherText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return cipherText;
     }
 
     /**
@@ -134,103 +312,48 @@ public class AffineCipher implements CryptoService{
         logger.info("Cipher text for decryption - {}", cipherText);
         char[] _cipherText = cipherText.toCharArray();
         char[] _plainText = new char[_cipherText.length];
-        for(int i=0;i<_cipherText.length;i++) {
-            if(CharUtils.isAsciiAlpha(_cipherText[i])) {
-                _plainText[i] = getDecryptedChar(_cipherText[i]);
-                logger.debug("Got the decrypted char - {}", _plainText[i]);
-            } else {
-                _plainText[i] = _cipherText[i];
-            }
-        }
-        logger.info("Plain text after decryption - {}", String.valueOf(_plainText));
-        return String.valueOf(_plainText);
+        table.decrypt(_cipherText, 0, _plainText, 0, _cipherText.length);
+        String plainText = String.valueOf(_plainText);
+        logger.info("Plain text after decryption - {}", plainText);
+        return plainText;
     }
 
     /**
-     * This is a utility function that calculates the encrypted char based on the AffineCipher Algorithm
-     *
-     * @param _char
-     * @return
+     * This method returns the transform over the substitution tables, the same one is shared by all the texts
      */
-    private char getEncryptedChar(char _char) {
-        logger.debug("================ iteration - {}", _char);
-        char encChar = '\0';
-        CryptoUtils.CASE _case = CryptoUtils.CASE.LOWERCASE;
-        if(CharUtils.isAsciiAlpha(_char)) {
-            if(CharUtils.isAsciiAlphaLower(_char)) _case  = CryptoUtils.CASE.LOWERCASE;
-            else if(CharUtils.isAsciiAlphaUpper(_char)) _case  = CryptoUtils.CASE.UPPERCASE;
-        }
-        int pos = CryptoUtils.getAlphaPos(_char);
-        int newCharPos = (keyA * pos + keyB) % 26;
-        logger.debug("Applying the algorithm - newCharPos = ({} * {} + {}) % 26 - {}", keyA, pos, keyB, newCharPos);
-        encChar = CryptoUtils.getAlphaAtPos(newCharPos, _case);
-        logger.debug("Encrypted char - {}", encChar);
-        return encChar;
+    protected Transform newTransform(boolean encrypting, long length) {
+        return encrypting ? encryption : decryption;
     }
 
     /**
-     * This is a utility function that calculates the decrypted char based on the AffineCipher Algorithm
-     *
-     * @param _char
-     * @return
+     * This is a utility method that returns a cipher over the alphabet with keys drawn from the random, keyA
+     * relatively prime to the size of the alphabet and other than 1, and keyB other than 0
      */
-    private char getDecryptedChar(char _char) {
-        logger.debug("================ iteration - {}", _char);
-        char decChar = '\0';
-        CryptoUtils.CASE _case = CryptoUtils.CASE.LOWERCASE;
-        if(CharUtils.isAsciiAlpha(_char)) {
-            if(CharUtils.isAsciiAlphaLower(_char)) _case  = CryptoUtils.CASE.LOWERCASE;
-            else if(CharUtils.isAsciiAlphaUpper(_char)) _case  = CryptoUtils.CASE.UPPERCASE;
+    private static AffineCipher newRandomInstance(Alphabet alphabet, Random random) {
+        int m = alphabet.size();
+        int[] keyAValues = new int[m];
+        int count = 0;
+        for(int keyA=2;keyA<m;keyA++) {
+            if(ArithmeticUtils.gcd(keyA, m) == 1) keyAValues[count++] = keyA;
         }
-        int pos = CryptoUtils.getAlphaPos(_char);
-        int actualCharPos = (inverseOfKeyA * (pos - keyB));
-        actualCharPos = actualCharPos%26;
-        if(actualCharPos < 0) actualCharPos = 26 + actualCharPos; // This was necessary as Java does not calculate the modulo of a -ve integer properly
-        logger.debug("Applying the algorithm - actualCharPos = {} * ({} - {}) = {} = () % 26 = {}", inverseOfKeyA, pos, keyB, inverseOfKeyA * (pos - keyB), actualCharPos);
-        decChar = CryptoUtils.getAlphaAtPos(actualCharPos, _case);
-        return decChar;
+        int keyA = keyAValues[random.nextInt(count)];
+        return new AffineCipher(keyA, CryptoUtils.modInverse(keyA, m), 1 + random.nextInt(m - 1), alphabet);
     }
 
     /**
-     * This is a utility method to generate key based on the following criteria
-     * - Choose a number relatively prime to 26, assuming we are using a 26 alphabet lang
-     * - The chosen number and 26 should not be sharing any factors.
-     *
-     * @return
+     * The ciphers of all the keys of the English alphabet, built on the first use, the cipher of keyA and keyB
+     * is at the index of keyA in KEY_A_VALUES * 26 + keyB
      */
-    private int generateKey(){
-        int _key = 0;
-        int rVal = CryptoUtils.generateRandom(2, 26);
-        logger.debug("The random number generated - {}", rVal);
-        int gcd = ArithmeticUtils.gcd(rVal, 26);
-        logger.debug("The gcd of {} and {} was - {}", rVal, 26, gcd);
-        while(gcd > 1) {
-            logger.debug("Hmmm... Seems like we have a GCD. Let's generate a fresh Random number and calculate the GCD again.");
-            rVal = CryptoUtils.generateRandom(2, 26);
-            logger.debug("The random number generated - {}", rVal);
-            gcd = ArithmeticUtils.gcd(rVal, 26);
-            logger.debug("The gcd of {} and {} was - {}", rVal, 26, gcd);
-        }
-        _key = rVal;
-        return _key;
-    }
+    private static final class KeySpace {
 
-    /**
-     * This is a utility function that calculates the invserse of the given number
-     *
-     * @param number
-     * @return
-     */
-    private int calculateInverseOfInt(int number){
-        int aInv = 0;
-        for(int i=1; i<26; i+=2) {
-            int tmp = (number * i) % 26;
-            if(tmp == 1) {
-                aInv = i;
-                break;
+        private static final AffineCipher[] CIPHERS = new AffineCipher[KEY_COUNT];
+
+        static {
+            for(int i=0;i<KEY_A_VALUES.length;i++) {
+                for(int keyB=0;keyB<M;keyB++) {
+                    CIPHERS[i * M + keyB] = new AffineCipher(KEY_A_VALUES[i], INVERSES_OF_KEY_A[i], keyB, Alphabet.ENGLISH);
+                }
             }
         }
-        return aInv;
     }
-
 }
@@ -0,0 +1,205 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.ThreadUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * This class runs the encryption and decryption of any of the ciphers on an executor and returns a
+ * CompletableFuture of the result, so that the threads of an event loop are not blocked by large payloads.
+ *
+ * The default executor starts a virtual thread for every task on JVMs which have them (Java 21 onwards)
+ * and falls back to a cached pool of daemon threads otherwise. The streams and files are transformed with
+ * blocking I/O, so the executor should not be one of the threads of the event loop.
+ */
+public class AsyncCryptoService {
+
+    /**
+     * The cipher doing the actual encryption
+     */
+    private final CryptoService cryptoService;
+
+    /**
+     * The executor running the encryption
+     */
+    private final Executor executor;
+
+    /**
+     * The constructor using the default executor
+     * @param cryptoService
+     */
+    public AsyncCryptoService(CryptoService cryptoService) {
+        this(cryptoService, getDefaultExecutor());
+    }
+
+    /**
+     * The constructor accepting the executor
+     * @param cryptoService
+     * @param executor
+     */
+    public AsyncCryptoService(CryptoService cryptoService, Executor executor) {
+        this.cryptoService = cryptoService;
+        this.executor = executor;
+    }
+
+    /**
+     * This method returns the executor shared by the services created without one, a virtual thread per
+     * task when the JVM supports it
+     * @return
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * This method returns the cipher doing the actual encryption
+     * @return
+     */
+    public CryptoService getCryptoService() {
+        return cryptoService;
+    }
+
+    /**
+     * This method returns the future of the encrypted text given a plaintext
+     *
+     * @param plainText
+     * @return
+     */
+    public CompletableFuture<String> encrypt(String plainText) {
+        return CompletableFuture.supplyAsync(() -> cryptoService.encrypt(plainText), executor);
+    }
+
+    /**
+     * This method returns the future of the plaintext given a ciphertext
+     *
+     * @param cipherText
+     * @return
+     */
+    public CompletableFuture<String> decrypt(String cipherText) {
+        return CompletableFuture.supplyAsync(() -> cryptoService.decrypt(cipherText), executor);
+    }
+
+    /**
+     * This method returns the future of the UTF-8 encrypted text given a UTF-8 plaintext
+     *
+     * @param plainText
+     * @return
+     */
+    public CompletableFuture<byte[]> encryptBytes(byte[] plainText) {
+        return CompletableFuture.supplyAsync(() -> cryptoService.encryptBytes(plainText), executor);
+    }
+
+    /**
+     * This method returns the future of the UTF-8 plaintext given a UTF-8 ciphertext
+     *
+     * @param cipherText
+     * @return
+     */
+    public CompletableFuture<byte[]> decryptBytes(byte[] cipherText) {
+        return CompletableFuture.supplyAsync(() -> cryptoService.decryptBytes(cipherText), executor);
+    }
+
+    /**
+     * This method reads the plaintext from the reader and writes the ciphertext to the writer, the future
+     * completes once the reader is exhausted, or with the IOException
+     *
+     * @param plainText
+     * @param cipherText
+     * @return
+     */
+    public CompletableFuture<Void> encrypt(Reader plainText, Writer cipherText) {
+        return run(() -> cryptoService.encrypt(plainText, cipherText));
+    }
+
+    /**
+     * This method reads the ciphertext from the reader and writes the plaintext to the writer
+     *
+     * @param cipherText
+     * @param plainText
+     * @return
+     */
+    public CompletableFuture<Void> decrypt(Reader cipherText, Writer plainText) {
+        return run(() -> cryptoService.decrypt(cipherText, plainText));
+    }
+
+    /**
+     * This method reads the UTF-8 plaintext from the input stream and writes the UTF-8 ciphertext to the output stream
+     *
+     * @param plainText
+     * @param cipherText
+     * @return
+     */
+    public CompletableFuture<Void> encrypt(InputStream plainText, OutputStream cipherText) {
+        return run(() -> cryptoService.encrypt(plainText, cipherText));
+    }
+
+    /**
+     * This method reads the UTF-8 ciphertext from the input stream and writes the UTF-8 plaintext to the output stream
+     *
+     * @param cipherText
+     * @param plainText
+     * @return
+     */
+    public CompletableFuture<Void> decrypt(InputStream cipherText, OutputStream plainText) {
+        return run(() -> cryptoService.decrypt(cipherText, plainText));
+    }
+
+    /**
+     * This method encrypts the UTF-8 text file in place
+     *
+     * @param file
+     * @return
+     */
+    public CompletableFuture<Void> encryptInPlace(Path file) {
+        return run(() -> cryptoService.encryptInPlace(file));
+    }
+
+    /**
+     * This method decrypts the UTF-8 text file in place
+     *
+     * @param file
+     * @return
+     */
+    public CompletableFuture<Void> decryptInPlace(Path file) {
+        return run(() -> cryptoService.decryptInPlace(file));
+    }
+
+    /**
+     * This is a utility method that runs a task on the executor, completing the future with its exception
+     */
+    private CompletableFuture<Void> run(IOTask task) {
+        CompletableFuture<Void> future = new CompletableFuture<Void>();
+        executor.execute(() -> {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * A task doing I/O
+     */
+    private interface IOTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * The holder of the default executor, created when it is first used
+     */
+    private static final class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = ThreadUtils.newThreadPerTaskExecutor("async-crypto");
+    }
+}
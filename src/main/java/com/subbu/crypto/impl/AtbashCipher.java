@@ -1,7 +1,10 @@
 package com.subbu.crypto.impl;
 
 import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.Alphabet;
+import com.subbu.crypto.utils.CipherCache;
 import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.SubstitutionTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,20 +21,50 @@ import org.slf4j.LoggerFactory;
  * a piece of ciphertext has been enciphered with the Atbash cipher, they can still break it by assuming it is a
  * substitution cipher and determining the key using hill-climbing. The Atbash cipher is also an Affine cipher
  * with a=25 and b = 25, so breaking it as an affine cipher also works.
+ *
+ * The letters are the English ones by default, any other Alphabet can be given to getInstance(Alphabet), whose
+ * letters are rolled by its size - 1.
  */
-public class AtbashCipher implements CryptoService {
+public class AtbashCipher extends AbstractCryptoService {
 
     private static final Logger logger = LoggerFactory.getLogger(AtbashCipher.class);
 
     /**
      * This variable holds the static instance of the OneTimePadCipher
      */
-    private static AtbashCipher _instance;
+    private static volatile AtbashCipher _instance;
+
+    /**
+     * The substitution tables precomputed from the default shift size
+     */
+    private final SubstitutionTable table;
+
+    /**
+     * The transforms rolling the letters by the shift size
+     */
+    private final Transform encryption;
+
+    private final Transform decryption;
 
     /**
      * The private constructor
      */
     private AtbashCipher() {
+        this.table = SubstitutionTable.of(
+                _char -> CryptoUtils.rollCharacters(_char, CryptoUtils.DEFAULT_SHIFY_SIZE),
+                _char -> CryptoUtils.unRollCharacters(_char, CryptoUtils.DEFAULT_SHIFY_SIZE));
+        this.encryption = new ShiftTransform(table, CryptoUtils.DEFAULT_SHIFY_SIZE, true);
+        this.decryption = new ShiftTransform(table, CryptoUtils.DEFAULT_SHIFY_SIZE, false);
+    }
+
+    /**
+     * The private constructor accepting the alphabet of the letters rolled by the size of the alphabet - 1, like the 25 places of the English letters
+     * @param alphabet
+     */
+    private AtbashCipher(Alphabet alphabet) {
+        this.table = SubstitutionTable.of(alphabet, index -> (index + alphabet.size() - 1) % alphabet.size());
+        this.encryption = new TableTransform(table, true);
+        this.decryption = new TableTransform(table, false);
     }
 
     /**
@@ -50,6 +83,20 @@ public class AtbashCipher implements CryptoService {
         return _instance;
     }
 
+    /**
+     * Thread safe way of getting the shared instance of the AtbashCipher object over the alphabet,
+     * one instance is built and cached for every alphabet
+     * @param alphabet
+     * @return
+     */
+    public static CryptoService getInstance(Alphabet alphabet) {
+        if(Alphabet.ENGLISH.equals(alphabet)) return getInstance();
+        return CipherCache.getInstance().get(AtbashCipher.class, () -> {
+            logger.info("****** Yeah got an instance of AtbashCipher over {} ******", alphabet);
+            return new AtbashCipher(alphabet);
+        }, alphabet);
+    }
+
     /**
      * This method returns the encrypted text given a plaintext
      *
@@ -62,11 +109,10 @@ public class AtbashCipher implements CryptoService {
         char[] _plainText = plainText.toCharArray();
         char[] _cipherText = new char[_plainText.length];
         logger.debug("Shiftsize - {}", CryptoUtils.DEFAULT_SHIFY_SIZE);
-        for(int i=0;i<_plainText.length;i++) {
-            _cipherText[i] = CryptoUtils.rollCharacters(_plainText[i],CryptoUtils.DEFAULT_SHIFY_SIZE);
-        }
-        logger.info("Cipher text after encryption - {}", String.valueOf(_cipherText));
-        return String.valueOf(_cipherText);
+        table.encrypt(_plainText, 0, _cipherText, 0, _plainText.length);
+        String cipherText = String.valueOf(_cipherText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return cipherText;
     }
 
     /**
@@ -81,10 +127,16 @@ public class AtbashCipher implements CryptoService {
         char[] _cipherText = cipherText.toCharArray();
         char[] _plainText = new char[_cipherText.length];
         logger.debug("Shiftsize - {}", CryptoUtils.DEFAULT_SHIFY_SIZE);
-        for(int i=0;i<_cipherText.length;i++) {
-            _plainText[i] = CryptoUtils.unRollCharacters(_cipherText[i], CryptoUtils.DEFAULT_SHIFY_SIZE);
-        }
-        logger.info("Plain text after encryption - {}", String.valueOf(_plainText));
-        return String.valueOf(_plainText);
+        table.decrypt(_cipherText, 0, _plainText, 0, _cipherText.length);
+        String plainText = String.valueOf(_plainText);
+        logger.info("Plain text after encryption - {}", plainText);
+        return plainText;
+    }
+
+    /**
+     * This method returns the transform rolling the letters by the shift size, the same one is shared by all the texts
+     */
+    protected Transform newTransform(boolean encrypting, long length) {
+        return encrypting ? encryption : decryption;
     }
 }
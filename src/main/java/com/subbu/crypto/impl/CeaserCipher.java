@@ -1,7 +1,10 @@
 package com.subbu.crypto.impl;
 
 import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.Alphabet;
+import com.subbu.crypto.utils.CipherCache;
 import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.SubstitutionTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,26 +17,40 @@ import org.slf4j.LoggerFactory;
  * The Caesar cipher, also known as a shift cipher, is one of the simplest forms of encryption.
  * It is a substitution cipher where each letter in the original message (called the plaintext)
  * is replaced with a letter corresponding to a certain number of letters up or down in the alphabet.
+ *
+ * The letters are the English ones by default, any other Alphabet can be given to getInstance(int, Alphabet).
  */
-public class CeaserCipher implements CryptoService {
+public class CeaserCipher extends AbstractCryptoService {
 
     private static final Logger logger = LoggerFactory.getLogger(CeaserCipher.class);
 
     /**
      * This shift size to shift the number of characters.
      */
-    private int shiftSize;
+    private final int shiftSize;
+
+    /**
+     * The substitution tables precomputed from the shiftSize
+     */
+    private final SubstitutionTable table;
+
+    /**
+     * The transforms rolling the letters by the shift size
+     */
+    private final Transform encryption;
+
+    private final Transform decryption;
 
     /**
      * This variable holds the static instance of the CeaserCipher
      */
-    private static CeaserCipher _instance;
+    private static volatile CeaserCipher _instance;
 
     /**
      * The private constructor with a default shiftSize of 7
      */
     private CeaserCipher() {
-        this.shiftSize = 7;
+        this(7);
     }
 
     /**
@@ -42,6 +59,24 @@ public class CeaserCipher implements CryptoService {
      */
     private CeaserCipher(int shiftSize) {
         this.shiftSize = shiftSize;
+        this.table = SubstitutionTable.of(
+                _char -> CryptoUtils.rollCharacters(_char, shiftSize),
+                _char -> CryptoUtils.unRollCharacters(_char, shiftSize));
+        this.encryption = new ShiftTransform(table, shiftSize, true);
+        this.decryption = new ShiftTransform(table, shiftSize, false);
+    }
+
+    /**
+     * The private constructor accepting a shiftSize and the alphabet of the letters rolled
+     * @param shiftSize
+     * @param alphabet
+     */
+    private CeaserCipher(int shiftSize, Alphabet alphabet) {
+        this.shiftSize = shiftSize;
+        int _shiftSize = Math.floorMod(shiftSize, alphabet.size());
+        this.table = SubstitutionTable.of(alphabet, index -> (index + _shiftSize) % alphabet.size());
+        this.encryption = new TableTransform(table, true);
+        this.decryption = new TableTransform(table, false);
     }
 
     /**
@@ -61,20 +96,31 @@ public class CeaserCipher implements CryptoService {
     }
 
     /**
-     * Thread safe way of creating a singleton instance of the CeaserCipher object with shiftSize
+     * Thread safe way of getting the shared instance of the CeaserCipher object with shiftSize,
+     * one instance is built and cached for every shiftSize
      * @param shiftSize
      * @return
      */
     public static CryptoService getInstance(int shiftSize) {
-        if(_instance == null) {
-            synchronized (CeaserCipher.class) {
-                if(_instance == null) {
-                    _instance = new CeaserCipher(shiftSize);
-                    logger.info("****** Yeah got an instance of CeaserCipher ******");
-                }
-            }
-        }
-        return _instance;
+        return CipherCache.getInstance().get(CeaserCipher.class, () -> {
+            logger.info("****** Yeah got an instance of CeaserCipher with shiftSize {} ******", shiftSize);
+            return new CeaserCipher(shiftSize);
+        }, shiftSize);
+    }
+
+    /**
+     * Thread safe way of getting the shared instance of the CeaserCipher object rolling the letters of the
+     * alphabet by shiftSize, one instance is built and cached for every shiftSize and alphabet
+     * @param shiftSize
+     * @param alphabet
+     * @return
+     */
+    public static CryptoService getInstance(int shiftSize, Alphabet alphabet) {
+        if(Alphabet.ENGLISH.equals(alphabet)) return getInstance(shiftSize);
+        return CipherCache.getInstance().get(CeaserCipher.class, () -> {
+            logger.info("****** Yeah got an instance of CeaserCipher with shiftSize {} over {} ******", shiftSize, alphabet);
+            return new CeaserCipher(shiftSize, alphabet);
+        }, shiftSize, alphabet);
     }
 
     /**
@@ -89,11 +135,10 @@ public class CeaserCipher implements CryptoService {
         char[] _plainText = plainText.toCharArray();
         char[] _cipherText = new char[_plainText.length];
         logger.debug("Shiftsize - {}", shiftSize);
-        for(int i=0;i<_plainText.length;i++) {
-            _cipherText[i] = CryptoUtils.rollCharacters(_plainText[i],shiftSize);
-        }
-        logger.info("Cipher text after encryption - {}", String.valueOf(_cipherText));
-        return String.valueOf(_cipherText);
+        table.encrypt(_plainText, 0, _cipherText, 0, _plainText.length);
+        String cipherText = String.valueOf(_cipherText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return cipherText;
     }
 
     /**
@@ -108,10 +153,16 @@ public class CeaserCipher implements CryptoService {
         char[] _cipherText = cipherText.toCharArray();
         char[] _plainText = new char[_cipherText.length];
         logger.debug("Shiftsize - {}", shiftSize);
-        for(int i=0;i<_cipherText.length;i++) {
-            _plainText[i] = CryptoUtils.unRollCharacters(_cipherText[i], shiftSize);
-        }
-        logger.info("Plain text after encryption - {}", String.valueOf(_plainText));
-        return String.valueOf(_plainText);
+        table.decrypt(_cipherText, 0, _plainText, 0, _cipherText.length);
+        String plainText = String.valueOf(_plainText);
+        logger.info("Plain text after encryption - {}", plainText);
+        return plainText;
+    }
+
+    /**
+     * This method returns the transform rolling the letters by the shift size, the same one is shared by all the texts
+     */
+    protected Transform newTransform(boolean encrypting, long length) {
+        return encrypting ? encryption : decryption;
     }
 }
@@ -0,0 +1,579 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.CryptoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class chains any number of the ciphers into a single cipher which encrypts a text with every cipher
+ * in turn and decrypts it with every cipher in the reverse order, e.g.
+ *
+ *     CryptoService pipeline = CipherPipeline.builder()
+ *             .then(AffineCipher.getInstance())
+ *             .then(VigenereCipher.getInstance("LEMON"))
+ *             .build();
+ *
+ * The chain is compiled when it is built so that a text is transformed in a single pass without any
+ * intermediate text. The monoalphabetic ciphers (Ceaser, ROT13, Atbash, Affine) which follow each other
+ * collapse into a single substitution table. The Vigenere and OneTimePad ciphers roll every letter by an
+ * amount depending on its position, these collapse into a single roll by the sum of their shifts together
+ * with the tables next to them which are plain rolls (Ceaser, ROT13, Atbash). A chain of any length ends up
+ * as one table, one roll, or a few of them alternating, applied to every chunk of the text while it is in
+ * the cache.
+ *
+ * The OneTimePad ciphers of the chain generate their pad on every encryption. encrypt(String, Consumer) hands
+ * the pads to the caller and decrypt(String, OneTimePad...) takes them back, so any number of threads can use
+ * the pipeline at the same time, while the other methods publish the pad for getKey() and decrypt with it,
+ * the same deprecated single thread path as when the cipher is used on its own. The key of every Vigenere cipher of the chain restarts at
+ * every value of a batch, so that the values match the ones encrypted one by one, while the OneTimePad
+ * ciphers use a single key for the whole batch as they do on their own.
+ */
+public class CipherPipeline extends AbstractCryptoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CipherPipeline.class);
+
+    /**
+     * The ciphers of the chain in the order of the encryption
+     */
+    private final List<AbstractCryptoService> stages;
+
+    /**
+     * The compiled encryption and decryption
+     */
+    private final Step[] encryption;
+
+    private final Step[] decryption;
+
+    /**
+     * The number of OneTimePad ciphers of the chain
+     */
+    private final int padCount;
+
+    /**
+     * The private constructor accepting the ciphers of the chain
+     * @param stages
+     */
+    private CipherPipeline(List<AbstractCryptoService> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+        this.encryption = compile(stages, true);
+        this.decryption = compile(stages, false);
+        int _padCount = 0;
+        for(AbstractCryptoService stage : stages) {
+            if(stage instanceof OneTimePadCipher) _padCount++;
+        }
+        this.padCount = _padCount;
+        logger.info("****** Compiled a pipeline of {} ciphers into {} steps ******", stages.size(), encryption.length);
+    }
+
+    /**
+     * This method returns a builder of a pipeline
+     * @return
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * This method returns the ciphers of the chain in the order of the encryption
+     * @return
+     */
+    public List<AbstractCryptoService> getStages() {
+        return stages;
+    }
+
+    /**
+     * This method returns the number of passes over every chunk of the text, one for every table or roll
+     * the chain has been compiled into
+     * @return
+     */
+    public int getStepCount() {
+        return encryption.length;
+    }
+
+    /**
+     * This method returns the encrypted text given a plaintext
+     *
+     * @param plainText
+     * @return
+     */
+    public String encrypt(String plainText) {
+        return encrypt(plainText, (Consumer<OneTimePad>) null);
+    }
+
+    /**
+     * This method returns the encrypted text given a plaintext, the keys generated by the OneTimePad ciphers
+     * of the chain are handed to the consumer in the order of the chain once the text has been encrypted
+     *
+     * @param plainText
+     * @param padConsumer
+     * @return
+     */
+    public String encrypt(String plainText, Consumer<OneTimePad> padConsumer) {
+        logger.debug("=============================== *** ENCRYPTION *** ===================================================");
+        logger.info("Plain text for encryption - {}", plainText);
+        char[] _plainText = plainText.toCharArray();
+        transform(newTransform(true, _plainText.length, padConsumer, null), _plainText, 0, _plainText, 0, _plainText.length);
+        String cipherText = String.valueOf(_plainText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return cipherText;
+    }
+
+    /**
+     * This method returns the plaintext given a ciphertext
+     *
+     * @param cipherText
+     * @return
+     */
+    public String decrypt(String cipherText) {
+        return decrypt(cipherText, (OneTimePad[]) null);
+    }
+
+    /**
+     * This method returns the plaintext given a ciphertext and the keys of the OneTimePad ciphers of the chain
+     * in the order of the chain
+     *
+     * @param cipherText
+     * @param pads
+     * @return
+     * @throws IllegalArgumentException when there is not a key for every OneTimePad cipher of the chain
+     */
+    public String decrypt(String cipherText, OneTimePad... pads) {
+        if(pads != null && pads.length != padCount) {
+            throw new IllegalArgumentException("The pipeline has " + padCount + " OneTimePad ciphers, " + pads.length + " keys given");
+        }
+        logger.debug("=============================== *** DECRYPTION *** ===================================================");
+        logger.info("Cipher text for decryption - {}", cipherText);
+        char[] _cipherText = cipherText.toCharArray();
+        transform(newTransform(false, _cipherText.length, null, pads), _cipherText, 0, _cipherText, 0, _cipherText.length);
+        String plainText = String.valueOf(_cipherText);
+        logger.info("Plain text after decryption - {}", plainText);
+        return plainText;
+    }
+
+    /**
+     * This method returns the compiled transform, with a new transform of every Vigenere and OneTimePad
+     * cipher of the chain
+     */
+    protected Transform newTransform(boolean encrypting, long length) {
+        return newTransform(encrypting, length, null, null);
+    }
+
+    /**
+     * This method returns the compiled transform, the OneTimePad ciphers of the chain hand their keys to the
+     * padConsumer or decrypt with the pads when they are given, and use the key they publish otherwise. The
+     * steps hold the ciphers in the order of the chain when encrypting and in the reverse order when decrypting.
+     */
+    private Transform newTransform(boolean encrypting, long length, Consumer<OneTimePad> padConsumer, OneTimePad[] pads) {
+        Step[] steps = encrypting ? encryption : decryption;
+        Transform[][] shifts = new Transform[steps.length][];
+        int pad = 0;
+        for(int i=0;i<steps.length;i++) {
+            if(steps[i].table != null) continue;
+            shifts[i] = new Transform[steps[i].stages.length];
+            for(int j=0;j<shifts[i].length;j++) {
+                AbstractCryptoService stage = steps[i].stages[j];
+                if(stage instanceof OneTimePadCipher && padConsumer != null) {
+                    shifts[i][j] = ((OneTimePadCipher) stage).newEncryptTransform(length, padConsumer);
+                } else if(stage instanceof OneTimePadCipher && pads != null) {
+                    OneTimePad _pad = OneTimePadCipher.checkPad(pads[pads.length - 1 - pad++], (int) Math.max(length, 0));
+                    shifts[i][j] = ((OneTimePadCipher) stage).newDecryptTransform(_pad);
+                } else {
+                    shifts[i][j] = stage.newTransform(encrypting, length);
+                }
+            }
+        }
+        return new PipelineTransform(steps, shifts);
+    }
+
+    /**
+     * This is a utility method that compiles the chain into the steps of the encryption or the decryption
+     */
+    private static Step[] compile(List<AbstractCryptoService> stages, boolean encrypting) {
+        List<AbstractCryptoService> ordered = new ArrayList<AbstractCryptoService>(stages);
+        if(!encrypting) Collections.reverse(ordered);
+        List<Step> steps = new ArrayList<Step>();
+        for(AbstractCryptoService stage : ordered) {
+            char[] table = encrypting || isTable(stage) ? stage.newTransform(encrypting, -1).getSubstitution() : null;
+            Step last = steps.isEmpty() ? null : steps.get(steps.size() - 1);
+            if(table != null) {
+                if(last != null && last.table != null) {
+                    steps.set(steps.size() - 1, Step.table(compose(last.table, table)));
+                } else {
+                    steps.add(Step.table(table));
+                }
+            } else if(last != null && last.table == null) {
+                steps.set(steps.size() - 1, last.then(stage));
+            } else {
+                steps.add(Step.shift(stage));
+            }
+        }
+        return foldRolls(steps).toArray(new Step[0]);
+    }
+
+    /**
+     * This is a utility method that folds the tables which roll every letter by the same number of places
+     * into the rolls next to them and drops the tables substituting nothing
+     */
+    private static List<Step> foldRolls(List<Step> steps) {
+        List<Step> folded = new ArrayList<Step>();
+        for(int i=0;i<steps.size();i++) {
+            Step step = steps.get(i);
+            int roll = step.table == null ? -1 : getRoll(step.table);
+            Step last = folded.isEmpty() ? null : folded.get(folded.size() - 1);
+            Step next = i + 1 < steps.size() ? steps.get(i + 1) : null;
+            if(roll == 0) continue;
+            if(roll > 0 && last != null && last.table == null) {
+                folded.set(folded.size() - 1, last.plus(roll));
+            } else if(roll > 0 && next != null && next.table == null) {
+                steps.set(i + 1, next.plus(roll));
+            } else if(step.table == null && last != null && last.table == null) {
+                folded.set(folded.size() - 1, last.then(step));
+            } else if(step.table != null && last != null && last.table != null) {
+                folded.set(folded.size() - 1, Step.table(compose(last.table, step.table)));
+            } else {
+                folded.add(step);
+            }
+        }
+        return folded;
+    }
+
+    /**
+     * This is a utility method that returns whether the cipher substitutes every char independently of its
+     * position, its decryption may need state which is only present once a text has been encrypted
+     */
+    private static boolean isTable(AbstractCryptoService stage) {
+        return stage.newTransform(true, -1).getSubstitution() != null;
+    }
+
+    /**
+     * This is a utility method that returns the table substituting with first and then with second
+     */
+    private static char[] compose(char[] first, char[] second) {
+        char[] composed = new char[first.length];
+        for(int i=0;i<first.length;i++) {
+            composed[i] = first[i] < second.length ? second[first[i]] : first[i];
+        }
+        return composed;
+    }
+
+    /**
+     * This is a utility method that returns the number of places the table rolls every letter by, or -1 when
+     * the table is not a roll
+     */
+    private static int getRoll(char[] table) {
+        int roll = table['a'] - 'a';
+        if(roll < 0) roll += CryptoUtils.ALPHABET_SIZE;
+        for(char _char=0;_char<table.length;_char++) {
+            if(table[_char] != CryptoUtils.roll(_char, roll)) return -1;
+        }
+        return roll;
+    }
+
+    /**
+     * A step of the compiled chain, a table substituting every ASCII char or a roll of every letter by a
+     * number of places plus the shifts of the Vigenere and OneTimePad ciphers at its position
+     */
+    private static final class Step {
+
+        private final char[] table;
+
+        private final int roll;
+
+        private final AbstractCryptoService[] stages;
+
+        private Step(char[] table, int roll, AbstractCryptoService[] stages) {
+            this.table = table;
+            this.roll = roll;
+            this.stages = stages;
+        }
+
+        static Step table(char[] table) {
+            return new Step(table, 0, null);
+        }
+
+        static Step shift(AbstractCryptoService stage) {
+            return new Step(null, 0, new AbstractCryptoService[]{stage});
+        }
+
+        Step then(AbstractCryptoService stage) {
+            AbstractCryptoService[] _stages = new AbstractCryptoService[stages.length + 1];
+            System.arraycopy(stages, 0, _stages, 0, stages.length);
+            _stages[stages.length] = stage;
+            return new Step(null, roll, _stages);
+        }
+
+        Step then(Step step) {
+            Step merged = new Step(null, (roll + step.roll) % CryptoUtils.ALPHABET_SIZE, stages);
+            for(AbstractCryptoService stage : step.stages) {
+                merged = merged.then(stage);
+            }
+            return merged;
+        }
+
+        Step plus(int places) {
+            return new Step(null, (roll + places) % CryptoUtils.ALPHABET_SIZE, stages);
+        }
+    }
+
+    /**
+     * The Transform applying the steps to every block of the text in turn, the shifts of the rolls are
+     * computed for a block at a time
+     */
+    private static final class PipelineTransform extends Transform {
+
+        private final Step[] steps;
+
+        /**
+         * The transforms of the Vigenere and OneTimePad ciphers of every roll, null for the tables
+         */
+        private final Transform[][] shifts;
+
+        PipelineTransform(Step[] steps, Transform[][] shifts) {
+            this.steps = steps;
+            this.shifts = shifts;
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            chars(src, srcOff, dst, dstOff, len, position, position);
+        }
+
+        /**
+         * The position of the transforms which restart at every value of a batch is 0 at every value, the
+         * position of the others runs on across the values
+         */
+        @Override
+        protected void chars(char[] src, int[] offsets, char[] dst) {
+            for(int i=1;i<offsets.length;i++) {
+                chars(src, offsets[i - 1], dst, offsets[i - 1], offsets[i] - offsets[i - 1], 0, offsets[i - 1] - offsets[0]);
+            }
+        }
+
+        @Override
+        protected void bytes(ByteBuffer src, int[] offsets, ByteBuffer dst) {
+            long batchPosition = 0;
+            for(int i=1;i<offsets.length;i++) {
+                batchPosition += bytes(src, offsets[i - 1], dst, offsets[i - 1], offsets[i] - offsets[i - 1], 0, batchPosition);
+            }
+        }
+
+        /**
+         * This method transforms the chars at position, where batchPosition is the position within the whole
+         * batch for the transforms which do not restart at every value
+         */
+        private void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position, long batchPosition) {
+            if(steps.length == 0) {
+                System.arraycopy(src, srcOff, dst, dstOff, len);
+                return;
+            }
+            byte[] _shifts = null;
+            for(int block=0;block<len;block+=CHUNK_SIZE) {
+                int count = Math.min(CHUNK_SIZE, len - block);
+                char[] in = src;
+                int inOff = srcOff + block;
+                for(int i=0;i<steps.length;i++) {
+                    if(steps[i].table != null) {
+                        substitute(steps[i].table, in, inOff, dst, dstOff + block, count);
+                    } else {
+                        if(_shifts == null) _shifts = new byte[Math.min(CHUNK_SIZE, len)];
+                        fillShifts(i, _shifts, count, position + block, batchPosition + block);
+                        roll(_shifts, in, inOff, dst, dstOff + block, count);
+                    }
+                    in = dst;
+                    inOff = dstOff + block;
+                }
+            }
+        }
+
+        /**
+         * The position advances once for every char so that the shifts match the ones of the decoded text
+         */
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            return position + bytes(src, srcOff, dst, dstOff, len, position, position);
+        }
+
+        /**
+         * This method transforms the UTF-8 bytes at position and batchPosition, see chars, and returns the
+         * number of chars transformed
+         */
+        private long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position, long batchPosition) {
+            long start = position;
+            byte[] block = null;
+            byte[] _shifts = null;
+            for(int off=0;off<len;off+=CHUNK_SIZE) {
+                int count = Math.min(CHUNK_SIZE, len - off);
+                byte[] in;
+                int inOff;
+                byte[] out;
+                int outOff;
+                if(src.hasArray() && dst.hasArray()) {
+                    in = src.array();
+                    inOff = src.arrayOffset() + srcOff + off;
+                    out = dst.array();
+                    outOff = dst.arrayOffset() + dstOff + off;
+                } else {
+                    if(block == null) block = new byte[Math.min(CHUNK_SIZE, len)];
+                    ByteBuffer source = src.duplicate();
+                    ((Buffer) source).limit(srcOff + off + count).position(srcOff + off);
+                    source.get(block, 0, count);
+                    in = block;
+                    inOff = 0;
+                    out = block;
+                    outOff = 0;
+                }
+                int chars = countChars(in, inOff, count);
+                if(steps.length == 0 && in != out) {
+                    System.arraycopy(in, inOff, out, outOff, count);
+                }
+                for(int i=0;i<steps.length;i++) {
+                    if(steps[i].table != null) {
+                        substitute(steps[i].table, in, inOff, out, outOff, count);
+                    } else {
+                        if(_shifts == null) _shifts = new byte[Math.min(CHUNK_SIZE, len)];
+                        fillShifts(i, _shifts, chars, position, batchPosition);
+                        roll(_shifts, in, inOff, out, outOff, count);
+                    }
+                    in = out;
+                    inOff = outOff;
+                }
+                if(out == block) {
+                    ByteBuffer target = dst.duplicate();
+                    ((Buffer) target).position(dstOff + off);
+                    target.put(block, 0, count);
+                }
+                position += chars;
+                batchPosition += chars;
+            }
+            return position - start;
+        }
+
+        @Override
+        protected void end() {
+            for(Transform[] _shifts : shifts) {
+                if(_shifts == null) continue;
+                for(Transform transform : _shifts) {
+                    transform.end();
+                }
+            }
+        }
+
+        /**
+         * This is a utility method that sums the shifts of the roll of the given step for count positions
+         */
+        private void fillShifts(int step, byte[] _shifts, int count, long position, long batchPosition) {
+            byte roll = (byte) steps[step].roll;
+            for(int i=0;i<count;i++) {
+                _shifts[i] = roll;
+            }
+            for(Transform transform : shifts[step]) {
+                if(!transform.addShifts(_shifts, 0, count, transform.restartsBatchValues() ? position : batchPosition)) {
+                    throw new IllegalStateException("The transform does not roll the letters - " + transform.getClass().getName());
+                }
+            }
+        }
+
+        /**
+         * This is a utility method that substitutes the ASCII chars through the table
+         */
+        private static void substitute(char[] table, char[] src, int srcOff, char[] dst, int dstOff, int len) {
+            for(int i=0;i<len;i++) {
+                char _char = src[srcOff + i];
+                dst[dstOff + i] = _char < table.length ? table[_char] : _char;
+            }
+        }
+
+        private static void substitute(char[] table, byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+            for(int i=0;i<len;i++) {
+                byte _byte = src[srcOff + i];
+                dst[dstOff + i] = _byte >= 0 ? (byte) table[_byte] : _byte;
+            }
+        }
+
+        /**
+         * This is a utility method that rolls every letter by the shift of its position
+         */
+        private static void roll(byte[] shifts, char[] src, int srcOff, char[] dst, int dstOff, int len) {
+            for(int i=0;i<len;i++) {
+                dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], shifts[i]);
+            }
+        }
+
+        /**
+         * This is a utility method that rolls every ASCII letter of the UTF-8 bytes by the shift of the char
+         * it belongs to
+         */
+        private static void roll(byte[] shifts, byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+            int pos = 0;
+            for(int i=0;i<len;i++) {
+                byte _byte = src[srcOff + i];
+                if(_byte >= 0) {
+                    dst[dstOff + i] = CryptoUtils.roll(_byte, shifts[pos]);
+                    pos++;
+                } else {
+                    dst[dstOff + i] = _byte;
+                    pos += CryptoUtils.getUtf8CharCount(_byte);
+                }
+            }
+        }
+
+        /**
+         * This is a utility method that returns the number of chars started by the UTF-8 bytes
+         */
+        private static int countChars(byte[] bytes, int off, int len) {
+            int chars = 0;
+            for(int i=0;i<len;i++) {
+                byte _byte = bytes[off + i];
+                chars += _byte >= 0 ? 1 : CryptoUtils.getUtf8CharCount(_byte);
+            }
+            return chars;
+        }
+    }
+
+    /**
+     * The builder of a pipeline, the ciphers are added in the order of the encryption
+     */
+    public static final class Builder {
+
+        private final List<AbstractCryptoService> stages = new ArrayList<AbstractCryptoService>();
+
+        private Builder() {
+        }
+
+        /**
+         * This method adds a cipher to the end of the chain, the ciphers of a pipeline are added one by one
+         * @param cryptoService
+         * @return
+         */
+        public Builder then(CryptoService cryptoService) {
+            if(cryptoService instanceof CipherPipeline) {
+                stages.addAll(((CipherPipeline) cryptoService).stages);
+                return this;
+            }
+            if(!(cryptoService instanceof AbstractCryptoService)) {
+                throw new IllegalArgumentException("The cipher cannot be chained - " + cryptoService.getClass().getName());
+            }
+            AbstractCryptoService stage = (AbstractCryptoService) cryptoService;
+            Transform transform = stage.newTransform(true, -1);
+            if(transform.getSubstitution() == null && !transform.addShifts(new byte[0], 0, 0, 0)) {
+                throw new IllegalArgumentException("The cipher cannot be chained - " + cryptoService.getClass().getName());
+            }
+            stages.add(stage);
+            return this;
+        }
+
+        /**
+         * This method compiles the chain into a pipeline
+         * @return
+         */
+        public CipherPipeline build() {
+            return new CipherPipeline(new ArrayList<AbstractCryptoService>(stages));
+        }
+    }
+}
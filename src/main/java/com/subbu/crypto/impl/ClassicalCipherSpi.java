@@ -0,0 +1,392 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.impl.AbstractCryptoService.Transform;
+import com.subbu.crypto.jca.ClassicalParameterSpec;
+import com.subbu.crypto.utils.Alphabet;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.InvalidParameterException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+
+/**
+ * This class is the CipherSpi of the classical ciphers registered by the SimpleCryptoProvider, so that they can be
+ * used through javax.crypto.Cipher, CipherInputStream and CipherOutputStream. The ciphers transform UTF-8 bytes
+ * one for one, so they are stream ciphers without a mode (ECB or NONE), a padding (NoPadding) or an IV, and every
+ * update returns as many bytes as it is given. The position of the text is carried from one update to the next,
+ * also when a char is split across them, and is reset by doFinal, so the same Cipher encrypts the next text with
+ * the same key, except the OneTimePad cipher which must be initialized with a new key after every encryption.
+ *
+ * The key is the encoded form of a SecretKeySpec -
+ *   Ceaser - a single byte, the shift size
+ *   ROT13, Atbash - none, the key is ignored
+ *   Affine - two bytes, keyA and keyB
+ *   Vigenere - the key in UTF-8
+ *   OneTimePad - the pad in the binary format of OneTimePad.toBytes()
+ * and the alphabet and the position of the first char are given by a ClassicalParameterSpec.
+ */
+public abstract class ClassicalCipherSpi extends CipherSpi {
+
+    private final String algorithm;
+
+    private Transform transform;
+
+    private boolean encrypting;
+
+    /**
+     * The position of the first char of the text, from the parameters
+     */
+    private long start;
+
+    /**
+     * The position of the next char of the text
+     */
+    private long position;
+
+    ClassicalCipherSpi(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * This method returns the transform of the key over the alphabet
+     */
+    abstract Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) throws InvalidKeyException, InvalidAlgorithmParameterException;
+
+    /**
+     * This method returns whether the key can transform another text once a text has been transformed
+     */
+    boolean isReusable(boolean encrypting) {
+        return true;
+    }
+
+    @Override
+    protected void engineSetMode(String mode) throws NoSuchAlgorithmException {
+        if(!"ECB".equalsIgnoreCase(mode) && !"NONE".equalsIgnoreCase(mode)) {
+            throw new NoSuchAlgorithmException("The " + algorithm + " cipher has no mode - " + mode);
+        }
+    }
+
+    @Override
+    protected void engineSetPadding(String padding) throws NoSuchPaddingException {
+        if(!"NoPadding".equalsIgnoreCase(padding)) {
+            throw new NoSuchPaddingException("The " + algorithm + " cipher has no padding - " + padding);
+        }
+    }
+
+    @Override
+    protected int engineGetBlockSize() {
+        return 0;
+    }
+
+    @Override
+    protected int engineGetOutputSize(int inputLen) {
+        return inputLen;
+    }
+
+    @Override
+    protected byte[] engineGetIV() {
+        return null;
+    }
+
+    @Override
+    protected AlgorithmParameters engineGetParameters() {
+        return null;
+    }
+
+    @Override
+    protected int engineGetKeySize(Key key) throws InvalidKeyException {
+        byte[] encoded = key.getEncoded();
+        if(encoded == null) throw new InvalidKeyException("The key is not encoded");
+        return encoded.length * 8;
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+        try {
+            init(opmode, key, null);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new InvalidKeyException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params, SecureRandom random) throws InvalidKeyException, InvalidAlgorithmParameterException {
+        init(opmode, key, params);
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random) throws InvalidKeyException, InvalidAlgorithmParameterException {
+        if(params != null) {
+            throw new InvalidAlgorithmParameterException("The " + algorithm + " cipher takes a ClassicalParameterSpec instead of AlgorithmParameters");
+        }
+        init(opmode, key, null);
+    }
+
+    @Override
+    protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+        byte[] output = new byte[inputLen];
+        transform(input, inputOffset, output, 0, inputLen);
+        return output;
+    }
+
+    @Override
+    protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset) throws ShortBufferException {
+        if(output.length - outputOffset < inputLen) {
+            throw new ShortBufferException("The output needs " + inputLen + " bytes from " + outputOffset);
+        }
+        if(input == output && outputOffset > inputOffset && outputOffset < inputOffset + inputLen) {
+            // The bytes are transformed in order, so the input must not be overwritten before it is read
+            input = Arrays.copyOfRange(input, inputOffset, inputOffset + inputLen);
+            inputOffset = 0;
+        }
+        transform(input, inputOffset, output, outputOffset, inputLen);
+        return inputLen;
+    }
+
+    @Override
+    protected int engineUpdate(ByteBuffer input, ByteBuffer output) throws ShortBufferException {
+        if(input.hasArray() || output.hasArray()) {
+            return super.engineUpdate(input, output);
+        }
+        // The direct buffers are transformed in place, without copying them to arrays
+        int len = input.remaining();
+        if(output.remaining() < len) {
+            throw new ShortBufferException("The output needs " + len + " bytes, it has " + output.remaining());
+        }
+        transform(input, input.position(), output, output.position(), len);
+        ((Buffer) input).position(input.position() + len);
+        ((Buffer) output).position(output.position() + len);
+        return len;
+    }
+
+    @Override
+    protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen) {
+        byte[] output = engineUpdate(input, inputOffset, inputLen);
+        finish();
+        return output;
+    }
+
+    @Override
+    protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset) throws ShortBufferException {
+        int len = engineUpdate(input, inputOffset, inputLen, output, outputOffset);
+        finish();
+        return len;
+    }
+
+    @Override
+    protected int engineDoFinal(ByteBuffer input, ByteBuffer output) throws ShortBufferException {
+        int len = engineUpdate(input, output);
+        finish();
+        return len;
+    }
+
+    /**
+     * This is a utility method that validates the mode and the parameters and builds the transform of the key
+     */
+    private void init(int opmode, Key key, AlgorithmParameterSpec params) throws InvalidKeyException, InvalidAlgorithmParameterException {
+        if(opmode != Cipher.ENCRYPT_MODE && opmode != Cipher.DECRYPT_MODE) {
+            throw new InvalidParameterException("The " + algorithm + " cipher only encrypts and decrypts - " + opmode);
+        }
+        Alphabet _alphabet = Alphabet.ENGLISH;
+        long _position = 0;
+        if(params != null) {
+            if(!(params instanceof ClassicalParameterSpec)) {
+                throw new InvalidAlgorithmParameterException("The parameters must be a ClassicalParameterSpec - " + params.getClass().getName());
+            }
+            _alphabet = ((ClassicalParameterSpec) params).getAlphabet();
+            _position = ((ClassicalParameterSpec) params).getPosition();
+            if(!_alphabet.isAscii()) {
+                throw new InvalidAlgorithmParameterException("The UTF-8 bytes can only be transformed over an ASCII alphabet - " + _alphabet);
+            }
+        }
+        boolean _encrypting = opmode == Cipher.ENCRYPT_MODE;
+        transform = newTransform(key == null ? null : key.getEncoded(), _alphabet, _encrypting);
+        encrypting = _encrypting;
+        start = _position;
+        position = _position;
+    }
+
+    /**
+     * This is a utility method that transforms the bytes of the arrays
+     */
+    private void transform(byte[] input, int inputOffset, byte[] output, int outputOffset, int len) {
+        if(len == 0) {
+            requireTransform();
+            return;
+        }
+        transform(ByteBuffer.wrap(input), inputOffset, ByteBuffer.wrap(output), outputOffset, len);
+    }
+
+    /**
+     * This is a utility method that transforms the bytes of the buffers and moves the position past them
+     */
+    private void transform(ByteBuffer input, int inputOffset, ByteBuffer output, int outputOffset, int len) {
+        Transform _transform = requireTransform();
+        try {
+            position = _transform.bytes(input, inputOffset, output, outputOffset, len, position);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalStateException("The key of the " + algorithm + " cipher is too short for the text", e);
+        }
+    }
+
+    private Transform requireTransform() {
+        if(transform == null) {
+            throw new IllegalStateException("The key of the " + algorithm + " cipher has been used, the cipher must be initialized with a new key");
+        }
+        return transform;
+    }
+
+    /**
+     * This is a utility method that ends the text and resets the position for the next one
+     */
+    private void finish() {
+        requireTransform().end();
+        position = start;
+        if(!isReusable(encrypting)) {
+            transform = null;
+        }
+    }
+
+    /**
+     * This is a utility method that validates the key is encoded in length bytes, or any length when it is 0
+     */
+    static byte[] requireKey(byte[] key, int length, String algorithm) throws InvalidKeyException {
+        if(key == null || key.length == 0) {
+            throw new InvalidKeyException("The " + algorithm + " cipher needs an encoded key");
+        }
+        if(length > 0 && key.length != length) {
+            throw new InvalidKeyException("The key of the " + algorithm + " cipher must be " + length + " bytes - " + key.length);
+        }
+        return key;
+    }
+
+    /**
+     * This is a utility method that returns the transform of the cipher in the direction
+     */
+    static Transform newTransform(CryptoService cipher, boolean encrypting) {
+        return ((AbstractCryptoService) cipher).newTransform(encrypting, -1);
+    }
+
+    /**
+     * The Ceaser cipher, the key is the shift size
+     */
+    public static final class Ceaser extends ClassicalCipherSpi {
+
+        public Ceaser() {
+            super("Ceaser");
+        }
+
+        Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) throws InvalidKeyException {
+            int shiftSize = (requireKey(key, 1, "Ceaser")[0] & 0xFF) % alphabet.size();
+            return newTransform(CeaserCipher.getInstance(shiftSize, alphabet), encrypting);
+        }
+    }
+
+    /**
+     * The ROT13 cipher, the key is ignored
+     */
+    public static final class ROT13 extends ClassicalCipherSpi {
+
+        public ROT13() {
+            super("ROT13");
+        }
+
+        Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) {
+            return newTransform(ROT13Cipher.getInstance(alphabet), encrypting);
+        }
+    }
+
+    /**
+     * The Atbash cipher, the key is ignored
+     */
+    public static final class Atbash extends ClassicalCipherSpi {
+
+        public Atbash() {
+            super("Atbash");
+        }
+
+        Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) {
+            return newTransform(AtbashCipher.getInstance(alphabet), encrypting);
+        }
+    }
+
+    /**
+     * The Affine cipher, the key is keyA and keyB
+     */
+    public static final class Affine extends ClassicalCipherSpi {
+
+        public Affine() {
+            super("Affine");
+        }
+
+        Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) throws InvalidKeyException {
+            requireKey(key, 2, "Affine");
+            try {
+                return newTransform(AffineCipher.getInstance(key[0] & 0xFF, key[1] & 0xFF, alphabet), encrypting);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeyException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * The Vigenere cipher, the key is the key in UTF-8
+     */
+    public static final class Vigenere extends ClassicalCipherSpi {
+
+        public Vigenere() {
+            super("Vigenere");
+        }
+
+        Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) throws InvalidKeyException {
+            String _key = new String(requireKey(key, 0, "Vigenere"), StandardCharsets.UTF_8);
+            try {
+                return newTransform(VigenereCipher.getInstance(_key, alphabet), encrypting);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeyException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * The OneTimePad cipher, the key is the pad in the binary format and encrypts a single text
+     */
+    public static final class OneTimePad extends ClassicalCipherSpi {
+
+        public OneTimePad() {
+            super("OneTimePad");
+        }
+
+        Transform newTransform(byte[] key, Alphabet alphabet, boolean encrypting) throws InvalidKeyException, InvalidAlgorithmParameterException {
+            if(!Alphabet.ENGLISH.equals(alphabet)) {
+                throw new InvalidAlgorithmParameterException("The OneTimePad cipher only has the English alphabet - " + alphabet);
+            }
+            com.subbu.crypto.impl.OneTimePad pad;
+            try {
+                pad = com.subbu.crypto.impl.OneTimePad.fromBytes(requireKey(key, 0, "OneTimePad"));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeyException("The key is not a OneTimePad - " + e.getMessage(), e);
+            }
+            OneTimePadCipher cipher = (OneTimePadCipher) OneTimePadCipher.getInstance();
+            return encrypting ? cipher.newEncryptTransform(pad) : cipher.newDecryptTransform(pad);
+        }
+
+        @Override
+        boolean isReusable(boolean encrypting) {
+            return !encrypting;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.buffer.BufferPool;
+import com.subbu.crypto.buffer.PooledBuffer;
+import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.ThreadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * This class encrypts or decrypts whole directory trees of UTF-8 files with any of the ciphers, writing every
+ * file to the same relative path under the target directory.
+ *
+ * Up to fileCount files are processed at a time. Every file is read in blocks of bufferSize bytes by its
+ * reader, the blocks are transformed by a pool shared by all the files and written in order by the writer
+ * of the file, so the reading, transforming and writing of a file overlap and a large file keeps all the
+ * workers busy. Up to QUEUE_DEPTH blocks of a file are in flight, which bounds the memory to about
+ * fileCount * (QUEUE_DEPTH + 2) * bufferSize bytes. The files no larger than a single block, most of the
+ * files of a typical tree, are read, transformed and written by the thread of the file in one go. The blocks
+ * are direct buffers of the BufferPool, so the channels read and write them without a copy and the heap stays
+ * flat however many files are processed.
+ *
+ * Every block is transformed at its char position within the file, counted by the reader for the ciphers
+ * which use the position, so the result is identical to encrypting the decoded file as one text. The
+ * OneTimePad cipher writes the key of every file next to the file encrypted, in a file with the PAD_SUFFIX,
+ * and decrypts every file with the key next to it. The ciphers substituting letters beyond ASCII cannot be
+ * applied to the UTF-8 bytes, every file is then decoded and transformed as a stream by the thread of the file.
+ */
+public class DirectoryProcessor implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryProcessor.class);
+
+    /**
+     * The default number of bytes of a block
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The suffix of the files holding the keys of the OneTimePad cipher
+     */
+    public static final String PAD_SUFFIX = ".pad";
+
+    /**
+     * The number of blocks of a file transformed or waiting to be written at a time
+     */
+    private static final int QUEUE_DEPTH = 4;
+
+    /**
+     * The block queued after the last one of a file
+     */
+    private static final Future<PooledBuffer> END = CompletableFuture.completedFuture(null);
+
+    private final AbstractCryptoService cryptoService;
+
+    private final boolean encrypting;
+
+    private final int bufferSize;
+
+    /**
+     * The pools transforming the blocks, processing the files and writing the files
+     */
+    private final ExecutorService workers;
+
+    private final ExecutorService readers;
+
+    private final ExecutorService writers;
+
+    /**
+     * The constructor accepting the cipher, the direction, the number of workers transforming the blocks,
+     * the number of files processed at a time and the number of bytes of a block
+     * @param cryptoService
+     * @param encrypting
+     * @param workerCount
+     * @param fileCount
+     * @param bufferSize
+     */
+    public DirectoryProcessor(CryptoService cryptoService, boolean encrypting, int workerCount, int fileCount, int bufferSize) {
+        if(!(cryptoService instanceof AbstractCryptoService)) {
+            throw new IllegalArgumentException("Files are not supported by " + cryptoService.getClass().getName());
+        }
+        if(workerCount < 1 || fileCount < 1) {
+            throw new IllegalArgumentException("The number of workers and files must be positive - " + workerCount + ", " + fileCount);
+        }
+        if(bufferSize < 16) {
+            throw new IllegalArgumentException("The buffer size must be at least 16 bytes - " + bufferSize);
+        }
+        this.cryptoService = (AbstractCryptoService) cryptoService;
+        this.encrypting = encrypting;
+        this.bufferSize = bufferSize;
+        this.workers = Executors.newFixedThreadPool(workerCount, ThreadUtils.daemonThreadFactory("crypto-worker"));
+        this.readers = Executors.newFixedThreadPool(fileCount, ThreadUtils.daemonThreadFactory("crypto-reader"));
+        this.writers = Executors.newFixedThreadPool(fileCount, ThreadUtils.daemonThreadFactory("crypto-writer"));
+    }
+
+    /**
+     * This method encrypts or decrypts the file or every file of the directory tree source into target,
+     * the directories of target are created as needed and the existing files overwritten
+     *
+     * @param source
+     * @param target
+     * @return
+     * @throws IOException when a file could not be processed, after all the others have been
+     */
+    public Report process(Path source, Path target) throws IOException {
+        if(Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("The source and the target must not be the same - " + source);
+        }
+        if(Files.isDirectory(source) && target.toAbsolutePath().normalize().startsWith(source.toAbsolutePath().normalize())) {
+            throw new IllegalArgumentException("The target must not be within the source - " + target);
+        }
+        long start = System.nanoTime();
+        List<Future<Long>> results = new ArrayList<>();
+        if(Files.isDirectory(source)) {
+            try(Stream<Path> files = Files.walk(source)) {
+                files.filter(Files::isRegularFile)
+                        .filter(file -> !isPad(file))
+                        .forEach(file -> results.add(submit(file, target.resolve(source.relativize(file).toString()))));
+            }
+        } else {
+            results.add(submit(source, target));
+        }
+
+        long bytes = 0;
+        int files = 0;
+        IOException failure = null;
+        for(Future<Long> result : results) {
+            try {
+                bytes += get(result);
+                files++;
+            } catch (IOException | RuntimeException e) {
+                if(failure == null) {
+                    failure = new IOException("Failed to process all the files of " + source, e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if(failure != null) throw failure;
+        Report report = new Report(files, bytes, System.nanoTime() - start);
+        logger.info("{} {}", encrypting ? "Encrypted" : "Decrypted", report);
+        return report;
+    }
+
+    /**
+     * This method stops the threads of the processor
+     */
+    public void close() {
+        readers.shutdown();
+        writers.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * This is a utility method that submits a file to the readers
+     */
+    private Future<Long> submit(Path source, Path target) {
+        return readers.submit(() -> processFile(source, target));
+    }
+
+    /**
+     * This method processes a single file, returns the number of bytes processed
+     */
+    private long processFile(Path source, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if(parent != null) Files.createDirectories(parent);
+        long size = Files.size(source);
+        AbstractCryptoService.Transform transform = newTransform(source, target, size);
+        if(!transform.supportsBytes()) {
+            processDecoded(transform, source, target);
+            return size;
+        }
+        try(FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+            FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if(size <= bufferSize) {
+                try(PooledBuffer pooled = BufferPool.getInstance().acquire((int) size)) {
+                    ByteBuffer block = pooled.buffer();
+                    read(in, block);
+                    transform.bytes(block, 0, block, 0, block.limit(), 0);
+                    write(out, block);
+                }
+            } else {
+                pipeline(transform, in, out);
+            }
+        }
+        transform.end();
+        logger.debug("Processed {} into {}", source, target);
+        return size;
+    }
+
+    /**
+     * This method processes a file decoded, for the ciphers substituting letters beyond ASCII whose UTF-8 bytes
+     * cannot be transformed in place
+     */
+    private static void processDecoded(AbstractCryptoService.Transform transform, Path source, Path target) throws IOException {
+        try(Reader in = new InputStreamReader(Files.newInputStream(source), AbstractCryptoService.CHARSET);
+            Writer out = new OutputStreamWriter(Files.newOutputStream(target), AbstractCryptoService.CHARSET)) {
+            AbstractCryptoService.transform(transform, in, out);
+        }
+        logger.debug("Processed {} decoded into {}", source, target);
+    }
+
+    /**
+     * This method reads the blocks of a file and hands them to the workers and to the writer of the file in
+     * order. The writer takes every block after its transform has completed, so the blocks are written in the
+     * order they were read.
+     */
+    private void pipeline(AbstractCryptoService.Transform transform, FileChannel in, FileChannel out) throws IOException {
+        BlockingQueue<Future<PooledBuffer>> queue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        Future<?> writer = writers.submit(() -> {
+            write(queue, out);
+            return null;
+        });
+        boolean positional = transform.getSubstitution() == null;
+        long position = 0;
+        IOException failure = null;
+        try {
+            while(true) {
+                PooledBuffer block = BufferPool.getInstance().acquire(bufferSize);
+                try {
+                    read(in, block.buffer());
+                } catch (IOException e) {
+                    block.release();
+                    throw e;
+                }
+                int length = block.buffer().limit();
+                if(length == 0) {
+                    block.release();
+                    break;
+                }
+                long _position = position;
+                if(positional) position += countChars(block.buffer(), length);
+                CompletableFuture<PooledBuffer> transformed = CompletableFuture.supplyAsync(() -> transform(transform, block, _position), workers);
+                try {
+                    queue.put(transformed);
+                } catch (InterruptedException e) {
+                    transformed.thenAccept(PooledBuffer::release);
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new IOException("Interrupted while reading", e);
+        }
+        putEnd(queue);
+        if(failure != null) {
+            writer.cancel(false);
+            throw failure;
+        }
+        get(writer);
+    }
+
+    /**
+     * This method transforms a block at its position, the block is released when the transform fails
+     */
+    private static PooledBuffer transform(AbstractCryptoService.Transform transform, PooledBuffer block, long position) {
+        try {
+            ByteBuffer buffer = block.buffer();
+            transform.bytes(buffer, 0, buffer, 0, buffer.limit(), position);
+            return block;
+        } catch (RuntimeException e) {
+            block.release();
+            throw e;
+        }
+    }
+
+    /**
+     * This method writes the blocks of the queue in order and releases them, once a block fails the remaining
+     * ones are only released so that the reader is never blocked
+     */
+    private static void write(BlockingQueue<Future<PooledBuffer>> queue, FileChannel out) throws IOException, InterruptedException {
+        Exception failure = null;
+        for(Future<PooledBuffer> result = queue.take(); result != END; result = queue.take()) {
+            try {
+                PooledBuffer block = get(result);
+                try {
+                    if(failure == null) write(out, block.buffer());
+                } finally {
+                    block.release();
+                }
+            } catch (IOException | RuntimeException e) {
+                if(failure == null) failure = e;
+            }
+        }
+        if(failure instanceof IOException) throw (IOException) failure;
+        if(failure != null) throw (RuntimeException) failure;
+    }
+
+    /**
+     * This method returns the transform of a file, the OneTimePad cipher generates or reads the key of the file
+     */
+    private AbstractCryptoService.Transform newTransform(Path source, Path target, long size) throws IOException {
+        if(!(cryptoService instanceof OneTimePadCipher)) {
+            return cryptoService.newTransform(encrypting, -1);
+        }
+        OneTimePadCipher oneTimePad = (OneTimePadCipher) cryptoService;
+        if(!encrypting) {
+            return oneTimePad.newDecryptTransform(OneTimePad.read(padOf(source)));
+        }
+        if(size > Integer.MAX_VALUE) {
+            throw new IOException("The OneTimePad cipher supports files of up to 2 GB - " + source);
+        }
+        // A file has no more chars than bytes, so the whole key is generated upfront and the blocks can be encrypted concurrently
+        Path pad = padOf(target);
+        return oneTimePad.newEncryptTransform(size, generated -> {
+            try {
+                generated.write(pad);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write the key " + pad, e);
+            }
+        });
+    }
+
+    /**
+     * This is a utility method that returns the file of the key of a file
+     */
+    private static Path padOf(Path file) {
+        return file.resolveSibling(file.getFileName() + PAD_SUFFIX);
+    }
+
+    /**
+     * This is a utility method that returns whether a file holds a key of the OneTimePad cipher
+     */
+    private boolean isPad(Path file) {
+        return cryptoService instanceof OneTimePadCipher && file.getFileName().toString().endsWith(PAD_SUFFIX);
+    }
+
+    /**
+     * This is a utility method that returns the number of chars started by the UTF-8 bytes
+     */
+    private static long countChars(ByteBuffer buffer, int length) {
+        long chars = 0;
+        for(int i=0;i<length;i++) {
+            byte _byte = buffer.get(i);
+            chars += _byte >= 0 ? 1 : CryptoUtils.getUtf8CharCount(_byte);
+        }
+        return chars;
+    }
+
+    /**
+     * This is a utility method that fills the buffer from the channel and flips it
+     */
+    private static void read(FileChannel in, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining() && in.read(buffer) >= 0) {
+        }
+        ((Buffer) buffer).flip();
+    }
+
+    /**
+     * This is a utility method that writes the whole buffer to the channel
+     */
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * This is a utility method that queues the end of a file even when the reader was interrupted, the writer
+     * always drains the queue so the end is eventually queued
+     */
+    private static void putEnd(BlockingQueue<Future<PooledBuffer>> queue) {
+        boolean interrupted = Thread.interrupted();
+        while(true) {
+            try {
+                queue.put(END);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * This is a utility method that waits for a result and unwraps its failure
+     */
+    private static <T> T get(Future<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException) throw (IOException) cause;
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * The number of files and bytes processed and the time it took
+     */
+    public static final class Report {
+
+        private final int files;
+
+        private final long bytes;
+
+        private final long nanos;
+
+        Report(int files, long bytes, long nanos) {
+            this.files = files;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * This method returns the number of files processed
+         * @return
+         */
+        public int getFiles() {
+            return files;
+        }
+
+        /**
+         * This method returns the number of bytes processed
+         * @return
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * This method returns the time it took in nanoseconds
+         * @return
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * This method returns the throughput in MB (of 1048576 bytes) per second
+         * @return
+         */
+        public double getMegabytesPerSecond() {
+            return bytes / 1048576.0 / Math.max(nanos, 1) * 1e9;
+        }
+
+        /**
+         * This method returns the throughput in files per second
+         * @return
+         */
+        public double getFilesPerSecond() {
+            return files / (double) Math.max(nanos, 1) * 1e9;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files, %d bytes in %.3f s - %.1f MB/s, %.1f files/s",
+                    files, bytes, nanos / 1e9, getMegabytesPerSecond(), getFilesPerSecond());
+        }
+    }
+}
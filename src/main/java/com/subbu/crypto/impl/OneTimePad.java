@@ -0,0 +1,312 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.utils.CryptoUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class holds the key of the OneTimePad cipher, one shift size per character of the text.
+ *
+ * The shift sizes are held as one byte each, so looking up the shift of a character is a single read.
+ * The pad can be serialized in a compact binary format, the magic number OTP1, the number of shift sizes
+ * as an int and the shift sizes as bytes, which can be written to a separate pad file and memory mapped
+ * from it. The comma separated format of the earlier versions can still be parsed and produced.
+ */
+public final class OneTimePad {
+
+    /**
+     * The magic number at the start of the binary format
+     */
+    private static final int MAGIC = 0x4F545031;
+
+    /**
+     * The size of the header of the binary format, the magic number and the length
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The largest shift size of a pad
+     */
+    private static final int MAX_SHIFT = 25;
+
+    /**
+     * The number of shift sizes read from a stream before the array is grown, so that the memory used follows
+     * the bytes actually read rather than the length claimed by the header
+     */
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The shift sizes, from index 0 to the limit of the buffer
+     */
+    private final ByteBuffer shifts;
+
+    /**
+     * The private constructor
+     * @param shifts
+     */
+    private OneTimePad(ByteBuffer shifts) {
+        this.shifts = shifts;
+    }
+
+    /**
+     * This method returns a pad of random shift sizes between 1 and 25
+     * @param length
+     * @return
+     */
+    public static OneTimePad generate(int length) {
+        byte[] shifts = new byte[length];
+        fill(shifts, 0, length);
+        return new OneTimePad(ByteBuffer.wrap(shifts));
+    }
+
+    /**
+     * This method returns a pad over the given shift sizes, the array is not copied
+     * @param shifts
+     * @param length the number of shift sizes of the array in use
+     * @return
+     */
+    public static OneTimePad wrap(byte[] shifts, int length) {
+        for(int i=0;i<length;i++) {
+            checkShift(shifts[i]);
+        }
+        return new OneTimePad(ByteBuffer.wrap(shifts, 0, length).slice());
+    }
+
+    /**
+     * This method parses a pad in the comma separated format, e.g. "3,17,25"
+     * @param key
+     * @return
+     */
+    public static OneTimePad parse(String key) {
+        if(key.isEmpty()) return new OneTimePad(ByteBuffer.allocate(0));
+        int length = 1;
+        for(int i=0;i<key.length();i++) {
+            if(key.charAt(i) == ',') length++;
+        }
+        byte[] shifts = new byte[length];
+        int pos = 0;
+        int value = 0;
+        for(int i=0;i<key.length();i++) {
+            char _char = key.charAt(i);
+            if(_char == ',') {
+                shifts[pos++] = checkShift(value);
+                value = 0;
+            } else if(_char >= '0' && _char <= '9') {
+                value = value * 10 + (_char - '0');
+                if(value > MAX_SHIFT) checkShift(value);
+            } else if(!Character.isWhitespace(_char)) {
+                throw new IllegalArgumentException("Invalid character in the key - " + _char);
+            }
+        }
+        shifts[pos] = checkShift(value);
+        return new OneTimePad(ByteBuffer.wrap(shifts));
+    }
+
+    /**
+     * This method reads a pad in the binary format from the stream, the shift sizes are read in chunks so a
+     * stream shorter than the length of its header fails without allocating that length
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws EOFException when the stream ends before the shift sizes
+     */
+    public static OneTimePad read(InputStream in) throws IOException {
+        return read(in, Integer.MAX_VALUE);
+    }
+
+    /**
+     * This method reads a pad of at most maxLength shift sizes in the binary format from the stream
+     * @param in
+     * @param maxLength
+     * @return
+     * @throws IOException when the header has more than maxLength shift sizes
+     * @throws EOFException when the stream ends before the shift sizes
+     */
+    public static OneTimePad read(InputStream in, int maxLength) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int length = readHeader(data.readInt(), data.readInt());
+        if(length > maxLength) {
+            throw new IOException("The pad of " + length + " shift sizes is longer than the maximum of " + maxLength);
+        }
+        byte[] shifts = new byte[Math.min(length, READ_CHUNK_SIZE)];
+        int read = 0;
+        while(read < length) {
+            if(read == shifts.length) {
+                shifts = Arrays.copyOf(shifts, (int) Math.min(length, 2L * shifts.length));
+            }
+            int count = data.read(shifts, read, shifts.length - read);
+            if(count < 0) throw new EOFException("The pad is truncated, " + read + " of " + length + " shift sizes");
+            read += count;
+        }
+        return wrap(shifts, length);
+    }
+
+    /**
+     * This method reads a pad from a pad file into the heap
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static OneTimePad read(Path file) throws IOException {
+        long maxLength = Math.max(0, Math.min(Integer.MAX_VALUE, Files.size(file) - HEADER_SIZE));
+        try(InputStream in = Files.newInputStream(file)) {
+            return read(in, (int) maxLength);
+        }
+    }
+
+    /**
+     * This method memory maps a pad file, the shift sizes are read from the file as they are used
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static OneTimePad map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining()) {
+                if(channel.read(header) < 0) throw new EOFException("The pad file is truncated - " + file);
+            }
+            ((Buffer) header).flip();
+            int length = readHeader(header.getInt(), header.getInt());
+            if(channel.size() < HEADER_SIZE + (long) length) throw new EOFException("The pad file is truncated - " + file);
+            return new OneTimePad(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, length));
+        }
+    }
+
+    /**
+     * This method returns the number of shift sizes of the pad
+     * @return
+     */
+    public int length() {
+        return shifts.limit();
+    }
+
+    /**
+     * This method returns the shift size of the character at the given position
+     * @param pos
+     * @return
+     */
+    public int getShift(int pos) {
+        return shifts.get(pos);
+    }
+
+    /**
+     * This method writes the pad in the binary format to the stream
+     * @param out
+     * @throws IOException
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(length());
+        if(shifts.hasArray()) {
+            data.write(shifts.array(), shifts.arrayOffset(), length());
+        } else {
+            byte[] chunk = new byte[AbstractCryptoService.CHUNK_SIZE];
+            ByteBuffer source = shifts.duplicate();
+            ((Buffer) source).rewind();
+            while(source.hasRemaining()) {
+                int count = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, count);
+                data.write(chunk, 0, count);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * This method writes the pad to a pad file
+     * @param file
+     * @throws IOException
+     */
+    public void write(Path file) throws IOException {
+        try(OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * This method returns the pad in the binary format
+     * @return
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[HEADER_SIZE + length()];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(MAGIC).putInt(length());
+        ByteBuffer source = shifts.duplicate();
+        ((Buffer) source).rewind();
+        buffer.put(source);
+        return bytes;
+    }
+
+    /**
+     * This method returns a pad from the binary format
+     * @param bytes
+     * @return
+     */
+    public static OneTimePad fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if(bytes.length < HEADER_SIZE) throw new IllegalArgumentException("The pad is truncated");
+        int length = readHeader(buffer.getInt(), buffer.getInt());
+        if(buffer.remaining() < length) throw new IllegalArgumentException("The pad is truncated");
+        byte[] shifts = new byte[length];
+        buffer.get(shifts);
+        return wrap(shifts, length);
+    }
+
+    /**
+     * This method returns the pad in the comma separated format
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringBuilder key = new StringBuilder(length() * 3);
+        for(int i=0;i<length();i++) {
+            if(i > 0) key.append(CryptoUtils.COMMA);
+            key.append(getShift(i));
+        }
+        return key.toString();
+    }
+
+    /**
+     * This is a utility method that fills a range of the array with random shift sizes between 1 and 25
+     */
+    static void fill(byte[] shifts, int from, int to) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i=from;i<to;i++) {
+            shifts[i] = (byte) random.nextInt(1, MAX_SHIFT + 1);
+        }
+    }
+
+    /**
+     * This is a utility method that validates the header of the binary format and returns the length
+     */
+    private static int readHeader(int magic, int length) {
+        if(magic != MAGIC) throw new IllegalArgumentException("Not a OneTimePad in the binary format");
+        if(length < 0) throw new IllegalArgumentException("Invalid length of the pad - " + length);
+        return length;
+    }
+
+    /**
+     * This is a utility method that validates a shift size
+     */
+    private static byte checkShift(int shift) {
+        if(shift < 0 || shift > MAX_SHIFT) {
+            throw new IllegalArgumentException("Invalid shift size in the key - " + shift);
+        }
+        return (byte) shift;
+    }
+}
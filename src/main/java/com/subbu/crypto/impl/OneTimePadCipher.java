@@ -2,10 +2,18 @@ package com.subbu.crypto.impl;
 
 import com.subbu.crypto.CryptoService;
 import com.subbu.crypto.utils.CryptoUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
 /**
  * Created by devsu04 on 20/02/17.
  *
@@ -26,20 +34,31 @@ import org.slf4j.LoggerFactory;
  * character in the message. Let’s say we were to encrypt the name “Alice” with a one time pad. That’s 5 letters – so to
  * brute force it you would have to try a whole lot of possibilities:
  * (26 * 26 * 26 * 26 * 26) or 26 pow 5 = 11881376
+ *
+ * The key is held as a OneTimePad of one byte per character, see getPad(), and getKey() still returns it in
+ * the comma separated format. The key of a text is held on the heap, so the streams and files encrypted are
+ * limited to 2 GB.
+ *
+ * The cipher holds no state of its own for encryptWithPad and decrypt with an explicit pad, every call
+ * generates or reads its pad on its own, so any number of threads can use the shared instance at the same
+ * time, the same as ParallelCryptoService and CipherPipeline with an explicit pad. The methods of the
+ * CryptoService, which have no way to return or accept a pad, publish the pad of the last encryption and
+ * decrypt with the last pad published or set. They are deprecated as that is only meaningful while a single
+ * thread uses the cipher.
  */
-public class OneTimePadCipher implements CryptoService{
+public class OneTimePadCipher extends AbstractCryptoService {
 
     private static final Logger logger = LoggerFactory.getLogger(OneTimePadCipher.class);
 
     /**
-     * The key used for encryption.
+     * The key of the last encryption, or the one set, used by the methods of the CryptoService
      */
-    private String key;
+    private volatile OneTimePad pad;
 
     /**
      * This variable holds the static instance of the OneTimePadCipher
      */
-    private static OneTimePadCipher _instance;
+    private static volatile OneTimePadCipher _instance;
 
     /**
      * The private constructor
@@ -64,72 +83,454 @@ public class OneTimePadCipher implements CryptoService{
     }
 
     /**
-     * This method returns the key generated during the process of encryption
+     * This method returns the key generated during the last encryption in the comma separated format
      * @return
+     * @deprecated the key is shared by all the threads, use the pad of encryptWithPad
      */
+    @Deprecated
     public String getKey() {
-        return this.key;
+        OneTimePad _pad = pad;
+        return _pad == null ? null : _pad.toString();
+    }
+
+    /**
+     * This method sets the key used for decryption from the comma separated format
+     * @param key
+     * @deprecated the key is shared by all the threads, use decrypt(String, OneTimePad.parse(key))
+     */
+    @Deprecated
+    public void setKey(String key) {
+        this.pad = OneTimePad.parse(key);
+    }
+
+    /**
+     * This method returns the key generated during the last encryption
+     * @return
+     * @deprecated the key is shared by all the threads, use the pad of encryptWithPad
+     */
+    @Deprecated
+    public OneTimePad getPad() {
+        return this.pad;
+    }
+
+    /**
+     * This method sets the key used for decryption, e.g. a pad read or mapped from a pad file
+     * @param pad
+     * @deprecated the key is shared by all the threads, use decrypt(String, OneTimePad)
+     */
+    @Deprecated
+    public void setPad(OneTimePad pad) {
+        this.pad = pad;
     }
 
     /**
-     * This method returns the encrypted text given a plaintext
+     * This method returns the encrypted text given a plaintext, the key generated is kept for getKey()
      *
      * @param plainText
      * @return
+     * @deprecated the key is shared by all the threads, use encryptWithPad(String)
      */
+    @Deprecated
     public String encrypt(String plainText) {
+        OneTimePadResult result = encryptWithPad(plainText);
+        pad = result.getPad();
+        return result.getCipherText();
+    }
+
+    /**
+     * This method returns the plaintext given a ciphertext, using the key of the last encryption or the one set
+     *
+     * @param cipherText
+     * @return
+     * @deprecated the key is shared by all the threads, use decrypt(String, OneTimePad)
+     */
+    @Deprecated
+    public String decrypt(String cipherText) {
+        return decrypt(cipherText, requirePad());
+    }
+
+    /**
+     * This method encrypts the UTF-8 text file in place, the key generated is kept for getKey(). The key has a
+     * shift size for every char and is held on the heap, so the file must not be larger than 2 GB, which is
+     * checked before the file is changed
+     *
+     * @param file
+     * @throws IOException
+     */
+    @Override
+    public void encryptInPlace(Path file) throws IOException {
+        checkSize(file);
+        super.encryptInPlace(file);
+    }
+
+    /**
+     * This method decrypts the UTF-8 text file in place using the key of the last encryption or the one set,
+     * the file must not be larger than 2 GB
+     *
+     * @param file
+     * @throws IOException
+     */
+    @Override
+    public void decryptInPlace(Path file) throws IOException {
+        checkSize(file);
+        super.decryptInPlace(file);
+    }
+
+    /**
+     * This method returns the encrypted text given a plaintext together with the key generated for it
+     *
+     * @param plainText
+     * @return
+     */
+    public OneTimePadResult encryptWithPad(String plainText) {
         logger.debug("=============================== *** ENCRYPTION *** ===================================================");
         logger.info("Plain text for encryption - {}", plainText);
         char[] _plainText = plainText.toCharArray();
         char[] _cipherText = new char[_plainText.length];
-        StringBuffer _key = new StringBuffer();
-        for(int i=0;i<_plainText.length;i++) {
-            int shiftSize = CryptoUtils.generateRandom(1, 26);
-            logger.debug("Shiftsize - {}", shiftSize);
-            _cipherText[i] = CryptoUtils.rollCharacters(_plainText[i],shiftSize);
-            _key.append(String.valueOf(shiftSize)).append(CryptoUtils.COMMA);
-        }
-        key = StringUtils.left(_key.toString(),_key.toString().length()-1);
-        logger.info("Cipher text after encryption - {}", String.valueOf(_cipherText));
-        return String.valueOf(_cipherText);
+        PadGenerator generator = new PadGenerator(_plainText.length);
+        transform(generator, _plainText, 0, _cipherText, 0, _plainText.length);
+        String cipherText = String.valueOf(_cipherText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return new OneTimePadResult(cipherText, generator.getPad());
     }
 
     /**
-     * This method returns the plaintext given a ciphertext
+     * This method returns the plaintext given a ciphertext and the key it was encrypted with
      *
      * @param cipherText
+     * @param pad
      * @return
      */
-    public String decrypt(String cipherText) {
+    public String decrypt(String cipherText, OneTimePad pad) {
         logger.debug("=============================== *** DECRYPTION *** ===================================================");
         logger.info("Cipher text for decryption - {}", cipherText);
         char[] _cipherText = cipherText.toCharArray();
         char[] _plainText = new char[_cipherText.length];
-        logger.debug("key - {}", key);
-        for(int i=0;i<_cipherText.length;i++) {
-            _plainText[i] = getDecryptedChar(_cipherText[i], i);
-        }
-        logger.info("Plain text after encryption - {}", String.valueOf(_plainText));
-        return String.valueOf(_plainText);
+        transform(new PadTransform(false, checkPad(pad, _cipherText.length)), _cipherText, 0, _plainText, 0, _cipherText.length);
+        String plainText = String.valueOf(_plainText);
+        logger.info("Plain text after encryption - {}", plainText);
+        return plainText;
+    }
+
+    /**
+     * This method reads the plaintext from the reader, writes the ciphertext to the writer and returns the
+     * key generated for it
+     *
+     * @param plainText
+     * @param cipherText
+     * @return
+     * @throws IOException
+     */
+    public OneTimePad encryptWithPad(Reader plainText, Writer cipherText) throws IOException {
+        PadGenerator generator = new PadGenerator(-1);
+        transform(generator, plainText, cipherText);
+        return generator.getPad();
+    }
+
+    /**
+     * This method reads the plaintext from the reader and writes the ciphertext to the writer with the given
+     * key, e.g. a key generated upfront and sent ahead of the ciphertext, which must have a shift size for
+     * every char of the text
+     *
+     * @param plainText
+     * @param cipherText
+     * @param pad
+     * @throws IOException
+     */
+    public void encrypt(Reader plainText, Writer cipherText, OneTimePad pad) throws IOException {
+        transform(new PadTransform(true, checkPad(pad, 0)), plainText, cipherText);
+    }
+
+    /**
+     * This method reads the ciphertext from the reader and writes the plaintext to the writer using the
+     * key it was encrypted with
+     *
+     * @param cipherText
+     * @param plainText
+     * @param pad
+     * @throws IOException
+     */
+    public void decrypt(Reader cipherText, Writer plainText, OneTimePad pad) throws IOException {
+        transform(new PadTransform(false, checkPad(pad, 0)), cipherText, plainText);
+    }
+
+    /**
+     * This method encrypts the batch of values of src delimited by offsets into dst at the same offsets and
+     * returns the key generated for it, a single key covering the chars from offsets[0] onwards
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     * @return
+     */
+    public OneTimePad encryptBatchWithPad(char[] src, int[] offsets, char[] dst) {
+        PadGenerator generator = new PadGenerator(checkBatch(offsets, src.length, dst.length));
+        transform(generator, src, offsets, dst);
+        return generator.getPad();
+    }
+
+    /**
+     * This method decrypts the batch of values of src delimited by offsets into dst at the same offsets
+     * using the key the batch was encrypted with
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     * @param pad
+     */
+    public void decryptBatch(char[] src, int[] offsets, char[] dst, OneTimePad pad) {
+        transform(new PadTransform(false, checkPad(pad, checkBatch(offsets, src.length, dst.length))), src, offsets, dst);
+    }
+
+    /**
+     * This method encrypts the batch of UTF-8 values of src delimited by offsets into dst at the same offsets
+     * and returns the key generated for it
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     * @return
+     */
+    public OneTimePad encryptBatchWithPad(byte[] src, int[] offsets, byte[] dst) {
+        checkBatch(offsets, src.length, dst.length);
+        PadGenerator generator = new PadGenerator(-1);
+        transform(generator, src, offsets, dst);
+        return generator.getPad();
+    }
+
+    /**
+     * This method decrypts the batch of UTF-8 values of src delimited by offsets into dst at the same offsets
+     * using the key the batch was encrypted with
+     *
+     * @param src
+     * @param offsets
+     * @param dst
+     * @param pad
+     */
+    public void decryptBatch(byte[] src, int[] offsets, byte[] dst, OneTimePad pad) {
+        checkBatch(offsets, src.length, dst.length);
+        transform(new PadTransform(false, checkPad(pad, 0)), src, offsets, dst);
+    }
+
+    /**
+     * This method returns a transform encrypting a text of at most length chars, or of any length when it
+     * is -1, the key generated is handed to the consumer once the text has been encrypted
+     *
+     * @param length
+     * @param padConsumer
+     * @return
+     */
+    Transform newEncryptTransform(long length, Consumer<OneTimePad> padConsumer) {
+        return new PadGenerator(length) {
+            @Override
+            protected void end() {
+                super.end();
+                padConsumer.accept(getPad());
+            }
+        };
+    }
+
+    /**
+     * This method returns a transform encrypting a text with a key generated beforehand, the key must
+     * not be used for any other text
+     *
+     * @param pad
+     * @return
+     */
+    Transform newEncryptTransform(OneTimePad pad) {
+        return new PadTransform(true, checkPad(pad, 0));
     }
 
     /**
-     * This is a utility method to decrypt the given character with the corresponding char for decryption
-     * from the given key and roll to begining when it reaches the end of the key.
-     * @param _char
-     * @param pos
+     * This method returns a transform decrypting a text with the key it was encrypted with
+     *
+     * @param pad
      * @return
      */
-    private char getDecryptedChar(char _char, int pos) {
-        logger.debug("==================================================================================");
-        char decChar = '\0';
-        String[] _keys = StringUtils.split(key, CryptoUtils.COMMA);
-        if(pos > _keys.length) {
-            pos = pos - _keys.length;
-        }
-        logger.debug("Before rolling the character {} - {}", _char, (int)_char);
-        decChar = CryptoUtils.unRollCharacters(_char, Integer.parseInt(_keys[pos]));
-        logger.debug("After rolling the character {} - {}", (int)decChar, decChar);
-        return decChar;
+    Transform newDecryptTransform(OneTimePad pad) {
+        return new PadTransform(false, checkPad(pad, 0));
+    }
+
+    /**
+     * This method returns a new transform for every text, encryption generates a new key which is kept
+     * for getKey() and decryption uses the key of the last encryption or the one set
+     */
+    protected Transform newTransform(boolean encrypting, long length) {
+        if(encrypting) {
+            return new PadGenerator(length) {
+                @Override
+                protected void end() {
+                    super.end();
+                    pad = getPad();
+                }
+            };
+        }
+        return new PadTransform(false, requirePad());
+    }
+
+    /**
+     * This is a utility method that verifies that the key of a file can be indexed by its chars
+     */
+    private static void checkSize(Path file) throws IOException {
+        if(Files.size(file) > Integer.MAX_VALUE) {
+            throw new IOException("The OneTimePad cipher supports files of up to 2 GB - " + file);
+        }
+    }
+
+    /**
+     * This is a utility method that returns the key of the last encryption or the one set
+     */
+    private OneTimePad requirePad() {
+        return checkPad(pad, 0);
+    }
+
+    /**
+     * This is a utility method that validates the key is present and long enough for the text
+     */
+    static OneTimePad checkPad(OneTimePad pad, int length) {
+        if(pad == null) {
+            throw new IllegalStateException("There is no key to decrypt with");
+        }
+        if(pad.length() < length) {
+            throw new IllegalArgumentException("The key of " + pad.length() + " shift sizes is too short for " + length + " chars");
+        }
+        return pad;
+    }
+
+    /**
+     * The Transform encrypting a single text, shifting every character by a random amount and recording
+     * the shift sizes as the key of the text.
+     *
+     * When the length of the text is known the whole key is generated upfront, so that the chunks can be
+     * encrypted in any order and concurrently, otherwise it grows with the text.
+     */
+    private static class PadGenerator extends Transform {
+
+        private byte[] shifts;
+
+        private int padLength;
+
+        private OneTimePad generated;
+
+        PadGenerator(long length) {
+            shifts = new byte[length < 0 ? CHUNK_SIZE : (int) length];
+            generatePad((int) Math.max(length, 0));
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            generatePad((int) position + len);
+            byte[] _shifts = shifts;
+            for(int i=0;i<len;i++) {
+                dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], _shifts[(int) position + i]);
+            }
+        }
+
+        /**
+         * The key has a shift size for every char so that it matches the one of the decoded text
+         */
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            int pos = (int) position;
+            for(int i=0;i<len;i++) {
+                byte _byte = src.get(srcOff + i);
+                if(_byte >= 0) {
+                    generatePad(pos + 1);
+                    dst.put(dstOff + i, CryptoUtils.roll(_byte, shifts[pos]));
+                    pos++;
+                } else {
+                    dst.put(dstOff + i, _byte);
+                    pos += CryptoUtils.getUtf8CharCount(_byte);
+                    generatePad(pos);
+                }
+            }
+            return pos;
+        }
+
+        @Override
+        protected boolean addShifts(byte[] _shifts, int off, int len, long position) {
+            generatePad((int) position + len);
+            for(int i=0;i<len;i++) {
+                _shifts[off + i] = (byte) ((_shifts[off + i] + shifts[(int) position + i]) % CryptoUtils.ALPHABET_SIZE);
+            }
+            return true;
+        }
+
+        @Override
+        protected void end() {
+            generated = OneTimePad.wrap(shifts, padLength);
+            shifts = null;
+        }
+
+        /**
+         * This method returns the key generated once the text has been encrypted
+         * @return
+         */
+        OneTimePad getPad() {
+            return generated;
+        }
+
+        /**
+         * This is a utility method that generates random shift sizes for the key up to the given length
+         */
+        private void generatePad(int length) {
+            if(length <= padLength) return;
+            if(length > shifts.length) {
+                shifts = Arrays.copyOf(shifts, Math.max(length, shifts.length * 2));
+            }
+            OneTimePad.fill(shifts, padLength, length);
+            padLength = length;
+        }
+    }
+
+    /**
+     * The Transform encrypting or decrypting a text with the shift sizes of its key
+     */
+    private static final class PadTransform extends Transform {
+
+        private final boolean encrypting;
+
+        private final OneTimePad pad;
+
+        PadTransform(boolean encrypting, OneTimePad pad) {
+            this.encrypting = encrypting;
+            this.pad = pad;
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            for(int i=0;i<len;i++) {
+                dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], getShift((int) position + i));
+            }
+        }
+
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            int pos = (int) position;
+            for(int i=0;i<len;i++) {
+                byte _byte = src.get(srcOff + i);
+                if(_byte >= 0) {
+                    dst.put(dstOff + i, CryptoUtils.roll(_byte, getShift(pos)));
+                    pos++;
+                } else {
+                    dst.put(dstOff + i, _byte);
+                    pos += CryptoUtils.getUtf8CharCount(_byte);
+                }
+            }
+            return pos;
+        }
+
+        @Override
+        protected boolean addShifts(byte[] shifts, int off, int len, long position) {
+            for(int i=0;i<len;i++) {
+                shifts[off + i] = (byte) ((shifts[off + i] + getShift((int) position + i)) % CryptoUtils.ALPHABET_SIZE);
+            }
+            return true;
+        }
+
+        /**
+         * This is a utility method that returns the number of places the char at pos is rolled forward by, the
+         * shift size of the key when encrypting and the rest of the alphabet when decrypting
+         */
+        private int getShift(int pos) {
+            int shift = pad.getShift(pos);
+            return encrypting ? shift : CryptoUtils.ALPHABET_SIZE - shift;
+        }
     }
 }
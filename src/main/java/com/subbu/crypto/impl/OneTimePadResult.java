@@ -0,0 +1,41 @@
+package com.subbu.crypto.impl;
+
+/**
+ * This class holds the result of a OneTimePad encryption, the ciphertext together with the pad it was
+ * encrypted with. It is immutable, so it can be handed between threads freely.
+ */
+public final class OneTimePadResult {
+
+    private final String cipherText;
+
+    private final OneTimePad pad;
+
+    /**
+     * The constructor accepting the ciphertext and its pad
+     * @param cipherText
+     * @param pad
+     */
+    public OneTimePadResult(String cipherText, OneTimePad pad) {
+        if(cipherText == null || pad == null) {
+            throw new IllegalArgumentException("The ciphertext and the pad are required");
+        }
+        this.cipherText = cipherText;
+        this.pad = pad;
+    }
+
+    /**
+     * This method returns the ciphertext
+     * @return
+     */
+    public String getCipherText() {
+        return cipherText;
+    }
+
+    /**
+     * This method returns the pad needed to decrypt the ciphertext
+     * @return
+     */
+    public OneTimePad getPad() {
+        return pad;
+    }
+}
@@ -0,0 +1,358 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class encrypts and decrypts large texts in parallel with any of the ciphers using a ForkJoinPool.
+ *
+ * The text is split in halves until the pieces are no larger than the threshold and the pieces are
+ * transformed concurrently. Every piece is transformed at its offset within the whole text, so the
+ * Vigenere cipher works out the key index of the piece from it and the OneTimePad cipher uses the
+ * matching slice of a key generated upfront, and the result is identical to the sequential one.
+ * Texts shorter than the threshold are transformed sequentially by the cipher itself.
+ *
+ * The OneTimePad cipher publishes the key of encrypt(String) for getKey() and decrypts with it, which only
+ * works while a single thread uses the cipher, encryptWithPad and decrypt with an explicit key do not share it.
+ */
+public class ParallelCryptoService implements CryptoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCryptoService.class);
+
+    /**
+     * The default number of chars below which the text is not split any further
+     */
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    /**
+     * The cipher doing the actual encryption
+     */
+    private final AbstractCryptoService cryptoService;
+
+    /**
+     * The pool running the parallel transforms
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of chars below which the text is not split any further
+     */
+    private final int threshold;
+
+    /**
+     * The constructor using the common pool and the default threshold
+     * @param cryptoService
+     */
+    public ParallelCryptoService(CryptoService cryptoService) {
+        this(cryptoService, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * The constructor accepting the pool and the threshold
+     * @param cryptoService
+     * @param pool
+     * @param threshold
+     */
+    public ParallelCryptoService(CryptoService cryptoService, ForkJoinPool pool, int threshold) {
+        if(!(cryptoService instanceof AbstractCryptoService)) {
+            throw new IllegalArgumentException("Parallel encryption is not supported by " + cryptoService.getClass().getName());
+        }
+        if(threshold < 1) {
+            throw new IllegalArgumentException("The threshold must be positive - " + threshold);
+        }
+        this.cryptoService = (AbstractCryptoService) cryptoService;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * This method returns the encrypted text given a plaintext
+     *
+     * @param plainText
+     * @return
+     */
+    public String encrypt(String plainText) {
+        if(plainText.length() < threshold) return cryptoService.encrypt(plainText);
+        char[] _plainText = plainText.toCharArray();
+        char[] _cipherText = new char[_plainText.length];
+        transform(_plainText, 0, _cipherText, 0, _plainText.length, true);
+        return String.valueOf(_cipherText);
+    }
+
+    /**
+     * This method returns the plaintext given a ciphertext
+     *
+     * @param cipherText
+     * @return
+     */
+    public String decrypt(String cipherText) {
+        if(cipherText.length() < threshold) return cryptoService.decrypt(cipherText);
+        char[] _cipherText = cipherText.toCharArray();
+        char[] _plainText = new char[_cipherText.length];
+        transform(_cipherText, 0, _plainText, 0, _cipherText.length, false);
+        return String.valueOf(_plainText);
+    }
+
+    /**
+     * This method returns the encrypted text given a plaintext together with the key generated for it, for the
+     * OneTimePad cipher
+     *
+     * @param plainText
+     * @return
+     * @throws UnsupportedOperationException when the cipher is not the OneTimePad cipher
+     */
+    public OneTimePadResult encryptWithPad(String plainText) {
+        OneTimePadCipher oneTimePad = requireOneTimePad();
+        if(plainText.length() < threshold) return oneTimePad.encryptWithPad(plainText);
+        char[] _plainText = plainText.toCharArray();
+        char[] _cipherText = new char[_plainText.length];
+        OneTimePad[] pad = new OneTimePad[1];
+        transform(_plainText, 0, _cipherText, 0, _plainText.length, oneTimePad.newEncryptTransform(_plainText.length, generated -> pad[0] = generated));
+        return new OneTimePadResult(String.valueOf(_cipherText), pad[0]);
+    }
+
+    /**
+     * This method returns the plaintext given a ciphertext and the key it was encrypted with, for the
+     * OneTimePad cipher
+     *
+     * @param cipherText
+     * @param pad
+     * @return
+     * @throws UnsupportedOperationException when the cipher is not the OneTimePad cipher
+     */
+    public String decrypt(String cipherText, OneTimePad pad) {
+        OneTimePadCipher oneTimePad = requireOneTimePad();
+        if(cipherText.length() < threshold) return oneTimePad.decrypt(cipherText, pad);
+        char[] _cipherText = cipherText.toCharArray();
+        char[] _plainText = new char[_cipherText.length];
+        transform(_cipherText, 0, _plainText, 0, _cipherText.length,
+                oneTimePad.newDecryptTransform(OneTimePadCipher.checkPad(pad, _cipherText.length)));
+        return String.valueOf(_plainText);
+    }
+
+    /**
+     * This method encrypts the UTF-8 bytes sequentially through the cipher
+     */
+    public byte[] encryptBytes(byte[] plainText) {
+        return cryptoService.encryptBytes(plainText);
+    }
+
+    /**
+     * This method decrypts the UTF-8 bytes sequentially through the cipher
+     */
+    public byte[] decryptBytes(byte[] cipherText) {
+        return cryptoService.decryptBytes(cipherText);
+    }
+
+    /**
+     * This method streams the encryption sequentially through the cipher
+     */
+    public void encrypt(Reader plainText, Writer cipherText) throws IOException {
+        cryptoService.encrypt(plainText, cipherText);
+    }
+
+    /**
+     * This method streams the decryption sequentially through the cipher
+     */
+    public void decrypt(Reader cipherText, Writer plainText) throws IOException {
+        cryptoService.decrypt(cipherText, plainText);
+    }
+
+    /**
+     * This method streams the encryption sequentially through the cipher
+     */
+    public void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+        cryptoService.encrypt(plainText, cipherText);
+    }
+
+    /**
+     * This method streams the decryption sequentially through the cipher
+     */
+    public void decrypt(InputStream cipherText, OutputStream plainText) throws IOException {
+        cryptoService.decrypt(cipherText, plainText);
+    }
+
+    /**
+     * This method streams the encryption sequentially through the cipher
+     */
+    public void encrypt(ReadableByteChannel plainText, WritableByteChannel cipherText) throws IOException {
+        cryptoService.encrypt(plainText, cipherText);
+    }
+
+    /**
+     * This method streams the decryption sequentially through the cipher
+     */
+    public void decrypt(ReadableByteChannel cipherText, WritableByteChannel plainText) throws IOException {
+        cryptoService.decrypt(cipherText, plainText);
+    }
+
+    /**
+     * This method encrypts the file in place sequentially through the cipher
+     */
+    public void encryptInPlace(Path file) throws IOException {
+        cryptoService.encryptInPlace(file);
+    }
+
+    /**
+     * This method decrypts the file in place sequentially through the cipher
+     */
+    public void decryptInPlace(Path file) throws IOException {
+        cryptoService.decryptInPlace(file);
+    }
+
+    /**
+     * This method encrypts len chars of src starting at srcOff into dst starting at dstOff in parallel
+     */
+    public void encrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        if(len < threshold) {
+            cryptoService.encrypt(src, srcOff, dst, dstOff, len);
+        } else {
+            transform(src, srcOff, dst, dstOff, len, true);
+        }
+    }
+
+    /**
+     * This method decrypts len chars of src starting at srcOff into dst starting at dstOff in parallel
+     */
+    public void decrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        if(len < threshold) {
+            cryptoService.decrypt(src, srcOff, dst, dstOff, len);
+        } else {
+            transform(src, srcOff, dst, dstOff, len, false);
+        }
+    }
+
+    /**
+     * This method encrypts the char buffer sequentially through the cipher
+     */
+    public void encrypt(CharBuffer src, CharBuffer dst) {
+        cryptoService.encrypt(src, dst);
+    }
+
+    /**
+     * This method decrypts the char buffer sequentially through the cipher
+     */
+    public void decrypt(CharBuffer src, CharBuffer dst) {
+        cryptoService.decrypt(src, dst);
+    }
+
+    /**
+     * This method encrypts the byte buffer sequentially through the cipher
+     */
+    public void encrypt(ByteBuffer src, ByteBuffer dst) {
+        cryptoService.encrypt(src, dst);
+    }
+
+    /**
+     * This method decrypts the byte buffer sequentially through the cipher
+     */
+    public void decrypt(ByteBuffer src, ByteBuffer dst) {
+        cryptoService.decrypt(src, dst);
+    }
+
+    /**
+     * This method encrypts the batch of values sequentially through the cipher
+     */
+    public void encryptBatch(char[] src, int[] offsets, char[] dst) {
+        cryptoService.encryptBatch(src, offsets, dst);
+    }
+
+    /**
+     * This method decrypts the batch of values sequentially through the cipher
+     */
+    public void decryptBatch(char[] src, int[] offsets, char[] dst) {
+        cryptoService.decryptBatch(src, offsets, dst);
+    }
+
+    /**
+     * This method encrypts the batch of UTF-8 values sequentially through the cipher
+     */
+    public void encryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        cryptoService.encryptBatch(src, offsets, dst);
+    }
+
+    /**
+     * This method decrypts the batch of UTF-8 values sequentially through the cipher
+     */
+    public void decryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        cryptoService.decryptBatch(src, offsets, dst);
+    }
+
+    /**
+     * This is a utility method that runs the parallel transform of the whole text
+     */
+    private void transform(char[] src, int srcOff, char[] dst, int dstOff, int len, boolean encrypting) {
+        logger.debug("Parallel {} of {} chars with a threshold of {}", encrypting ? "encryption" : "decryption", len, threshold);
+        transform(src, srcOff, dst, dstOff, len, cryptoService.newTransform(encrypting, len));
+    }
+
+    /**
+     * This is a utility method that runs the parallel transform of the whole text with the given transform
+     */
+    private void transform(char[] src, int srcOff, char[] dst, int dstOff, int len, AbstractCryptoService.Transform transform) {
+        if(srcOff < 0 || dstOff < 0 || len < 0 || len > src.length - srcOff || len > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Range of " + len + " chars out of bounds");
+        }
+        pool.invoke(new TransformTask(transform, src, srcOff, dst, dstOff, 0, len));
+        transform.end();
+    }
+
+    /**
+     * This is a utility method that returns the cipher for the methods with an explicit key
+     */
+    private OneTimePadCipher requireOneTimePad() {
+        if(!(cryptoService instanceof OneTimePadCipher)) {
+            throw new UnsupportedOperationException("Only the OneTimePad cipher has a key per text - " + cryptoService.getClass().getName());
+        }
+        return (OneTimePadCipher) cryptoService;
+    }
+
+    /**
+     * This task transforms a range of the text, splitting it in halves while it is larger than the threshold
+     */
+    private class TransformTask extends RecursiveAction {
+
+        private final AbstractCryptoService.Transform transform;
+        private final char[] src;
+        private final int srcOff;
+        private final char[] dst;
+        private final int dstOff;
+        private final int offset;
+        private final int length;
+
+        TransformTask(AbstractCryptoService.Transform transform, char[] src, int srcOff, char[] dst, int dstOff, int offset, int length) {
+            this.transform = transform;
+            this.src = src;
+            this.srcOff = srcOff;
+            this.dst = dst;
+            this.dstOff = dstOff;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void compute() {
+            if(length <= threshold) {
+                transform.chars(src, srcOff + offset, dst, dstOff + offset, length, offset);
+                return;
+            }
+            int half = length / 2;
+            invokeAll(new TransformTask(transform, src, srcOff, dst, dstOff, offset, half),
+                    new TransformTask(transform, src, srcOff, dst, dstOff, offset + half, length - half));
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.subbu.crypto.impl;
 
 import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.Alphabet;
+import com.subbu.crypto.utils.CipherCache;
 import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.SubstitutionTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,26 +21,57 @@ import org.slf4j.LoggerFactory;
  * know a piece of ciphertext has been enciphered with the ROT13 cipher, they can still break it by assuming
  * it is a substitution cipher and determining the key using hill-climbing. The ROT13 cipher is also an
  * Caesar cipher with a key of 13, so breaking it as a Caesar cipher also works.
+ *
+ * The letters are the English ones by default, any other Alphabet can be given to getInstance(Alphabet), whose
+ * letters are rolled by half its size.
  */
-public class ROT13Cipher implements CryptoService {
+public class ROT13Cipher extends AbstractCryptoService {
 
     private static final Logger logger = LoggerFactory.getLogger(ROT13Cipher.class);
 
     /**
      * This shift size to shift the number of characters.
      */
-    private int shiftSize;
+    private final int shiftSize;
+
+    /**
+     * The substitution tables precomputed from the shiftSize
+     */
+    private final SubstitutionTable table;
+
+    /**
+     * The transforms rolling the letters by the shift size
+     */
+    private final Transform encryption;
+
+    private final Transform decryption;
 
     /**
      * This variable holds the static instance of the ROT13Cipher
      */
-    private static ROT13Cipher _instance;
+    private static volatile ROT13Cipher _instance;
 
     /**
      * The private constructor with a default shiftSize of 7
      */
     private ROT13Cipher() {
         this.shiftSize = 13;
+        this.table = SubstitutionTable.of(
+                _char -> CryptoUtils.rollCharacters(_char, shiftSize),
+                _char -> CryptoUtils.unRollCharacters(_char, shiftSize));
+        this.encryption = new ShiftTransform(table, shiftSize, true);
+        this.decryption = new ShiftTransform(table, shiftSize, false);
+    }
+
+    /**
+     * The private constructor accepting the alphabet of the letters rolled by half the size of the alphabet
+     * @param alphabet
+     */
+    private ROT13Cipher(Alphabet alphabet) {
+        this.shiftSize = alphabet.size() / 2;
+        this.table = SubstitutionTable.of(alphabet, index -> (index + shiftSize) % alphabet.size());
+        this.encryption = new TableTransform(table, true);
+        this.decryption = new TableTransform(table, false);
     }
 
     /**
@@ -56,6 +90,20 @@ public class ROT13Cipher implements CryptoService {
         return _instance;
     }
 
+    /**
+     * Thread safe way of getting the shared instance of the ROT13Cipher object over the alphabet,
+     * one instance is built and cached for every alphabet
+     * @param alphabet
+     * @return
+     */
+    public static CryptoService getInstance(Alphabet alphabet) {
+        if(Alphabet.ENGLISH.equals(alphabet)) return getInstance();
+        return CipherCache.getInstance().get(ROT13Cipher.class, () -> {
+            logger.info("****** Yeah got an instance of ROT13Cipher over {} ******", alphabet);
+            return new ROT13Cipher(alphabet);
+        }, alphabet);
+    }
+
     /**
      * This method returns the encrypted text given a plaintext
      *
@@ -68,11 +116,10 @@ public class ROT13Cipher implements CryptoService {
         char[] _plainText = plainText.toCharArray();
         char[] _cipherText = new char[_plainText.length];
         logger.debug("Shiftsize - {}", shiftSize);
-        for(int i=0;i<_plainText.length;i++) {
-            _cipherText[i] = CryptoUtils.rollCharacters(_plainText[i],shiftSize);
-        }
-        logger.info("Cipher text after encryption - {}", String.valueOf(_cipherText));
-        return String.valueOf(_cipherText);
+        table.encrypt(_plainText, 0, _cipherText, 0, _plainText.length);
+        String cipherText = String.valueOf(_cipherText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return cipherText;
     }
 
     /**
@@ -87,10 +134,16 @@ public class ROT13Cipher implements CryptoService {
         char[] _cipherText = cipherText.toCharArray();
         char[] _plainText = new char[_cipherText.length];
         logger.debug("Shiftsize - {}", shiftSize);
-        for(int i=0;i<_cipherText.length;i++) {
-            _plainText[i] = CryptoUtils.unRollCharacters(_cipherText[i], shiftSize);
-        }
-        logger.info("Plain text after encryption - {}", String.valueOf(_plainText));
-        return String.valueOf(_plainText);
+        table.decrypt(_cipherText, 0, _plainText, 0, _cipherText.length);
+        String plainText = String.valueOf(_plainText);
+        logger.info("Plain text after encryption - {}", plainText);
+        return plainText;
+    }
+
+    /**
+     * This method returns the transform rolling the letters by the shift size, the same one is shared by all the texts
+     */
+    protected Transform newTransform(boolean encrypting, long length) {
+        return encrypting ? encryption : decryption;
     }
 }
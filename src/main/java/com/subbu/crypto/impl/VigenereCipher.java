@@ -1,10 +1,16 @@
 package com.subbu.crypto.impl;
 
 import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.utils.Alphabet;
+import com.subbu.crypto.utils.CipherCache;
 import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.ShiftEngine;
+import com.subbu.crypto.utils.ShiftEngines;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+
 /**
  * Created by devsu04 on 20/02/17.
  * This class uses the Vigenere Cipher(https://learncryptography.com/classical-encryption/vigenere-cipher)
@@ -16,26 +22,44 @@ import org.slf4j.LoggerFactory;
  * (for example, a word) as a key, which is then used for doing a number of alphabet shifts on the plaintext.
  * Similar to the Caesar Cipher, but instead of performing a single alphabet shift across the entire plaintext,
  * the Vigenère cipher uses a key to determine several different shift amounts across the entirety of the message.
+ *
+ * The letters are the English ones by default, any other Alphabet can be given to getInstance(String, Alphabet),
+ * every char of the key then rolls the letters by its index in that alphabet.
  */
-public class VigenereCipher implements CryptoService {
+public class VigenereCipher extends AbstractCryptoService {
 
     private static final Logger logger = LoggerFactory.getLogger(VigenereCipher.class);
 
     /**
      * The key to be used for encryption.
      */
-    private String key;
+    private final String key;
+
+    /**
+     * The number of places every position of the key rolls the letters forward by when encrypting and when
+     * decrypting, compiled from the key once
+     */
+    private final int[] encryptionSchedule;
+
+    private final int[] decryptionSchedule;
+
+    /**
+     * The transforms of the key
+     */
+    private final ScheduleTransform encryption;
+
+    private final ScheduleTransform decryption;
 
     /**
      * This variable holds the static instance of the CeaserCipher
      */
-    private static VigenereCipher _instance;
+    private static volatile VigenereCipher _instance;
 
     /**
      * The private constructor with a default shiftSize of 7
      */
     private VigenereCipher() {
-        this.key = "aEiOu";
+        this("aEiOu");
     }
 
     /**
@@ -43,7 +67,29 @@ public class VigenereCipher implements CryptoService {
      * @param key
      */
     private VigenereCipher(String key) {
+        this(key, Alphabet.ENGLISH);
+    }
+
+    /**
+     * The private constructor accepting a key and the alphabet of the letters rolled, the chars of the key
+     * which are not letters of the alphabet do not roll the letters
+     * @param key
+     * @param alphabet
+     */
+    private VigenereCipher(String key, Alphabet alphabet) {
+        if(key.isEmpty()) throw new IllegalArgumentException("The key must not be empty");
         this.key = key;
+        this.encryptionSchedule = new int[key.length()];
+        this.decryptionSchedule = new int[key.length()];
+        int m = alphabet.size();
+        for(int i=0;i<key.length();i++) {
+            int shift = Math.max(alphabet.indexOf(key.charAt(i)), 0);
+            encryptionSchedule[i] = shift;
+            decryptionSchedule[i] = (m - shift) % m;
+        }
+        boolean english = Alphabet.ENGLISH.equals(alphabet);
+        this.encryption = english ? new KeyTransform(encryptionSchedule) : new AlphabetKeyTransform(encryptionSchedule, alphabet);
+        this.decryption = english ? new KeyTransform(decryptionSchedule) : new AlphabetKeyTransform(decryptionSchedule, alphabet);
     }
 
     /**
@@ -63,20 +109,31 @@ public class VigenereCipher implements CryptoService {
     }
 
     /**
-     * Thread safe way of creating a singleton instance of the VigenereCipher object with shiftSize
+     * Thread safe way of getting the shared instance of the VigenereCipher object with key,
+     * one instance is built and cached for every key
      * @param key
      * @return
      */
     public static CryptoService getInstance(String key) {
-        if(_instance == null) {
-            synchronized (VigenereCipher.class) {
-                if(_instance == null) {
-                    _instance = new VigenereCipher(key);
-                    logger.info("****** Yeah got an instance of VigenereCipher ******");
-                }
-            }
-        }
-        return _instance;
+        return CipherCache.getInstance().get(VigenereCipher.class, () -> {
+            logger.info("****** Yeah got an instance of VigenereCipher ******");
+            return new VigenereCipher(key);
+        }, key);
+    }
+
+    /**
+     * Thread safe way of getting the shared instance of the VigenereCipher object with key over the alphabet,
+     * one instance is built and cached for every key and alphabet
+     * @param key
+     * @param alphabet
+     * @return
+     */
+    public static CryptoService getInstance(String key, Alphabet alphabet) {
+        if(Alphabet.ENGLISH.equals(alphabet)) return getInstance(key);
+        return CipherCache.getInstance().get(VigenereCipher.class, () -> {
+            logger.info("****** Yeah got an instance of VigenereCipher over {} ******", alphabet);
+            return new VigenereCipher(key, alphabet);
+        }, key, alphabet);
     }
 
     /**
@@ -86,74 +143,261 @@ public class VigenereCipher implements CryptoService {
      * @return
      */
     public String encrypt(String plainText) {
+        return encrypt(plainText, 0);
+    }
+
+    /**
+     * This method returns the plaintext given a ciphertext
+     *
+     * @param cipherText
+     * @return
+     */
+    public String decrypt(String cipherText) {
+        return decrypt(cipherText, 0);
+    }
+
+    /**
+     * This method returns the encrypted text given a plaintext, starting at the given position of the key
+     * instead of its first char, e.g. for a text following keyOffset chars encrypted before
+     *
+     * @param plainText
+     * @param keyOffset
+     * @return
+     */
+    public String encrypt(String plainText, long keyOffset) {
         logger.debug("=============================== *** ENCRYPTION *** ===================================================");
         logger.info("Plain text for encryption - {}", plainText);
         char[] _plainText = plainText.toCharArray();
         char[] _cipherText = new char[_plainText.length];
-        logger.debug("key - {}", key);
-        for(int i=0;i<_plainText.length;i++) {
-            _cipherText[i] = getEncryptedChar(_plainText[i], i);
-        }
-        logger.info("Cipher text after encryption - {}", String.valueOf(_cipherText));
-        return String.valueOf(_cipherText);
+        logger.debug("key - {}, key offset - {}", key, keyOffset);
+        encryption.chars(_plainText, 0, _cipherText, 0, _plainText.length, checkOffset(keyOffset));
+        String cipherText = String.valueOf(_cipherText);
+        logger.info("Cipher text after encryption - {}", cipherText);
+        return cipherText;
     }
 
     /**
-     * This method returns the plaintext given a ciphertext
+     * This method returns the plaintext given a ciphertext, starting at the given position of the key
      *
      * @param cipherText
+     * @param keyOffset
      * @return
      */
-    public String decrypt(String cipherText) {
+    public String decrypt(String cipherText, long keyOffset) {
         logger.debug("=============================== *** DECRYPTION *** ===================================================");
         logger.info("Cipher text for decryption - {}", cipherText);
         char[] _cipherText = cipherText.toCharArray();
         char[] _plainText = new char[_cipherText.length];
-        logger.debug("key - {}", key);
-        for(int i=0;i<_cipherText.length;i++) {
-            _plainText[i] = getDecryptedChar(_cipherText[i], i);
-        }
-        logger.info("Plain text after encryption - {}", String.valueOf(_plainText));
-        return String.valueOf(_plainText);
+        logger.debug("key - {}, key offset - {}", key, keyOffset);
+        decryption.chars(_cipherText, 0, _plainText, 0, _cipherText.length, checkOffset(keyOffset));
+        String plainText = String.valueOf(_plainText);
+        logger.info("Plain text after encryption - {}", plainText);
+        return plainText;
     }
 
     /**
-     * This is a utility method to encrypt the given character with the corresponding char for encryption
-     * from the given key and roll to begining when it reaches the end of the key.
-     * @param _char
-     * @param pos
+     * This method returns the transform of the key, the same one is shared by all the texts as the key
+     * position is derived from the position of every chunk
+     */
+    protected Transform newTransform(boolean encrypting, long length) {
+        return encrypting ? encryption : decryption;
+    }
+
+    /**
+     * This method returns the number of places every position of the key rolls the letters forward by
+     * when encrypting
      * @return
      */
-    private char getEncryptedChar(char _char, int pos) {
-        logger.debug("==================================================================================");
-        char encChar = '\0';
-        if(pos > key.length()) {
-            pos = pos - key.length();
+    public int[] getSchedule() {
+        return encryptionSchedule.clone();
+    }
+
+    /**
+     * This is a utility method that validates the position of the key to start at
+     */
+    private static long checkOffset(long keyOffset) {
+        if(keyOffset < 0) throw new IllegalArgumentException("The key offset must not be negative - " + keyOffset);
+        return keyOffset;
+    }
+
+    /**
+     * The Transform shifting every character by the char of the key at its position, the key position is
+     * derived from the position of the chunk modulo the length of the key, so the texts can be of any length
+     * and start at any position of the key.
+     */
+    private abstract static class ScheduleTransform extends Transform {
+
+        protected final int[] schedule;
+
+        ScheduleTransform(int[] schedule) {
+            this.schedule = schedule;
+        }
+
+        /**
+         * The key position restarts at every value, so that the values match the ones encrypted one by one
+         */
+        @Override
+        protected boolean restartsBatchValues() {
+            return true;
         }
-        logger.debug("Before rolling the character {} - {}", _char, (int)_char);
-        logger.debug("The encryption char selected - {} - {}", key.charAt(pos), CryptoUtils.getAlphaPos(key.charAt(pos)));
-        encChar = CryptoUtils.rollCharacters(_char, CryptoUtils.getAlphaPos(key.charAt(pos)));
-        logger.debug("After rolling the character {} - {}", (int)encChar, encChar);
-        return encChar;
     }
 
     /**
-     * This is a utility method to decrypt the given character with the corresponding char for decryption
-     * from the given key and roll to begining when it reaches the end of the key.
-     * @param _char
-     * @param pos
-     * @return
+     * The ScheduleTransform of the English letters.
+     *
+     * The chars are rolled by the compiled schedule of the key, up to the end of the key first and then a
+     * whole period of the key at a time, every position of the period with the same shift, so that the
+     * inner loop has no modulo and no lookup of the key.
+     */
+    private static final class KeyTransform extends ScheduleTransform {
+
+        /**
+         * The shifts of the key laid out for the ShiftEngine last used
+         */
+        private volatile PreparedShifts prepared;
+
+        KeyTransform(int[] schedule) {
+            super(schedule);
+        }
+
+        /**
+         * This is a utility method that returns the shifts of the key laid out for the engine
+         */
+        private byte[] prepare(ShiftEngine engine) {
+            PreparedShifts _prepared = prepared;
+            if(_prepared == null || _prepared.engine != engine) {
+                byte[] shifts = new byte[schedule.length];
+                for(int i=0;i<shifts.length;i++) {
+                    shifts[i] = (byte) schedule[i];
+                }
+                _prepared = new PreparedShifts(engine, engine.prepare(shifts));
+                prepared = _prepared;
+            }
+            return _prepared.shifts;
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            int[] _schedule = schedule;
+            int period = _schedule.length;
+            int keyPos = (int) (position % period);
+            int head = Math.min(len, (period - keyPos) % period);
+            int i = 0;
+            for(;i<head;i++) {
+                dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], _schedule[keyPos + i]);
+            }
+            for(;i<=len - period;i+=period) {
+                for(int k=0;k<period;k++) {
+                    dst[dstOff + i + k] = CryptoUtils.roll(src[srcOff + i + k], _schedule[k]);
+                }
+            }
+            for(int k=0;i<len;i++,k++) {
+                dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], _schedule[k]);
+            }
+        }
+
+        /**
+         * The key position advances once for every char so that the result matches the one of the decoded text
+         */
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            int[] _schedule = schedule;
+            int keyPos = (int) (position % _schedule.length);
+            ShiftEngine engine = ShiftEngines.get();
+            if(engine != null) {
+                return position + engine.roll(src, srcOff, dst, dstOff, len, prepare(engine), _schedule.length, keyPos);
+            }
+            long chars = 0;
+            for(int i=0;i<len;i++) {
+                byte _byte = src.get(srcOff + i);
+                int count = 1;
+                if(_byte >= 0) {
+                    dst.put(dstOff + i, CryptoUtils.roll(_byte, _schedule[keyPos]));
+                } else {
+                    dst.put(dstOff + i, _byte);
+                    count = CryptoUtils.getUtf8CharCount(_byte);
+                }
+                keyPos = (keyPos + count) % _schedule.length;
+                chars += count;
+            }
+            return position + chars;
+        }
+
+        @Override
+        protected boolean addShifts(byte[] shifts, int off, int len, long position) {
+            int[] _schedule = schedule;
+            int keyPos = (int) (position % _schedule.length);
+            for(int i=0;i<len;i++) {
+                shifts[off + i] = (byte) ((shifts[off + i] + _schedule[keyPos]) % CryptoUtils.ALPHABET_SIZE);
+                if(++keyPos == _schedule.length) keyPos = 0;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The ScheduleTransform of the other alphabets, every letter is rolled within its case through the
+     * lookup tables of the alphabet. Only the alphabets of ASCII letters can be applied to UTF-8 bytes.
+     */
+    private static final class AlphabetKeyTransform extends ScheduleTransform {
+
+        private final Alphabet alphabet;
+
+        AlphabetKeyTransform(int[] schedule, Alphabet alphabet) {
+            super(schedule);
+            this.alphabet = alphabet;
+        }
+
+        protected void chars(char[] src, int srcOff, char[] dst, int dstOff, int len, long position) {
+            int[] _schedule = schedule;
+            int keyPos = (int) (position % _schedule.length);
+            for(int i=0;i<len;i++) {
+                dst[dstOff + i] = alphabet.roll(src[srcOff + i], _schedule[keyPos]);
+                if(++keyPos == _schedule.length) keyPos = 0;
+            }
+        }
+
+        /**
+         * The key position advances once for every char so that the result matches the one of the decoded text
+         */
+        protected long bytes(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, long position) {
+            if(!alphabet.isAscii()) {
+                throw new UnsupportedOperationException("The alphabet has letters outside of ASCII and cannot be applied to bytes");
+            }
+            int[] _schedule = schedule;
+            int keyPos = (int) (position % _schedule.length);
+            long chars = 0;
+            for(int i=0;i<len;i++) {
+                byte _byte = src.get(srcOff + i);
+                int count = 1;
+                if(_byte >= 0) {
+                    dst.put(dstOff + i, (byte) alphabet.roll((char) _byte, _schedule[keyPos]));
+                } else {
+                    dst.put(dstOff + i, _byte);
+                    count = CryptoUtils.getUtf8CharCount(_byte);
+                }
+                keyPos = (keyPos + count) % _schedule.length;
+                chars += count;
+            }
+            return position + chars;
+        }
+
+        @Override
+        protected boolean supportsBytes() {
+            return alphabet.isAscii();
+        }
+    }
+
+    /**
+     * The shifts of the key laid out for a ShiftEngine
      */
-    private char getDecryptedChar(char _char, int pos) {
-        logger.debug("==================================================================================");
-        char decChar = '\0';
-        if(pos > key.length()) {
-            pos = pos - key.length();
+    private static final class PreparedShifts {
+
+        private final ShiftEngine engine;
+
+        private final byte[] shifts;
+
+        PreparedShifts(ShiftEngine engine, byte[] shifts) {
+            this.engine = engine;
+            this.shifts = shifts;
         }
-        logger.debug("Before rolling the character {} - {}", _char, (int)_char);
-        logger.debug("The encryption char selected - {} - {}", key.charAt(pos), CryptoUtils.getAlphaPos(key.charAt(pos)));
-        decChar = CryptoUtils.unRollCharacters(_char, CryptoUtils.getAlphaPos(key.charAt(pos)));
-        logger.debug("After rolling the character {} - {}", (int)decChar, decChar);
-        return decChar;
     }
 }
@@ -0,0 +1,54 @@
+package com.subbu.crypto.jca;
+
+import com.subbu.crypto.utils.Alphabet;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * This class is the parameters of the classical ciphers of the SimpleCryptoProvider, the alphabet of the letters
+ * substituted and the position of the first char of the text, e.g. to encrypt the rest of a text a part of which
+ * has been encrypted with the Vigenere or the OneTimePad cipher. The alphabet must be an ASCII one since a
+ * Cipher transforms UTF-8 bytes, and the OneTimePad cipher only accepts the English alphabet.
+ */
+public final class ClassicalParameterSpec implements AlgorithmParameterSpec {
+
+    private final Alphabet alphabet;
+
+    private final long position;
+
+    /**
+     * The constructor accepting the alphabet, the text starts at position 0
+     * @param alphabet
+     */
+    public ClassicalParameterSpec(Alphabet alphabet) {
+        this(alphabet, 0);
+    }
+
+    /**
+     * The constructor accepting the alphabet and the position of the first char of the text
+     * @param alphabet
+     * @param position
+     */
+    public ClassicalParameterSpec(Alphabet alphabet, long position) {
+        if(alphabet == null) throw new IllegalArgumentException("The alphabet is missing");
+        if(position < 0) throw new IllegalArgumentException("The position must not be negative - " + position);
+        this.alphabet = alphabet;
+        this.position = position;
+    }
+
+    /**
+     * This method returns the alphabet of the letters substituted
+     * @return
+     */
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * This method returns the position of the first char of the text
+     * @return
+     */
+    public long getPosition() {
+        return position;
+    }
+}
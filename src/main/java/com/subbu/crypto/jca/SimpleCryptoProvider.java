@@ -0,0 +1,39 @@
+package com.subbu.crypto.jca;
+
+import java.security.Provider;
+
+/**
+ * This class is the JCA provider of the classical ciphers, Ceaser (also Caesar), ROT13, Atbash, Affine, Vigenere and
+ * OneTimePad, so that they can be used through javax.crypto.Cipher -
+ *
+ *     Cipher cipher = Cipher.getInstance("Vigenere", new SimpleCryptoProvider());
+ *     cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("LEMON".getBytes(StandardCharsets.UTF_8), "Vigenere"));
+ *     byte[] cipherText = cipher.doFinal(plainText);
+ *
+ * or registered with Security.addProvider(new SimpleCryptoProvider()), see ClassicalCipherSpi for the keys.
+ * The JDKs of Oracle only load a provider of Ciphers from a jar signed with a JCE code signing certificate,
+ * the OpenJDK builds do not verify it.
+ */
+public final class SimpleCryptoProvider extends Provider {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String NAME = "SimpleCrypto";
+
+    private static final String[] ALGORITHMS = {"Ceaser", "ROT13", "Atbash", "Affine", "Vigenere", "OneTimePad"};
+
+    /**
+     * The constructor
+     */
+    @SuppressWarnings("deprecation")
+    public SimpleCryptoProvider() {
+        super(NAME, 1.0, "SimpleCrypto provider of the classical ciphers (Ceaser, ROT13, Atbash, Affine, Vigenere, OneTimePad)");
+        for(String algorithm : ALGORITHMS) {
+            put("Cipher." + algorithm, "com.subbu.crypto.impl.ClassicalCipherSpi$" + algorithm);
+            put("Cipher." + algorithm + " SupportedModes", "ECB|NONE");
+            put("Cipher." + algorithm + " SupportedPaddings", "NOPADDING");
+            put("Cipher." + algorithm + " SupportedKeyFormats", "RAW");
+        }
+        put("Alg.Alias.Cipher.Caesar", "Ceaser");
+    }
+}
@@ -0,0 +1,26 @@
+package com.subbu.crypto.metrics;
+
+/**
+ * This interface begins and commits the Flight Recorder events of the ciphers. It is implemented by
+ * FlightRecorderEvents, which is only compiled when the library is built on Java 17 or later, so the events
+ * are handed around as Objects and the callers do not link to jdk.jfr.
+ */
+interface CipherEventRecorder {
+
+    /**
+     * This method begins an event if a recording has it enabled, returning null otherwise
+     * @param encrypting
+     * @return
+     */
+    Object begin(boolean encrypting);
+
+    /**
+     * This method ends and commits an event begun by begin(), if it passes the threshold of the recording
+     * @param event
+     * @param cipher
+     * @param method
+     * @param size
+     * @param failed
+     */
+    void commit(Object event, String cipher, String method, long size, boolean failed);
+}
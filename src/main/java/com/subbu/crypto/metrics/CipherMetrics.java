@@ -0,0 +1,226 @@
+package com.subbu.crypto.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class holds the metrics of a cipher, the number of encryptions, decryptions, characters processed
+ * and errors, and the latency histograms of encryption and decryption by payload size.
+ *
+ * There is one instance per cipher name, shared by all the MeteredCryptoService of the cipher and
+ * registered as an MXBean under com.subbu.crypto:type=CipherMetrics,name={cipher} when it is first used.
+ * The counters are LongAdders and the histograms are lock-free, so recording does not contend between threads.
+ */
+public final class CipherMetrics implements CipherMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CipherMetrics.class);
+
+    /**
+     * The names of the payload size buckets
+     */
+    public static final String[] SIZE_BUCKETS = {"<=64", "<=1K", "<=64K", "<=1M", ">1M"};
+
+    /**
+     * The largest payload size of every bucket
+     */
+    private static final long[] SIZE_LIMITS = {64, 1024, 64 * 1024, 1024 * 1024, Long.MAX_VALUE};
+
+    /**
+     * The metrics of every cipher name
+     */
+    private static final ConcurrentHashMap<String, CipherMetrics> registry = new ConcurrentHashMap<String, CipherMetrics>();
+
+    private final String cipherName;
+
+    private final LongAdder encryptions = new LongAdder();
+
+    private final LongAdder decryptions = new LongAdder();
+
+    private final LongAdder characters = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LatencyHistogram[] encryptLatencies = newHistograms();
+
+    private final LatencyHistogram[] decryptLatencies = newHistograms();
+
+    /**
+     * The private constructor accepting the name of the cipher
+     * @param cipherName
+     */
+    private CipherMetrics(String cipherName) {
+        this.cipherName = cipherName;
+    }
+
+    /**
+     * This method returns the metrics of the cipher with the given name, registering the MXBean the first time
+     * @param cipherName
+     * @return
+     */
+    public static CipherMetrics forCipher(String cipherName) {
+        return registry.computeIfAbsent(cipherName, name -> {
+            CipherMetrics metrics = new CipherMetrics(name);
+            metrics.register();
+            return metrics;
+        });
+    }
+
+    /**
+     * This method records an encryption or decryption
+     * @param encrypting
+     * @param size the number of characters, or bytes for the byte oriented methods, processed
+     * @param nanos
+     * @param failed
+     */
+    public void record(boolean encrypting, long size, long nanos, boolean failed) {
+        if(encrypting) {
+            encryptions.increment();
+        } else {
+            decryptions.increment();
+        }
+        if(failed) {
+            errors.increment();
+            return;
+        }
+        characters.add(size);
+        (encrypting ? encryptLatencies : decryptLatencies)[sizeBucketOf(size)].record(nanos);
+    }
+
+    /**
+     * This method returns the latency histogram of encryption or decryption for the given size bucket
+     * @param encrypting
+     * @param sizeBucket
+     * @return
+     */
+    public LatencyHistogram getLatencies(boolean encrypting, int sizeBucket) {
+        return (encrypting ? encryptLatencies : decryptLatencies)[sizeBucket];
+    }
+
+    public String getCipherName() {
+        return cipherName;
+    }
+
+    public long getEncryptCount() {
+        return encryptions.sum();
+    }
+
+    public long getDecryptCount() {
+        return decryptions.sum();
+    }
+
+    public long getCharacterCount() {
+        return characters.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public Map<String, Long> getEncryptP50Nanos() {
+        return percentiles(encryptLatencies, 0.5);
+    }
+
+    public Map<String, Long> getEncryptP99Nanos() {
+        return percentiles(encryptLatencies, 0.99);
+    }
+
+    public Map<String, Long> getEncryptP999Nanos() {
+        return percentiles(encryptLatencies, 0.999);
+    }
+
+    public Map<String, Long> getDecryptP50Nanos() {
+        return percentiles(decryptLatencies, 0.5);
+    }
+
+    public Map<String, Long> getDecryptP99Nanos() {
+        return percentiles(decryptLatencies, 0.99);
+    }
+
+    public Map<String, Long> getDecryptP999Nanos() {
+        return percentiles(decryptLatencies, 0.999);
+    }
+
+    public void reset() {
+        encryptions.reset();
+        decryptions.reset();
+        characters.reset();
+        errors.reset();
+        for(int i=0;i<SIZE_BUCKETS.length;i++) {
+            encryptLatencies[i].reset();
+            decryptLatencies[i].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CipherMetrics{cipher=" + cipherName + ", encryptions=" + getEncryptCount() + ", decryptions="
+                + getDecryptCount() + ", characters=" + getCharacterCount() + ", errors=" + getErrorCount() + "}";
+    }
+
+    /**
+     * This method returns the size bucket of a payload size
+     * @param size
+     * @return
+     */
+    public static int sizeBucketOf(long size) {
+        int bucket = 0;
+        while(size > SIZE_LIMITS[bucket]) bucket++;
+        return bucket;
+    }
+
+    /**
+     * This method returns the name the MXBean of a cipher is registered under
+     * @param cipherName
+     * @return
+     * @throws JMException
+     */
+    public static ObjectName getObjectName(String cipherName) throws JMException {
+        return new ObjectName("com.subbu.crypto:type=CipherMetrics,name=" + ObjectName.quote(cipherName));
+    }
+
+    /**
+     * This is a utility method that registers the MXBean, the metrics are still recorded when it fails
+     */
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = getObjectName(cipherName);
+            if(!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            logger.warn("Unable to register the metrics of {}", cipherName, e);
+        }
+    }
+
+    /**
+     * This is a utility method that returns the percentile of every size bucket
+     */
+    private static Map<String, Long> percentiles(LatencyHistogram[] histograms, double fraction) {
+        Map<String, Long> percentiles = new LinkedHashMap<String, Long>();
+        for(int i=0;i<SIZE_BUCKETS.length;i++) {
+            percentiles.put(SIZE_BUCKETS[i], histograms[i].getPercentile(fraction));
+        }
+        return percentiles;
+    }
+
+    /**
+     * This is a utility method that returns a histogram for every size bucket
+     */
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[SIZE_BUCKETS.length];
+        for(int i=0;i<histograms.length;i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,36 @@
+package com.subbu.crypto.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the metrics of a cipher, registered under
+ * com.subbu.crypto:type=CipherMetrics,name={cipher}.
+ *
+ * The latencies are in nanoseconds, keyed by the payload size bucket, see CipherMetrics.SIZE_BUCKETS.
+ */
+public interface CipherMetricsMXBean {
+
+    String getCipherName();
+
+    long getEncryptCount();
+
+    long getDecryptCount();
+
+    long getCharacterCount();
+
+    long getErrorCount();
+
+    Map<String, Long> getEncryptP50Nanos();
+
+    Map<String, Long> getEncryptP99Nanos();
+
+    Map<String, Long> getEncryptP999Nanos();
+
+    Map<String, Long> getDecryptP50Nanos();
+
+    Map<String, Long> getDecryptP99Nanos();
+
+    Map<String, Long> getDecryptP999Nanos();
+
+    void reset();
+}
@@ -0,0 +1,106 @@
+package com.subbu.crypto.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a lock-free histogram of latencies in nanoseconds.
+ *
+ * The values are counted in log-linear buckets, every power of 2 is split in SUB_BUCKETS buckets, so the
+ * percentiles are accurate to 1/SUB_BUCKETS of the value (12.5%) across the whole range of a long while the
+ * histogram is a fixed array of a few hundred counters. Recording a value is a single atomic increment,
+ * so any number of threads can record concurrently, and the percentiles are read without stopping them.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets of every power of 2, as a power of 2 itself
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The values below this are counted in a bucket of their own
+     */
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * This method records a latency, negative values are counted as 0
+     * @param nanos
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(nanos, 0)));
+    }
+
+    /**
+     * This method returns the number of latencies recorded
+     * @return
+     */
+    public long getCount() {
+        long count = 0;
+        for(int i=0;i<BUCKET_COUNT;i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * This method returns the latency in nanoseconds below which the given fraction of the latencies
+     * recorded fall, e.g. 0.99 for the 99th percentile, or 0 when nothing has been recorded
+     * @param fraction
+     * @return
+     */
+    public long getPercentile(double fraction) {
+        if(fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("The fraction must be between 0 and 1 - " + fraction);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for(int i=0;i<BUCKET_COUNT;i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if(count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for(int i=0;i<BUCKET_COUNT;i++) {
+            seen += snapshot[i];
+            if(seen >= rank) return highestValueOf(i);
+        }
+        return highestValueOf(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * This method clears all the latencies recorded
+     */
+    public void reset() {
+        for(int i=0;i<BUCKET_COUNT;i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * This is a utility method that returns the bucket of a value
+     */
+    static int indexOf(long value) {
+        if(value < LINEAR_LIMIT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * This is a utility method that returns the highest value counted in a bucket
+     */
+    static long highestValueOf(int index) {
+        if(index < LINEAR_LIMIT) return index;
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long lowest = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
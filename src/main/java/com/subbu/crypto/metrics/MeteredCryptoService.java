@@ -0,0 +1,487 @@
+package com.subbu.crypto.metrics;
+
+import com.subbu.crypto.CryptoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class records the metrics of any of the ciphers, see CipherMetrics, and emits the Flight Recorder
+ * events EncryptEvent and DecryptEvent for every encryption and decryption.
+ *
+ * The overhead is two calls to System.nanoTime(), a few LongAdder increments and a histogram increment per
+ * call, the Flight Recorder events are only created while a recording has them enabled. The texts are
+ * never recorded, only their sizes. The Flight Recorder events are only emitted by the builds on Java 17 or
+ * later running on a JVM with jdk.jfr, they are skipped otherwise.
+ */
+public class MeteredCryptoService implements CryptoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MeteredCryptoService.class);
+
+    private static final String FLIGHT_RECORDER_EVENTS = "com.subbu.crypto.metrics.FlightRecorderEvents";
+
+    /**
+     * The recorder of the Flight Recorder events, null when the build or the JVM has no Flight Recorder
+     */
+    private static final CipherEventRecorder EVENTS = loadEventRecorder();
+
+    /**
+     * The cipher doing the actual encryption
+     */
+    private final CryptoService cryptoService;
+
+    /**
+     * The name of the cipher in the metrics and the events
+     */
+    private final String cipherName;
+
+    /**
+     * The metrics of the cipher
+     */
+    private final CipherMetrics metrics;
+
+    /**
+     * The constructor naming the metrics after the class of the cipher
+     * @param cryptoService
+     */
+    public MeteredCryptoService(CryptoService cryptoService) {
+        this(cryptoService, cryptoService.getClass().getSimpleName());
+    }
+
+    /**
+     * The constructor accepting the name of the metrics, the services of the same name share their metrics
+     * @param cryptoService
+     * @param cipherName
+     */
+    public MeteredCryptoService(CryptoService cryptoService, String cipherName) {
+        this.cryptoService = cryptoService;
+        this.cipherName = cipherName;
+        this.metrics = CipherMetrics.forCipher(cipherName);
+    }
+
+    /**
+     * This method returns the metrics of the cipher
+     * @return
+     */
+    public CipherMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String encrypt(String plainText) {
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            String cipherText = cryptoService.encrypt(plainText);
+            failed = false;
+            return cipherText;
+        } finally {
+            end(true, "String", plainText.length(), start, event, failed);
+        }
+    }
+
+    public String decrypt(String cipherText) {
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            String plainText = cryptoService.decrypt(cipherText);
+            failed = false;
+            return plainText;
+        } finally {
+            end(false, "String", cipherText.length(), start, event, failed);
+        }
+    }
+
+    public byte[] encryptBytes(byte[] plainText) {
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            byte[] cipherText = cryptoService.encryptBytes(plainText);
+            failed = false;
+            return cipherText;
+        } finally {
+            end(true, "byte[]", plainText.length, start, event, failed);
+        }
+    }
+
+    public byte[] decryptBytes(byte[] cipherText) {
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            byte[] plainText = cryptoService.decryptBytes(cipherText);
+            failed = false;
+            return plainText;
+        } finally {
+            end(false, "byte[]", cipherText.length, start, event, failed);
+        }
+    }
+
+    public void encrypt(Reader plainText, Writer cipherText) throws IOException {
+        transform(true, plainText, cipherText);
+    }
+
+    public void decrypt(Reader cipherText, Writer plainText) throws IOException {
+        transform(false, cipherText, plainText);
+    }
+
+    public void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+        transform(true, plainText, cipherText);
+    }
+
+    public void decrypt(InputStream cipherText, OutputStream plainText) throws IOException {
+        transform(false, cipherText, plainText);
+    }
+
+    public void encrypt(ReadableByteChannel plainText, WritableByteChannel cipherText) throws IOException {
+        transform(true, plainText, cipherText);
+    }
+
+    public void decrypt(ReadableByteChannel cipherText, WritableByteChannel plainText) throws IOException {
+        transform(false, cipherText, plainText);
+    }
+
+    public void encryptInPlace(Path file) throws IOException {
+        transformInPlace(true, file);
+    }
+
+    public void decryptInPlace(Path file) throws IOException {
+        transformInPlace(false, file);
+    }
+
+    public void encrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.encrypt(src, srcOff, dst, dstOff, len);
+            failed = false;
+        } finally {
+            end(true, "char[]", len, start, event, failed);
+        }
+    }
+
+    public void decrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.decrypt(src, srcOff, dst, dstOff, len);
+            failed = false;
+        } finally {
+            end(false, "char[]", len, start, event, failed);
+        }
+    }
+
+    public void encrypt(CharBuffer src, CharBuffer dst) {
+        int size = src.remaining();
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.encrypt(src, dst);
+            failed = false;
+        } finally {
+            end(true, "CharBuffer", size, start, event, failed);
+        }
+    }
+
+    public void decrypt(CharBuffer src, CharBuffer dst) {
+        int size = src.remaining();
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.decrypt(src, dst);
+            failed = false;
+        } finally {
+            end(false, "CharBuffer", size, start, event, failed);
+        }
+    }
+
+    public void encrypt(ByteBuffer src, ByteBuffer dst) {
+        int size = src.remaining();
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.encrypt(src, dst);
+            failed = false;
+        } finally {
+            end(true, "ByteBuffer", size, start, event, failed);
+        }
+    }
+
+    public void decrypt(ByteBuffer src, ByteBuffer dst) {
+        int size = src.remaining();
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.decrypt(src, dst);
+            failed = false;
+        } finally {
+            end(false, "ByteBuffer", size, start, event, failed);
+        }
+    }
+
+    public void encryptBatch(char[] src, int[] offsets, char[] dst) {
+        long size = offsets.length == 0 ? 0 : offsets[offsets.length - 1] - offsets[0];
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.encryptBatch(src, offsets, dst);
+            failed = false;
+        } finally {
+            end(true, "char[] batch", size, start, event, failed);
+        }
+    }
+
+    public void decryptBatch(char[] src, int[] offsets, char[] dst) {
+        long size = offsets.length == 0 ? 0 : offsets[offsets.length - 1] - offsets[0];
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.decryptBatch(src, offsets, dst);
+            failed = false;
+        } finally {
+            end(false, "char[] batch", size, start, event, failed);
+        }
+    }
+
+    public void encryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        long size = offsets.length == 0 ? 0 : offsets[offsets.length - 1] - offsets[0];
+        Object event = beginEvent(true);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.encryptBatch(src, offsets, dst);
+            failed = false;
+        } finally {
+            end(true, "byte[] batch", size, start, event, failed);
+        }
+    }
+
+    public void decryptBatch(byte[] src, int[] offsets, byte[] dst) {
+        long size = offsets.length == 0 ? 0 : offsets[offsets.length - 1] - offsets[0];
+        Object event = beginEvent(false);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            cryptoService.decryptBatch(src, offsets, dst);
+            failed = false;
+        } finally {
+            end(false, "byte[] batch", size, start, event, failed);
+        }
+    }
+
+    /**
+     * This is a utility method that meters a char stream, counting the chars as they are read
+     */
+    private void transform(boolean encrypting, Reader in, Writer out) throws IOException {
+        CountingReader reader = new CountingReader(in);
+        Object event = beginEvent(encrypting);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if(encrypting) {
+                cryptoService.encrypt(reader, out);
+            } else {
+                cryptoService.decrypt(reader, out);
+            }
+            failed = false;
+        } finally {
+            end(encrypting, "Reader", reader.count, start, event, failed);
+        }
+    }
+
+    /**
+     * This is a utility method that meters a byte stream, counting the bytes as they are read
+     */
+    private void transform(boolean encrypting, InputStream in, OutputStream out) throws IOException {
+        CountingInputStream input = new CountingInputStream(in);
+        Object event = beginEvent(encrypting);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if(encrypting) {
+                cryptoService.encrypt(input, out);
+            } else {
+                cryptoService.decrypt(input, out);
+            }
+            failed = false;
+        } finally {
+            end(encrypting, "InputStream", input.count, start, event, failed);
+        }
+    }
+
+    /**
+     * This is a utility method that meters the transformation of a channel
+     */
+    private void transform(boolean encrypting, ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        CountingChannel input = new CountingChannel(in);
+        Object event = beginEvent(encrypting);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if(encrypting) {
+                cryptoService.encrypt(input, out);
+            } else {
+                cryptoService.decrypt(input, out);
+            }
+            failed = false;
+        } finally {
+            end(encrypting, "Channel", input.count, start, event, failed);
+        }
+    }
+
+    /**
+     * This is a utility method that meters the transformation of a file in place
+     */
+    private void transformInPlace(boolean encrypting, Path file) throws IOException {
+        long size = Files.size(file);
+        Object event = beginEvent(encrypting);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if(encrypting) {
+                cryptoService.encryptInPlace(file);
+            } else {
+                cryptoService.decryptInPlace(file);
+            }
+            failed = false;
+        } finally {
+            end(encrypting, "Path", size, start, event, failed);
+        }
+    }
+
+    /**
+     * This is a utility method that begins the Flight Recorder event if it is enabled
+     */
+    private static Object beginEvent(boolean encrypting) {
+        return EVENTS != null ? EVENTS.begin(encrypting) : null;
+    }
+
+    /**
+     * This is a utility method that records the metrics and commits the Flight Recorder event of a call
+     */
+    private void end(boolean encrypting, String method, long size, long start, Object event, boolean failed) {
+        metrics.record(encrypting, size, System.nanoTime() - start, failed);
+        if(event != null) {
+            EVENTS.commit(event, cipherName, method, size, failed);
+        }
+    }
+
+    /**
+     * This is a utility method that loads the recorder of the Flight Recorder events, which is absent from the
+     * builds before Java 17 and fails to link on JVMs without jdk.jfr
+     */
+    private static CipherEventRecorder loadEventRecorder() {
+        try {
+            return (CipherEventRecorder) Class.forName(FLIGHT_RECORDER_EVENTS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.debug("The Flight Recorder events are not available - {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * The reader counting the chars read
+     */
+    private static final class CountingReader extends FilterReader {
+
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int _char = super.read();
+            if(_char != -1) count++;
+            return _char;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            int read = super.read(buffer, off, len);
+            if(read > 0) count += read;
+            return read;
+        }
+    }
+
+    /**
+     * The input stream counting the bytes read
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int _byte = super.read();
+            if(_byte != -1) count++;
+            return _byte;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int read = super.read(buffer, off, len);
+            if(read > 0) count += read;
+            return read;
+        }
+    }
+
+    /**
+     * The channel counting the bytes read
+     */
+    private static final class CountingChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel in;
+
+        private long count;
+
+        CountingChannel(ReadableByteChannel in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(ByteBuffer buffer) throws IOException {
+            int read = in.read(buffer);
+            if(read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return in.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package com.subbu.crypto.server;
+
+import com.subbu.crypto.CryptoService;
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.utils.Alphabet;
+import com.subbu.crypto.utils.ThreadUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a local HTTP server exposing the encryption and decryption of every cipher, built on the
+ * HttpServer of the JDK only, so that the services which cannot embed the library can use it.
+ *
+ * POST /encrypt/{cipher} and POST /decrypt/{cipher} transform the UTF-8 request body into the response body,
+ * where the cipher is ceaser, rot13, atbash, affine, vigenere or onetimepad and its parameters are given in the
+ * query, shift for the ceaser cipher, key for the vigenere cipher, key=keyA,keyB for the affine cipher (random keys
+ * fixed for the life of the server without it) and alphabet (english, alphanumeric or latin1) for all but the
+ * onetimepad cipher, e.g. POST /encrypt/vigenere?key=lemon or POST /decrypt/affine?key=5,8. The bodies are streamed a chunk
+ * at a time, so the memory used by a request does not depend on its size. The onetimepad cipher generates a
+ * key for every encryption as the request is read, the response is the key in the binary format of OneTimePad
+ * followed by the ciphertext, and the same is expected as the request to decrypt. Its key is held on the heap,
+ * so the onetimepad requests larger than the maximum one time pad size (16 MB by default) are answered with 413.
+ * GET /health returns the number of requests served, rejected and in progress.
+ *
+ * Every request is handled on a thread of its own, a virtual thread when the JVM has them (Java 21 or later)
+ * and a pooled platform thread otherwise. Up to maxConcurrentRequests requests are transformed at a time,
+ * a request arriving when they are all busy waits up to the admission timeout for one to complete and is
+ * otherwise rejected with 503 and a Retry-After header, so an overloaded server sheds load instead of
+ * queueing requests until they time out.
+ *
+ * The headers, the chunks and the end of a streamed response are separate small writes, so with Nagle's
+ * algorithm every response waits for the delayed ACK of the client. The main methods of the server and the load
+ * generator run the HttpServer with TCP_NODELAY, a server embedded in an application should be run with
+ * -Dsun.net.httpserver.nodelay=true, which applies to every HttpServer of the JVM.
+ */
+public class CryptoServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CryptoServer.class);
+
+    /**
+     * The default number of requests transformed at a time
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 64;
+
+    /**
+     * The default number of milliseconds a request waits to be admitted
+     */
+    public static final long DEFAULT_ADMISSION_TIMEOUT_MILLIS = 100;
+
+    /**
+     * The default maximum number of bytes of a onetimepad request, whose key is held on the heap
+     */
+    public static final int DEFAULT_MAX_ONE_TIME_PAD_SIZE = 16 * 1024 * 1024;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final Semaphore admission;
+
+    private final int maxConcurrentRequests;
+
+    private final long admissionTimeoutMillis;
+
+    private volatile int maxOneTimePadSize = DEFAULT_MAX_ONE_TIME_PAD_SIZE;
+
+    /**
+     * The number of requests served, rejected by the admission control and failed
+     */
+    private final LongAdder served = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * The constructor binding the server to the port of the loopback address, 0 for any free port
+     * @param port
+     * @param maxConcurrentRequests
+     * @param admissionTimeoutMillis
+     * @throws IOException
+     */
+    public CryptoServer(int port, int maxConcurrentRequests, long admissionTimeoutMillis) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxConcurrentRequests, admissionTimeoutMillis);
+    }
+
+    /**
+     * The constructor binding the server to the address
+     * @param address
+     * @param maxConcurrentRequests
+     * @param admissionTimeoutMillis
+     * @throws IOException
+     */
+    public CryptoServer(InetSocketAddress address, int maxConcurrentRequests, long admissionTimeoutMillis) throws IOException {
+        if(maxConcurrentRequests < 1 || admissionTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid admission control - " + maxConcurrentRequests + ", " + admissionTimeoutMillis);
+        }
+        this.admission = new Semaphore(maxConcurrentRequests);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+        this.executor = ThreadUtils.newThreadPerTaskExecutor("crypto-request");
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/encrypt/", exchange -> handle(exchange, true));
+        server.createContext("/decrypt/", exchange -> handle(exchange, false));
+        server.createContext("/health", this::health);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * This method starts serving the requests
+     */
+    public void start() {
+        server.start();
+        logger.info("****** Serving the ciphers on http://{}:{} ******", server.getAddress().getHostString(), getPort());
+    }
+
+    /**
+     * This method stops the server, waiting up to delaySeconds for the requests in progress to complete
+     * @param delaySeconds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * This method returns the port the server is bound to
+     * @return
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * This method returns the maximum number of bytes of a onetimepad request
+     * @return
+     */
+    public int getMaxOneTimePadSize() {
+        return maxOneTimePadSize;
+    }
+
+    /**
+     * This method sets the maximum number of bytes of a onetimepad request, the larger requests are answered
+     * with 413
+     * @param maxOneTimePadSize
+     */
+    public void setMaxOneTimePadSize(int maxOneTimePadSize) {
+        if(maxOneTimePadSize < 0) throw new IllegalArgumentException("Invalid maximum one time pad size - " + maxOneTimePadSize);
+        this.maxOneTimePadSize = maxOneTimePadSize;
+    }
+
+    /**
+     * This method returns the number of requests served
+     * @return
+     */
+    public long getServedCount() {
+        return served.sum();
+    }
+
+    /**
+     * This method returns the number of requests rejected by the admission control
+     * @return
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * This method returns the number of requests failed
+     * @return
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * This method runs the server until the JVM is stopped, the arguments are [-p port] [-c max concurrent
+     * requests] [-t admission timeout in milliseconds] [-m maximum bytes of a onetimepad request]
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        enableNoDelay();
+        int port = 8080;
+        int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        long admissionTimeoutMillis = DEFAULT_ADMISSION_TIMEOUT_MILLIS;
+        int maxOneTimePadSize = DEFAULT_MAX_ONE_TIME_PAD_SIZE;
+        for(int i=0;i+1<args.length;i+=2) {
+            switch (args[i]) {
+                case "-p": port = Integer.parseInt(args[i + 1]); break;
+                case "-c": maxConcurrentRequests = Integer.parseInt(args[i + 1]); break;
+                case "-t": admissionTimeoutMillis = Long.parseLong(args[i + 1]); break;
+                case "-m": maxOneTimePadSize = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        CryptoServer cryptoServer = new CryptoServer(port, maxConcurrentRequests, admissionTimeoutMillis);
+        cryptoServer.setMaxOneTimePadSize(maxOneTimePadSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> cryptoServer.stop(1)));
+        cryptoServer.start();
+    }
+
+    /**
+     * This is a utility method that runs the connections of the HttpServer with TCP_NODELAY unless configured
+     * otherwise, it must be called by a main method before the first HttpServer is created since the property
+     * applies to every HttpServer of the JVM
+     */
+    static void enableNoDelay() {
+        if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * This method transforms the body of a request, once the request has been admitted
+     */
+    private void handle(HttpExchange exchange, boolean encrypting) throws IOException {
+        try {
+            if(!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Only POST is supported");
+                return;
+            }
+            if(!admit()) {
+                rejected.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "The server is overloaded");
+                return;
+            }
+            try {
+                transform(exchange, encrypting);
+                served.increment();
+            } finally {
+                admission.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            logger.debug("Failed to serve {}", exchange.getRequestURI(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * This method streams the request body through the cipher into the response body
+     */
+    private void transform(HttpExchange exchange, boolean encrypting) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        CryptoService cryptoService;
+        try {
+            cryptoService = newCipher(name, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        Reader in = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+        if(cryptoService instanceof OneTimePadCipher) {
+            transformWithPad(exchange, (OneTimePadCipher) cryptoService, encrypting, in);
+            return;
+        }
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        if(encrypting) {
+            cryptoService.encrypt(in, out);
+        } else {
+            cryptoService.decrypt(in, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * This method streams a request through the OneTimePad cipher, the key is generated as the plaintext is read
+     * and sent ahead of the ciphertext or read ahead of the ciphertext of the request. The key is held on the
+     * heap, so the requests are limited to the maximum one time pad size
+     */
+    private void transformWithPad(HttpExchange exchange, OneTimePadCipher oneTimePad, boolean encrypting, Reader in) throws IOException {
+        int _maxSize = maxOneTimePadSize;
+        long length = contentLength(exchange);
+        if(length > _maxSize) {
+            respond(exchange, 413, "The onetimepad cipher supports texts of up to " + _maxSize + " bytes");
+            return;
+        }
+        if(encrypting) {
+            // The ciphertext is buffered until the whole key has been generated since the key goes ahead of it
+            BoundedInputStream body = new BoundedInputStream(exchange.getRequestBody(), _maxSize);
+            ByteArrayOutputStream cipherText = new ByteArrayOutputStream((int) Math.max(32, length));
+            Writer out = new OutputStreamWriter(cipherText, StandardCharsets.UTF_8);
+            OneTimePad pad = oneTimePad.encryptWithPad(new InputStreamReader(body, StandardCharsets.UTF_8), out);
+            out.flush();
+            if(body.isExceeded()) {
+                respond(exchange, 413, "The onetimepad cipher supports texts of up to " + _maxSize + " bytes");
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            pad.write(exchange.getResponseBody());
+            cipherText.writeTo(exchange.getResponseBody());
+            return;
+        }
+        OneTimePad pad;
+        try {
+            // The key can not be longer than the body it is read from
+            pad = OneTimePad.read(exchange.getRequestBody(), (int) (length < 0 ? _maxSize : length));
+        } catch (IOException | IllegalArgumentException e) {
+            respond(exchange, 400, "The request does not start with a key - " + e.getMessage());
+            return;
+        }
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        oneTimePad.decrypt(in, out, pad);
+        out.flush();
+    }
+
+    /**
+     * This method returns the counters of the requests
+     */
+    private void health(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, "served=" + served.sum() + " rejected=" + rejected.sum() + " failed=" + failed.sum()
+                    + " inProgress=" + (maxConcurrentRequests - admission.availablePermits()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * This is a utility method that waits up to the admission timeout for a request to be admitted
+     */
+    private boolean admit() {
+        try {
+            return admission.tryAcquire(admissionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * This method returns the cipher of a request
+     *
+     * @param name
+     * @param params
+     * @return
+     * @throws IllegalArgumentException when the cipher or its parameters are not valid
+     */
+    static CryptoService newCipher(String name, Map<String, String> params) {
+        Alphabet alphabet = toAlphabet(params.get("alphabet"));
+        switch (name) {
+            case "ceaser": return CeaserCipher.getInstance(toInt("shift", params.getOrDefault("shift", "7")), alphabet);
+            case "rot13": return ROT13Cipher.getInstance(alphabet);
+            case "atbash": return AtbashCipher.getInstance(alphabet);
+            case "affine":
+                String keys = params.get("key");
+                if(keys == null) return AffineCipher.getInstance(alphabet);
+                String[] _keys = keys.split(",");
+                if(_keys.length != 2) throw new IllegalArgumentException("The affine key must be keyA,keyB - " + keys);
+                return AffineCipher.getInstance(toInt("key", _keys[0].trim()), toInt("key", _keys[1].trim()), alphabet);
+            case "onetimepad": return OneTimePadCipher.getInstance();
+            case "vigenere":
+                String key = params.get("key");
+                if(key == null || key.isEmpty()) throw new IllegalArgumentException("The vigenere cipher needs a key");
+                return VigenereCipher.getInstance(key, alphabet);
+            default: throw new IllegalArgumentException("Unknown cipher " + name);
+        }
+    }
+
+    /**
+     * This is a utility method that returns the alphabet named, English by default
+     */
+    private static Alphabet toAlphabet(String name) {
+        if(name == null) return Alphabet.ENGLISH;
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "english": return Alphabet.ENGLISH;
+            case "alphanumeric": return Alphabet.ALPHANUMERIC;
+            case "latin1": return Alphabet.LATIN_1;
+            default: throw new IllegalArgumentException("Unknown alphabet " + name);
+        }
+    }
+
+    /**
+     * This is a utility method that parses a number parameter
+     */
+    private static int toInt(String param, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The parameter " + param + " must be a number - " + value);
+        }
+    }
+
+    /**
+     * This is a utility method that parses the parameters of the query
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if(query == null) return params;
+        try {
+            for(String param : query.split("&")) {
+                int equals = param.indexOf('=');
+                if(equals < 0) continue;
+                params.put(URLDecoder.decode(param.substring(0, equals), "UTF-8"), URLDecoder.decode(param.substring(equals + 1), "UTF-8"));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return params;
+    }
+
+    /**
+     * This is a utility method that returns the Content-Length of a request, -1 when the body is chunked
+     */
+    private static long contentLength(HttpExchange exchange) {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if(length == null) return -1;
+        try {
+            return Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * This is a utility method that sends a complete response of plain text
+     */
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * This class is the body of a request that ends once more than the maximum number of bytes have been read
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long maxLength) {
+            super(in);
+            this.remaining = maxLength + 1;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if(remaining <= 0) return -1;
+            int read = super.read();
+            if(read >= 0) remaining--;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(remaining <= 0) return -1;
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if(read > 0) remaining -= read;
+            return read;
+        }
+
+        /**
+         * This method returns true when the body is longer than the maximum number of bytes
+         * @return
+         */
+        boolean isExceeded() {
+            return remaining <= 0;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.subbu.crypto.server;
+
+import com.subbu.crypto.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a load generator for the CryptoServer, a number of clients each posting the same payload to a
+ * url back to back for a duration, e.g.
+ *
+ * java -cp SimpleCryptography.jar com.subbu.crypto.server.LoadGenerator -c 32 -d 10 -s 4096 -p encrypt/vigenere?key=lemon
+ *
+ * Without a url a CryptoServer is started on a free port of localhost for the run. The latency of every request
+ * served, from sending the headers to reading the last byte of the response, is recorded in a LatencyHistogram
+ * and the report has the number of requests, the requests per second, the p50 and p99 latencies and the number of
+ * requests rejected by the admission control (503), whose latencies are recorded apart, or failed.
+ */
+public final class LoadGenerator {
+
+    private final URL url;
+
+    private final byte[] payload;
+
+    private final int clients;
+
+    private final long durationNanos;
+
+    /**
+     * The constructor
+     * @param url
+     * @param payload
+     * @param clients
+     * @param durationMillis
+     */
+    public LoadGenerator(URL url, byte[] payload, int clients, long durationMillis) {
+        if(clients < 1 || durationMillis < 1) {
+            throw new IllegalArgumentException("The number of clients and the duration must be positive");
+        }
+        this.url = url;
+        this.payload = payload.clone();
+        this.clients = clients;
+        this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    }
+
+    /**
+     * This method runs the clients for the duration and returns the report
+     * @return
+     * @throws InterruptedException
+     */
+    public Report run() throws InterruptedException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        List<Thread> threads = new ArrayList<>(clients);
+        for(int i=0;i<clients;i++) {
+            Thread thread = new Thread(() -> runClient(report, deadline), "load-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * This method posts the payload until the deadline
+     */
+    private void runClient(Report report, long deadline) {
+        byte[] buffer = new byte[8192];
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                int status = post(buffer);
+                long latency = System.nanoTime() - start;
+                if(status == 200) {
+                    report.requests.increment();
+                    report.latencies.record(latency);
+                } else if(status == 503) {
+                    report.rejected.increment();
+                    report.rejectedLatencies.record(latency);
+                } else {
+                    report.errors.increment();
+                }
+            } catch (IOException e) {
+                report.errors.increment();
+            }
+        }
+    }
+
+    /**
+     * This method posts the payload once and reads the whole response, so that the connection is kept alive
+     */
+    private int post(byte[] buffer) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(payload.length);
+        connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+        try(OutputStream out = connection.getOutputStream()) {
+            out.write(payload);
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if(in != null) {
+            try(InputStream _in = in) {
+                while (_in.read(buffer) >= 0) {
+                    // The response is drained for the connection to be reused
+                }
+            }
+        }
+        return status;
+    }
+
+    /**
+     * This method runs the load generator, the arguments are [-u url] [-p path on the embedded server]
+     * [-c clients] [-d seconds] [-s payload size]
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        String path = "encrypt/vigenere?key=lemon";
+        int clients = 16;
+        int seconds = 10;
+        int size = 1024;
+        for(int i=0;i+1<args.length;i+=2) {
+            switch (args[i]) {
+                case "-u": url = args[i + 1]; break;
+                case "-p": path = args[i + 1]; break;
+                case "-c": clients = Integer.parseInt(args[i + 1]); break;
+                case "-d": seconds = Integer.parseInt(args[i + 1]); break;
+                case "-s": size = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        CryptoServer server = null;
+        if(url == null) {
+            CryptoServer.enableNoDelay();
+            server = new CryptoServer(0, CryptoServer.DEFAULT_MAX_CONCURRENT_REQUESTS, CryptoServer.DEFAULT_ADMISSION_TIMEOUT_MILLIS);
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort() + "/" + path;
+        }
+        try {
+            System.out.println("Posting " + size + " bytes to " + url + " from " + clients + " clients for " + seconds + " s");
+            LoadGenerator generator = new LoadGenerator(new URL(url), payload(size), clients, TimeUnit.SECONDS.toMillis(seconds));
+            System.out.println(generator.run());
+        } finally {
+            if(server != null) server.stop(0);
+        }
+    }
+
+    /**
+     * This method returns a payload of English text of the size
+     * @param size
+     * @return
+     */
+    public static byte[] payload(int size) {
+        byte[] text = "The quick brown fox jumps over the lazy dog, 0123456789! ".getBytes(StandardCharsets.US_ASCII);
+        byte[] payload = new byte[size];
+        for(int i=0;i<size;i++) {
+            payload[i] = text[i % text.length];
+        }
+        return payload;
+    }
+
+    /**
+     * The counts and latencies of a run
+     */
+    public static final class Report {
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private final LatencyHistogram rejectedLatencies = new LatencyHistogram();
+
+        private long nanos;
+
+        /**
+         * This method returns the number of requests served
+         * @return
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * This method returns the number of requests rejected by the admission control
+         * @return
+         */
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * This method returns the number of requests failed
+         * @return
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * This method returns the duration of the run
+         * @return
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * This method returns the number of requests served per second
+         * @return
+         */
+        public double getRequestsPerSecond() {
+            return nanos == 0 ? 0 : getRequests() * 1e9 / nanos;
+        }
+
+        /**
+         * This method returns the latency of the fraction of the requests, e.g. 0.99 for p99
+         * @param fraction
+         * @return
+         */
+        public long getLatencyNanos(double fraction) {
+            return latencies.getPercentile(fraction);
+        }
+
+        /**
+         * This method returns the latency of the fraction of the requests rejected by the admission control
+         * @param fraction
+         * @return
+         */
+        public long getRejectedLatencyNanos(double fraction) {
+            return rejectedLatencies.getPercentile(fraction);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d requests in %.1f s, %.0f requests/s, p50 %.2f ms, p99 %.2f ms, %d rejected (p99 %.2f ms), %d failed",
+                    getRequests(), nanos / 1e9, getRequestsPerSecond(), getLatencyNanos(0.5) / 1e6, getLatencyNanos(0.99) / 1e6,
+                    getRejected(), getRejectedLatencyNanos(0.99) / 1e6, getErrors());
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.subbu.crypto.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class defines the letters a cipher substitutes, e.g. the English letters, the ASCII letters and digits
+ * or the Latin-1 letters, every other char is passed through as-is.
+ *
+ * An alphabet has size letters in one or more cases. A letter is always substituted by a letter of the same
+ * case, the i-th letter of every case with the substitute of the i-th letter of that case, so the English
+ * alphabet has the cases "A..Z" and "a..z" and encrypts exactly like the English ciphers. The chars of all
+ * the cases must be distinct and within the Basic Multilingual Plane.
+ *
+ * Every letter has a slot, case * size + index, and the alphabet is compiled into a table from the slot to
+ * the char and a lookup from the char to the slot. The lookup is a dense table indexed by the char for
+ * the alphabets with small chars, e.g. Latin-1 or Greek, and a perfect hash of the chars for the sparse
+ * ones, so a larger alphabet costs the same single lookup per char as the English one.
+ */
+public final class Alphabet {
+
+    /**
+     * The chars up to which the lookup is always a dense table
+     */
+    private static final int DENSE_LIMIT = 1 << 12;
+
+    /**
+     * The multiplier deriving the hash seed of a displacement
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * The English letters, in upper and lower case
+     */
+    public static final Alphabet ENGLISH = of("ABCDEFGHIJKLMNOPQRSTUVWXYZ", "abcdefghijklmnopqrstuvwxyz");
+
+    /**
+     * The ASCII letters and digits as a single case of 62 letters
+     */
+    public static final Alphabet ALPHANUMERIC = of("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789");
+
+    /**
+     * The English letters followed by the Latin-1 letters with both an upper and a lower case, 56 letters
+     * in upper and lower case
+     */
+    public static final Alphabet LATIN_1 = of(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZ" + latin1Letters('\u00C0'),
+            "abcdefghijklmnopqrstuvwxyz" + latin1Letters('\u00E0'));
+
+    /**
+     * The number of letters of every case
+     */
+    private final int size;
+
+    /**
+     * The char of every slot
+     */
+    private final char[] chars;
+
+    private final boolean ascii;
+
+    /**
+     * The slot + 1 of every char up to the largest letter, 0 for the chars which are not letters, null when
+     * the perfect hash is used
+     */
+    private final char[] dense;
+
+    /**
+     * The perfect hash, the displacement of every bucket and the char and slot + 1 at every position
+     */
+    private final int[] displacements;
+
+    private final char[] keys;
+
+    private final char[] values;
+
+    /**
+     * The private constructor
+     * @param size
+     * @param chars
+     */
+    private Alphabet(int size, char[] chars) {
+        this.size = size;
+        this.chars = chars;
+        char max = 0;
+        for(char _char : chars) {
+            max = (char) Math.max(max, _char);
+        }
+        this.ascii = max < 128;
+        if(max < DENSE_LIMIT || max < 8 * chars.length) {
+            this.dense = new char[max + 1];
+            for(int slot=0;slot<chars.length;slot++) {
+                dense[chars[slot]] = (char) (slot + 1);
+            }
+            this.displacements = null;
+            this.keys = null;
+            this.values = null;
+        } else {
+            this.dense = null;
+            PerfectHash hash = new PerfectHash(chars);
+            this.displacements = hash.displacements;
+            this.keys = hash.keys;
+            this.values = hash.values;
+        }
+    }
+
+    /**
+     * This method returns the alphabet with the letters of every case given, all the cases must be of the
+     * same length
+     *
+     * @param cases
+     * @return
+     */
+    public static Alphabet of(String... cases) {
+        if(cases.length == 0 || cases[0].length() < 2) {
+            throw new IllegalArgumentException("An alphabet must have at least 2 letters");
+        }
+        int size = cases[0].length();
+        if((long) size * cases.length > Character.MAX_VALUE) {
+            throw new IllegalArgumentException("An alphabet can have at most " + (int) Character.MAX_VALUE + " letters");
+        }
+        char[] chars = new char[size * cases.length];
+        for(int i=0;i<cases.length;i++) {
+            if(cases[i].length() != size) {
+                throw new IllegalArgumentException("All the cases must have " + size + " letters - " + cases[i]);
+            }
+            cases[i].getChars(0, size, chars, i * size);
+        }
+        char[] sorted = chars.clone();
+        Arrays.sort(sorted);
+        for(int i=0;i<sorted.length;i++) {
+            if(Character.isSurrogate(sorted[i])) {
+                throw new IllegalArgumentException("The letters must be in the Basic Multilingual Plane");
+            }
+            if(i > 0 && sorted[i] == sorted[i - 1]) {
+                throw new IllegalArgumentException("The letter " + sorted[i] + " appears more than once");
+            }
+        }
+        return new Alphabet(size, chars);
+    }
+
+    /**
+     * This method returns the number of letters of every case, the m of the Affine cipher
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the number of cases
+     * @return
+     */
+    public int getCaseCount() {
+        return chars.length / size;
+    }
+
+    /**
+     * This method returns whether all the letters are ASCII, only those alphabets can be applied to UTF-8 bytes
+     * @return
+     */
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    /**
+     * This method returns whether the char is a letter of the alphabet
+     * @param _char
+     * @return
+     */
+    public boolean contains(char _char) {
+        return slotOf(_char) >= 0;
+    }
+
+    /**
+     * This method returns the index of the letter within its case, or -1 when the char is not a letter
+     * @param _char
+     * @return
+     */
+    public int indexOf(char _char) {
+        int slot = slotOf(_char);
+        return slot < 0 ? -1 : slot % size;
+    }
+
+    /**
+     * This method returns the letter at the index of the case
+     * @param index
+     * @param _case
+     * @return
+     */
+    public char charAt(int index, int _case) {
+        if(index < 0 || index >= size) throw new IndexOutOfBoundsException("The index " + index + " is not within 0 and " + size);
+        return chars[_case * size + index];
+    }
+
+    /**
+     * This method rolls a letter forward by 0 to size - 1 places within its case, every other char is returned as-is
+     * @param _char
+     * @param shift
+     * @return
+     */
+    public char roll(char _char, int shift) {
+        int slot = slotOf(_char);
+        if(slot < 0) return _char;
+        int index = slot % size;
+        int rolled = index + shift;
+        if(rolled >= size) rolled -= size;
+        return chars[slot - index + rolled];
+    }
+
+    /**
+     * This method returns the slot, case * size + index, of a letter or -1 when the char is not a letter
+     * @param _char
+     * @return
+     */
+    int slotOf(char _char) {
+        char[] _dense = dense;
+        if(_dense != null) {
+            return _char < _dense.length ? _dense[_char] - 1 : -1;
+        }
+        int position = hash(_char + displacements[hash(_char) & (displacements.length - 1)] * GOLDEN_RATIO) & (keys.length - 1);
+        return keys[position] == _char ? values[position] - 1 : -1;
+    }
+
+    /**
+     * This method returns the letter of a slot
+     * @param slot
+     * @return
+     */
+    char charOf(int slot) {
+        return chars[slot];
+    }
+
+    /**
+     * This method returns the number of slots, size * getCaseCount()
+     * @return
+     */
+    int getSlotCount() {
+        return chars.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof Alphabet && size == ((Alphabet) other).size
+                && Arrays.equals(chars, ((Alphabet) other).chars);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(chars);
+    }
+
+    @Override
+    public String toString() {
+        List<String> cases = new ArrayList<>();
+        for(int i=0;i<chars.length;i+=size) {
+            cases.add(new String(chars, i, size));
+        }
+        return cases.toString();
+    }
+
+    /**
+     * This is a utility method that returns the 30 Latin-1 letters of a case from U+00C0 or U+00E0, without the multiplication and division signs
+     */
+    private static String latin1Letters(char from) {
+        StringBuilder letters = new StringBuilder();
+        for(char _char = from; _char < from + 31; _char++) {
+            if(_char != from + 0x17) letters.append(_char);
+        }
+        return letters.toString();
+    }
+
+    /**
+     * This is a utility method that mixes the bits of a char, the finalizer of MurmurHash3
+     */
+    private static int hash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The perfect hash of the letters built with hash and displace. The letters are hashed into buckets of
+     * 2 to 4 letters and the buckets, the largest first, are each given the first displacement which hashes
+     * all of their letters to free positions of a table of 2 to 4 positions per letter.
+     */
+    private static final class PerfectHash {
+
+        /**
+         * The number of displacements tried for a bucket before the table is doubled
+         */
+        private static final int MAX_DISPLACEMENT = 1 << 16;
+
+        private int[] displacements;
+
+        private char[] keys;
+
+        private char[] values;
+
+        PerfectHash(char[] chars) {
+            int capacity = Integer.highestOneBit(Math.max(chars.length, 2) * 2 - 1) << 1;
+            while(!build(chars, capacity)) {
+                capacity <<= 1;
+            }
+        }
+
+        /**
+         * This method builds the hash with the given table size, returns false when a bucket could not be placed
+         */
+        private boolean build(char[] chars, int capacity) {
+            int bucketCount = Math.max(capacity / 8, 1);
+            List<List<Integer>> buckets = new ArrayList<>();
+            for(int i=0;i<bucketCount;i++) {
+                buckets.add(new ArrayList<>());
+            }
+            for(int slot=0;slot<chars.length;slot++) {
+                buckets.get(hash(chars[slot]) & (bucketCount - 1)).add(slot);
+            }
+            Integer[] order = new Integer[bucketCount];
+            for(int i=0;i<bucketCount;i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+            displacements = new int[bucketCount];
+            keys = new char[capacity];
+            values = new char[capacity];
+            int[] positions = new int[chars.length];
+            for(Integer bucket : order) {
+                List<Integer> slots = buckets.get(bucket);
+                if(slots.isEmpty()) break;
+                int displacement = 1;
+                while(!place(chars, slots, displacement, positions)) {
+                    if(++displacement == MAX_DISPLACEMENT) return false;
+                }
+                displacements[bucket] = displacement;
+                for(int i=0;i<slots.size();i++) {
+                    keys[positions[i]] = chars[slots.get(i)];
+                    values[positions[i]] = (char) (slots.get(i) + 1);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * This method returns whether the letters of a bucket hash to distinct free positions with the displacement
+         */
+        private boolean place(char[] chars, List<Integer> slots, int displacement, int[] positions) {
+            for(int i=0;i<slots.size();i++) {
+                int position = hash(chars[slots.get(i)] + displacement * GOLDEN_RATIO) & (keys.length - 1);
+                if(values[position] != 0) return false;
+                for(int j=0;j<i;j++) {
+                    if(positions[j] == position) return false;
+                }
+                positions[i] = position;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.subbu.crypto.utils;
+
+import com.subbu.crypto.CryptoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This class is a bounded concurrent cache of immutable cipher instances keyed by the cipher type and
+ * its parameters, e.g. the shift size of the Ceaser cipher or the key of the Vigenere cipher.
+ *
+ * Lookups of cached instances are lock-free, an instance is built together with all of its precomputed state
+ * outside of any lock and shared by all the threads, the threads missing the same key at the same time may
+ * each build one but only the first one cached is returned. The least recently used instances are evicted in
+ * a batch when a miss finds more than the maximum size, down to an eighth below it, so a scan of the cache is
+ * amortised over the misses which follow. The instances idle for longer than the idle timeout are evicted by
+ * the first lookup, hit or miss, once a cleanup interval of at most a minute has passed. The number of hits,
+ * misses and evictions are counted for monitoring.
+ */
+public class CipherCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CipherCache.class);
+
+    /**
+     * The default maximum number of cached instances
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /**
+     * The default time after which an unused instance is evicted
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * The resolution of the last access time, so that hits do not write to the entry every time
+     */
+    private static final long ACCESS_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The longest time between two evictions of the idle instances
+     */
+    private static final long MAX_CLEAN_UP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * This variable holds the static instance of the CipherCache shared by the ciphers
+     */
+    private static final CipherCache _instance = new CipherCache(DEFAULT_MAXIMUM_SIZE, DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    private final int maximumSize;
+
+    private final long idleTimeoutNanos;
+
+    /**
+     * The number of instances evicted below the maximum size by a batch eviction
+     */
+    private final int evictionSlack;
+
+    private final long cleanUpIntervalNanos;
+
+    private final AtomicLong nextCleanUp;
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The constructor accepting the maximum size and the idle timeout
+     * @param maximumSize
+     * @param idleTimeoutMillis
+     */
+    public CipherCache(int maximumSize, long idleTimeoutMillis) {
+        if(maximumSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be positive - " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.evictionSlack = maximumSize / 8;
+        this.cleanUpIntervalNanos = Math.max(1, Math.min(idleTimeoutNanos, MAX_CLEAN_UP_INTERVAL_NANOS));
+        this.nextCleanUp = new AtomicLong(System.nanoTime() + cleanUpIntervalNanos);
+    }
+
+    /**
+     * This method returns the cache shared by the ciphers
+     * @return
+     */
+    public static CipherCache getInstance() {
+        return _instance;
+    }
+
+    /**
+     * This method returns the cached instance of the given type for the given parameters, building it
+     * with the factory if it is not cached yet.
+     *
+     * @param type
+     * @param factory
+     * @param params
+     * @return
+     */
+    public <T extends CryptoService> T get(Class<T> type, Supplier<T> factory, Object... params) {
+        Key key = new Key(type, params);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if(entry != null) {
+            hits.increment();
+            entry.touch(now);
+        } else {
+            misses.increment();
+            // The instance is built outside of the map so that its bin is not locked while it is precomputed
+            Entry built = new Entry(factory.get(), now);
+            entry = entries.putIfAbsent(key, built);
+            if(entry == null) {
+                entry = built;
+                if(entries.size() > maximumSize) evictLeastRecentlyUsed();
+            } else {
+                entry.touch(now);
+            }
+        }
+        long nextCleanUp = this.nextCleanUp.get();
+        if(now - nextCleanUp >= 0 && this.nextCleanUp.compareAndSet(nextCleanUp, now + cleanUpIntervalNanos)) {
+            evictIdle(now);
+        }
+        return type.cast(entry.instance);
+    }
+
+    /**
+     * This method evicts the idle instances and then the least recently used ones above the maximum size
+     */
+    public void cleanUp() {
+        evictIdle(System.nanoTime());
+        if(entries.size() > maximumSize) evictLeastRecentlyUsed();
+    }
+
+    /**
+     * This method removes all the cached instances
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * This method returns the number of cached instances
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * This method returns the number of lookups which found a cached instance
+     * @return
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * This method returns the number of lookups which had to build an instance
+     * @return
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * This method returns the number of instances evicted
+     * @return
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CipherCache{size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "}";
+    }
+
+    /**
+     * This is a utility method that evicts the instances idle for longer than the idle timeout
+     */
+    private void evictIdle(long now) {
+        for(Map.Entry<Key, Entry> mapEntry : entries.entrySet()) {
+            if(now - mapEntry.getValue().lastAccess > idleTimeoutNanos) {
+                evict(mapEntry.getKey(), mapEntry.getValue());
+            }
+        }
+    }
+
+    /**
+     * This is a utility method that evicts the least recently used instances in a single scan, down to the
+     * eviction slack below the maximum size, while the other threads carry on without waiting for it
+     */
+    private void evictLeastRecentlyUsed() {
+        if(!evicting.compareAndSet(false, true)) return;
+        try {
+            List<Map.Entry<Key, Entry>> _entries = new ArrayList<>(entries.entrySet());
+            int count = _entries.size() - maximumSize + evictionSlack;
+            if(count <= 0) return;
+            // The access times are read once since the hits keep updating them while the entries are sorted
+            long[] lastAccess = new long[_entries.size()];
+            Integer[] eldest = new Integer[_entries.size()];
+            for(int i=0;i<eldest.length;i++) {
+                lastAccess[i] = _entries.get(i).getValue().lastAccess;
+                eldest[i] = i;
+            }
+            Arrays.sort(eldest, Comparator.comparingLong(i -> lastAccess[i]));
+            for(int i=0;i<count;i++) {
+                Map.Entry<Key, Entry> mapEntry = _entries.get(eldest[i]);
+                evict(mapEntry.getKey(), mapEntry.getValue());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * This is a utility method that removes an entry unless it has been replaced meanwhile
+     */
+    private void evict(Key key, Entry entry) {
+        if(entries.remove(key, entry)) {
+            evictions.increment();
+            logger.debug("Evicted the cipher instance for {}", key);
+        }
+    }
+
+    /**
+     * The key of a cached instance, the cipher type and its parameters
+     */
+    private static final class Key {
+
+        private final Class<?> type;
+
+        private final Object[] params;
+
+        private final int hash;
+
+        Key(Class<?> type, Object[] params) {
+            this.type = type;
+            this.params = params;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return type == other.type && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + Arrays.toString(params);
+        }
+    }
+
+    /**
+     * A cached instance with the time it was last used
+     */
+    private static final class Entry {
+
+        private final CryptoService instance;
+
+        private volatile long lastAccess;
+
+        Entry(CryptoService instance, long now) {
+            this.instance = instance;
+            this.lastAccess = now;
+        }
+
+        void touch(long now) {
+            if(now - lastAccess > ACCESS_RESOLUTION_NANOS) {
+                lastAccess = now;
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This is a utility class used in the various crypto algorithms.
+ * The rolling methods work on the English letters only, see Alphabet for the other alphabets.
  * Created by devsu04 on 20/02/17.
  */
 public class CryptoUtils {
@@ -17,6 +18,11 @@ public class CryptoUtils {
 
     public static final int DEFAULT_SHIFY_SIZE = 25;
 
+    /**
+     * The number of English letters of each case
+     */
+    public static final int ALPHABET_SIZE = 26;
+
     public static enum CASE {
         UPPERCASE,
         LOWERCASE,
@@ -108,6 +114,43 @@ public class CryptoUtils {
         return shiftedChar;
     }
 
+    /**
+     * This is a utility method that rolls an ASCII letter forward by 0 to 26 places within its case, exactly like
+     * rollCharacters but without its checks and logging for the inner loops of the ciphers, every other char
+     * is returned as-is. A letter is rolled back by n places with a shift of 26 - n.
+     *
+     * @param _char
+     * @param shift
+     * @return
+     */
+    public static char roll(char _char, int shift) {
+        if(_char >= 'a' && _char <= 'z') {
+            return (char) (_char > 'z' - shift ? _char + shift - ALPHABET_SIZE : _char + shift);
+        }
+        if(_char >= 'A' && _char <= 'Z') {
+            return (char) (_char > 'Z' - shift ? _char + shift - ALPHABET_SIZE : _char + shift);
+        }
+        return _char;
+    }
+
+    /**
+     * This is a utility method that rolls an ASCII letter of UTF-8 bytes forward by 0 to 26 places within its
+     * case, every other byte is returned as-is
+     *
+     * @param _byte
+     * @param shift
+     * @return
+     */
+    public static byte roll(byte _byte, int shift) {
+        if(_byte >= 'a' && _byte <= 'z') {
+            return (byte) (_byte > 'z' - shift ? _byte + shift - ALPHABET_SIZE : _byte + shift);
+        }
+        if(_byte >= 'A' && _byte <= 'Z') {
+            return (byte) (_byte > 'Z' - shift ? _byte + shift - ALPHABET_SIZE : _byte + shift);
+        }
+        return _byte;
+    }
+
     /**
      * This is a utility method to get the alphabet positon of a given character
      *
@@ -145,6 +188,42 @@ public class CryptoUtils {
         return _charAtPos;
     }
 
+    /**
+     * This is a utility method that returns the number of java chars started by a non-ASCII UTF-8 byte.
+     * It is 0 for a continuation byte, 2 for the lead byte of a supplementary character and 1 otherwise.
+     *
+     * @param _byte
+     * @return
+     */
+    public static int getUtf8CharCount(byte _byte) {
+        if((_byte & 0xC0) == 0x80) return 0;
+        return (_byte & 0xF8) == 0xF0 ? 2 : 1;
+    }
+
+    /**
+     * This is a utility method that returns the inverse of number modulo m, the extended Euclidean algorithm
+     *
+     * @param number
+     * @param m
+     * @return
+     * @throws IllegalArgumentException when number and m are not relatively prime
+     */
+    public static int modInverse(int number, int m) {
+        int r0 = m, r1 = Math.floorMod(number, m);
+        int t0 = 0, t1 = 1;
+        while(r1 != 0) {
+            int q = r0 / r1;
+            int r = r0 - q * r1;
+            r0 = r1;
+            r1 = r;
+            int t = t0 - q * t1;
+            t0 = t1;
+            t1 = t;
+        }
+        if(r0 != 1) throw new IllegalArgumentException(number + " has no inverse modulo " + m);
+        return Math.floorMod(t0, m);
+    }
+
     /**
      * This is a utility method to get a random value between 1-26
      *
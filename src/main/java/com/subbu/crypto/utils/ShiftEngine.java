@@ -0,0 +1,115 @@
+package com.subbu.crypto.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This interface is implemented by the engines shifting the ASCII letters of UTF-8 bytes in bulk for the
+ * Ceaser, ROT13, Atbash and Vigenere ciphers, see ShiftEngines.
+ *
+ * A shift rolls every ASCII letter forward by 0 to 26 places within its case, exactly like
+ * CryptoUtils.rollCharacters, and leaves every other byte as it is. Rolling back by n places is rolling
+ * forward by 26 - n places.
+ *
+ * The ByteBuffer methods roll heap and direct buffers alike, by default the bytes of a direct buffer are rolled
+ * through a scratch array of the thread a chunk at a time.
+ */
+public interface ShiftEngine {
+
+    /**
+     * This method returns the name of the engine
+     * @return
+     */
+    String getName();
+
+    /**
+     * This method rolls the letters of len bytes of src starting at srcOff forward by shift places into
+     * dst starting at dstOff. src and dst may be the same array.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     * @param shift between 0 and 26
+     */
+    void roll(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int shift);
+
+    /**
+     * This method returns the repeating shifts of a key laid out for roll(byte[], int, byte[], int, int, byte[], int, int)
+     *
+     * @param shifts the shift of every position of the key, between 0 and 26
+     * @return
+     */
+    byte[] prepare(byte[] shifts);
+
+    /**
+     * This method rolls the letters of len UTF-8 bytes of src starting at srcOff into dst starting at dstOff,
+     * every char by the shift of its position in the key, starting at keyPos. src and dst may be the same array.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     * @param prepared the shifts of the key returned by prepare(byte[])
+     * @param keyLength
+     * @param keyPos
+     * @return the number of chars rolled, by which the key position advances
+     */
+    long roll(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] prepared, int keyLength, int keyPos);
+
+    /**
+     * This method rolls the letters of len bytes of src starting at srcOff forward by shift places into
+     * dst starting at dstOff. src and dst may be the same buffer, either may be direct.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     * @param shift between 0 and 26
+     */
+    default void roll(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, int shift) {
+        if(src.hasArray() && dst.hasArray()) {
+            roll(src.array(), src.arrayOffset() + srcOff, dst.array(), dst.arrayOffset() + dstOff, len, shift);
+            return;
+        }
+        byte[] scratch = ShiftEngines.scratch();
+        for(int done = 0; done < len; done += scratch.length) {
+            int chunk = Math.min(scratch.length, len - done);
+            ShiftEngines.copy(src, srcOff + done, scratch, chunk);
+            roll(scratch, 0, scratch, 0, chunk, shift);
+            ShiftEngines.copy(scratch, dst, dstOff + done, chunk);
+        }
+    }
+
+    /**
+     * This method rolls the letters of len UTF-8 bytes of src starting at srcOff into dst starting at dstOff,
+     * every char by the shift of its position in the key, starting at keyPos. src and dst may be the same
+     * buffer, either may be direct.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     * @param prepared the shifts of the key returned by prepare(byte[])
+     * @param keyLength
+     * @param keyPos
+     * @return the number of chars rolled, by which the key position advances
+     */
+    default long roll(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, byte[] prepared, int keyLength, int keyPos) {
+        if(src.hasArray() && dst.hasArray()) {
+            return roll(src.array(), src.arrayOffset() + srcOff, dst.array(), dst.arrayOffset() + dstOff, len, prepared, keyLength, keyPos);
+        }
+        byte[] scratch = ShiftEngines.scratch();
+        long chars = 0;
+        for(int done = 0; done < len; done += scratch.length) {
+            int chunk = Math.min(scratch.length, len - done);
+            ShiftEngines.copy(src, srcOff + done, scratch, chunk);
+            chars += roll(scratch, 0, scratch, 0, chunk, prepared, keyLength, (int) ((keyPos + chars) % keyLength));
+            ShiftEngines.copy(scratch, dst, dstOff + done, chunk);
+        }
+        return chars;
+    }
+}
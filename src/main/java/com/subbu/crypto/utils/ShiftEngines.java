@@ -0,0 +1,139 @@
+package com.subbu.crypto.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * This class selects the ShiftEngine used by the shift ciphers for their UTF-8 byte methods.
+ *
+ * The vector engine is built on the incubating jdk.incubator.vector module. It is only compiled when the
+ * library is built on Java 17 or later and only usable when the JVM is started with
+ * --add-modules jdk.incubator.vector, otherwise the ciphers use the SwarShiftEngine which runs on any JVM.
+ *
+ * The engine is selected with the system property com.subbu.crypto.shiftEngine, "auto" (the default) for the
+ * vector engine when it is available and the SWAR engine otherwise, "vector", "swar" or "scalar" for the
+ * substitution tables, and can be changed at runtime with select(String).
+ */
+public final class ShiftEngines {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShiftEngines.class);
+
+    /**
+     * The system property selecting the engine
+     */
+    public static final String PROPERTY = "com.subbu.crypto.shiftEngine";
+
+    private static final String VECTOR_ENGINE = "com.subbu.crypto.vector.VectorShiftEngine";
+
+    /**
+     * The engine in use, null for the scalar substitution tables
+     */
+    private static volatile ShiftEngine engine = select(System.getProperty(PROPERTY, "auto"), false);
+
+    /**
+     * The scratch arrays of the threads rolling direct buffers through the array methods of an engine
+     */
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private ShiftEngines() {
+    }
+
+    /**
+     * This method returns the engine in use, or null when the ciphers use their scalar substitution tables
+     * @return
+     */
+    public static ShiftEngine get() {
+        return engine;
+    }
+
+    /**
+     * This method selects the engine, "auto", "vector", "swar" or "scalar"
+     * @param name
+     * @throws IllegalStateException when the vector engine is selected but not available
+     */
+    public static void select(String name) {
+        engine = select(name, true);
+    }
+
+    /**
+     * This method returns whether the vector engine is available
+     * @return
+     */
+    public static boolean isVectorAvailable() {
+        return VectorEngineHolder.ENGINE != null;
+    }
+
+    /**
+     * This method returns the vector engine, or null when it is not available
+     * @return
+     */
+    public static ShiftEngine getVectorEngine() {
+        return VectorEngineHolder.ENGINE;
+    }
+
+    /**
+     * This is a utility method that returns the engine of the given name
+     */
+    private static ShiftEngine select(String name, boolean strict) {
+        if("scalar".equalsIgnoreCase(name)) return null;
+        if("swar".equalsIgnoreCase(name)) return SwarShiftEngine.getInstance();
+        ShiftEngine vector = VectorEngineHolder.ENGINE;
+        if("vector".equalsIgnoreCase(name)) {
+            if(vector == null && strict) {
+                throw new IllegalStateException("The vector engine is not available, add --add-modules jdk.incubator.vector");
+            }
+        } else if(!"auto".equalsIgnoreCase(name)) {
+            if(strict) throw new IllegalArgumentException("Unknown shift engine - " + name);
+            logger.warn("Unknown shift engine {}, selecting one automatically", name);
+        }
+        return vector != null ? vector : SwarShiftEngine.getInstance();
+    }
+
+    /**
+     * This is a utility method that returns the scratch array of the thread
+     */
+    static byte[] scratch() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * This is a utility method that copies len bytes of the buffer starting at off into the array
+     */
+    static void copy(ByteBuffer src, int off, byte[] dst, int len) {
+        ByteBuffer _src = src.duplicate();
+        ((Buffer) _src).position(off);
+        _src.get(dst, 0, len);
+    }
+
+    /**
+     * This is a utility method that copies len bytes of the array into the buffer starting at off
+     */
+    static void copy(byte[] src, ByteBuffer dst, int off, int len) {
+        ByteBuffer _dst = dst.duplicate();
+        ((Buffer) _dst).position(off);
+        _dst.put(src, 0, len);
+    }
+
+    /**
+     * The holder of the vector engine, loaded reflectively as it is absent from the builds before Java 17
+     * and fails to link without the jdk.incubator.vector module
+     */
+    private static final class VectorEngineHolder {
+
+        private static final ShiftEngine ENGINE = load();
+
+        private static ShiftEngine load() {
+            try {
+                ShiftEngine vector = (ShiftEngine) Class.forName(VECTOR_ENGINE).getDeclaredConstructor().newInstance();
+                logger.info("****** Using the {} shift engine ******", vector.getName());
+                return vector;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.debug("The vector shift engine is not available - {}", e.toString());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.subbu.crypto.utils;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class holds a precomputed forward and inverse substitution table for the monoalphabetic ciphers.
+ *
+ * The tables are built once from the per-character encryption and decryption functions of a cipher and
+ * cover the ASCII range. Only the ASCII letters are ever substituted, every other character maps to
+ * itself, so the output of the table lookup is identical to calling the per-character functions.
+ * As non-ASCII characters are never substituted the tables can also be applied directly to UTF-8 bytes.
+ *
+ * The tables of an Alphabet with letters beyond ASCII also hold the substitute of every slot of the alphabet,
+ * the chars beyond ASCII are looked up in the alphabet and substituted through them. Those tables cannot be
+ * applied to UTF-8 bytes as the substitute of a letter may be encoded in a different number of bytes.
+ */
+public final class SubstitutionTable {
+
+    /**
+     * The number of entries in each table, characters beyond this range are passed through as-is.
+     */
+    private static final int TABLE_SIZE = 128;
+
+    /**
+     * The table used for encryption
+     */
+    private final char[] forward;
+
+    /**
+     * The table used for decryption
+     */
+    private final char[] inverse;
+
+    /**
+     * The encryption table for bytes, null if the mappings produce non-ASCII characters
+     */
+    private final byte[] forwardBytes;
+
+    /**
+     * The decryption table for bytes, null if the mappings produce non-ASCII characters
+     */
+    private final byte[] inverseBytes;
+
+    /**
+     * The alphabet of the letters beyond ASCII and the substitute of its every slot for encryption and
+     * decryption, null when only ASCII letters are substituted
+     */
+    private final Alphabet alphabet;
+
+    private final char[] forwardSlots;
+
+    private final char[] inverseSlots;
+
+    /**
+     * A function mapping a single ASCII letter to its substitute.
+     */
+    public interface CharMapping {
+        char map(char _char);
+    }
+
+    /**
+     * The private constructor
+     * @param forward
+     * @param inverse
+     */
+    private SubstitutionTable(char[] forward, char[] inverse) {
+        this(forward, inverse, null, null, null);
+    }
+
+    /**
+     * The private constructor accepting the substitutes of the slots of an alphabet beyond ASCII
+     * @param forward
+     * @param inverse
+     * @param alphabet
+     * @param forwardSlots
+     * @param inverseSlots
+     */
+    private SubstitutionTable(char[] forward, char[] inverse, Alphabet alphabet, char[] forwardSlots, char[] inverseSlots) {
+        this.forward = forward;
+        this.inverse = inverse;
+        this.alphabet = alphabet;
+        this.forwardSlots = forwardSlots;
+        this.inverseSlots = inverseSlots;
+        this.forwardBytes = alphabet == null ? toBytes(forward) : null;
+        this.inverseBytes = alphabet == null ? toBytes(inverse) : null;
+    }
+
+    /**
+     * This method builds the substitution tables by applying the given mappings to every ASCII letter
+     *
+     * @param encryption
+     * @param decryption
+     * @return
+     */
+    public static SubstitutionTable of(CharMapping encryption, CharMapping decryption) {
+        return new SubstitutionTable(buildTable(encryption), buildTable(decryption));
+    }
+
+    /**
+     * This method builds the substitution tables of an alphabet, substitution maps the index of every letter
+     * to the index of its substitute within the same case and must be a permutation of 0 to size - 1
+     *
+     * @param alphabet
+     * @param substitution
+     * @return
+     */
+    public static SubstitutionTable of(Alphabet alphabet, IntUnaryOperator substitution) {
+        int size = alphabet.size();
+        int[] indices = new int[size];
+        boolean[] used = new boolean[size];
+        for(int i=0;i<size;i++) {
+            int index = substitution.applyAsInt(i);
+            if(index < 0 || index >= size || used[index]) {
+                throw new IllegalArgumentException("The substitution is not a permutation of the " + size + " letters of the alphabet");
+            }
+            used[index] = true;
+            indices[i] = index;
+        }
+        char[] forward = identity();
+        char[] inverse = identity();
+        int slotCount = alphabet.getSlotCount();
+        char[] forwardSlots = alphabet.isAscii() ? null : new char[slotCount];
+        char[] inverseSlots = alphabet.isAscii() ? null : new char[slotCount];
+        for(int slot=0;slot<slotCount;slot++) {
+            int index = slot % size;
+            int substituteSlot = slot - index + indices[index];
+            char _char = alphabet.charOf(slot);
+            char substitute = alphabet.charOf(substituteSlot);
+            if(_char < TABLE_SIZE) forward[_char] = substitute;
+            if(substitute < TABLE_SIZE) inverse[substitute] = _char;
+            if(forwardSlots != null) {
+                forwardSlots[slot] = substitute;
+                inverseSlots[substituteSlot] = _char;
+            }
+        }
+        return forwardSlots == null ? new SubstitutionTable(forward, inverse)
+                : new SubstitutionTable(forward, inverse, alphabet, forwardSlots, inverseSlots);
+    }
+
+    /**
+     * This method returns whether only ASCII chars are substituted, the tables can then be applied to UTF-8
+     * bytes unless they map an ASCII letter beyond ASCII
+     * @return
+     */
+    public boolean isAscii() {
+        return alphabet == null;
+    }
+
+    /**
+     * This method returns whether the tables can be applied to UTF-8 bytes, which they cannot when they
+     * substitute letters beyond ASCII or map an ASCII letter beyond ASCII
+     * @return
+     */
+    public boolean supportsBytes() {
+        return forwardBytes != null && inverseBytes != null;
+    }
+
+    /**
+     * This method returns the encrypted char for the given char
+     *
+     * @param _char
+     * @return
+     */
+    public char encrypt(char _char) {
+        return _char < TABLE_SIZE ? forward[_char] : substitute(forwardSlots, _char);
+    }
+
+    /**
+     * This method returns the decrypted char for the given char
+     *
+     * @param _char
+     * @return
+     */
+    public char decrypt(char _char) {
+        return _char < TABLE_SIZE ? inverse[_char] : substitute(inverseSlots, _char);
+    }
+
+    /**
+     * This method encrypts len chars of src starting at srcOff into dst starting at dstOff.
+     * src and dst may be the same array.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void encrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        if(alphabet != null) {
+            substitute(forward, forwardSlots, src, srcOff, dst, dstOff, len);
+            return;
+        }
+        substitute(forward, src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method decrypts len chars of src starting at srcOff into dst starting at dstOff.
+     * src and dst may be the same array.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void decrypt(char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        if(alphabet != null) {
+            substitute(inverse, inverseSlots, src, srcOff, dst, dstOff, len);
+            return;
+        }
+        substitute(inverse, src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method encrypts len UTF-8 bytes of src starting at srcOff into dst starting at dstOff.
+     * src and dst may be the same buffer.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void encrypt(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len) {
+        substitute(checkBytes(forwardBytes), src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method decrypts len UTF-8 bytes of src starting at srcOff into dst starting at dstOff.
+     * src and dst may be the same buffer.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void decrypt(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len) {
+        substitute(checkBytes(inverseBytes), src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method encrypts len UTF-8 bytes of src starting at srcOff into dst starting at dstOff.
+     * src and dst may be the same array.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void encrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        substitute(checkBytes(forwardBytes), src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This method decrypts len UTF-8 bytes of src starting at srcOff into dst starting at dstOff.
+     * src and dst may be the same array.
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param len
+     */
+    public void decrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        substitute(checkBytes(inverseBytes), src, srcOff, dst, dstOff, len);
+    }
+
+    /**
+     * This is the byte table lookup loop shared by encryption and decryption, the buffers backed by an
+     * array are substituted through the array
+     */
+    private static void substitute(byte[] table, ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len) {
+        if(src.hasArray() && dst.hasArray()) {
+            substitute(table, src.array(), src.arrayOffset() + srcOff, dst.array(), dst.arrayOffset() + dstOff, len);
+            return;
+        }
+        for(int i=0;i<len;i++) {
+            byte _byte = src.get(srcOff + i);
+            dst.put(dstOff + i, _byte >= 0 ? table[_byte] : _byte);
+        }
+    }
+
+    /**
+     * This is the byte array table lookup loop shared by encryption and decryption
+     */
+    private static void substitute(byte[] table, byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        for(int i=0;i<len;i++) {
+            byte _byte = src[srcOff + i];
+            dst[dstOff + i] = _byte >= 0 ? table[_byte] : _byte;
+        }
+    }
+
+    /**
+     * This is the table lookup loop shared by encryption and decryption
+     */
+    private static void substitute(char[] table, char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        for(int i=0;i<len;i++) {
+            char _char = src[srcOff + i];
+            dst[dstOff + i] = _char < TABLE_SIZE ? table[_char] : _char;
+        }
+    }
+
+    /**
+     * This is the table lookup loop of the alphabets beyond ASCII, the chars beyond ASCII are looked up in the alphabet
+     */
+    private void substitute(char[] table, char[] slots, char[] src, int srcOff, char[] dst, int dstOff, int len) {
+        for(int i=0;i<len;i++) {
+            char _char = src[srcOff + i];
+            dst[dstOff + i] = _char < TABLE_SIZE ? table[_char] : substitute(slots, _char);
+        }
+    }
+
+    /**
+     * This is a utility method that substitutes a char beyond ASCII through the slots of the alphabet
+     */
+    private char substitute(char[] slots, char _char) {
+        if(slots == null) return _char;
+        int slot = alphabet.slotOf(_char);
+        return slot < 0 ? _char : slots[slot];
+    }
+
+    /**
+     * This is a utility method that narrows a char table to bytes, returns null if it maps to a non-ASCII char
+     */
+    private static byte[] toBytes(char[] table) {
+        byte[] bytes = new byte[TABLE_SIZE];
+        for(int i=0;i<TABLE_SIZE;i++) {
+            if(table[i] >= TABLE_SIZE) return null;
+            bytes[i] = (byte) table[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * This is a utility method that fails when the byte tables are not available
+     */
+    private static byte[] checkBytes(byte[] table) {
+        if(table == null) {
+            throw new UnsupportedOperationException("The substitution has letters outside of ASCII and cannot be applied to bytes");
+        }
+        return table;
+    }
+
+    /**
+     * This is a utility method that builds a table mapping the ASCII letters and leaving the rest as-is
+     */
+    private static char[] buildTable(CharMapping mapping) {
+        char[] table = identity();
+        for(char _char = 'A'; _char <= 'Z'; _char++) {
+            table[_char] = mapping.map(_char);
+        }
+        for(char _char = 'a'; _char <= 'z'; _char++) {
+            table[_char] = mapping.map(_char);
+        }
+        return table;
+    }
+
+    /**
+     * This is a utility method that returns a table mapping every char to itself
+     */
+    private static char[] identity() {
+        char[] table = new char[TABLE_SIZE];
+        for(char _char = 0; _char < TABLE_SIZE; _char++) {
+            table[_char] = _char;
+        }
+        return table;
+    }
+}
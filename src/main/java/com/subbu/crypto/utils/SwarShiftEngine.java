@@ -0,0 +1,238 @@
+package com.subbu.crypto.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class shifts the ASCII letters of UTF-8 bytes eight bytes at a time within a long (SIMD within a
+ * register), so it runs on any Java 8 runtime without the incubating Vector API.
+ *
+ * The bytes of a word which are all ASCII (below 0x80) can be added to without a carry from one byte into
+ * the next, as a letter plus a shift of at most 26 stays below 0x100. The letters are found by folding the
+ * case with 0x20 and adding the distance of every byte to 0x80 from the bounds of 'a' to 'z', which sets
+ * the high bit of the bytes at or past a bound. The letters past 'Z' or 'z' after the shift are found the
+ * same way and brought back by 26. A word holding any non-ASCII byte is shifted one byte at a time.
+ */
+public final class SwarShiftEngine implements ShiftEngine {
+
+    private static final SwarShiftEngine INSTANCE = new SwarShiftEngine();
+
+    private static final long ONES = 0x0101010101010101L;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final long CASE_BITS = 0x2020202020202020L;
+
+    /**
+     * Added to a case folded byte, the high bit is set when it is 'a' or more
+     */
+    private static final long FROM_LOWER_A = (0x80 - 'a') * ONES;
+
+    /**
+     * Added to a case folded byte, the high bit is set when it is past 'z'
+     */
+    private static final long PAST_LOWER_Z = (0x7F - 'z') * ONES;
+
+    private static final long WRAP = CryptoUtils.ALPHABET_SIZE * ONES;
+
+    private SwarShiftEngine() {
+    }
+
+    /**
+     * This method returns the instance of the engine
+     * @return
+     */
+    public static SwarShiftEngine getInstance() {
+        return INSTANCE;
+    }
+
+    public String getName() {
+        return "swar-64";
+    }
+
+    public void roll(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int shift) {
+        checkShift(shift);
+        ByteBuffer in = wrap(src);
+        ByteBuffer out = src == dst ? in : wrap(dst);
+        long shifts = shift * ONES;
+        int bound = len & ~7;
+        int i = 0;
+        for(; i < bound; i += 8) {
+            long word = in.getLong(srcOff + i);
+            if((word & HIGH_BITS) == 0) {
+                out.putLong(dstOff + i, roll(word, shifts));
+            } else {
+                for(int j=i;j<i + 8;j++) {
+                    dst[dstOff + j] = CryptoUtils.roll(src[srcOff + j], shift);
+                }
+            }
+        }
+        for(; i < len; i++) {
+            dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], shift);
+        }
+    }
+
+    public byte[] prepare(byte[] shifts) {
+        if(shifts.length == 0) throw new IllegalArgumentException("The key has no shifts");
+        byte[] prepared = new byte[shifts.length + 8];
+        for(int i=0;i<prepared.length;i++) {
+            prepared[i] = checkShift(shifts[i % shifts.length]);
+        }
+        return prepared;
+    }
+
+    public long roll(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] prepared, int keyLength, int keyPos) {
+        ByteBuffer in = wrap(src);
+        ByteBuffer out = src == dst ? in : wrap(dst);
+        ByteBuffer key = wrap(prepared);
+        long chars = 0;
+        int bound = len & ~7;
+        int i = 0;
+        for(; i < bound; i += 8) {
+            long word = in.getLong(srcOff + i);
+            if((word & HIGH_BITS) == 0) {
+                out.putLong(dstOff + i, roll(word, key.getLong(keyPos)));
+                keyPos = (keyPos + 8) % keyLength;
+                chars += 8;
+            } else {
+                for(int j=i;j<i + 8;j++) {
+                    int count = roll(src, srcOff + j, dst, dstOff + j, prepared[keyPos]);
+                    keyPos = (keyPos + count) % keyLength;
+                    chars += count;
+                }
+            }
+        }
+        for(; i < len; i++) {
+            int count = roll(src, srcOff + i, dst, dstOff + i, prepared[keyPos]);
+            keyPos = (keyPos + count) % keyLength;
+            chars += count;
+        }
+        return chars;
+    }
+
+    /**
+     * The words of direct buffers are read and written in place, without a copy to the heap
+     */
+    @Override
+    public void roll(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, int shift) {
+        if(src.hasArray() && dst.hasArray()) {
+            roll(src.array(), src.arrayOffset() + srcOff, dst.array(), dst.arrayOffset() + dstOff, len, shift);
+            return;
+        }
+        checkShift(shift);
+        ByteBuffer in = order(src);
+        ByteBuffer out = src == dst ? in : order(dst);
+        long shifts = shift * ONES;
+        int bound = len & ~7;
+        int i = 0;
+        for(; i < bound; i += 8) {
+            long word = in.getLong(srcOff + i);
+            if((word & HIGH_BITS) == 0) {
+                out.putLong(dstOff + i, roll(word, shifts));
+            } else {
+                for(int j=i;j<i + 8;j++) {
+                    out.put(dstOff + j, CryptoUtils.roll(in.get(srcOff + j), shift));
+                }
+            }
+        }
+        for(; i < len; i++) {
+            out.put(dstOff + i, CryptoUtils.roll(in.get(srcOff + i), shift));
+        }
+    }
+
+    @Override
+    public long roll(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int len, byte[] prepared, int keyLength, int keyPos) {
+        if(src.hasArray() && dst.hasArray()) {
+            return roll(src.array(), src.arrayOffset() + srcOff, dst.array(), dst.arrayOffset() + dstOff, len, prepared, keyLength, keyPos);
+        }
+        ByteBuffer in = order(src);
+        ByteBuffer out = src == dst ? in : order(dst);
+        ByteBuffer key = wrap(prepared);
+        long chars = 0;
+        int bound = len & ~7;
+        int i = 0;
+        for(; i < bound; i += 8) {
+            long word = in.getLong(srcOff + i);
+            if((word & HIGH_BITS) == 0) {
+                out.putLong(dstOff + i, roll(word, key.getLong(keyPos)));
+                keyPos = (keyPos + 8) % keyLength;
+                chars += 8;
+            } else {
+                for(int j=i;j<i + 8;j++) {
+                    int count = roll(in, srcOff + j, out, dstOff + j, prepared[keyPos]);
+                    keyPos = (keyPos + count) % keyLength;
+                    chars += count;
+                }
+            }
+        }
+        for(; i < len; i++) {
+            int count = roll(in, srcOff + i, out, dstOff + i, prepared[keyPos]);
+            keyPos = (keyPos + count) % keyLength;
+            chars += count;
+        }
+        return chars;
+    }
+
+    /**
+     * This is the shift of the eight ASCII bytes of a word, every byte by the shift in the same byte of shifts
+     */
+    private static long roll(long word, long shifts) {
+        long folded = word | CASE_BITS;
+        long letters = (folded + FROM_LOWER_A) & ~(folded + PAST_LOWER_Z) & HIGH_BITS;
+        long letterBytes = (letters >>> 7) * 0xFF;
+        long rolled = folded + (shifts & letterBytes);
+        long wraps = ((rolled + PAST_LOWER_Z) & letters) >>> 7;
+        return word + (shifts & letterBytes) - wraps * CryptoUtils.ALPHABET_SIZE;
+    }
+
+    /**
+     * This is a utility method that shifts a single UTF-8 byte and returns the number of chars it starts
+     */
+    private static int roll(byte[] src, int srcOff, byte[] dst, int dstOff, int shift) {
+        byte _byte = src[srcOff];
+        if(_byte >= 0) {
+            dst[dstOff] = CryptoUtils.roll(_byte, shift);
+            return 1;
+        }
+        dst[dstOff] = _byte;
+        return CryptoUtils.getUtf8CharCount(_byte);
+    }
+
+    /**
+     * This is a utility method that shifts a single UTF-8 byte of a buffer and returns the number of chars it starts
+     */
+    private static int roll(ByteBuffer src, int srcOff, ByteBuffer dst, int dstOff, int shift) {
+        byte _byte = src.get(srcOff);
+        if(_byte >= 0) {
+            dst.put(dstOff, CryptoUtils.roll(_byte, shift));
+            return 1;
+        }
+        dst.put(dstOff, _byte);
+        return CryptoUtils.getUtf8CharCount(_byte);
+    }
+
+    /**
+     * This is a utility method that reads and writes the longs of an array in the native byte order, the
+     * order of the bytes within a long makes no difference as they are shifted independently
+     */
+    private static ByteBuffer wrap(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * This is a utility method that reads and writes the longs of a buffer in the native byte order
+     */
+    private static ByteBuffer order(ByteBuffer buffer) {
+        return buffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * This is a utility method that validates a shift
+     */
+    private static byte checkShift(int shift) {
+        if(shift < 0 || shift > CryptoUtils.ALPHABET_SIZE) {
+            throw new IllegalArgumentException("The shift must be between 0 and 26 - " + shift);
+        }
+        return (byte) shift;
+    }
+}
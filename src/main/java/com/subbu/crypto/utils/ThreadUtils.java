@@ -0,0 +1,55 @@
+package com.subbu.crypto.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is a utility class creating the threads of the asynchronous encryption, the directory processor and the
+ * server. The virtual thread executor is looked up reflectively, as it is not available on the Java versions the
+ * library is built for.
+ */
+public final class ThreadUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadUtils.class);
+
+    private ThreadUtils() {
+    }
+
+    /**
+     * This method returns a factory of daemon threads named name-1, name-2 and so on
+     *
+     * @param name
+     * @return
+     */
+    public static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * This method returns the executor running a virtual thread per task when the JVM has them (Java 21 or
+     * later), and a cached pool of daemon threads named after the name otherwise
+     *
+     * @param name
+     * @return
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("****** Running the {} tasks on virtual threads ******", name);
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.info("****** Virtual threads are not available, running the {} tasks on a thread pool ******", name);
+            return Executors.newCachedThreadPool(daemonThreadFactory(name));
+        }
+    }
+}
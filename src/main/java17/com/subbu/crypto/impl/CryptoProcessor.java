@@ -0,0 +1,250 @@
+package com.subbu.crypto.impl;
+
+import com.subbu.crypto.CryptoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * This class encrypts or decrypts a stream of UTF-8 chunks as a Flow.Processor, so that the encryption can
+ * be pipelined with the I/O producing and consuming the chunks.
+ *
+ * Every chunk received is transformed into a new chunk of the same size which is passed on to the single
+ * subscriber. The chunks are transformed as one text, the position of every chunk in the text is carried
+ * across the chunks so that the Vigenere and OneTimePad ciphers match the encryption of the whole text,
+ * and a chunk may end in the middle of a multi-byte character.
+ *
+ * The processor keeps no buffer of its own, the demand of the subscriber is passed on upstream one to one,
+ * so a slow subscriber slows down the publisher instead of the chunks piling up in memory.
+ *
+ * The processor is only compiled when the library is built on Java 17 or later and needs Java 17 at runtime,
+ * the rest of the library does not depend on it.
+ */
+public class CryptoProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CryptoProcessor.class);
+
+    /**
+     * The transform of the text, used by one chunk at a time
+     */
+    private final AbstractCryptoService.Transform transform;
+
+    /**
+     * The position of the next chunk in the text
+     */
+    private long position;
+
+    private final AtomicReference<Flow.Subscriber<? super ByteBuffer>> subscriber = new AtomicReference<Flow.Subscriber<? super ByteBuffer>>();
+
+    /**
+     * Whether the subscriber cancelled or a chunk failed, written while holding this
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The following fields are guarded by this
+     */
+    private Flow.Subscription upstream;
+
+    private long pendingDemand;
+
+    private boolean done;
+
+    private Throwable error;
+
+    private boolean terminated;
+
+    /**
+     * The constructor accepting the cipher and the direction, the OneTimePad cipher has its own factory
+     * methods for its explicit pads.
+     * @param cryptoService
+     * @param encrypting
+     */
+    public CryptoProcessor(CryptoService cryptoService, boolean encrypting) {
+        this(toTransform(cryptoService, encrypting));
+    }
+
+    /**
+     * The constructor accepting the transform of the text
+     * @param transform
+     */
+    CryptoProcessor(AbstractCryptoService.Transform transform) {
+        this.transform = transform;
+    }
+
+    /**
+     * This method returns a processor encrypting a stream of UTF-8 chunks with the OneTimePadCipher, the key
+     * generated for the stream is handed to the consumer once the stream completes, before the subscriber of
+     * the processor completes
+     *
+     * @param padConsumer
+     * @return
+     */
+    public static CryptoProcessor newEncryptProcessor(Consumer<OneTimePad> padConsumer) {
+        return new CryptoProcessor(oneTimePadCipher().newEncryptTransform(-1, padConsumer));
+    }
+
+    /**
+     * This method returns a processor decrypting a stream of UTF-8 chunks with the OneTimePadCipher using the
+     * key it was encrypted with
+     *
+     * @param pad
+     * @return
+     */
+    public static CryptoProcessor newDecryptProcessor(OneTimePad pad) {
+        return new CryptoProcessor(oneTimePadCipher().newDecryptTransform(pad));
+    }
+
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> _subscriber) {
+        if(!subscriber.compareAndSet(null, _subscriber)) {
+            _subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            _subscriber.onError(new IllegalStateException("A CryptoProcessor supports a single subscriber"));
+            return;
+        }
+        _subscriber.onSubscribe(new Downstream());
+        signalTerminal();
+    }
+
+    public void onSubscribe(Flow.Subscription subscription) {
+        long demand;
+        synchronized (this) {
+            if(upstream != null || cancelled) {
+                demand = -1;
+            } else {
+                upstream = subscription;
+                demand = pendingDemand;
+                pendingDemand = 0;
+            }
+        }
+        if(demand < 0) {
+            subscription.cancel();
+        } else if(demand > 0) {
+            subscription.request(demand);
+        }
+    }
+
+    public void onNext(ByteBuffer chunk) {
+        Flow.Subscriber<? super ByteBuffer> _subscriber = subscriber.get();
+        if(_subscriber == null || cancelled) return;
+        ByteBuffer transformed;
+        try {
+            int length = chunk.remaining();
+            transformed = ByteBuffer.allocate(length);
+            position = transform.bytes(chunk, chunk.position(), transformed, 0, length, position);
+        } catch (RuntimeException e) {
+            logger.debug("Unable to transform the chunk at {}", position, e);
+            cancelUpstream();
+            onError(e);
+            return;
+        }
+        _subscriber.onNext(transformed);
+    }
+
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            if(done) return;
+            done = true;
+            error = throwable;
+        }
+        signalTerminal();
+    }
+
+    public void onComplete() {
+        synchronized (this) {
+            if(done) return;
+        }
+        try {
+            transform.end();
+        } catch (RuntimeException e) {
+            onError(e);
+            return;
+        }
+        synchronized (this) {
+            if(done) return;
+            done = true;
+        }
+        signalTerminal();
+    }
+
+    /**
+     * This is a utility method that passes on the completion or the error once there is a subscriber
+     */
+    private void signalTerminal() {
+        Flow.Subscriber<? super ByteBuffer> _subscriber = subscriber.get();
+        Throwable _error;
+        synchronized (this) {
+            if(!done || terminated || _subscriber == null) return;
+            terminated = true;
+            _error = error;
+        }
+        if(_error != null) {
+            _subscriber.onError(_error);
+        } else {
+            _subscriber.onComplete();
+        }
+    }
+
+    /**
+     * This is a utility method that cancels the upstream subscription, or the one to come
+     */
+    private void cancelUpstream() {
+        Flow.Subscription _upstream;
+        synchronized (this) {
+            cancelled = true;
+            _upstream = upstream;
+        }
+        if(_upstream != null) _upstream.cancel();
+    }
+
+    private static OneTimePadCipher oneTimePadCipher() {
+        return (OneTimePadCipher) OneTimePadCipher.getInstance();
+    }
+
+    /**
+     * This is a utility method that returns the transform of a text of unknown length
+     */
+    private static AbstractCryptoService.Transform toTransform(CryptoService cryptoService, boolean encrypting) {
+        if(!(cryptoService instanceof AbstractCryptoService)) {
+            throw new IllegalArgumentException("Reactive encryption is not supported by " + cryptoService.getClass().getName());
+        }
+        return ((AbstractCryptoService) cryptoService).newTransform(encrypting, -1);
+    }
+
+    /**
+     * The subscription of the subscriber, passing its demand on upstream
+     */
+    private final class Downstream implements Flow.Subscription {
+
+        public void request(long n) {
+            if(n <= 0) {
+                cancelUpstream();
+                onError(new IllegalArgumentException("The demand must be positive - " + n));
+                return;
+            }
+            Flow.Subscription _upstream;
+            synchronized (CryptoProcessor.this) {
+                if(cancelled) return;
+                _upstream = upstream;
+                if(_upstream == null) {
+                    pendingDemand = pendingDemand + n < 0 ? Long.MAX_VALUE : pendingDemand + n;
+                    return;
+                }
+            }
+            _upstream.request(n);
+        }
+
+        public void cancel() {
+            cancelUpstream();
+        }
+    }
+}
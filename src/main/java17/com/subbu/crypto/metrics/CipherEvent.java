@@ -0,0 +1,31 @@
+package com.subbu.crypto.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * The base of the Flight Recorder events of the ciphers, the duration of the event is the time taken by the
+ * encryption or decryption. The stack traces are not recorded to keep the events cheap enough to leave on.
+ */
+@Category({"SimpleCryptography"})
+@StackTrace(false)
+public abstract class CipherEvent extends jdk.jfr.Event {
+
+    @Label("Cipher")
+    public String cipher;
+
+    @Label("Method")
+    @Description("The method of the CryptoService, e.g. String, Reader, ByteBuffer")
+    public String method;
+
+    @Label("Size")
+    @Description("The number of characters, or bytes for the byte oriented methods, processed")
+    @DataAmount(DataAmount.BYTES)
+    public long size;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,14 @@
+package com.subbu.crypto.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event of a decryption
+ */
+@Name("com.subbu.crypto.Decrypt")
+@Label("Decrypt")
+@Description("A decryption by a cipher")
+public final class DecryptEvent extends CipherEvent {
+}
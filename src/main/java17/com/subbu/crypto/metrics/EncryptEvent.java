@@ -0,0 +1,14 @@
+package com.subbu.crypto.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event of an encryption
+ */
+@Name("com.subbu.crypto.Encrypt")
+@Label("Encrypt")
+@Description("An encryption by a cipher")
+public final class EncryptEvent extends CipherEvent {
+}
@@ -0,0 +1,45 @@
+package com.subbu.crypto.metrics;
+
+/**
+ * This class begins and commits the Flight Recorder events of the ciphers. It is only compiled when the library
+ * is built on Java 17 or later and is loaded reflectively by MeteredCryptoService on JVMs with the jdk.jfr module.
+ */
+final class FlightRecorderEvents implements CipherEventRecorder {
+
+    /**
+     * The events checked for whether a recording has them enabled, so that no event is created otherwise
+     */
+    private static final EncryptEvent ENCRYPT_PROBE = new EncryptEvent();
+
+    private static final DecryptEvent DECRYPT_PROBE = new DecryptEvent();
+
+    FlightRecorderEvents() {
+    }
+
+    @Override
+    public Object begin(boolean encrypting) {
+        CipherEvent event;
+        if(encrypting) {
+            if(!ENCRYPT_PROBE.isEnabled()) return null;
+            event = new EncryptEvent();
+        } else {
+            if(!DECRYPT_PROBE.isEnabled()) return null;
+            event = new DecryptEvent();
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commit(Object _event, String cipher, String method, long size, boolean failed) {
+        CipherEvent event = (CipherEvent) _event;
+        event.end();
+        if(event.shouldCommit()) {
+            event.cipher = cipher;
+            event.method = method;
+            event.size = size;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
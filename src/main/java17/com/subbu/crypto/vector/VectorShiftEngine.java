@@ -0,0 +1,119 @@
+package com.subbu.crypto.vector;
+
+import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.ShiftEngine;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class shifts the ASCII letters of UTF-8 bytes a whole vector of bytes at a time with the incubating
+ * Vector API, 16 to 64 bytes per instruction depending on the CPU.
+ *
+ * Every lane is compared against the ranges of the upper and lower case letters, the letters are shifted
+ * and the ones past 'Z' or 'z' are wrapped back by 26, all through masks so there is no branch per byte.
+ * The Vigenere cipher loads the shifts of the next lanes from the key repeated past its end, so a vector
+ * of lanes is shifted by the matching run of the key. A vector holding any non-ASCII byte is shifted one
+ * byte at a time, as the position in the key only advances once per char.
+ *
+ * This class is compiled with Java 17 and --add-modules jdk.incubator.vector, see ShiftEngines.
+ */
+public final class VectorShiftEngine implements ShiftEngine {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private static final int LANES = SPECIES.length();
+
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    public void roll(byte[] src, int srcOff, byte[] dst, int dstOff, int len, int shift) {
+        checkShift(shift);
+        ByteVector shifts = ByteVector.broadcast(SPECIES, (byte) shift);
+        ByteVector upperLimits = ByteVector.broadcast(SPECIES, (byte) ('Z' - shift));
+        ByteVector lowerLimits = ByteVector.broadcast(SPECIES, (byte) ('z' - shift));
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for(; i < bound; i += LANES) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, src, srcOff + i);
+            roll(bytes, shifts, upperLimits, lowerLimits).intoArray(dst, dstOff + i);
+        }
+        for(; i < len; i++) {
+            dst[dstOff + i] = CryptoUtils.roll(src[srcOff + i], shift);
+        }
+    }
+
+    public byte[] prepare(byte[] shifts) {
+        if(shifts.length == 0) throw new IllegalArgumentException("The key has no shifts");
+        byte[] prepared = new byte[shifts.length + LANES];
+        for(int i=0;i<prepared.length;i++) {
+            prepared[i] = checkShift(shifts[i % shifts.length]);
+        }
+        return prepared;
+    }
+
+    public long roll(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] prepared, int keyLength, int keyPos) {
+        ByteVector upper = ByteVector.broadcast(SPECIES, (byte) 'Z');
+        ByteVector lower = ByteVector.broadcast(SPECIES, (byte) 'z');
+        long chars = 0;
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for(; i < bound; i += LANES) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, src, srcOff + i);
+            if(bytes.compare(VectorOperators.LT, (byte) 0).anyTrue()) {
+                for(int j=i;j<i + LANES;j++) {
+                    int count = roll(src, srcOff + j, dst, dstOff + j, prepared[keyPos]);
+                    keyPos = (keyPos + count) % keyLength;
+                    chars += count;
+                }
+            } else {
+                ByteVector shifts = ByteVector.fromArray(SPECIES, prepared, keyPos);
+                roll(bytes, shifts, upper.sub(shifts), lower.sub(shifts)).intoArray(dst, dstOff + i);
+                keyPos = (keyPos + LANES) % keyLength;
+                chars += LANES;
+            }
+        }
+        for(; i < len; i++) {
+            int count = roll(src, srcOff + i, dst, dstOff + i, prepared[keyPos]);
+            keyPos = (keyPos + count) % keyLength;
+            chars += count;
+        }
+        return chars;
+    }
+
+    /**
+     * This is the masked compare-and-blend shift of a vector of bytes, the lanes past the limits wrap back
+     */
+    private static ByteVector roll(ByteVector bytes, ByteVector shifts, ByteVector upperLimits, ByteVector lowerLimits) {
+        VectorMask<Byte> upperCase = bytes.compare(VectorOperators.GE, (byte) 'A').and(bytes.compare(VectorOperators.LE, (byte) 'Z'));
+        VectorMask<Byte> lowerCase = bytes.compare(VectorOperators.GE, (byte) 'a').and(bytes.compare(VectorOperators.LE, (byte) 'z'));
+        VectorMask<Byte> wrap = upperCase.and(bytes.compare(VectorOperators.GT, upperLimits))
+                .or(lowerCase.and(bytes.compare(VectorOperators.GT, lowerLimits)));
+        return bytes.add(shifts, upperCase.or(lowerCase)).sub((byte) CryptoUtils.ALPHABET_SIZE, wrap);
+    }
+
+    /**
+     * This is a utility method that shifts a single UTF-8 byte and returns the number of chars it starts
+     */
+    private static int roll(byte[] src, int srcOff, byte[] dst, int dstOff, int shift) {
+        byte _byte = src[srcOff];
+        if(_byte >= 0) {
+            dst[dstOff] = CryptoUtils.roll(_byte, shift);
+            return 1;
+        }
+        dst[dstOff] = _byte;
+        return CryptoUtils.getUtf8CharCount(_byte);
+    }
+
+    /**
+     * This is a utility method that validates a shift
+     */
+    private static byte checkShift(int shift) {
+        if(shift < 0 || shift > CryptoUtils.ALPHABET_SIZE) {
+            throw new IllegalArgumentException("The shift must be between 0 and 26 - " + shift);
+        }
+        return (byte) shift;
+    }
+}
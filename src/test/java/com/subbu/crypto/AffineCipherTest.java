@@ -2,11 +2,19 @@ package com.subbu.crypto;
 
 import com.subbu.crypto.impl.AffineCipher;
 import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.utils.Alphabet;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
 
 /**
  * Created by devsu04 on 20/02/17.
@@ -35,4 +43,41 @@ public class AffineCipherTest {
         plainText = cryptoService.decrypt(cipherText);
         assertEquals(plainText, "Defend the east wall of the castle");
     }
+
+    @Test(testName = "testKeySpace", description = "This is a test method to test the Affine Cipher of every key and the keys drawn from a seeded random", priority = 59)
+    public void testKeySpace() {
+        assertEquals(AffineCipher.getInstance(5, 8).encrypt("AFFINE cipher"), "IHHWVC swfrcp");
+        Set<CryptoService> ciphers = new HashSet<>();
+        for(int keyA=0;keyA<26;keyA++) {
+            for(int keyB=0;keyB<26;keyB++) {
+                if(keyA % 2 == 0 || keyA == 13) {
+                    int _keyA = keyA, _keyB = keyB;
+                    expectThrows(IllegalArgumentException.class, () -> AffineCipher.getInstance(_keyA, _keyB));
+                    continue;
+                }
+                AffineCipher affine = AffineCipher.getInstance(keyA, keyB);
+                assertSame(AffineCipher.getInstance(keyA, keyB), affine);
+                assertEquals(affine.getKeyA() * affine.getInverseOfKeyA() % 26, 1);
+                String cipherText = affine.encrypt("The quick brown fox jumps over the lazy dog");
+                assertEquals(cipherText.charAt(4), (char) ('a' + (keyA * ('q' - 'a') + keyB) % 26));
+                assertEquals(affine.decrypt(cipherText), "The quick brown fox jumps over the lazy dog");
+                ciphers.add(affine);
+            }
+        }
+        assertEquals(ciphers.size(), AffineCipher.KEY_COUNT);
+        expectThrows(IllegalArgumentException.class, () -> AffineCipher.getInstance(5, 26));
+
+        Random first = new Random(42);
+        Random second = new Random(42);
+        for(int i=0;i<1000;i++) {
+            AffineCipher affine = AffineCipher.getRandomInstance(first);
+            assertSame(AffineCipher.getRandomInstance(second), affine);
+            assertTrue(affine.getKeyA() != 1 && affine.getKeyB() != 0, affine.getKeyA() + ", " + affine.getKeyB());
+        }
+
+        CryptoService alphanumeric = AffineCipher.getInstance(5, 8, Alphabet.ALPHANUMERIC);
+        assertSame(AffineCipher.getInstance(5, 8, Alphabet.ALPHANUMERIC), alphanumeric);
+        assertEquals(alphanumeric.decrypt(alphanumeric.encrypt("Defend the east wall 42")), "Defend the east wall 42");
+        expectThrows(IllegalArgumentException.class, () -> AffineCipher.getInstance(2, 8, Alphabet.ALPHANUMERIC));
+    }
 }
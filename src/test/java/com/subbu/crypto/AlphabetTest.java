@@ -0,0 +1,120 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.CipherPipeline;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.utils.Alphabet;
+import org.apache.commons.math3.util.ArithmeticUtils;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies the lookups of the alphabets and the ciphers over them.
+ */
+public class AlphabetTest {
+
+    private static final String TEXT = "Zoë paid €42 for the crème brûlée at Café Ÿ, 中文!";
+
+    @Test(testName = "testLookup", description = "This is a test method to test the dense and perfect hash lookups of the alphabets", priority = 48)
+    public void testLookup() {
+        assertEquals(Alphabet.ENGLISH.size(), 26);
+        assertEquals(Alphabet.ENGLISH.indexOf('q'), 16);
+        assertEquals(Alphabet.ENGLISH.roll('Y', 3), 'B');
+        assertEquals(Alphabet.LATIN_1.size(), 56);
+        assertEquals(Alphabet.LATIN_1.roll('z', 1), 'à');
+        assertEquals(Alphabet.LATIN_1.roll('þ', 1), 'a');
+        assertEquals(Alphabet.LATIN_1.indexOf('×'), -1);
+
+        String greek = "ΑΒΓΔΕΖΗΘΙΚΛΜΝΞΟΠΡΣΤΥΦΧΨΩ";
+        String cjk = "一二三四五六七八九十百千万";
+        String fullWidth = "ＡＢＣＤＥＦＧＨＩＪＫＬＭＮＯＰＱＲＳＴＵＶＷＸＹＺ";
+        verify(Alphabet.of(greek, greek.toLowerCase()));
+        verify(Alphabet.of(greek + cjk + fullWidth + "�"));
+        verify(Alphabet.of("\u0000￿"));
+
+        expectThrows(IllegalArgumentException.class, () -> Alphabet.of("ABCA"));
+        expectThrows(IllegalArgumentException.class, () -> Alphabet.of("ABC", "ab"));
+        expectThrows(IllegalArgumentException.class, () -> Alphabet.of("A\uD83D"));
+    }
+
+    @Test(testName = "testAlphabetCiphers", description = "This is a test method to test the ciphers over the alphabets", priority = 49)
+    public void testAlphabetCiphers() throws IOException {
+        assertSame(CeaserCipher.getInstance(3, Alphabet.ENGLISH), CeaserCipher.getInstance(3));
+        assertEquals(CeaserCipher.getInstance(3, Alphabet.LATIN_1).encrypt("Yzé"), "Áâì");
+        assertEquals(CeaserCipher.getInstance(2, Alphabet.ALPHANUMERIC).encrypt("Zz9"), "b1B");
+
+        AffineCipher affine = AffineCipher.getInstance(Alphabet.ALPHANUMERIC);
+        assertEquals(ArithmeticUtils.gcd(affine.getKeyA(), 62), 1);
+        CryptoService[] ciphers = {
+                CeaserCipher.getInstance(40, Alphabet.LATIN_1), ROT13Cipher.getInstance(Alphabet.LATIN_1),
+                AtbashCipher.getInstance(Alphabet.LATIN_1), AffineCipher.getInstance(Alphabet.LATIN_1), affine,
+                VigenereCipher.getInstance("Clé", Alphabet.LATIN_1), VigenereCipher.getInstance("K3y", Alphabet.ALPHANUMERIC)};
+        for(CryptoService cipher : ciphers) {
+            String cipherText = cipher.encrypt(TEXT);
+            assertNotEquals(cipherText, TEXT);
+            assertEquals(cipher.decrypt(cipherText), TEXT);
+        }
+        String cipherText = ROT13Cipher.getInstance(Alphabet.LATIN_1).encrypt(TEXT);
+        assertEquals(ROT13Cipher.getInstance(Alphabet.LATIN_1).encrypt(cipherText), TEXT);
+
+        VigenereCipher vigenere = (VigenereCipher) VigenereCipher.getInstance("Clé", Alphabet.LATIN_1);
+        cipherText = vigenere.encrypt(TEXT);
+        assertEquals(vigenere.encrypt(TEXT.substring(7), 7), cipherText.substring(7));
+
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        CryptoService alphanumeric = VigenereCipher.getInstance("K3y", Alphabet.ALPHANUMERIC);
+        assertEquals(new String(alphanumeric.encryptBytes(bytes), StandardCharsets.UTF_8), alphanumeric.encrypt(TEXT));
+        // The byte arrays of the alphabets beyond ASCII are decoded, the same length methods cannot be applied
+        byte[] encrypted = vigenere.encryptBytes(bytes);
+        assertEquals(new String(encrypted, StandardCharsets.UTF_8), vigenere.encrypt(TEXT));
+        assertEquals(vigenere.decryptBytes(encrypted), bytes);
+        CryptoService latin1 = CeaserCipher.getInstance(3, Alphabet.LATIN_1);
+        assertEquals(new String(latin1.encryptBytes("zébra".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8), latin1.encrypt("zébra"));
+        // A shift beyond the alphabet maps the ASCII letters beyond ASCII, the bytes are decoded the same way
+        CryptoService ceaser = CeaserCipher.getInstance(100);
+        assertEquals(new String(ceaser.encryptBytes(bytes), StandardCharsets.UTF_8), ceaser.encrypt(TEXT));
+        assertEquals(new String(ceaser.decryptBytes(bytes), StandardCharsets.UTF_8), ceaser.decrypt(TEXT));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        vigenere.encrypt(new ByteArrayInputStream(bytes), out);
+        assertEquals(out.toByteArray(), encrypted);
+        expectThrows(UnsupportedOperationException.class, () -> latin1.encryptBatch(bytes, new int[]{0, bytes.length}, new byte[bytes.length]));
+        expectThrows(UnsupportedOperationException.class, () -> latin1.encrypt(ByteBuffer.wrap(bytes), ByteBuffer.allocate(bytes.length)));
+
+        CipherPipeline pipeline = CipherPipeline.builder().then(CeaserCipher.getInstance(5, Alphabet.ALPHANUMERIC))
+                .then(VigenereCipher.getInstance("LEMON")).build();
+        assertEquals(pipeline.encrypt(TEXT), VigenereCipher.getInstance("LEMON").encrypt(CeaserCipher.getInstance(5, Alphabet.ALPHANUMERIC).encrypt(TEXT)));
+        expectThrows(IllegalArgumentException.class, () -> CipherPipeline.builder().then(CeaserCipher.getInstance(3, Alphabet.LATIN_1)).build());
+    }
+
+    /**
+     * This is a utility method that compares the lookup of every char with the letters of the alphabet
+     */
+    private static void verify(Alphabet alphabet) {
+        int letters = 0;
+        for(int _char=Character.MIN_VALUE;_char<=Character.MAX_VALUE;_char++) {
+            int index = alphabet.indexOf((char) _char);
+            if(index >= 0) {
+                letters++;
+                boolean found = false;
+                for(int _case=0;_case<alphabet.getCaseCount();_case++) {
+                    found |= alphabet.charAt(index, _case) == _char;
+                }
+                assertEquals(found, true);
+            }
+        }
+        assertEquals(letters, alphabet.size() * alphabet.getCaseCount());
+    }
+}
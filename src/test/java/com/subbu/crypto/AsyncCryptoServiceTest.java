@@ -0,0 +1,25 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AsyncCryptoService;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the CompletableFuture based encryption.
+ */
+public class AsyncCryptoServiceTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle!";
+
+    @Test(testName = "testCompletableFuture", description = "This is a test method to test the asynchronous encryption and decryption", priority = 35)
+    public void testCompletableFuture() throws Exception {
+        CryptoService cryptoService = VigenereCipher.getInstance();
+        AsyncCryptoService asyncCryptoService = new AsyncCryptoService(cryptoService);
+        String plainText = asyncCryptoService.encrypt(TEXT).thenCompose(asyncCryptoService::decrypt).get(10, TimeUnit.SECONDS);
+        assertEquals(plainText, TEXT);
+    }
+}
@@ -0,0 +1,70 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies that the batch methods match encrypting the values one by one.
+ */
+public class BatchCryptoServiceTest {
+
+    private static final String[] VALUES = {"Alice", "", "Bob-42", "Zoë Ünal", "x", "Defend the east wall"};
+
+    @Test(testName = "testCharBatch", description = "This is a test method to test the char batch of every cipher against the values one by one", priority = 33)
+    public void testCharBatch() {
+        int[] offsets = new int[VALUES.length + 1];
+        StringBuilder packed = new StringBuilder();
+        for(int i=0;i<VALUES.length;i++) {
+            packed.append(VALUES[i]);
+            offsets[i + 1] = packed.length();
+        }
+        char[] src = packed.toString().toCharArray();
+        CryptoService[] cryptoServices = {CeaserCipher.getInstance(), ROT13Cipher.getInstance(), AtbashCipher.getInstance(),
+                AffineCipher.getInstance(), VigenereCipher.getInstance()};
+        for(CryptoService cryptoService : cryptoServices) {
+            char[] dst = new char[src.length];
+            cryptoService.encryptBatch(src, offsets, dst);
+            for(int i=0;i<VALUES.length;i++) {
+                assertEquals(String.valueOf(dst, offsets[i], offsets[i + 1] - offsets[i]), cryptoService.encrypt(VALUES[i]));
+            }
+            cryptoService.decryptBatch(dst, offsets, dst);
+            assertEquals(String.valueOf(dst), packed.toString());
+        }
+
+        OneTimePadCipher oneTimePad = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        char[] dst = new char[src.length];
+        OneTimePad pad = oneTimePad.encryptBatchWithPad(src, offsets, dst);
+        assertEquals(pad.length(), src.length);
+        oneTimePad.decryptBatch(dst, offsets, dst, pad);
+        assertEquals(String.valueOf(dst), packed.toString());
+    }
+
+    @Test(testName = "testByteBatch", description = "This is a test method to test the UTF-8 byte batch against the values one by one", priority = 34)
+    public void testByteBatch() {
+        int[] offsets = new int[VALUES.length + 1];
+        StringBuilder packed = new StringBuilder();
+        for(int i=0;i<VALUES.length;i++) {
+            packed.append(VALUES[i]);
+            offsets[i + 1] = offsets[i] + VALUES[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        byte[] src = packed.toString().getBytes(StandardCharsets.UTF_8);
+        CryptoService cryptoService = VigenereCipher.getInstance();
+        byte[] dst = new byte[src.length];
+        cryptoService.encryptBatch(src, offsets, dst);
+        for(int i=0;i<VALUES.length;i++) {
+            assertEquals(new String(dst, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8), cryptoService.encrypt(VALUES[i]));
+        }
+        cryptoService.decryptBatch(dst, offsets, dst);
+        assertEquals(new String(dst, StandardCharsets.UTF_8), packed.toString());
+    }
+}
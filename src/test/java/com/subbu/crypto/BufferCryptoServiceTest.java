@@ -0,0 +1,61 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies that the array and buffer methods match the String methods.
+ */
+public class BufferCryptoServiceTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle!";
+
+    @Test(testName = "testCharArrayInPlace", description = "This is a test method to test the in place encryption of a char array range", priority = 20)
+    public void testCharArrayInPlace() {
+        CryptoService cryptoService = VigenereCipher.getInstance();
+        char[] buffer = ("##" + TEXT + "##").toCharArray();
+        cryptoService.encrypt(buffer, 2, buffer, 2, TEXT.length());
+        assertEquals(String.valueOf(buffer), "##" + cryptoService.encrypt(TEXT) + "##");
+        cryptoService.decrypt(buffer, 2, buffer, 2, TEXT.length());
+        assertEquals(String.valueOf(buffer), "##" + TEXT + "##");
+    }
+
+    @Test(testName = "testCharBuffer", description = "This is a test method to test the encryption of char buffers", priority = 21)
+    public void testCharBuffer() {
+        CryptoService cryptoService = VigenereCipher.getInstance();
+        CharBuffer cipherText = CharBuffer.allocate(TEXT.length());
+        cryptoService.encrypt(CharBuffer.wrap(TEXT), cipherText);
+        cipherText.flip();
+        assertEquals(cipherText.toString(), cryptoService.encrypt(TEXT));
+        cryptoService.decrypt(cipherText, cipherText.duplicate());
+        cipherText.flip();
+        assertEquals(cipherText.toString(), TEXT);
+    }
+
+    @Test(testName = "testDirectByteBuffer", description = "This is a test method to test the encryption of direct byte buffers", priority = 22)
+    public void testDirectByteBuffer() {
+        CryptoService[] services = {AtbashCipher.getInstance(), VigenereCipher.getInstance()};
+        byte[] plainText = TEXT.getBytes(StandardCharsets.UTF_8);
+        for(CryptoService cryptoService : services) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(plainText.length);
+            buffer.put(plainText).flip();
+            cryptoService.encrypt(buffer, buffer.duplicate());
+            buffer.flip();
+            byte[] cipherText = new byte[buffer.remaining()];
+            buffer.duplicate().get(cipherText);
+            assertEquals(new String(cipherText, StandardCharsets.UTF_8), cryptoService.encrypt(TEXT));
+            cryptoService.decrypt(buffer, buffer.duplicate());
+            buffer.flip();
+            byte[] decrypted = new byte[buffer.remaining()];
+            buffer.get(decrypted);
+            assertEquals(new String(decrypted, StandardCharsets.UTF_8), TEXT);
+        }
+    }
+}
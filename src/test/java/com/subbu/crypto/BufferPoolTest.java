@@ -0,0 +1,205 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.buffer.BufferPool;
+import com.subbu.crypto.buffer.PooledBuffer;
+import com.subbu.crypto.impl.AbstractCryptoService;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.CipherPipeline;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.metrics.MeteredCryptoService;
+import com.subbu.crypto.utils.SwarShiftEngine;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies the reuse, the limits and the leak detection of the buffer pool and the ciphers running on it.
+ */
+public class BufferPoolTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle! ";
+
+    @Test(testName = "testBufferPool", description = "This is a test method to test the reuse, the limits and the leak detection of the buffer pool", priority = 54)
+    public void testBufferPool() throws InterruptedException {
+        BufferPool pool = BufferPool.builder().maxBufferSize(60000).maxPooledBytes(128 * 1024)
+                .maxAllocatedBytes(256 * 1024).threadCacheSize(1).leakDetection(true).build();
+        assertEquals(pool.getMaxBufferSize(), 64 * 1024);
+
+        PooledBuffer pooled = pool.acquire(100);
+        assertTrue(pooled.buffer().isDirect());
+        assertEquals(pooled.capacity(), BufferPool.MIN_BUFFER_SIZE);
+        assertEquals(pooled.buffer().limit(), 100);
+        pooled.release();
+        expectThrows(IllegalStateException.class, pooled::release);
+        expectThrows(IllegalStateException.class, pooled::buffer);
+        PooledBuffer reused = pool.acquire(4000);
+        assertSame(reused, pooled);
+        assertEquals(reused.buffer().limit(), 4000);
+        reused.release();
+
+        long allocations = pool.getAllocationCount();
+        for(int i=0;i<1000;i++) {
+            try(PooledBuffer first = pool.acquire(10000); PooledBuffer second = pool.acquire(10000)) {
+                assertNotSame(first, second);
+                assertEquals(first.capacity(), 16 * 1024);
+            }
+        }
+        assertEquals(pool.getAllocationCount(), allocations + 2);
+
+        try(PooledBuffer large = pool.acquire(100000)) {
+            assertEquals(large.capacity(), 100000);
+        }
+        List<PooledBuffer> held = new ArrayList<>();
+        for(int i=0;i<3;i++) {
+            held.add(pool.acquire(64 * 1024));
+        }
+        expectThrows(IllegalStateException.class, () -> pool.acquire(64 * 1024));
+        // The buffers of 4 and 16 KB cached by the thread count against the pooled bytes
+        assertEquals(pool.getPooledBytes(), 20 * 1024);
+        for(PooledBuffer buffer : held) {
+            buffer.release();
+        }
+        // One of the buffers is cached by the thread and the others are dropped, they would exceed the 128 KB pooled
+        assertEquals(pool.getPooledBytes(), 84 * 1024);
+        try(PooledBuffer cached = pool.acquire(64 * 1024)) {
+            assertEquals(pool.getPooledBytes(), 20 * 1024);
+        }
+
+        assertEquals(pool.getLeakCount(), 0);
+        long allocated = pool.getAllocatedBytes();
+        pool.acquire(8000);
+        for(int i=0;i<100 && pool.getLeakCount() == 0;i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(pool.getLeakCount(), 1);
+        assertEquals(pool.getAllocatedBytes(), allocated);
+    }
+
+    @Test(testName = "testConcurrentBufferPool", description = "This is a test method to test the buffer pool acquired and released from many threads", priority = 55)
+    public void testConcurrentBufferPool() throws InterruptedException {
+        BufferPool pool = BufferPool.builder().maxBufferSize(1024 * 1024).threadCacheSize(2).build();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for(int t=0;t<4;t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    for(int i=0;i<20000;i++) {
+                        // Half the sizes are above the thread caches, so the free lists are shared by all the threads
+                        try(PooledBuffer pooled = pool.acquire(1 + random.nextInt(1024 * 1024))) {
+                            ByteBuffer buffer = pooled.buffer();
+                            buffer.put(0, (byte) seed);
+                            buffer.put(buffer.limit() - 1, (byte) seed);
+                            Thread.yield();
+                            assertEquals(buffer.get(0), (byte) seed);
+                            assertEquals(buffer.get(buffer.limit() - 1), (byte) seed);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(pool.getAllocationCount() < 200, "Allocated " + pool.getAllocationCount());
+        pool.trim();
+        assertEquals(pool.getPooledBytes(), 0);
+        assertEquals(pool.getAllocatedBytes(), 0);
+
+        // The buffers cached by short lived threads are reclaimed as new threads come, without a trim
+        long churned = pool.getAllocationCount();
+        for(int t=0;t<256;t++) {
+            Thread thread = new Thread(() -> pool.acquire(100).release());
+            thread.start();
+            thread.join();
+        }
+        assertTrue(pool.getAllocationCount() - churned <= 128, "Allocated " + (pool.getAllocationCount() - churned));
+        assertEquals(pool.getAllocatedBytes(), pool.getPooledBytes());
+
+        // A buffer released by another thread than the one acquiring it goes to the free list
+        PooledBuffer[] handed = new PooledBuffer[1];
+        Thread reader = new Thread(() -> handed[0] = pool.acquire(100));
+        reader.start();
+        reader.join();
+        handed[0].release();
+        Thread next = new Thread(() -> handed[0] = pool.acquire(100));
+        long allocations = pool.getAllocationCount();
+        next.start();
+        next.join();
+        assertEquals(pool.getAllocationCount(), allocations);
+        handed[0].release();
+    }
+
+    @Test(testName = "testChannels", description = "This is a test method to test the encryption and decryption of channels through pooled direct buffers", priority = 56)
+    public void testChannels() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        while(builder.length() < 3 * AbstractCryptoService.CHANNEL_BLOCK_SIZE / 2) {
+            builder.append(TEXT);
+        }
+        String text = builder.toString();
+        Path plain = Files.createTempFile("plain", ".txt");
+        Path encrypted = Files.createTempFile("encrypted", ".txt");
+        Path decrypted = Files.createTempFile("decrypted", ".txt");
+        Files.write(plain, text.getBytes(StandardCharsets.UTF_8));
+        CryptoService[] ciphers = {CeaserCipher.getInstance(3), VigenereCipher.getInstance("LEMON"),
+                CipherPipeline.builder().then(CeaserCipher.getInstance(5)).then(VigenereCipher.getInstance("KEY")).build(),
+                new MeteredCryptoService(VigenereCipher.getInstance("LEMON"))};
+        for(CryptoService cipher : ciphers) {
+            try(FileChannel in = FileChannel.open(plain); FileChannel out = FileChannel.open(encrypted, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                cipher.encrypt(in, out);
+            }
+            assertEquals(new String(Files.readAllBytes(encrypted), StandardCharsets.UTF_8), cipher.encrypt(text));
+            try(FileChannel in = FileChannel.open(encrypted); FileChannel out = FileChannel.open(decrypted, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                cipher.decrypt(in, out);
+            }
+            assertEquals(new String(Files.readAllBytes(decrypted), StandardCharsets.UTF_8), text);
+        }
+
+        SwarShiftEngine engine = SwarShiftEngine.getInstance();
+        byte[] bytes = text.substring(0, 10000).getBytes(StandardCharsets.UTF_8);
+        byte[] expected = new byte[bytes.length];
+        engine.roll(bytes, 0, expected, 0, bytes.length, 11);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        direct.position(3);
+        direct.put(bytes);
+        engine.roll(direct, 3, direct, 3, bytes.length, 11);
+        byte[] actual = new byte[bytes.length];
+        direct.position(3);
+        direct.get(actual);
+        assertEquals(actual, expected);
+
+        byte[] prepared = engine.prepare(new byte[]{3, 14, 25});
+        long chars = engine.roll(bytes, 1, expected, 1, bytes.length - 1, prepared, 3, 2);
+        direct.clear();
+        direct.put(bytes);
+        assertEquals(engine.roll(direct, 1, direct, 1, bytes.length - 1, prepared, 3, 2), chars);
+        direct.position(1);
+        direct.get(actual, 1, bytes.length - 1);
+        assertEquals(actual, expected);
+    }
+}
@@ -0,0 +1,39 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies that the UTF-8 byte methods match the String methods.
+ */
+public class ByteArrayCryptoServiceTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle! Ünïcödé ok";
+
+    @Test(testName = "testUtf8Bytes", description = "This is a test method to test the UTF-8 bytes of every cipher against the String methods", priority = 37)
+    public void testUtf8Bytes() {
+        byte[] plainText = TEXT.getBytes(StandardCharsets.UTF_8);
+        CryptoService[] cryptoServices = {CeaserCipher.getInstance(), ROT13Cipher.getInstance(), AtbashCipher.getInstance(),
+                AffineCipher.getInstance(), VigenereCipher.getInstance()};
+        for(CryptoService cryptoService : cryptoServices) {
+            byte[] cipherText = cryptoService.encryptBytes(plainText);
+            assertEquals(new String(cipherText, StandardCharsets.UTF_8), cryptoService.encrypt(TEXT));
+            assertEquals(new String(cryptoService.decryptBytes(cipherText), StandardCharsets.UTF_8), TEXT);
+        }
+
+        OneTimePadCipher oneTimePad = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        byte[] cipherText = oneTimePad.encryptBytes(plainText);
+        assertEquals(oneTimePad.getPad().length(), TEXT.length());
+        assertEquals(oneTimePad.decrypt(new String(cipherText, StandardCharsets.UTF_8)), TEXT);
+        assertEquals(new String(oneTimePad.decryptBytes(cipherText), StandardCharsets.UTF_8), TEXT);
+    }
+}
@@ -0,0 +1,80 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.utils.CipherCache;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+/**
+ * This test verifies the keyed cache of cipher instances.
+ */
+public class CipherCacheTest {
+
+    @Test(testName = "testInstancePerParameter", description = "This is a test method to test that every parameter gets its own shared instance", priority = 23)
+    public void testInstancePerParameter() {
+        assertSame(CeaserCipher.getInstance(3), CeaserCipher.getInstance(3));
+        assertNotSame(CeaserCipher.getInstance(3), CeaserCipher.getInstance(4));
+        assertEquals(CeaserCipher.getInstance(3).encrypt("abc"), "def");
+        assertEquals(CeaserCipher.getInstance(4).encrypt("abc"), "efg");
+        assertEquals(VigenereCipher.getInstance("b").encrypt("abc"), "bcd");
+        assertEquals(VigenereCipher.getInstance("c").encrypt("abc"), "cde");
+    }
+
+    @Test(testName = "testEvictionAndStatistics", description = "This is a test method to test the size based eviction and the statistics", priority = 24)
+    public void testEvictionAndStatistics() {
+        CipherCache cache = new CipherCache(2, 60000);
+        CryptoService first = cache.get(CryptoService.class, () -> CeaserCipher.getInstance(1), 1);
+        assertSame(cache.get(CryptoService.class, () -> CeaserCipher.getInstance(1), 1), first);
+        cache.get(CryptoService.class, () -> CeaserCipher.getInstance(2), 2);
+        cache.get(CryptoService.class, () -> CeaserCipher.getInstance(3), 3);
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 3);
+        assertEquals(cache.getEvictionCount(), 1);
+    }
+
+    @Test(testName = "testIdleEviction", description = "This is a test method to test the idle time based eviction", priority = 25)
+    public void testIdleEviction() throws InterruptedException {
+        CipherCache cache = new CipherCache(10, 1);
+        cache.get(CryptoService.class, () -> CeaserCipher.getInstance(1), 1);
+        Thread.sleep(10);
+        cache.cleanUp();
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getEvictionCount(), 1);
+
+        // The idle instances are evicted by the hits as well, once the cleanup interval has passed
+        CipherCache idleCache = new CipherCache(10, 400);
+        CryptoService second = idleCache.get(CryptoService.class, () -> CeaserCipher.getInstance(2), 2);
+        idleCache.get(CryptoService.class, () -> CeaserCipher.getInstance(3), 3);
+        Thread.sleep(300);
+        idleCache.get(CryptoService.class, () -> CeaserCipher.getInstance(2), 2);
+        Thread.sleep(200);
+        assertSame(idleCache.get(CryptoService.class, () -> CeaserCipher.getInstance(2), 2), second);
+        assertEquals(idleCache.size(), 1);
+    }
+
+    @Test(testName = "testBatchEviction", description = "This is a test method to test the batch eviction of the least recently used instances and the factories outside of the map", priority = 61)
+    public void testBatchEviction() {
+        CipherCache cache = new CipherCache(16, 60000);
+        for(int i=0;i<16;i++) {
+            int shift = i;
+            cache.get(CryptoService.class, () -> CeaserCipher.getInstance(shift), shift);
+        }
+        assertEquals(cache.size(), 16);
+        cache.get(CryptoService.class, () -> CeaserCipher.getInstance(16), 16);
+        // An eighth of the maximum size is evicted below it, so the following misses do not scan the cache
+        assertEquals(cache.size(), 14);
+        assertEquals(cache.getEvictionCount(), 3);
+        cache.get(CryptoService.class, () -> CeaserCipher.getInstance(17), 17);
+        assertEquals(cache.getEvictionCount(), 3);
+
+        // A factory may look up the cache itself, its instance is not built while the map is locked
+        CryptoService outer = cache.get(CryptoService.class,
+                () -> cache.get(CryptoService.class, () -> VigenereCipher.getInstance("KEY"), "KEY"), "outer");
+        assertSame(cache.get(CryptoService.class, () -> VigenereCipher.getInstance("KEY"), "KEY"), outer);
+    }
+}
@@ -0,0 +1,109 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.CipherPipeline;
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies the fused pipelines against applying their ciphers one after the other.
+ */
+public class CipherPipelineTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle!";
+
+    @Test(testName = "testMonoalphabeticPipeline", description = "This is a test method to test the pipelines of the monoalphabetic ciphers", priority = 41)
+    public void testMonoalphabeticPipeline() {
+        CryptoService[] stages = {CeaserCipher.getInstance(3), AffineCipher.getInstance(), ROT13Cipher.getInstance(), AtbashCipher.getInstance()};
+        CipherPipeline pipeline = build(stages);
+        assertEquals(pipeline.getStepCount(), 1);
+        verify(pipeline, stages);
+
+        CipherPipeline rolls = build(CeaserCipher.getInstance(3), ROT13Cipher.getInstance(), AtbashCipher.getInstance());
+        assertEquals(rolls.getStepCount(), 1);
+        verify(rolls, CeaserCipher.getInstance(3), ROT13Cipher.getInstance(), AtbashCipher.getInstance());
+    }
+
+    @Test(testName = "testKeyedPipeline", description = "This is a test method to test the pipelines of the Vigenere and OneTimePad ciphers", priority = 42)
+    public void testKeyedPipeline() {
+        CryptoService[] stages = {AffineCipher.getInstance(), VigenereCipher.getInstance("LEMON"), CeaserCipher.getInstance(5), VigenereCipher.getInstance()};
+        CipherPipeline pipeline = build(stages);
+        assertEquals(pipeline.getStepCount(), 2);
+        verify(pipeline, stages);
+
+        OneTimePadCipher oneTimePad = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        CipherPipeline padded = build(CeaserCipher.getInstance(7), oneTimePad, VigenereCipher.getInstance("LEMON"));
+        assertEquals(padded.getStepCount(), 1);
+        String cipherText = padded.encrypt(TEXT);
+        String expected = VigenereCipher.getInstance("LEMON").decrypt(cipherText);
+        expected = CeaserCipher.getInstance(7).decrypt(oneTimePad.decrypt(expected));
+        assertEquals(expected, TEXT);
+        assertEquals(padded.decrypt(cipherText), TEXT);
+
+        byte[] cipherBytes = padded.encryptBytes(TEXT.getBytes(StandardCharsets.UTF_8));
+        assertEquals(oneTimePad.getPad().length(), TEXT.length());
+        assertEquals(new String(padded.decryptBytes(cipherBytes), StandardCharsets.UTF_8), TEXT);
+
+        // The keys are handed out and back explicitly in the order of the chain
+        CipherPipeline twice = build(oneTimePad, VigenereCipher.getInstance("LEMON"), oneTimePad);
+        List<OneTimePad> pads = new ArrayList<OneTimePad>();
+        cipherText = twice.encrypt(TEXT, pads::add);
+        assertEquals(pads.size(), 2);
+        expected = oneTimePad.decrypt(VigenereCipher.getInstance("LEMON").decrypt(oneTimePad.decrypt(cipherText, pads.get(1))), pads.get(0));
+        assertEquals(expected, TEXT);
+        assertEquals(twice.decrypt(cipherText, pads.get(0), pads.get(1)), TEXT);
+        expectThrows(IllegalArgumentException.class, () -> twice.decrypt(TEXT, pads.get(0)));
+
+        // The key of the Vigenere cipher restarts at every value of a batch
+        CipherPipeline keyed = build(AffineCipher.getInstance(5, 8), VigenereCipher.getInstance("LEMONS"));
+        char[] batch = "hellohello".toCharArray();
+        int[] offsets = {0, 5, 10};
+        keyed.encryptBatch(batch, offsets, batch);
+        assertEquals(new String(batch), keyed.encrypt("hello") + keyed.encrypt("hello"));
+        byte[] bytes = "hellohello".getBytes(StandardCharsets.UTF_8);
+        keyed.encryptBatch(bytes, offsets, bytes);
+        assertEquals(new String(bytes, StandardCharsets.UTF_8), new String(batch));
+        keyed.decryptBatch(batch, offsets, batch);
+        assertEquals(new String(batch), "hellohello");
+
+        // The tables mapping letters beyond ASCII cannot be composed into the ASCII tables of a pipeline
+        expectThrows(IllegalArgumentException.class, () -> build(CeaserCipher.getInstance(100), VigenereCipher.getInstance("AB")));
+    }
+
+    /**
+     * This is a utility method that builds a pipeline of the ciphers
+     */
+    private static CipherPipeline build(CryptoService... stages) {
+        CipherPipeline.Builder builder = CipherPipeline.builder();
+        for(CryptoService stage : stages) {
+            builder.then(stage);
+        }
+        return builder.build();
+    }
+
+    /**
+     * This is a utility method that compares the pipeline with the ciphers applied one after the other
+     */
+    private static void verify(CipherPipeline pipeline, CryptoService... stages) {
+        String expected = TEXT;
+        for(CryptoService stage : stages) {
+            expected = stage.encrypt(expected);
+        }
+        String cipherText = pipeline.encrypt(TEXT);
+        assertEquals(cipherText, expected);
+        assertEquals(new String(pipeline.encryptBytes(TEXT.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8), expected);
+        assertEquals(pipeline.decrypt(cipherText), TEXT);
+    }
+}
@@ -0,0 +1,132 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.server.CryptoServer;
+import com.subbu.crypto.server.LoadGenerator;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * This test verifies the encryption server and its admission control.
+ */
+public class CryptoServerTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle! ";
+
+    @Test(testName = "testCryptoServer", description = "This is a test method to test the encryption and decryption of every cipher over HTTP", priority = 52)
+    public void testCryptoServer() throws IOException {
+        CryptoServer server = new CryptoServer(0, 4, 1000);
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getPort() + "/";
+            String[] ciphers = {"ceaser?shift=3", "rot13", "atbash", "affine", "affine?key=5,8", "vigenere?key=lemon",
+                    "ceaser?shift=40&alphabet=latin1", "vigenere?key=K3y&alphabet=alphanumeric"};
+            byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+            for(String cipher : ciphers) {
+                byte[] cipherText = post(base + "encrypt/" + cipher, text, 200);
+                assertNotEquals(cipherText, text);
+                assertEquals(new String(post(base + "decrypt/" + cipher, cipherText, 200), StandardCharsets.UTF_8), TEXT);
+            }
+            assertEquals(new String(post(base + "encrypt/vigenere?key=lemon", text, 200), StandardCharsets.UTF_8),
+                    VigenereCipher.getInstance("lemon").encrypt(TEXT));
+
+            byte[] cipherText = post(base + "encrypt/onetimepad", text, 200);
+            OneTimePad pad = OneTimePad.read(new ByteArrayInputStream(cipherText));
+            assertEquals(pad.length(), TEXT.length());
+            assertEquals(new String(post(base + "decrypt/onetimepad", cipherText, 200), StandardCharsets.UTF_8), TEXT);
+
+            post(base + "encrypt/enigma", text, 400);
+            post(base + "encrypt/vigenere", text, 400);
+            post(base + "encrypt/ceaser?shift=three", text, 400);
+            post(base + "decrypt/onetimepad", text, 400);
+            // A key longer than the request is rejected before it is read
+            post(base + "decrypt/onetimepad", new byte[]{'O', 'T', 'P', '1', 0x7f, -1, -1, -1}, 400);
+            server.setMaxOneTimePadSize(text.length - 1);
+            post(base + "encrypt/onetimepad", text, 413);
+            post(base + "decrypt/onetimepad", cipherText, 413);
+            assertEquals(server.getRejectedCount(), 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test(testName = "testAdmissionControl", description = "This is a test method to test the rejection of the requests of an overloaded server and the load generator", priority = 53)
+    public void testAdmissionControl() throws Exception {
+        CryptoServer server = new CryptoServer(0, 1, 0);
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getPort() + "/";
+            HttpURLConnection slow = (HttpURLConnection) new URL(base + "encrypt/rot13").openConnection();
+            slow.setRequestMethod("POST");
+            slow.setDoOutput(true);
+            slow.setChunkedStreamingMode(16);
+            OutputStream out = slow.getOutputStream();
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!get(base + "health").contains("inProgress=1")) {
+                assertTrue(System.currentTimeMillis() < deadline, "The slow request was not admitted");
+                Thread.sleep(10);
+            }
+
+            post(base + "encrypt/rot13", TEXT.getBytes(StandardCharsets.UTF_8), 503);
+            assertEquals(server.getRejectedCount(), 1);
+
+            out.write(" World".getBytes(StandardCharsets.UTF_8));
+            out.close();
+            assertEquals(slow.getResponseCode(), 200);
+            assertEquals(new String(read(slow.getInputStream()), StandardCharsets.UTF_8), "Uryyb Jbeyq");
+
+            LoadGenerator generator = new LoadGenerator(new URL(base + "encrypt/vigenere?key=lemon"), LoadGenerator.payload(256), 2, 300);
+            LoadGenerator.Report report = generator.run();
+            assertTrue(report.getRequests() > 0, report.toString());
+            assertEquals(report.getErrors(), 0);
+            assertTrue(report.getLatencyNanos(0.99) >= report.getLatencyNanos(0.5));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * This is a utility method that posts the body and returns the response, verifying its status
+     */
+    private static byte[] post(String url, byte[] body, int status) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try(OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        assertEquals(connection.getResponseCode(), status, url);
+        return read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+    }
+
+    private static String get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        return new String(read(connection.getInputStream()), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(InputStream _in = in) {
+            byte[] buffer = new byte[1024];
+            for(int read; (read = _in.read(buffer)) >= 0;) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
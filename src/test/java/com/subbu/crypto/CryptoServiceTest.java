@@ -0,0 +1,79 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the default methods of a CryptoService implementing only the String methods.
+ */
+public class CryptoServiceTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle!";
+
+    @Test(testName = "testDefaultMethods", description = "This is a test method to test the default methods against the ones of the ciphers", priority = 60)
+    public void testDefaultMethods() throws IOException {
+        CryptoService vigenere = VigenereCipher.getInstance("LEMON");
+        CryptoService cryptoService = new CryptoService() {
+            public String encrypt(String plainText) {
+                return vigenere.encrypt(plainText);
+            }
+
+            public String decrypt(String cipherText) {
+                return vigenere.decrypt(cipherText);
+            }
+        };
+        String cipherText = vigenere.encrypt(TEXT);
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        assertEquals(cryptoService.encryptBytes(bytes), vigenere.encryptBytes(bytes));
+        assertEquals(cryptoService.decryptBytes(cipherText.getBytes(StandardCharsets.UTF_8)), bytes);
+
+        StringWriter writer = new StringWriter();
+        cryptoService.encrypt(new StringReader(TEXT), writer);
+        assertEquals(writer.toString(), cipherText);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cryptoService.decrypt(new ByteArrayInputStream(cipherText.getBytes(StandardCharsets.UTF_8)), out);
+        assertEquals(out.toByteArray(), bytes);
+
+        char[] chars = TEXT.toCharArray();
+        cryptoService.encrypt(chars, 0, chars, 0, chars.length);
+        assertEquals(new String(chars), cipherText);
+        CharBuffer charBuffer = CharBuffer.wrap(chars);
+        cryptoService.decrypt(charBuffer, charBuffer);
+        assertEquals(charBuffer.position(), chars.length);
+        assertEquals(new String(chars), TEXT);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(bytes.length);
+        cryptoService.encrypt(ByteBuffer.wrap(bytes), byteBuffer);
+        byte[] encrypted = new byte[bytes.length];
+        ((ByteBuffer) byteBuffer.flip()).get(encrypted);
+        assertEquals(encrypted, vigenere.encryptBytes(bytes));
+
+        int split = TEXT.indexOf(',');
+        int[] offsets = {0, split, chars.length};
+        char[] batch = new char[chars.length];
+        cryptoService.encryptBatch(chars, offsets, batch);
+        assertEquals(new String(batch), vigenere.encrypt(TEXT.substring(0, split)) + vigenere.encrypt(TEXT.substring(split)));
+
+        Path file = Files.createTempFile("default", ".txt");
+        try {
+            Files.write(file, bytes);
+            cryptoService.encryptInPlace(file);
+            assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), cipherText);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.cli.CryptoTool;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.DirectoryProcessor;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * This test verifies the encryption of directory trees against encrypting every file as a text.
+ */
+public class DirectoryProcessorTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle! ";
+
+    @Test(testName = "testDirectoryProcessor", description = "This is a test method to test the encryption and decryption of directory trees", priority = 50)
+    public void testDirectoryProcessor() throws IOException {
+        Path source = createTree();
+        CryptoService[] ciphers = {CeaserCipher.getInstance(3), VigenereCipher.getInstance("LEMON"), OneTimePadCipher.getInstance()};
+        for(CryptoService cipher : ciphers) {
+            Path encrypted = Files.createTempDirectory("encrypted");
+            Path decrypted = Files.createTempDirectory("decrypted");
+            try(DirectoryProcessor encryptor = new DirectoryProcessor(cipher, true, 3, 2, 64);
+                DirectoryProcessor decryptor = new DirectoryProcessor(cipher, false, 2, 3, 100)) {
+                DirectoryProcessor.Report report = encryptor.process(source, encrypted);
+                assertEquals(report.getFiles(), 4);
+                assertEquals(report.getBytes(), size(source));
+                if(!(cipher instanceof OneTimePadCipher)) {
+                    assertEquals(read(encrypted.resolve("a/b/large.txt")), cipher.encrypt(read(source.resolve("a/b/large.txt"))));
+                    assertEquals(read(encrypted.resolve("small.txt")), cipher.encrypt(read(source.resolve("small.txt"))));
+                }
+                decryptor.process(encrypted, decrypted);
+            }
+            for(String file : new String[]{"small.txt", "empty.txt", "a/medium.txt", "a/b/large.txt"}) {
+                assertEquals(read(decrypted.resolve(file)), read(source.resolve(file)));
+            }
+        }
+    }
+
+    @Test(testName = "testCryptoTool", description = "This is a test method to test the command line tool", priority = 51)
+    public void testCryptoTool() throws IOException {
+        Path source = createTree();
+        Path encrypted = Files.createTempDirectory("encrypted");
+        Path decrypted = Files.createTempDirectory("decrypted");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(run(out, err, "encrypt", "-c", "vigenere", "-k", "lemon", "-w", "2", "-b", "1k", source.toString(), encrypted.toString()), 0);
+        assertTrue(out.toString().startsWith("Encrypted 4 files"), out.toString());
+        assertEquals(run(out, err, "decrypt", "--cipher", "VIGENERE", "--key", "lemon", encrypted.toString(), decrypted.toString()), 0);
+        assertEquals(read(decrypted.resolve("a/b/large.txt")), read(source.resolve("a/b/large.txt")));
+
+        assertEquals(run(out, err, "encrypt", "-c", "affine", "-k", "5,8", source.toString(), encrypted.toString()), 0);
+        assertEquals(run(out, err, "decrypt", "-c", "affine", "-k", "5,8", encrypted.toString(), decrypted.toString()), 0);
+        assertEquals(read(decrypted.resolve("a/b/large.txt")), read(source.resolve("a/b/large.txt")));
+
+        // A shift beyond the alphabet maps letters beyond ASCII, the files are then transformed decoded
+        assertEquals(run(out, err, "encrypt", "-c", "ceaser", "-s", "100", source.toString(), encrypted.toString()), 0);
+        assertEquals(read(encrypted.resolve("a/b/large.txt")), CeaserCipher.getInstance(100).encrypt(read(source.resolve("a/b/large.txt"))));
+
+        assertEquals(run(out, err, "encrypt", "-c", "vigenere", source.toString(), encrypted.toString()), 2);
+        assertEquals(run(out, err, "decrypt", "-c", "affine", "-k", "4,8", encrypted.toString(), decrypted.toString()), 2);
+        assertEquals(run(out, err, "encrypt", "-c", "ceaser", "-b", "1x", source.toString(), encrypted.toString()), 2);
+        assertEquals(run(out, err, "scramble", "-c", "ceaser", source.toString(), encrypted.toString()), 2);
+        assertEquals(run(out, err, "encrypt", "-c", "ceaser", source.toString(), source.resolve("a").toString()), 1);
+    }
+
+    /**
+     * This is a utility method that runs the tool
+     */
+    private static int run(ByteArrayOutputStream out, ByteArrayOutputStream err, String... args) {
+        return CryptoTool.run(args, new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    /**
+     * This is a utility method that creates a tree of an empty file and of files smaller and larger than the blocks
+     */
+    private static Path createTree() throws IOException {
+        Path source = Files.createTempDirectory("source");
+        Files.createDirectories(source.resolve("a/b"));
+        Files.write(source.resolve("small.txt"), TEXT.getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve("empty.txt"), new byte[0]);
+        StringBuilder text = new StringBuilder();
+        for(int i=0;i<200;i++) {
+            text.append(TEXT);
+            if(i == 3) Files.write(source.resolve("a/medium.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(source.resolve("a/b/large.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+
+    /**
+     * This is a utility method that returns the total size of the files of the tree
+     */
+    private static long size(Path source) throws IOException {
+        return Files.size(source.resolve("small.txt")) + Files.size(source.resolve("a/medium.txt")) + Files.size(source.resolve("a/b/large.txt"));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
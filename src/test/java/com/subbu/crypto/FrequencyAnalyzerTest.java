@@ -0,0 +1,47 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.analysis.FrequencyAnalyzer;
+import com.subbu.crypto.analysis.KeyCandidate;
+import com.subbu.crypto.analysis.LetterHistogram;
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the recovery of the Ceaser and Affine keys from the letter frequencies.
+ */
+public class FrequencyAnalyzerTest {
+
+    static final String TEXT = "It was the best of times, it was the worst of times, it was the age of wisdom, it was the age " +
+            "of foolishness, it was the epoch of belief, it was the epoch of incredulity, it was the season of Light, " +
+            "it was the season of Darkness, it was the spring of hope, it was the winter of despair, we had everything " +
+            "before us, we had nothing before us, we were all going direct to Heaven, we were all going direct the other " +
+            "way - in short, the period was so far like the present period, that some of its noisiest authorities " +
+            "insisted on its being received, for good or for evil, in the superlative degree of comparison only.";
+
+    @Test(testName = "testCeaserKeyRecovery", description = "This is a test method to test the recovery of the shift size of the Ceaser cipher", priority = 43)
+    public void testCeaserKeyRecovery() throws Exception {
+        String cipherText = CeaserCipher.getInstance(11).encrypt(TEXT);
+        LetterHistogram histogram = LetterHistogram.of(new ByteArrayInputStream(cipherText.getBytes(StandardCharsets.UTF_8)));
+        List<KeyCandidate> candidates = FrequencyAnalyzer.rankCeaser(histogram, 3);
+        assertEquals(candidates.size(), 3);
+        assertEquals(candidates.get(0).getShiftSize(), 11);
+        assertEquals(candidates.get(0).decrypt(cipherText), TEXT);
+    }
+
+    @Test(testName = "testAffineKeyRecovery", description = "This is a test method to test the recovery of the keys of the Affine cipher", priority = 44)
+    public void testAffineKeyRecovery() {
+        AffineCipher affineCipher = (AffineCipher) AffineCipher.getInstance();
+        String cipherText = affineCipher.encrypt(TEXT);
+        List<KeyCandidate> candidates = FrequencyAnalyzer.rankAffine(LetterHistogram.of(cipherText), 5);
+        assertEquals(candidates.get(0).getKeyA(), affineCipher.getKeyA());
+        assertEquals(candidates.get(0).getKeyB(), affineCipher.getKeyB());
+        assertEquals(candidates.get(0).decrypt(cipherText), TEXT);
+    }
+}
@@ -0,0 +1,71 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies that the in place file methods match the String methods on UTF-8 files.
+ */
+public class InPlaceFileTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle!";
+
+    private static Path file;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        file = Files.createTempFile("in-place", ".txt");
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test(testName = "testEncryptInPlace", description = "This is a test method to test the in place encryption of a file", priority = 16)
+    public void testEncryptInPlace() throws IOException {
+        CryptoService[] services = {AffineCipher.getInstance(), VigenereCipher.getInstance()};
+        for(CryptoService cryptoService : services) {
+            Files.write(file, TEXT.getBytes(StandardCharsets.UTF_8));
+            cryptoService.encryptInPlace(file);
+            assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), cryptoService.encrypt(TEXT));
+            cryptoService.decryptInPlace(file);
+            assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), TEXT);
+        }
+    }
+
+    @Test(testName = "testOneTimePadInPlace", description = "This is a test method to test the in place OneTimePad encryption of a file", priority = 17)
+    public void testOneTimePadInPlace() throws IOException {
+        OneTimePadCipher cryptoService = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        Files.write(file, TEXT.getBytes(StandardCharsets.UTF_8));
+        cryptoService.encryptInPlace(file);
+        assertEquals(cryptoService.getKey().split(",").length, TEXT.length());
+        assertEquals(cryptoService.decrypt(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)), TEXT);
+
+        // A file over 2 GB, sparse so that nothing is written, is rejected before any of it is encrypted
+        Path large = Files.createTempFile("in-place-large", ".txt");
+        try {
+            try(RandomAccessFile _large = new RandomAccessFile(large.toFile(), "rw")) {
+                _large.setLength(Integer.MAX_VALUE + 1L);
+            }
+            String key = cryptoService.getKey();
+            expectThrows(IOException.class, () -> cryptoService.encryptInPlace(large));
+            assertEquals(cryptoService.getKey(), key);
+        } finally {
+            Files.deleteIfExists(large);
+        }
+    }
+}
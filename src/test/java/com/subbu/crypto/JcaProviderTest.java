@@ -0,0 +1,160 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.jca.ClassicalParameterSpec;
+import com.subbu.crypto.jca.SimpleCryptoProvider;
+import com.subbu.crypto.utils.Alphabet;
+import org.testng.annotations.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Provider;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies the classical ciphers used through javax.crypto.Cipher.
+ */
+public class JcaProviderTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle! ";
+
+    private static final Provider PROVIDER = new SimpleCryptoProvider();
+
+    @Test(testName = "testCipher", description = "This is a test method to test the encryption and decryption of every cipher through javax.crypto.Cipher", priority = 57)
+    public void testCipher() throws GeneralSecurityException, IOException {
+        byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+        Object[][] ciphers = {
+                {"Ceaser", new byte[]{3}, CeaserCipher.getInstance(3)},
+                {"Caesar/ECB/NoPadding", new byte[]{3}, CeaserCipher.getInstance(3)},
+                {"ROT13", null, ROT13Cipher.getInstance()},
+                {"Atbash", null, AtbashCipher.getInstance()},
+                {"Affine", new byte[]{5, 8}, AffineCipher.getInstance(5, 8)},
+                {"Vigenere", "LEMON".getBytes(StandardCharsets.UTF_8), VigenereCipher.getInstance("LEMON")}};
+        Random random = new Random(7);
+        for(Object[] cipher : ciphers) {
+            String algorithm = (String) cipher[0];
+            SecretKeySpec key = new SecretKeySpec(cipher[1] == null ? new byte[1] : (byte[]) cipher[1], algorithm);
+            byte[] expected = ((CryptoService) cipher[2]).encryptBytes(text);
+
+            Cipher encryption = Cipher.getInstance(algorithm, PROVIDER);
+            encryption.init(Cipher.ENCRYPT_MODE, key);
+            for(int i=0;i<3;i++) {
+                // The chunks split the multi byte chars, and the cipher is reused once the text has been finished
+                assertEquals(update(encryption, text, random), expected, algorithm);
+            }
+            Cipher decryption = Cipher.getInstance(algorithm, PROVIDER);
+            decryption.init(Cipher.DECRYPT_MODE, key);
+            assertEquals(update(decryption, expected, random), text, algorithm);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try(OutputStream _out = new CipherOutputStream(out, encryption)) {
+                _out.write(text, 0, 10);
+                _out.write(text, 10, text.length - 10);
+            }
+            assertEquals(out.toByteArray(), expected, algorithm);
+            try(InputStream in = new CipherInputStream(new ByteArrayInputStream(expected), decryption)) {
+                assertEquals(read(in), text, algorithm);
+            }
+
+            ByteBuffer src = ByteBuffer.allocateDirect(text.length);
+            src.put(text).flip();
+            ByteBuffer dst = ByteBuffer.allocateDirect(text.length);
+            assertEquals(encryption.doFinal(src, dst), text.length);
+            dst.flip();
+            byte[] actual = new byte[text.length];
+            dst.get(actual);
+            assertEquals(actual, expected, algorithm);
+        }
+
+        OneTimePad pad = OneTimePad.generate(TEXT.length());
+        SecretKeySpec key = new SecretKeySpec(pad.toBytes(), "OneTimePad");
+        Cipher encryption = Cipher.getInstance("OneTimePad", PROVIDER);
+        encryption.init(Cipher.ENCRYPT_MODE, key);
+        byte[] cipherText = update(encryption, text, random);
+        assertEquals(((OneTimePadCipher) OneTimePadCipher.getInstance()).decrypt(new String(cipherText, StandardCharsets.UTF_8), pad), TEXT);
+        expectThrows(IllegalStateException.class, () -> encryption.update(text));
+        Cipher decryption = Cipher.getInstance("OneTimePad", PROVIDER);
+        decryption.init(Cipher.DECRYPT_MODE, key);
+        assertEquals(update(decryption, cipherText, random), text);
+        assertEquals(update(decryption, cipherText, random), text);
+    }
+
+    @Test(testName = "testCipherParameters", description = "This is a test method to test the parameters, the keys and the buffers validated by the ciphers", priority = 58)
+    public void testCipherParameters() throws GeneralSecurityException {
+        String key = "K3y";
+        SecretKeySpec keySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "Vigenere");
+        CryptoService vigenere = VigenereCipher.getInstance(key, Alphabet.ALPHANUMERIC);
+        int split = TEXT.indexOf("中");
+        Cipher cipher = Cipher.getInstance("Vigenere", PROVIDER);
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new ClassicalParameterSpec(Alphabet.ALPHANUMERIC, split));
+        assertEquals(new String(cipher.doFinal(TEXT.substring(split).getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8),
+                vigenere.encrypt(TEXT).substring(split));
+
+        byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+        byte[] inPlace = text.clone();
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec);
+        assertEquals(cipher.doFinal(inPlace, 0, inPlace.length, inPlace, 0), text.length);
+        assertEquals(inPlace, VigenereCipher.getInstance(key).encryptBytes(text));
+        expectThrows(ShortBufferException.class, () -> cipher.doFinal(text, 0, text.length, new byte[text.length - 1], 0));
+
+        expectThrows(InvalidAlgorithmParameterException.class,
+                () -> cipher.init(Cipher.ENCRYPT_MODE, keySpec, new ClassicalParameterSpec(Alphabet.LATIN_1)));
+        expectThrows(NoSuchPaddingException.class, () -> Cipher.getInstance("Vigenere/ECB/PKCS5Padding", PROVIDER));
+        Cipher affine = Cipher.getInstance("Affine", PROVIDER);
+        expectThrows(InvalidKeyException.class, () -> affine.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(new byte[]{13, 1}, "Affine")));
+        expectThrows(InvalidKeyException.class, () -> affine.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(new byte[]{5}, "Affine")));
+        Cipher oneTimePad = Cipher.getInstance("OneTimePad", PROVIDER);
+        expectThrows(InvalidKeyException.class, () -> oneTimePad.init(Cipher.ENCRYPT_MODE, keySpec));
+        oneTimePad.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(OneTimePad.generate(4).toBytes(), "OneTimePad"));
+        expectThrows(IllegalStateException.class, () -> oneTimePad.doFinal(text));
+    }
+
+    /**
+     * This is a utility method that transforms the bytes in chunks of random sizes
+     */
+    private static byte[] update(Cipher cipher, byte[] input, Random random) throws GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int off = 0;
+        while(off < input.length) {
+            int len = Math.min(input.length - off, 1 + random.nextInt(5));
+            byte[] output = cipher.update(input, off, len);
+            out.write(output, 0, output.length);
+            off += len;
+        }
+        byte[] output = cipher.doFinal();
+        out.write(output, 0, output.length);
+        return out.toByteArray();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        for(int read; (read = in.read(buffer)) >= 0;) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.metrics.CipherMetrics;
+import com.subbu.crypto.metrics.LatencyHistogram;
+import com.subbu.crypto.metrics.MeteredCryptoService;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * This test verifies the metrics and the MXBean of the metered ciphers.
+ */
+public class MeteredCryptoServiceTest {
+
+    @Test(testName = "testLatencyHistogram", description = "This is a test method to test the percentiles of the latency histogram", priority = 30)
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i=1;i<=1000;i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(histogram.getCount(), 1000);
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 1.125, "p50 " + p50);
+        assertTrue(p99 >= 990000 && p99 <= 990000 * 1.125, "p99 " + p99);
+        assertTrue(histogram.getPercentile(0.999) >= p99);
+    }
+
+    @Test(testName = "testMetricsAndMXBean", description = "This is a test method to test the counters and their MXBean", priority = 31)
+    public void testMetricsAndMXBean() throws Exception {
+        MeteredCryptoService cryptoService = new MeteredCryptoService(CeaserCipher.getInstance(3), "MeteredCeaser");
+        assertEquals(cryptoService.decrypt(cryptoService.encrypt("Defend the east wall")), "Defend the east wall");
+        try {
+            cryptoService.encrypt(new char[4], 0, new char[2], 0, 4);
+            fail("The destination is too small");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        CipherMetrics metrics = cryptoService.getMetrics();
+        assertEquals(metrics.getEncryptCount(), 2);
+        assertEquals(metrics.getDecryptCount(), 1);
+        assertEquals(metrics.getCharacterCount(), 40);
+        assertEquals(metrics.getErrorCount(), 1);
+        assertEquals(metrics.getLatencies(true, CipherMetrics.sizeBucketOf(20)).getCount(), 1);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(server.getAttribute(CipherMetrics.getObjectName("MeteredCeaser"), "ErrorCount"), 1L);
+        TabularData p99 = (TabularData) server.getAttribute(CipherMetrics.getObjectName("MeteredCeaser"), "EncryptP99Nanos");
+        CompositeData row = p99.get(new Object[]{"<=64"});
+        assertTrue((Long) row.get("value") > 0);
+    }
+}
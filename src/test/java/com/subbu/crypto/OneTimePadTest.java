@@ -0,0 +1,91 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.OneTimePadResult;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies the formats of the OneTimePad key and the concurrent use of the cipher.
+ */
+public class OneTimePadTest {
+
+    @Test(testName = "testCommaFormat", description = "This is a test method to test the comma separated format of the key", priority = 26)
+    public void testCommaFormat() {
+        OneTimePad pad = OneTimePad.parse("3,17,25,1");
+        assertEquals(pad.length(), 4);
+        assertEquals(pad.getShift(1), 17);
+        assertEquals(pad.toString(), "3,17,25,1");
+    }
+
+    @Test(testName = "testBinaryFormat", description = "This is a test method to test the binary format of the key", priority = 27)
+    public void testBinaryFormat() throws IOException {
+        OneTimePad pad = OneTimePad.generate(200000);
+        OneTimePad copy = OneTimePad.fromBytes(pad.toBytes());
+        assertEquals(copy.length(), 200000);
+        assertEquals(copy.toString(), pad.toString());
+        assertEquals(OneTimePad.read(new ByteArrayInputStream(pad.toBytes())).toString(), pad.toString());
+
+        // A header claiming far more shift sizes than the stream has fails without allocating them
+        byte[] header = Arrays.copyOf(pad.toBytes(), 16);
+        ByteBuffer.wrap(header).putInt(4, Integer.MAX_VALUE);
+        expectThrows(EOFException.class, () -> OneTimePad.read(new ByteArrayInputStream(header)));
+        expectThrows(IOException.class, () -> OneTimePad.read(new ByteArrayInputStream(pad.toBytes()), 199999));
+    }
+
+    @Test(testName = "testMappedPadFile", description = "This is a test method to test the decryption with a memory mapped pad file", priority = 28)
+    public void testMappedPadFile() throws IOException {
+        OneTimePadCipher cryptoService = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        String cipherText = cryptoService.encrypt("Defend the east wall of the castle");
+        Path file = Files.createTempFile("one-time", ".pad");
+        try {
+            cryptoService.getPad().write(file);
+            String key = cryptoService.getKey();
+            cryptoService.setPad(OneTimePad.map(file));
+            assertEquals(cryptoService.getKey(), key);
+            assertEquals(cryptoService.decrypt(cipherText), "Defend the east wall of the castle");
+            cryptoService.setKey(key);
+            assertEquals(cryptoService.decrypt(cipherText), "Defend the east wall of the castle");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(testName = "testConcurrentSessions", description = "This is a test method to test concurrent encryptions and decryptions with their own pads", priority = 29)
+    public void testConcurrentSessions() throws Exception {
+        OneTimePadCipher cryptoService = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for(int i=0;i<16;i++) {
+                String plainText = "Message number " + i + " from the east wall";
+                futures.add(executor.submit(() -> {
+                    OneTimePadResult result = cryptoService.encryptWithPad(plainText);
+                    assertEquals(result.getPad().length(), plainText.length());
+                    return cryptoService.decrypt(result.getCipherText(), result.getPad());
+                }));
+            }
+            for(int i=0;i<16;i++) {
+                assertEquals(futures.get(i).get(), "Message number " + i + " from the east wall");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
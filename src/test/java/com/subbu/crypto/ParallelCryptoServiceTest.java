@@ -0,0 +1,63 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.OneTimePadResult;
+import com.subbu.crypto.impl.ParallelCryptoService;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * This test verifies that the parallel encryption matches the sequential encryption.
+ */
+public class ParallelCryptoServiceTest {
+
+    private static final int THRESHOLD = 1000;
+
+    private static ForkJoinPool pool;
+
+    private static String text;
+
+    @BeforeClass
+    public static void setup() {
+        pool = new ForkJoinPool(4);
+        StringBuilder builder = new StringBuilder();
+        while(builder.length() < THRESHOLD * 5) {
+            builder.append("Defend the east wall of the castle, später! ");
+        }
+        text = builder.toString();
+    }
+
+    @Test(testName = "testParallelEncryption", description = "This is a test method to test the parallel encryption against the sequential encryption", priority = 18)
+    public void testParallelEncryption() {
+        CryptoService[] services = {AffineCipher.getInstance(), VigenereCipher.getInstance()};
+        for(CryptoService cryptoService : services) {
+            CryptoService parallel = new ParallelCryptoService(cryptoService, pool, THRESHOLD);
+            String cipherText = parallel.encrypt(text);
+            assertEquals(cipherText, cryptoService.encrypt(text));
+            assertEquals(parallel.decrypt(cipherText), text);
+        }
+    }
+
+    @Test(testName = "testParallelOneTimePad", description = "This is a test method to test the parallel OneTimePad encryption", priority = 19)
+    public void testParallelOneTimePad() {
+        CryptoService cryptoService = OneTimePadCipher.getInstance();
+        CryptoService parallel = new ParallelCryptoService(cryptoService, pool, THRESHOLD);
+        String cipherText = parallel.encrypt(text);
+        assertEquals(cryptoService.decrypt(cipherText), text);
+        assertEquals(parallel.decrypt(cipherText), text);
+
+        ParallelCryptoService explicit = new ParallelCryptoService(cryptoService, pool, THRESHOLD);
+        OneTimePadResult result = explicit.encryptWithPad(text);
+        assertEquals(result.getPad().length(), text.length());
+        assertEquals(((OneTimePadCipher) cryptoService).decrypt(result.getCipherText(), result.getPad()), text);
+        assertEquals(explicit.decrypt(result.getCipherText(), result.getPad()), text);
+        expectThrows(UnsupportedOperationException.class, () -> new ParallelCryptoService(VigenereCipher.getInstance(), pool, THRESHOLD).encryptWithPad(text));
+    }
+}
@@ -0,0 +1,102 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.utils.ShiftEngines;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the vector and SWAR shift engines against the scalar substitution tables on random inputs.
+ */
+public class ShiftEngineTest {
+
+    @Test(testName = "testShiftCiphers", description = "This is a test method to test the vector engine of the shift ciphers against the scalar tables", priority = 38)
+    public void testShiftCiphers() {
+        if(!ShiftEngines.isVectorAvailable()) throw new SkipException("The vector engine is not available");
+        Random random = new Random(42);
+        for(int shiftSize=0;shiftSize<=26;shiftSize++) {
+            verify("vector", CeaserCipher.getInstance(shiftSize), randomBytes(random, random.nextInt(300)));
+        }
+        for(int i=0;i<20;i++) {
+            verify("vector", ROT13Cipher.getInstance(), randomBytes(random, random.nextInt(1000)));
+            verify("vector", AtbashCipher.getInstance(), randomBytes(random, random.nextInt(1000)));
+        }
+    }
+
+    @Test(testName = "testVigenereCipher", description = "This is a test method to test the vector engine of the Vigenere cipher against the scalar path", priority = 39)
+    public void testVigenereCipher() {
+        if(!ShiftEngines.isVectorAvailable()) throw new SkipException("The vector engine is not available");
+        Random random = new Random(7);
+        String[] keys = {"b", "aEiOu", "LEMON", "thequickbrownfoxjumpsoverthelazydogagain-and-again"};
+        for(String key : keys) {
+            verify("vector", VigenereCipher.getInstance(key), randomBytes(random, 200 + random.nextInt(200)));
+        }
+    }
+
+    @Test(testName = "testSwarEngine", description = "This is a test method to test the SWAR engine of the shift ciphers against the scalar tables", priority = 40)
+    public void testSwarEngine() {
+        Random random = new Random(11);
+        for(int shiftSize=0;shiftSize<=26;shiftSize++) {
+            verify("swar", CeaserCipher.getInstance(shiftSize), randomBytes(random, random.nextInt(300)));
+        }
+        for(int i=0;i<20;i++) {
+            verify("swar", ROT13Cipher.getInstance(), randomBytes(random, random.nextInt(1000)));
+            verify("swar", AtbashCipher.getInstance(), randomBytes(random, random.nextInt(1000)));
+        }
+        String[] keys = {"b", "aEiOu", "LEMON", "thequickbrownfoxjumpsoverthelazydogagain-and-again"};
+        for(String key : keys) {
+            verify("swar", VigenereCipher.getInstance(key), randomBytes(random, 200 + random.nextInt(200)));
+        }
+        byte[] ascii = new byte[128];
+        for(int i=0;i<ascii.length;i++) {
+            ascii[i] = (byte) i;
+        }
+        for(int shiftSize=0;shiftSize<=26;shiftSize++) {
+            verify("swar", CeaserCipher.getInstance(shiftSize), ascii);
+        }
+    }
+
+    /**
+     * This is a utility method that compares the encryption and decryption of the bytes by the engine with
+     * the scalar one
+     */
+    private static void verify(String engine, CryptoService cryptoService, byte[] plainText) {
+        try {
+            ShiftEngines.select("scalar");
+            byte[] expected = cryptoService.encryptBytes(plainText);
+            ShiftEngines.select(engine);
+            byte[] cipherText = cryptoService.encryptBytes(plainText);
+            assertEquals(cipherText, expected);
+            assertEquals(cryptoService.decryptBytes(cipherText), plainText);
+        } finally {
+            ShiftEngines.select("auto");
+        }
+    }
+
+    /**
+     * This is a utility method that returns mostly ASCII letters with some punctuation and non-ASCII bytes
+     */
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        for(int i=0;i<length;i++) {
+            int kind = random.nextInt(10);
+            if(kind < 4) {
+                bytes[i] = (byte) ('a' + random.nextInt(26));
+            } else if(kind < 8) {
+                bytes[i] = (byte) ('A' + random.nextInt(26));
+            } else if(kind < 9) {
+                bytes[i] = (byte) random.nextInt(128);
+            } else {
+                bytes[i] = (byte) (0x80 + random.nextInt(128));
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.AbstractCryptoService;
+import com.subbu.crypto.impl.AffineCipher;
+import com.subbu.crypto.impl.AtbashCipher;
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.ROT13Cipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies that the streaming methods match the String methods across chunk boundaries.
+ */
+public class StreamingCryptoServiceTest {
+
+    private static String text;
+
+    @BeforeClass
+    public static void setup() {
+        StringBuilder builder = new StringBuilder();
+        while(builder.length() <= AbstractCryptoService.CHUNK_SIZE) {
+            builder.append("Defend the east wall of the castle, später 中文! ");
+        }
+        text = builder.toString();
+    }
+
+    @Test(testName = "testReaderWriter", description = "This is a test method to test the streaming encryption with a Reader and a Writer", priority = 14)
+    public void testReaderWriter() throws IOException {
+        CryptoService[] services = {CeaserCipher.getInstance(), ROT13Cipher.getInstance(), AtbashCipher.getInstance(),
+                AffineCipher.getInstance(), VigenereCipher.getInstance()};
+        for(CryptoService cryptoService : services) {
+            StringWriter cipherText = new StringWriter();
+            cryptoService.encrypt(new StringReader(text), cipherText);
+            assertEquals(cipherText.toString(), cryptoService.encrypt(text));
+            StringWriter plainText = new StringWriter();
+            cryptoService.decrypt(new StringReader(cipherText.toString()), plainText);
+            assertEquals(plainText.toString(), text);
+        }
+    }
+
+    @Test(testName = "testInputOutputStream", description = "This is a test method to test the streaming OneTimePad encryption with byte streams", priority = 15)
+    public void testInputOutputStream() throws IOException {
+        OneTimePadCipher cryptoService = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        cryptoService.encrypt(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), cipherText);
+        assertEquals(cryptoService.getKey().split(",").length, text.length());
+        ByteArrayOutputStream plainText = new ByteArrayOutputStream();
+        cryptoService.decrypt(new ByteArrayInputStream(cipherText.toByteArray()), plainText);
+        assertEquals(new String(plainText.toByteArray(), StandardCharsets.UTF_8), text);
+    }
+}
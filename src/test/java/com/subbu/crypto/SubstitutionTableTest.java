@@ -0,0 +1,33 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.utils.CryptoUtils;
+import com.subbu.crypto.utils.SubstitutionTable;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the precomputed substitution tables against the per-character roll functions.
+ */
+public class SubstitutionTableTest {
+
+    private static final String SAMPLE = "Defend the EAST wall of the castle! 0-9 éè 中文 [`{@";
+
+    @Test(testName = "testTableMatchesRoll", description = "This is a test method to test the tables against CryptoUtils for every shift", priority = 13)
+    public void testTableMatchesRoll() {
+        char[] plainText = SAMPLE.toCharArray();
+        for(int shift = 0; shift < 26; shift++) {
+            final int shiftSize = shift;
+            SubstitutionTable table = SubstitutionTable.of(
+                    _char -> CryptoUtils.rollCharacters(_char, shiftSize),
+                    _char -> CryptoUtils.unRollCharacters(_char, shiftSize));
+            char[] cipherText = new char[plainText.length];
+            table.encrypt(plainText, 0, cipherText, 0, plainText.length);
+            for(int i=0;i<plainText.length;i++) {
+                assertEquals(cipherText[i], CryptoUtils.rollCharacters(plainText[i], shiftSize));
+            }
+            table.decrypt(cipherText, 0, cipherText, 0, cipherText.length);
+            assertEquals(String.valueOf(cipherText), SAMPLE);
+        }
+    }
+}
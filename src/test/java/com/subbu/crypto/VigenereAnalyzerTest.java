@@ -0,0 +1,54 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.analysis.VigenereAnalyzer;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the recovery of the keys of the Vigenere cipher.
+ */
+public class VigenereAnalyzerTest {
+
+    private static final String TEXT = FrequencyAnalyzerTest.TEXT + " Four score and seven years ago our fathers brought " +
+            "forth on this continent, a new nation, conceived in Liberty, and dedicated to the proposition that all men " +
+            "are created equal. Now we are engaged in a great civil war, testing whether that nation, or any nation so " +
+            "conceived and so dedicated, can long endure. We are met on a great battle-field of that war. We have come " +
+            "to dedicate a portion of that field, as a final resting place for those who here gave their lives that " +
+            "that nation might live. It is altogether fitting and proper that we should do this. But, in a larger " +
+            "sense, we can not dedicate - we can not consecrate - we can not hallow - this ground. The brave men, " +
+            "living and dead, who struggled here, have consecrated it, far above our poor power to add or detract. " +
+            "The world will little note, nor long remember what we say here, but it can never forget what they did " +
+            "here. It is for us the living, rather, to be dedicated here to the unfinished work which they who fought " +
+            "here have thus far so nobly advanced. It is rather for us to be here dedicated to the great task " +
+            "remaining before us - that from these honored dead we take increased devotion to that cause for which " +
+            "they gave the last full measure of devotion - that we here highly resolve that these dead shall not have " +
+            "died in vain - that this nation, under God, shall have a new birth of freedom - and that government of " +
+            "the people, by the people, for the people, shall not perish from the earth.";
+
+    @Test(testName = "testKeyRecovery", description = "This is a test method to test the recovery of the key of the Vigenere cipher", priority = 45)
+    public void testKeyRecovery() {
+        byte[] cipherText = VigenereCipher.getInstance("LEMON").encryptBytes(TEXT.getBytes(StandardCharsets.UTF_8));
+        VigenereAnalyzer analyzer = new VigenereAnalyzer(VigenereAnalyzer.DEFAULT_MAX_PERIOD);
+        analyzer.add(cipherText, 0, 1000);
+        analyzer.add(cipherText, 1000, cipherText.length - 1000);
+        assertEquals(analyzer.getPeriods(3).get(0), Integer.valueOf(5));
+        String key = analyzer.recoverKeys(1).get(0);
+        assertEquals(key, "lemon");
+        assertEquals(new String(VigenereCipher.getInstance(key).decryptBytes(cipherText), StandardCharsets.UTF_8), TEXT);
+    }
+
+    @Test(testName = "testParallelKeyRecovery", description = "This is a test method to test the recovery of the key from a stream counted in parallel", priority = 46)
+    public void testParallelKeyRecovery() throws Exception {
+        String text = "Später, " + TEXT + " 😀";
+        byte[] cipherText = VigenereCipher.getInstance("thequickfox").encryptBytes(text.getBytes(StandardCharsets.UTF_8));
+        VigenereAnalyzer analyzer = VigenereAnalyzer.of(new ByteArrayInputStream(cipherText), 20, ForkJoinPool.commonPool(), 333);
+        assertEquals(analyzer.getCharCount(), text.length());
+        assertEquals(analyzer.recoverKeys(1).get(0), "thequickfox");
+    }
+}
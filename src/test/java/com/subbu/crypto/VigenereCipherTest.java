@@ -1,6 +1,7 @@
 package com.subbu.crypto;
 
 import com.subbu.crypto.impl.VigenereCipher;
+import com.subbu.crypto.utils.CryptoUtils;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -34,4 +35,26 @@ public class VigenereCipherTest {
         plainText = cryptoService.decrypt(cipherText);
         assertEquals(plainText, "Subbu");
     }
+
+    @Test(testName = "testLongText", description = "This is a test method to test the Vigenere Cipher on texts many times longer than the key and at key offsets", priority = 47)
+    public void testLongText() {
+        String key = "gArBlEd";
+        StringBuilder text = new StringBuilder();
+        for(int i=0;i<2000;i++) {
+            text.append((char) (i % 7 == 0 ? ' ' : 'A' + (i * 31) % 58));
+        }
+        String plainText = text.toString();
+        StringBuilder expected = new StringBuilder();
+        for(int i=0;i<plainText.length();i++) {
+            expected.append(CryptoUtils.rollCharacters(plainText.charAt(i), CryptoUtils.getAlphaPos(key.charAt(i % key.length()))));
+        }
+        VigenereCipher vigenereCipher = (VigenereCipher) VigenereCipher.getInstance(key);
+        String cipherText = vigenereCipher.encrypt(plainText);
+        assertEquals(cipherText, expected.toString());
+        assertEquals(vigenereCipher.decrypt(cipherText), plainText);
+        for(int offset : new int[]{1, 6, 7, 1000, 1999}) {
+            assertEquals(vigenereCipher.encrypt(plainText.substring(offset), offset), cipherText.substring(offset));
+            assertEquals(vigenereCipher.decrypt(cipherText.substring(offset), offset), plainText.substring(offset));
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.CryptoProcessor;
+import com.subbu.crypto.impl.OneTimePad;
+import com.subbu.crypto.impl.OneTimePadCipher;
+import com.subbu.crypto.impl.VigenereCipher;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the Flow based encryption, only compiled on Java 17 or later.
+ */
+public class CryptoProcessorTest {
+
+    private static final String TEXT = "Defend the east wall, später 中文 😀 of the castle!";
+
+    @Test(testName = "testProcessor", description = "This is a test method to test the encryption of a stream of chunks split within characters", priority = 36)
+    public void testProcessor() throws Exception {
+        CryptoService cryptoService = VigenereCipher.getInstance();
+        byte[] cipherText = process(new CryptoProcessor(cryptoService, true), TEXT.getBytes(StandardCharsets.UTF_8));
+        assertEquals(new String(cipherText, StandardCharsets.UTF_8), cryptoService.encrypt(TEXT));
+        byte[] plainText = process(new CryptoProcessor(cryptoService, false), cipherText);
+        assertEquals(new String(plainText, StandardCharsets.UTF_8), TEXT);
+
+        OneTimePadCipher oneTimePad = (OneTimePadCipher) OneTimePadCipher.getInstance();
+        AtomicReference<OneTimePad> pad = new AtomicReference<OneTimePad>();
+        cipherText = process(CryptoProcessor.newEncryptProcessor(pad::set), TEXT.getBytes(StandardCharsets.UTF_8));
+        assertEquals(oneTimePad.decrypt(new String(cipherText, StandardCharsets.UTF_8), pad.get()), TEXT);
+        plainText = process(CryptoProcessor.newDecryptProcessor(pad.get()), cipherText);
+        assertEquals(new String(plainText, StandardCharsets.UTF_8), TEXT);
+    }
+
+    /**
+     * This is a utility method that publishes the bytes in chunks of 5 through the processor to a subscriber
+     * requesting one chunk at a time
+     */
+    private static byte[] process(CryptoProcessor processor, byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<byte[]> result = new CompletableFuture<byte[]>();
+        processor.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            private Flow.Subscription subscription;
+
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            public void onNext(ByteBuffer chunk) {
+                out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                subscription.request(1);
+            }
+
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            public void onComplete() {
+                result.complete(out.toByteArray());
+            }
+        });
+        try(SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(processor);
+            for(int i=0;i<bytes.length;i+=5) {
+                publisher.submit(ByteBuffer.wrap(bytes, i, Math.min(5, bytes.length - i)));
+            }
+        }
+        return result.get(10, TimeUnit.SECONDS);
+    }
+}
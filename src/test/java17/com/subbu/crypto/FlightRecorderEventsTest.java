@@ -0,0 +1,40 @@
+package com.subbu.crypto;
+
+import com.subbu.crypto.impl.CeaserCipher;
+import com.subbu.crypto.metrics.MeteredCryptoService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * This test verifies the Flight Recorder events of the metered ciphers, only compiled on Java 17 or later.
+ */
+public class FlightRecorderEventsTest {
+
+    @Test(testName = "testFlightRecorderEvents", description = "This is a test method to test the Flight Recorder events", priority = 32)
+    public void testFlightRecorderEvents() throws Exception {
+        MeteredCryptoService cryptoService = new MeteredCryptoService(CeaserCipher.getInstance(5), "RecordedCeaser");
+        Path file = Files.createTempFile("ciphers", ".jfr");
+        try(Recording recording = new Recording()) {
+            recording.enable("com.subbu.crypto.Encrypt");
+            recording.enable("com.subbu.crypto.Decrypt");
+            recording.start();
+            cryptoService.decrypt(cryptoService.encrypt("Defend the east wall"));
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(events.size(), 2);
+            assertEquals(events.get(0).getString("cipher"), "RecordedCeaser");
+            assertEquals(events.get(0).getLong("size"), 20);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}